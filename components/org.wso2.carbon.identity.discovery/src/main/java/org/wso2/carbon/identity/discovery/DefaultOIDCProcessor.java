@@ -62,6 +62,15 @@ public class DefaultOIDCProcessor implements OIDCProcessor {
         return responseBuilder.buildOIDProviderConfig(requestObject);
     }
 
+    @Override
+    public String getResponseVersion(HttpServletRequest request, String tenantDomain) throws
+            OIDCDiscoveryEndPointException, ServerConfigurationException {
+
+        OIDCProviderRequestBuilder requestBuilder = new DefaultOIDCProviderRequestBuilder();
+        OIDProviderRequest requestObject = requestBuilder.buildRequest(request, tenantDomain);
+        return new ProviderConfigBuilder().getOIDProviderConfigVersion(requestObject);
+    }
+
     public int handleError(OIDCDiscoveryEndPointException error) {
 
         if (log.isDebugEnabled()) {
@@ -33,4 +33,20 @@ public interface OIDCProcessor {
             OIDCDiscoveryEndPointException, ServerConfigurationException;
 
     int handleError(OIDCDiscoveryEndPointException error);
+
+    /**
+     * Get the version of the response for the tenant, so that the serialized response can be cached until the
+     * version changes.
+     *
+     * @param request      Discovery request.
+     * @param tenantDomain Tenant domain.
+     * @return Version of the response, or null if the response should not be cached.
+     * @throws OIDCDiscoveryEndPointException When the request is invalid.
+     * @throws ServerConfigurationException   When the version could not be computed.
+     */
+    default String getResponseVersion(HttpServletRequest request, String tenantDomain) throws
+            OIDCDiscoveryEndPointException, ServerConfigurationException {
+
+        return null;
+    }
 }
@@ -34,6 +34,10 @@ import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Set;
 
@@ -49,21 +53,14 @@ public class ProviderConfigBuilder {
 
     private static final Log log = LogFactory.getLog(ProviderConfigBuilder.class);
     private static final String OIDC_CLAIM_DIALECT = "http://wso2.org/oidc/claim";
+    private static final String VERSION_SEPARATOR = "\n";
+    private static final String VERSION_DIGEST_ALGORITHM = "SHA-256";
 
     public OIDProviderConfigResponse buildOIDProviderConfig(OIDProviderRequest request) throws
             OIDCDiscoveryEndPointException, ServerConfigurationException {
         OIDProviderConfigResponse providerConfig = new OIDProviderConfigResponse();
         String tenantDomain = request.getTenantDomain();
-        if (isUseEntityIdAsIssuerInOidcDiscovery()) {
-            try {
-                providerConfig.setIssuer(OAuth2Util.getIdTokenIssuer(tenantDomain));
-            } catch (IdentityOAuth2Exception e) {
-                throw new ServerConfigurationException(String.format("Error while retrieving OIDC Id token issuer " +
-                        "value for tenant domain: %s", tenantDomain), e);
-            }
-        } else {
-            providerConfig.setIssuer(OAuth2Util.getIDTokenIssuer());
-        }
+        providerConfig.setIssuer(getIssuer(tenantDomain));
         providerConfig.setAuthorizationEndpoint(OAuth2Util.OAuthURL.getOAuth2AuthzEPUrl());
         providerConfig.setTokenEndpoint(OAuth2Util.OAuthURL.getOAuth2TokenEPUrl());
         providerConfig.setUserinfoEndpoint(OAuth2Util.OAuthURL.getOAuth2UserInfoEPUrl());
@@ -84,20 +81,7 @@ public class ProviderConfigBuilder {
         }
         List<String> scopes = OAuth2Util.getOIDCScopes(tenantDomain);
         providerConfig.setScopesSupported(scopes.toArray(new String[scopes.size()]));
-        try {
-            List<ExternalClaim> claims = OIDCDiscoveryDataHolder.getInstance().getClaimManagementService()
-                    .getExternalClaims(OIDC_CLAIM_DIALECT, tenantDomain);
-            String[] claimArray = new String[claims.size() + 2];
-            int i;
-            for (i = 0; i < claims.size(); i++) {
-                claimArray[i] = claims.get(i).getClaimURI();
-            }
-            claimArray[i++] = "iss";
-            claimArray[i] = "acr";
-            providerConfig.setClaimsSupported(claimArray);
-        } catch (ClaimMetadataException e) {
-            throw new ServerConfigurationException("Error while retrieving OIDC claim dialect", e);
-        }
+        providerConfig.setClaimsSupported(getClaimsSupported(tenantDomain));
         try {
             providerConfig.setIdTokenSigningAlgValuesSupported(new String[]{
                 OAuth2Util.mapSignatureAlgorithmForJWSAlgorithm
@@ -138,4 +122,65 @@ public class ProviderConfigBuilder {
 
         return providerConfig;
     }
+
+    /**
+     * Compute the version of the provider configuration of a tenant. Apart from the server configuration, which
+     * changes only on a restart, the configuration depends on the issuer, the OIDC scopes and the claims of the OIDC
+     * claim dialect of the tenant, which can be changed at runtime. All of them are served from caches.
+     *
+     * @param request OpenID provider request.
+     * @return Version of the configuration, which changes whenever one of its runtime inputs changes.
+     * @throws ServerConfigurationException When the issuer or the claims could not be retrieved.
+     */
+    public String getOIDProviderConfigVersion(OIDProviderRequest request) throws ServerConfigurationException {
+
+        String tenantDomain = request.getTenantDomain();
+        StringBuilder version = new StringBuilder(getIssuer(tenantDomain));
+        for (String scope : OAuth2Util.getOIDCScopes(tenantDomain)) {
+            version.append(VERSION_SEPARATOR).append(scope);
+        }
+        version.append(VERSION_SEPARATOR);
+        for (String claim : getClaimsSupported(tenantDomain)) {
+            version.append(VERSION_SEPARATOR).append(claim);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance(VERSION_DIGEST_ALGORITHM)
+                    .digest(version.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new ServerConfigurationException("Error while computing the version of the OIDC provider " +
+                    "configuration of tenant domain: " + tenantDomain, e);
+        }
+    }
+
+    private String getIssuer(String tenantDomain) throws ServerConfigurationException {
+
+        if (isUseEntityIdAsIssuerInOidcDiscovery()) {
+            try {
+                return OAuth2Util.getIdTokenIssuer(tenantDomain);
+            } catch (IdentityOAuth2Exception e) {
+                throw new ServerConfigurationException(String.format("Error while retrieving OIDC Id token issuer " +
+                        "value for tenant domain: %s", tenantDomain), e);
+            }
+        }
+        return OAuth2Util.getIDTokenIssuer();
+    }
+
+    private String[] getClaimsSupported(String tenantDomain) throws ServerConfigurationException {
+
+        try {
+            List<ExternalClaim> claims = OIDCDiscoveryDataHolder.getInstance().getClaimManagementService()
+                    .getExternalClaims(OIDC_CLAIM_DIALECT, tenantDomain);
+            String[] claimArray = new String[claims.size() + 2];
+            int i;
+            for (i = 0; i < claims.size(); i++) {
+                claimArray[i] = claims.get(i).getClaimURI();
+            }
+            claimArray[i++] = "iss";
+            claimArray[i] = "acr";
+            return claimArray;
+        } catch (ClaimMetadataException e) {
+            throw new ServerConfigurationException("Error while retrieving OIDC claim dialect", e);
+        }
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.carbon.identity.oauth2.util.AllowedScopeMatcher;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks matching the scopes of a token against the allowed scopes of the token validation, with the
+ * {@link AllowedScopeMatcher} and with matching each allowed scope as a regex.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AllowedScopeMatcherBenchmark {
+
+    private static final List<String> ALLOWED_SCOPES = Arrays.asList("openid", "device_.*", "internal_.*", "SYSTEM");
+    private static final String[] SCOPES = {"openid", "device_01", "internal_login", "SYSTEM", "profilexread",
+            "api_write", "email", "api_delete", "internal", "openid2", "DEVICE_01"};
+
+    private AllowedScopeMatcher matcher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        matcher = new AllowedScopeMatcher(ALLOWED_SCOPES);
+    }
+
+    @Benchmark
+    public void matcher(Blackhole blackhole) {
+
+        for (String scope : SCOPES) {
+            blackhole.consume(matcher.matches(scope));
+        }
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+
+        for (String scope : SCOPES) {
+            boolean matches = false;
+            for (String allowedScope : ALLOWED_SCOPES) {
+                if (scope.matches(allowedScope)) {
+                    matches = true;
+                    break;
+                }
+            }
+            blackhole.consume(matches);
+        }
+    }
+}
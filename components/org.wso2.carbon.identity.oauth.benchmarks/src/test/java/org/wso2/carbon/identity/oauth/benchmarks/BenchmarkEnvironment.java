@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.benchmarks;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.h2.tools.RunScript;
+import org.wso2.carbon.base.CarbonBaseConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.LocalAndOutboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.application.common.model.ServiceProviderProperty;
+import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
+import org.wso2.carbon.identity.core.persistence.JDBCPersistenceManager;
+import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenReqDTO;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.keyidprovider.DefaultKeyIDProviderImpl;
+import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.openidconnect.OpenIDConnectClaimFilterImpl;
+import org.wso2.carbon.identity.openidconnect.RequestObjectService;
+import org.wso2.carbon.identity.openidconnect.internal.OpenIDConnectServiceComponentHolder;
+import org.wso2.carbon.registry.core.service.RegistryService;
+import org.wso2.carbon.user.api.RealmConfiguration;
+import org.wso2.carbon.user.core.UserRealm;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.tenant.TenantManager;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sets up the minimum runtime needed to exercise the OAuth hot paths outside an OSGi container.
+ * <p>
+ * The carbon home is a directory holding the identity.xml, carbon.xml and key stores used by the benchmarks, taken
+ * from the 'carbon.home' system property or from target/test-classes of this module, where the build copies them
+ * from the test resources of the OAuth component. The identity database is an in-memory H2 database loaded with the
+ * identity schema and the benchmark application and token, the user store and the registry are stubs, and the
+ * signing keys of the super tenant are loaded from the key store in the carbon home.
+ */
+public final class BenchmarkEnvironment {
+
+    public static final String CLIENT_ID = "benchmarkClientId";
+    public static final String CLIENT_SECRET = "benchmarkClientSecret";
+    public static final String ACCESS_TOKEN = "benchmarkAccessToken";
+    public static final String APPLICATION_NAME = "benchmarkApp";
+    public static final String USER_NAME = "admin";
+    public static final String USER_ID = "4b4414e1-916b-4475-aaee-6b0751c29ff6";
+    public static final String USER_STORE_DOMAIN = "PRIMARY";
+    public static final String CALLBACK_URL = "http://localhost:8080/redirect";
+
+    private static final String DEFAULT_CARBON_HOME = "target/test-classes";
+    private static final String DB_URL = "jdbc:h2:mem:oauth_benchmark;DB_CLOSE_DELAY=-1";
+    private static final String[] DB_SCRIPTS = {"dbScripts/identity.sql", "dbScripts/benchmark-data.sql"};
+    private static final String KEY_STORE_PATH = "repository/resources/security/wso2carbon.jks";
+    private static final String KEY_STORE_PASSWORD = "wso2carbon";
+    private static final String KEY_ALIAS = "wso2carbon";
+
+    private static volatile boolean initialized;
+
+    private BenchmarkEnvironment() {
+
+    }
+
+    /**
+     * Initialize the shared runtime once per JVM and start a super tenant flow on the calling thread. Since the
+     * carbon context is thread local, this must be called from the setup of a {@code Scope.Thread} state.
+     *
+     * @throws Exception When the runtime could not be initialized.
+     */
+    public static void setUp() throws Exception {
+
+        initialize();
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setUsername(USER_NAME);
+    }
+
+    /**
+     * End the tenant flow started by {@link #setUp()} on the calling thread.
+     */
+    public static void tearDown() {
+
+        PrivilegedCarbonContext.endTenantFlow();
+    }
+
+    /**
+     * Build a password grant token request context of the benchmark application for the given scopes.
+     *
+     * @param scopes Requested scopes.
+     * @return Token request message context.
+     */
+    public static OAuthTokenReqMessageContext createTokenReqMessageContext(String[] scopes) {
+
+        OAuth2AccessTokenReqDTO tokenReqDTO = new OAuth2AccessTokenReqDTO();
+        tokenReqDTO.setClientId(CLIENT_ID);
+        tokenReqDTO.setClientSecret(CLIENT_SECRET);
+        tokenReqDTO.setGrantType("password");
+        tokenReqDTO.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        tokenReqDTO.setCallbackURI(CALLBACK_URL);
+        tokenReqDTO.setScope(scopes);
+
+        OAuthTokenReqMessageContext tokReqMsgCtx = new OAuthTokenReqMessageContext(tokenReqDTO);
+        tokReqMsgCtx.setAuthorizedUser(createAuthenticatedUser());
+        tokReqMsgCtx.setScope(scopes);
+        tokReqMsgCtx.setValidityPeriod(3600000L);
+        return tokReqMsgCtx;
+    }
+
+    /**
+     * @return Local user of the super tenant the benchmark tokens are issued to.
+     */
+    public static AuthenticatedUser createAuthenticatedUser() {
+
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser();
+        authenticatedUser.setUserName(USER_NAME);
+        authenticatedUser.setUserId(USER_ID);
+        authenticatedUser.setUserStoreDomain(USER_STORE_DOMAIN);
+        authenticatedUser.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        authenticatedUser.setAuthenticatedSubjectIdentifier(USER_NAME);
+        authenticatedUser.setFederatedUser(false);
+        return authenticatedUser;
+    }
+
+    /**
+     * Register the given registry service as the registry of all the tenants.
+     *
+     * @param registryService Registry service stub.
+     */
+    public static void setRegistryService(RegistryService registryService) {
+
+        IdentityTenantUtil.setRegistryService(registryService);
+        OAuth2ServiceComponentHolder.setRegistryService(registryService);
+    }
+
+    private static synchronized void initialize() throws Exception {
+
+        if (initialized) {
+            return;
+        }
+        Path carbonHome = Paths.get(System.getProperty(CarbonBaseConstants.CARBON_HOME, DEFAULT_CARBON_HOME))
+                .toAbsolutePath();
+        System.setProperty(CarbonBaseConstants.CARBON_HOME, carbonHome.toString());
+        System.setProperty(CarbonBaseConstants.CARBON_CONFIG_DIR_PATH,
+                carbonHome.resolve("repository").resolve("conf").toString());
+
+        initDatabase();
+        initRealmService();
+        initSigningKeys(carbonHome.resolve(KEY_STORE_PATH));
+        initServiceHolders();
+        initialized = true;
+    }
+
+    private static void initDatabase() throws Exception {
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(DB_URL);
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        try (Connection connection = dataSource.getConnection()) {
+            for (String script : DB_SCRIPTS) {
+                try (InputStream inputStream = BenchmarkEnvironment.class.getClassLoader()
+                        .getResourceAsStream(script);
+                     Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+                    RunScript.execute(connection, reader);
+                }
+            }
+        }
+
+        // The data source is otherwise looked up through JNDI when the identity core component is activated.
+        Field dataSourceField = JDBCPersistenceManager.class.getDeclaredField("dataSource");
+        dataSourceField.setAccessible(true);
+        dataSourceField.set(JDBCPersistenceManager.getInstance(), dataSource);
+    }
+
+    private static void initRealmService() throws Exception {
+
+        TenantManager tenantManager = mock(TenantManager.class);
+        when(tenantManager.getTenantId(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME))
+                .thenReturn(MultitenantConstants.SUPER_TENANT_ID);
+        when(tenantManager.getDomain(MultitenantConstants.SUPER_TENANT_ID))
+                .thenReturn(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+        UserStoreManager userStoreManager = mock(UserStoreManager.class);
+        Map<String, String> userClaims = Collections.emptyMap();
+        when(userStoreManager.getUserClaimValues(anyString(), org.mockito.Matchers.<String[]>any(), anyString()))
+                .thenReturn(userClaims);
+        UserRealm userRealm = mock(UserRealm.class);
+        when(userRealm.getUserStoreManager()).thenReturn(userStoreManager);
+
+        RealmService realmService = mock(RealmService.class);
+        when(realmService.getTenantManager()).thenReturn(tenantManager);
+        when(realmService.getTenantUserRealm(MultitenantConstants.SUPER_TENANT_ID)).thenReturn(userRealm);
+        when(realmService.getBootstrapRealmConfiguration()).thenReturn(new RealmConfiguration());
+
+        IdentityTenantUtil.setRealmService(realmService);
+        OAuthComponentServiceHolder.getInstance().setRealmService(realmService);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void initSigningKeys(Path keyStorePath) throws Exception {
+
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream inputStream = new FileInputStream(keyStorePath.toFile())) {
+            keyStore.load(inputStream, KEY_STORE_PASSWORD.toCharArray());
+        }
+        Key privateKey = keyStore.getKey(KEY_ALIAS, KEY_STORE_PASSWORD.toCharArray());
+        Certificate certificate = keyStore.getCertificate(KEY_ALIAS);
+
+        // The keys are otherwise loaded through the KeyStoreManager, which needs a registry backed key store.
+        Field privateKeysField = OAuth2Util.class.getDeclaredField("privateKeys");
+        privateKeysField.setAccessible(true);
+        ((Map<Integer, Key>) privateKeysField.get(null)).put(MultitenantConstants.SUPER_TENANT_ID, privateKey);
+        Field publicCertsField = OAuth2Util.class.getDeclaredField("publicCerts");
+        publicCertsField.setAccessible(true);
+        ((Map<Integer, Certificate>) publicCertsField.get(null)).put(MultitenantConstants.SUPER_TENANT_ID,
+                certificate);
+    }
+
+    private static void initServiceHolders() throws Exception {
+
+        ServiceProvider serviceProvider = new ServiceProvider();
+        serviceProvider.setApplicationName(APPLICATION_NAME);
+        serviceProvider.setSpProperties(new ServiceProviderProperty[0]);
+        serviceProvider.setClaimConfig(new ClaimConfig());
+        serviceProvider.setLocalAndOutBoundAuthenticationConfig(new LocalAndOutboundAuthenticationConfig());
+
+        ApplicationManagementService applicationMgtService = mock(ApplicationManagementService.class);
+        when(applicationMgtService.getServiceProviderNameByClientId(anyString(), anyString(), anyString()))
+                .thenReturn(APPLICATION_NAME);
+        when(applicationMgtService.getApplicationExcludingFileBasedSPs(anyString(), anyString()))
+                .thenReturn(serviceProvider);
+        when(applicationMgtService.getServiceProviderByClientId(anyString(), anyString(), anyString()))
+                .thenReturn(serviceProvider);
+        OAuth2ServiceComponentHolder.setApplicationMgtService(applicationMgtService);
+        OAuth2ServiceComponentHolder.setKeyIDProvider(new DefaultKeyIDProviderImpl());
+
+        RequestObjectService requestObjectService = mock(RequestObjectService.class);
+        when(requestObjectService.getRequestedClaimsForIDToken(anyString())).thenReturn(Collections.emptyList());
+        when(requestObjectService.getRequestedClaimsForUserInfo(anyString())).thenReturn(Collections.emptyList());
+        OpenIDConnectServiceComponentHolder.setRequestObjectService(requestObjectService);
+        OpenIDConnectServiceComponentHolder.getInstance().getOpenIDConnectClaimFilters()
+                .add(new OpenIDConnectClaimFilterImpl());
+    }
+}
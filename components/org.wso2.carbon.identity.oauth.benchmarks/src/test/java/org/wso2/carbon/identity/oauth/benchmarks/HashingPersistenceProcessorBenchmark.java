@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.benchmarks;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.tokenprocessor.HashingPersistenceProcessor;
+import org.wso2.carbon.identity.oauth.tokenprocessor.TokenPersistenceProcessor;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks hashing of token identifiers and client secrets before they are persisted or looked up.
+ * <p>
+ * The legacy benchmark runs the former implementation, which created a message digest and a JSON object per hash,
+ * for comparison. The setup fails if both implementations do not produce the same output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashingPersistenceProcessorBenchmark {
+
+    private TokenPersistenceProcessor persistenceProcessor;
+    private String accessToken;
+    private String clientSecret;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkEnvironment.setUp();
+        persistenceProcessor = new HashingPersistenceProcessor();
+        accessToken = UUID.randomUUID().toString();
+        clientSecret = UUID.randomUUID().toString();
+        if (!legacyHash(accessToken).equals(persistenceProcessor.getProcessedAccessTokenIdentifier(accessToken))) {
+            throw new IllegalStateException("Hashed token differs from the one of the legacy implementation.");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        BenchmarkEnvironment.tearDown();
+    }
+
+    @Benchmark
+    public String processAccessTokenIdentifier() throws IdentityOAuth2Exception {
+
+        return persistenceProcessor.getProcessedAccessTokenIdentifier(accessToken);
+    }
+
+    @Benchmark
+    public String processClientSecret() throws IdentityOAuth2Exception {
+
+        return persistenceProcessor.getProcessedClientSecret(clientSecret);
+    }
+
+    @Benchmark
+    public String legacyProcessAccessTokenIdentifier() throws IdentityOAuth2Exception {
+
+        return legacyHash(accessToken);
+    }
+
+    private static String legacyHash(String plainText) throws IdentityOAuth2Exception {
+
+        String hashAlgorithm = OAuthServerConfiguration.getInstance().getHashAlgorithm();
+        byte[] hash;
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(hashAlgorithm);
+            messageDigest.update(plainText.getBytes(StandardCharsets.UTF_8));
+            hash = messageDigest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IdentityOAuth2Exception("Error while retrieving MessageDigest for the provided hash " +
+                    "algorithm: " + hashAlgorithm, e);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte byt : hash) {
+            hex.append(Integer.toString((byt & 0xff) + 0x100, 16).substring(1));
+        }
+        JSONObject object = new JSONObject();
+        object.put(HashingPersistenceProcessor.ALGORITHM, hashAlgorithm);
+        object.put(HashingPersistenceProcessor.HASH, hex.toString());
+        return object.toString();
+    }
+}
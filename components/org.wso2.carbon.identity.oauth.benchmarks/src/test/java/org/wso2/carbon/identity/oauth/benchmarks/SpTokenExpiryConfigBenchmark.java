@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.config.SpOAuth2ExpiryTimeConfiguration;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.registry.core.Resource;
+import org.wso2.carbon.registry.core.service.RegistryService;
+import org.wso2.carbon.registry.core.session.UserRegistry;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmarks the lookup of the service provider specific token expiry times, served from the cache and read from
+ * the registry.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SpTokenExpiryConfigBenchmark {
+
+    private static final String SP_EXPIRY_TIME_CONFIG = "{\"userAccessTokenExpireTime\":\"3600000\"," +
+            "\"applicationAccessTokenExpireTime\":\"3600000\",\"refreshTokenExpireTime\":\"86400000\"}";
+
+    private final int tenantId = MultitenantConstants.SUPER_TENANT_ID;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkEnvironment.setUp();
+
+        Properties properties = new Properties();
+        properties.put(BenchmarkEnvironment.CLIENT_ID, Collections.singletonList(SP_EXPIRY_TIME_CONFIG));
+        Resource resource = mock(Resource.class);
+        when(resource.getProperties()).thenReturn(properties);
+        UserRegistry registry = mock(UserRegistry.class);
+        when(registry.resourceExists(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH)).thenReturn(true);
+        when(registry.get(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH)).thenReturn(resource);
+        RegistryService registryService = mock(RegistryService.class);
+        when(registryService.getConfigSystemRegistry(tenantId)).thenReturn(registry);
+        BenchmarkEnvironment.setRegistryService(registryService);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        BenchmarkEnvironment.tearDown();
+    }
+
+    @Benchmark
+    public SpOAuth2ExpiryTimeConfiguration cachedLookup() {
+
+        return OAuth2Util.getSpTokenExpiryTimeConfig(BenchmarkEnvironment.CLIENT_ID, tenantId);
+    }
+
+    @Benchmark
+    public SpOAuth2ExpiryTimeConfiguration registryLookup() {
+
+        OAuth2Util.clearSpTokenExpiryTimeConfigCache(BenchmarkEnvironment.CLIENT_ID, tenantId);
+        return OAuth2Util.getSpTokenExpiryTimeConfig(BenchmarkEnvironment.CLIENT_ID, tenantId);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.validators.TokenValidationHandler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks introspection of an active opaque access token persisted in the identity database.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenIntrospectionBenchmark {
+
+    private TokenValidationHandler tokenValidationHandler;
+    private OAuth2TokenValidationRequestDTO validationRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkEnvironment.setUp();
+        tokenValidationHandler = TokenValidationHandler.getInstance();
+        validationRequest = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = validationRequest.new OAuth2AccessToken();
+        accessToken.setIdentifier(BenchmarkEnvironment.ACCESS_TOKEN);
+        accessToken.setTokenType("bearer");
+        validationRequest.setAccessToken(accessToken);
+
+        OAuth2IntrospectionResponseDTO introspectionResponse =
+                tokenValidationHandler.buildIntrospectionResponse(validationRequest);
+        if (!introspectionResponse.isActive()) {
+            throw new IllegalStateException("The benchmark access token is not active: " +
+                    introspectionResponse.getError());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        BenchmarkEnvironment.tearDown();
+    }
+
+    @Benchmark
+    public OAuth2IntrospectionResponseDTO buildIntrospectionResponse() throws IdentityOAuth2Exception {
+
+        return tokenValidationHandler.buildIntrospectionResponse(validationRequest);
+    }
+}
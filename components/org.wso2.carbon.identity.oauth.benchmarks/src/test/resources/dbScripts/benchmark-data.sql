@@ -0,0 +1,18 @@
+INSERT INTO IDP (TENANT_ID, NAME, UUID) VALUES (-1234, 'LOCAL', 'c6a8f1e2-3d4b-4a7e-9f10-benchmark0001');
+
+INSERT INTO IDN_OAUTH_CONSUMER_APPS (ID, CONSUMER_KEY, CONSUMER_SECRET, USERNAME, TENANT_ID, USER_DOMAIN, APP_NAME,
+            OAUTH_VERSION, CALLBACK_URL, GRANT_TYPES, APP_STATE) VALUES
+            (1, 'benchmarkClientId', 'benchmarkClientSecret', 'admin', -1234, 'PRIMARY', 'benchmarkApp', 'OAuth-2.0',
+            'http://localhost:8080/redirect', 'refresh_token password client_credentials authorization_code',
+            'ACTIVE');
+
+INSERT INTO IDN_OAUTH2_ACCESS_TOKEN (TOKEN_ID, ACCESS_TOKEN, REFRESH_TOKEN, CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID,
+            USER_DOMAIN, USER_TYPE, GRANT_TYPE, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD,
+            REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE_HASH, TOKEN_STATE, TOKEN_STATE_ID, SUBJECT_IDENTIFIER,
+            ACCESS_TOKEN_HASH, REFRESH_TOKEN_HASH, IDP_ID) VALUES
+            ('b5a7c3f2-1d44-4b8e-a0c1-benchmark0001', 'benchmarkAccessToken', 'benchmarkRefreshToken', 1, 'admin',
+            -1234, 'PRIMARY', 'APPLICATION_USER', 'password', NOW(), NOW(), 864000000, 864000000,
+            '369db21a386ae433e65c0ff34d35708d', 'ACTIVE', 'NONE', 'admin', NULL, NULL, 1);
+
+INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE (TOKEN_ID, TOKEN_SCOPE, TENANT_ID) VALUES
+            ('b5a7c3f2-1d44-4b8e-a0c1-benchmark0001', 'openid', -1234);
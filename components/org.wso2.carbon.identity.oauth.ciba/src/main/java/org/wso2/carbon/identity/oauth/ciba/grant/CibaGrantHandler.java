@@ -28,6 +28,7 @@ import org.wso2.carbon.identity.oauth.ciba.dao.CibaDAOFactory;
 import org.wso2.carbon.identity.oauth.ciba.exceptions.CibaCoreException;
 import org.wso2.carbon.identity.oauth.ciba.model.CibaAuthCodeDO;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.authz.AuthorizationStatusNotifier;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AccessTokenRespDTO;
 import org.wso2.carbon.identity.oauth2.model.RequestParameter;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
@@ -70,6 +71,7 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
         try {
             CibaDAOFactory.getInstance().getCibaAuthMgtDAO()
                     .updateStatus(cibaAuthCodeDO.getCibaAuthCodeKey(), AuthReqStatus.TOKEN_ISSUED);
+            AuthorizationStatusNotifier.getInstance().remove(getStatusChangeKey(cibaAuthCodeDO));
             if (log.isDebugEnabled()) {
                 log.debug("Successfully updated the status of authentication request made by client:" +
                         tokReqMsgCtx.getOauth2AccessTokenReqDTO().getClientId());
@@ -118,7 +120,18 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
             // Validate whether user is authenticated.
             if (isAuthorizationPending(cibaAuthCodeDO)) {
                 updateLastPolledTime(cibaAuthCodeDO);
-                throw new IdentityOAuth2Exception(AUTHORIZATION_PENDING);
+                // Hold the request until the user is authenticated on this node or the polling interval elapses.
+                if (!AuthorizationStatusNotifier.getInstance().awaitStatusChange(getStatusChangeKey(cibaAuthCodeDO),
+                        cibaAuthCodeDO.getInterval() * SEC_TO_MILLISEC_FACTOR)) {
+                    throw new IdentityOAuth2Exception(AUTHORIZATION_PENDING);
+                }
+                cibaAuthCodeDO = retrieveCibaAuthCode(authReqId);
+                if (!isConsentGiven(cibaAuthCodeDO)) {
+                    throw new IdentityOAuth2Exception(CONSENT_DENIED);
+                }
+                if (isAuthorizationPending(cibaAuthCodeDO)) {
+                    throw new IdentityOAuth2Exception(AUTHORIZATION_PENDING);
+                }
             }
 
             setPropertiesForTokenGeneration(tokReqMsgCtx, cibaAuthCodeDO);
@@ -289,6 +302,17 @@ public class CibaGrantHandler extends AbstractAuthorizationGrantHandler {
         tokReqMsgCtx.setScope(cibaAuthCodeDO.getScopes());
     }
 
+    /**
+     * Gets the key of the authentication request used to notify the polls waiting for its status change.
+     *
+     * @param cibaAuthCodeDO DO that accumulates information regarding authentication and token requests.
+     * @return Key of the authentication request.
+     */
+    private String getStatusChangeKey(CibaAuthCodeDO cibaAuthCodeDO) {
+
+        return CibaConstants.STATUS_CHANGE_KEY_PREFIX + cibaAuthCodeDO.getCibaAuthCodeKey();
+    }
+
     /**
      * Validates whether provided auth_req_id exists in and return AuthCode if exists.
      *
@@ -30,6 +30,7 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
 
 import java.util.List;
+import java.util.StringJoiner;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.FormParam;
@@ -39,6 +40,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getIntProperty;
 import static org.wso2.carbon.identity.oauth2.util.OAuth2Util.triggerOnIntrospectionExceptionListeners;
 
 /**
@@ -56,6 +58,9 @@ public class OAuth2IntrospectionEndpoint {
     private static final String INVALID_INPUT = "Invalid input";
 
     private static final String ACCESS_TOKEN_HINT = "access_token";
+    private static final String TOO_MANY_TOKENS = "Too many tokens";
+    private static final String BATCH_MAX_TOKENS = "OAuth.Introspection.Batch.MaxTokens";
+    private static final int DEFAULT_BATCH_MAX_TOKENS = 100;
 
     /**
      * Token introspection endpoint.
@@ -84,6 +89,93 @@ public class OAuth2IntrospectionEndpoint {
                     entity("{\"error\": \"" + INVALID_INPUT + "\"}").build();
         }
 
+        // validate the access token against the OAuth2TokenValidationService OSGi service.
+        introspectionRequest = buildIntrospectionRequest(token, tokenTypeHint, requiredClaims);
+
+        OAuth2TokenValidationService tokenService = (OAuth2TokenValidationService) PrivilegedCarbonContext
+                .getThreadLocalCarbonContext().getOSGiService(OAuth2TokenValidationService.class);
+
+        introspectionResponse = tokenService.buildIntrospectionResponse(introspectionRequest);
+
+        try {
+            return Response.ok(buildIntrospectionResponseEntity(introspectionRequest, introspectionResponse,
+                    requiredClaims, getIntrospectionDataProviders()), MediaType.APPLICATION_JSON)
+                    .status(Response.Status.OK).build();
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error occurred while processing additional token introspection data.", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\": \"Error occurred while building the introspection response.\"}").build();
+        } catch (JSONException e) {
+            log.error("Error occurred while building the json response.", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\": \"Error occurred while building the json response.\"}").build();
+        }
+    }
+
+    /**
+     * Batch token introspection endpoint. The tokens are introspected as by the introspection endpoint, while the
+     * access tokens which are not cached are looked up at once.
+     *
+     * @param tokens         access tokens or refresh tokens, given as repeated token parameters
+     * @param tokenTypeHint  hint for the type of the tokens submitted for introspection
+     * @param requiredClaims comma separated list of claims to be returned in JWT
+     * @return JSON array of the introspection responses, in the order of the tokens
+     */
+    @POST
+    @Path("/batch")
+    public Response introspectBatch(@FormParam("token") List<String> tokens,
+                                    @FormParam("token_type_hint") String tokenTypeHint,
+                                    @FormParam("required_claims") String requiredClaims) {
+
+        if (tokens == null || tokens.isEmpty() || tokens.stream().anyMatch(StringUtils::isBlank)) {
+            OAuth2IntrospectionResponseDTO introspectionResponse = new OAuth2IntrospectionResponseDTO();
+            introspectionResponse.setError(INVALID_INPUT);
+            triggerOnIntrospectionExceptionListeners(null, introspectionResponse);
+            return Response.status(Response.Status.BAD_REQUEST).
+                    entity("{\"error\": \"" + INVALID_INPUT + "\"}").build();
+        }
+        int maxBatchSize = getMaxBatchSize();
+        if (tokens.size() > maxBatchSize) {
+            if (log.isDebugEnabled()) {
+                log.debug("Batch introspection request with " + tokens.size() + " tokens exceeds the limit of " +
+                        maxBatchSize + " tokens.");
+            }
+            return Response.status(Response.Status.BAD_REQUEST).
+                    entity("{\"error\": \"" + TOO_MANY_TOKENS + "\"}").build();
+        }
+
+        OAuth2TokenValidationRequestDTO[] introspectionRequests = new OAuth2TokenValidationRequestDTO[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            introspectionRequests[i] = buildIntrospectionRequest(tokens.get(i), tokenTypeHint, requiredClaims);
+        }
+
+        OAuth2TokenValidationService tokenService = (OAuth2TokenValidationService) PrivilegedCarbonContext
+                .getThreadLocalCarbonContext().getOSGiService(OAuth2TokenValidationService.class);
+        OAuth2IntrospectionResponseDTO[] introspectionResponses =
+                tokenService.buildIntrospectionResponses(introspectionRequests);
+
+        List<Object> introspectionDataProviders = getIntrospectionDataProviders();
+        StringJoiner entity = new StringJoiner(",", "[", "]");
+        try {
+            for (int i = 0; i < introspectionRequests.length; i++) {
+                entity.add(buildIntrospectionResponseEntity(introspectionRequests[i], introspectionResponses[i],
+                        requiredClaims, introspectionDataProviders));
+            }
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error occurred while processing additional token introspection data.", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\": \"Error occurred while building the introspection response.\"}").build();
+        } catch (JSONException e) {
+            log.error("Error occurred while building the json response.", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\": \"Error occurred while building the json response.\"}").build();
+        }
+        return Response.ok(entity.toString(), MediaType.APPLICATION_JSON).status(Response.Status.OK).build();
+    }
+
+    private OAuth2TokenValidationRequestDTO buildIntrospectionRequest(String token, String tokenTypeHint,
+                                                                      String requiredClaims) {
+
         String[] claimsUris = null;
         if (StringUtils.isNotEmpty(requiredClaims)) {
             claimsUris = requiredClaims.split(",");
@@ -91,8 +183,7 @@ public class OAuth2IntrospectionEndpoint {
             claimsUris = new String[0];
         }
 
-        // validate the access token against the OAuth2TokenValidationService OSGi service.
-        introspectionRequest = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO introspectionRequest = new OAuth2TokenValidationRequestDTO();
         OAuth2TokenValidationRequestDTO.OAuth2AccessToken oAuth2Token = introspectionRequest.new OAuth2AccessToken();
 
         if (tokenTypeHint == null || StringUtils.equals(tokenTypeHint, ACCESS_TOKEN_HINT)) {
@@ -104,17 +195,19 @@ public class OAuth2IntrospectionEndpoint {
         oAuth2Token.setIdentifier(token);
         introspectionRequest.setAccessToken(oAuth2Token);
         introspectionRequest.setRequiredClaimURIs(claimsUris);
+        return introspectionRequest;
+    }
 
-        OAuth2TokenValidationService tokenService = (OAuth2TokenValidationService) PrivilegedCarbonContext
-                .getThreadLocalCarbonContext().getOSGiService(OAuth2TokenValidationService.class);
-
-        introspectionResponse = tokenService.buildIntrospectionResponse(introspectionRequest);
+    private String buildIntrospectionResponseEntity(OAuth2TokenValidationRequestDTO introspectionRequest,
+                                                    OAuth2IntrospectionResponseDTO introspectionResponse,
+                                                    String requiredClaims, List<Object> introspectionDataProviders)
+            throws IdentityOAuth2Exception, JSONException {
 
         if (introspectionResponse.getError() != null) {
             if (log.isDebugEnabled()) {
                 log.debug("The error why token is made inactive: " + introspectionResponse.getError());
             }
-            return Response.status(Response.Status.OK).entity("{\"active\":false}").build();
+            return "{\"active\":false}";
         }
 
         IntrospectionResponseBuilder respBuilder = new IntrospectionResponseBuilder()
@@ -148,10 +241,6 @@ public class OAuth2IntrospectionEndpoint {
             respBuilder.setBindingReference(introspectionResponse.getBindingReference());
         }
 
-        // Retrieve list of registered IntrospectionDataProviders.
-        List<Object> introspectionDataProviders = PrivilegedCarbonContext
-                .getThreadLocalCarbonContext().getOSGiServices(IntrospectionDataProvider.class, null);
-
         for (Object dataProvider : introspectionDataProviders) {
             if (dataProvider instanceof IntrospectionDataProvider) {
 
@@ -166,27 +255,23 @@ public class OAuth2IntrospectionEndpoint {
                 if (log.isDebugEnabled()) {
                     log.debug("Executing introspection data provider: " + dataProvider.getClass().getName());
                 }
-                try {
-                    respBuilder.setAdditionalData(
-                            (((IntrospectionDataProvider) dataProvider).getIntrospectionData(
-                                    introspectionRequest, introspectionResponse)));
-                } catch (IdentityOAuth2Exception e) {
-                    log.error("Error occurred while processing additional token introspection data.", e);
-
-                    return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                            .entity("{\"error\": \"Error occurred while building the introspection " +
-                                    "response.\"}")
-                            .build();
-                }
+                respBuilder.setAdditionalData(
+                        (((IntrospectionDataProvider) dataProvider).getIntrospectionData(
+                                introspectionRequest, introspectionResponse)));
             }
         }
+        return respBuilder.build();
+    }
 
-        try {
-            return Response.ok(respBuilder.build(), MediaType.APPLICATION_JSON).status(Response.Status.OK).build();
-        } catch (JSONException e) {
-            log.error("Error occurred while building the json response.", e);
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity("{\"error\": \"Error occurred while building the json response.\"}").build();
-        }
+    private static List<Object> getIntrospectionDataProviders() {
+
+        // Retrieve list of registered IntrospectionDataProviders.
+        return PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                .getOSGiServices(IntrospectionDataProvider.class, null);
+    }
+
+    private static int getMaxBatchSize() {
+
+        return getIntProperty(BATCH_MAX_TOKENS, DEFAULT_BATCH_MAX_TOKENS);
     }
 }
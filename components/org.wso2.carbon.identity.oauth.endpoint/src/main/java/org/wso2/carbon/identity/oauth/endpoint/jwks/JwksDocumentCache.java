@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.endpoint.jwks;
+
+import org.wso2.carbon.identity.oauth.endpoint.util.VersionedDocumentCache;
+
+/**
+ * Holds the latest JWKS of each tenant, versioned by the keystore and the configured signing algorithms.
+ */
+public class JwksDocumentCache extends VersionedDocumentCache {
+
+    private static final String CACHE_CONTROL_MAX_AGE = "OAuth.JWKS.CacheControlMaxAge";
+    private static final JwksDocumentCache instance = new JwksDocumentCache();
+
+    private JwksDocumentCache() {
+
+        super("JWKS", CACHE_CONTROL_MAX_AGE);
+    }
+
+    public static JwksDocumentCache getInstance() {
+
+        return instance;
+    }
+}
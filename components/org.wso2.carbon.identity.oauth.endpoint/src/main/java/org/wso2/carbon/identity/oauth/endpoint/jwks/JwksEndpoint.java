@@ -32,29 +32,44 @@ import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.endpoint.util.VersionedDocument;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.utils.CarbonUtils;
 
+import java.io.File;
 import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import javax.jws.WebService;
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 /**
  * Rest implementation for JWKS endpoint.
+ * <p>
+ * The JWKS of each tenant is built once and served from {@link JwksDocumentCache} until the keystore or the
+ * signing algorithms change. Responses carry an ETag, Last-Modified and Cache-Control header
+ * (OAuth.JWKS.CacheControlMaxAge in identity.xml) so that clients can revalidate their copy with a conditional
+ * request.
  */
 @WebService
 public class JwksEndpoint {
@@ -64,58 +79,105 @@ public class JwksEndpoint {
     private static final String SECURITY_KEY_STORE_LOCATION = "Security.KeyStore.Location";
     private static final String SECURITY_KEY_STORE_PW = "Security.KeyStore.Password";
     private static final String KEYS = "keys";
+    private static final String VERSION_DIGEST_ALGORITHM = "SHA-256";
 
     @GET
     @Path(value = "/jwks")
     @Produces(MediaType.APPLICATION_JSON)
-    public String jwks() {
+    public Response jwks(@Context HttpServletRequest request) {
 
         String tenantDomain = getTenantDomain();
-        String keystorePath = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_LOCATION);
+        VersionedDocument jwksDocument;
+        try {
+            jwksDocument = getJwksDocument(tenantDomain);
+        } catch (Exception e) {
+            String errorMessage = "Error while generating the keyset for tenant domain: " + tenantDomain;
+            return Response.ok(logAndReturnError(errorMessage, e)).build();
+        }
+
+        return JwksDocumentCache.getInstance().buildResponse(jwksDocument, request, MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Get the JWKS of the tenant from the cache, rebuilding it if the keystore or the signing algorithms have changed
+     * since it was built. The super tenant keystore is read from the file system only when the file has changed.
+     */
+    private VersionedDocument getJwksDocument(String tenantDomain) throws Exception {
 
-        try (FileInputStream file = new FileInputStream(keystorePath)) {
-            final KeyStore keystore;
-            Map<String, Certificate> certificatesWithAliases = new HashMap<>();
-            if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(tenantDomain)) {
+        JwksDocumentCache jwksDocumentCache = JwksDocumentCache.getInstance();
+        OAuthServerConfiguration config = OAuthServerConfiguration.getInstance();
+        // If we read different algorithms from identity.xml then put them in a list.
+        List<JWSAlgorithm> diffAlgorithms = findDifferentAlgorithms(
+                OAuth2Util.mapSignatureAlgorithmForJWSAlgorithm(config.getSignatureAlgorithm()), config);
+
+        final KeyStore keystore;
+        String keystoreVersion = null;
+        if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equalsIgnoreCase(tenantDomain)) {
+            String keystorePath = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_LOCATION);
+            File keystoreFile = new File(keystorePath);
+            keystoreVersion = keystorePath + ":" + keystoreFile.lastModified() + ":" + keystoreFile.length();
+            VersionedDocument jwksDocument = jwksDocumentCache.get(tenantDomain, keystoreVersion + diffAlgorithms);
+            if (jwksDocument != null) {
+                return jwksDocument;
+            }
+            try (FileInputStream file = new FileInputStream(keystoreFile)) {
                 keystore = KeyStore.getInstance(KeyStore.getDefaultType());
                 String password = CarbonUtils.getServerConfiguration().getFirstProperty(SECURITY_KEY_STORE_PW);
                 keystore.load(file, password.toCharArray());
-            } else {
-                try {
-                    int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
-                    IdentityTenantUtil.initializeRegistry(tenantId);
-                    FrameworkUtils.startTenantFlow(tenantDomain);
-                    KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
-                    keystore = keyStoreManager.getKeyStore(generateKSNameFromDomainName(tenantDomain));
-                } finally {
-                    FrameworkUtils.endTenantFlow();
-                }
             }
-            Enumeration enumeration = keystore.aliases();
-            while (enumeration.hasMoreElements()) {
-                String alias = (String) enumeration.nextElement();
-                if (keystore.isKeyEntry(alias)) {
-                    Certificate cert = keystore.getCertificate(alias);
-                    certificatesWithAliases.put(alias, cert);
-                }
+        } else {
+            try {
+                int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+                IdentityTenantUtil.initializeRegistry(tenantId);
+                FrameworkUtils.startTenantFlow(tenantDomain);
+                KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
+                keystore = keyStoreManager.getKeyStore(generateKSNameFromDomainName(tenantDomain));
+            } finally {
+                FrameworkUtils.endTenantFlow();
             }
-            return buildResponse(certificatesWithAliases);
-        } catch (Exception e) {
-            String errorMessage = "Error while generating the keyset for tenant domain: " + tenantDomain;
-            return logAndReturnError(errorMessage, e);
         }
+
+        Map<String, Certificate> certificatesWithAliases = new TreeMap<>();
+        Enumeration enumeration = keystore.aliases();
+        while (enumeration.hasMoreElements()) {
+            String alias = (String) enumeration.nextElement();
+            if (keystore.isKeyEntry(alias)) {
+                Certificate cert = keystore.getCertificate(alias);
+                certificatesWithAliases.put(alias, cert);
+            }
+        }
+
+        if (keystoreVersion == null) {
+            // Tenant keystores are kept in memory by the key store manager, so the certificates identify the version.
+            keystoreVersion = getCertificatesVersion(certificatesWithAliases);
+            VersionedDocument jwksDocument = jwksDocumentCache.get(tenantDomain, keystoreVersion + diffAlgorithms);
+            if (jwksDocument != null) {
+                return jwksDocument;
+            }
+        }
+
+        VersionedDocument jwksDocument = new VersionedDocument(keystoreVersion + diffAlgorithms,
+                buildResponse(certificatesWithAliases, diffAlgorithms, tenantDomain), System.currentTimeMillis());
+        jwksDocumentCache.put(tenantDomain, jwksDocument);
+        return jwksDocument;
     }
 
-    private String buildResponse(Map<String, Certificate> certificates)
-            throws IdentityOAuth2Exception, ParseException {
+    private String getCertificatesVersion(Map<String, Certificate> certificatesWithAliases)
+            throws NoSuchAlgorithmException, CertificateEncodingException {
+
+        MessageDigest digest = MessageDigest.getInstance(VERSION_DIGEST_ALGORITHM);
+        for (Map.Entry<String, Certificate> certificateWithAlias : certificatesWithAliases.entrySet()) {
+            digest.update(certificateWithAlias.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update(certificateWithAlias.getValue().getEncoded());
+        }
+        return new String(Base64.getEncoder().encode(digest.digest()), StandardCharsets.UTF_8);
+    }
+
+    private String buildResponse(Map<String, Certificate> certificates, List<JWSAlgorithm> diffAlgorithms,
+                                 String tenantDomain) throws IdentityOAuth2Exception, ParseException {
 
         JSONArray jwksArray = new JSONArray();
         JSONObject jwksJson = new JSONObject();
-        OAuthServerConfiguration config = OAuthServerConfiguration.getInstance();
-        JWSAlgorithm accessTokenSignAlgorithm =
-                OAuth2Util.mapSignatureAlgorithmForJWSAlgorithm(config.getSignatureAlgorithm());
-        // If we read different algorithms from identity.xml then put them in a list.
-        List<JWSAlgorithm> diffAlgorithms = findDifferentAlgorithms(accessTokenSignAlgorithm, config);
         // Create JWKS for different algorithms using new KeyID creation method.
         for (Map.Entry certificateWithAlias : certificates.entrySet()) {
             for (JWSAlgorithm algorithm : diffAlgorithms) {
@@ -123,7 +185,7 @@ public class JwksEndpoint {
                 String alias = (String) certificateWithAlias.getKey();
                 RSAPublicKey publicKey = (RSAPublicKey) cert.getPublicKey();
                 RSAKey.Builder jwk = new RSAKey.Builder(publicKey);
-                jwk.keyID(OAuth2Util.getKID(cert, algorithm, getTenantDomain()));
+                jwk.keyID(OAuth2Util.getKID(cert, algorithm, tenantDomain));
                 jwk.algorithm(algorithm);
                 jwk.keyUse(KeyUse.parse(KEY_USE));
                 jwksArray.put(jwk.build().toJSONObject());
@@ -30,6 +30,9 @@ import org.wso2.carbon.identity.discovery.OIDCProcessor;
 import org.wso2.carbon.identity.discovery.builders.OIDProviderResponseBuilder;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.endpoint.util.EndpointUtil;
+import org.wso2.carbon.identity.oauth.endpoint.util.VersionedDocument;
+
+import java.security.NoSuchAlgorithmException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -38,6 +41,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 /**
@@ -96,11 +100,22 @@ public class OIDCDiscoveryEndpoint {
 
     private Response getResponse(HttpServletRequest request, String tenant) {
 
-        String response;
         OIDCProcessor processor = EndpointUtil.getOIDCService();
+        OIDCDiscoveryDocumentCache documentCache = OIDCDiscoveryDocumentCache.getInstance();
+        VersionedDocument document;
         try {
-            OIDProviderResponseBuilder responseBuilder = getOidProviderResponseBuilder();
-            response = responseBuilder.getOIDProviderConfigString(processor.getResponse(request, tenant));
+            // Serve the cached configuration unless the issuer, scopes or claims of the tenant have changed.
+            String version = processor.getResponseVersion(request, tenant);
+            document = version == null ? null : documentCache.get(tenant, version);
+            if (document == null) {
+                OIDProviderResponseBuilder responseBuilder = getOidProviderResponseBuilder();
+                String response = responseBuilder.getOIDProviderConfigString(processor.getResponse(request, tenant));
+                if (version == null) {
+                    return Response.status(HttpServletResponse.SC_OK).entity(response).build();
+                }
+                document = new VersionedDocument(version, response, System.currentTimeMillis());
+                documentCache.put(tenant, document);
+            }
         } catch (OIDCDiscoveryEndPointException e) {
             Response.ResponseBuilder errorResponse = Response.status(processor.handleError(e));
             return errorResponse.entity(e.getMessage()).build();
@@ -108,9 +123,12 @@ public class OIDCDiscoveryEndpoint {
             log.error("Server Configuration error occurred.", e);
             Response.ResponseBuilder errorResponse = Response.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             return errorResponse.entity("Error in reading configuration.").build();
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Error while computing the ETag of the OIDC discovery document.", e);
+            Response.ResponseBuilder errorResponse = Response.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return errorResponse.entity("Error in building the discovery document.").build();
         }
-        Response.ResponseBuilder responseBuilder = Response.status(HttpServletResponse.SC_OK);
-        return responseBuilder.entity(response).build();
+        return documentCache.buildResponse(document, request, MediaType.APPLICATION_JSON);
     }
 
     @Autowired
@@ -82,6 +82,7 @@ import org.wso2.carbon.identity.oauth2.bean.Scope;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2ClientValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.model.OAuth2Parameters;
 import org.wso2.carbon.identity.oauth2.model.OAuth2ScopeConsentResponse;
+import org.wso2.carbon.identity.oauth2.util.AllowedScopeMatcher;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.openidconnect.RequestObjectService;
 import org.wso2.carbon.identity.webfinger.DefaultWebFingerProcessor;
@@ -1000,7 +1001,7 @@ public class EndpointUtil {
 
         Set<String> requestedScopes = new HashSet<>(params.getScopes());
         Set<String> registeredScopes = getRegisteredScopes(requestedScopes);
-        List<String> allowedScopesFromConfig = oauthServerConfiguration.getAllowedScopes();
+        AllowedScopeMatcher allowedScopeMatcher = oauthServerConfiguration.getAllowedScopeMatcher();
         Set<String> filteredScopes = new HashSet<>();
 
         // Filtering allowed scopes.
@@ -1010,7 +1011,7 @@ public class EndpointUtil {
             }
             if (scope.startsWith("internal_") // Check for internal scopes.
                     || scope.equalsIgnoreCase(Oauth2ScopeConstants.SYSTEM_SCOPE) // Check for SYSTEM scope.
-                    || OAuth2Util.isAllowedScope(allowedScopesFromConfig, scope) // Check for allowed scopes config.
+                    || OAuth2Util.isAllowedScope(allowedScopeMatcher, scope) // Check for allowed scopes config.
                     || registeredScopes.contains(scope)) { // Check for registered scopes.
 
                 filteredScopes.add(scope);
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.endpoint.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Serialized document served by a public endpoint, e.g. the JWKS of a tenant, along with the version of the inputs it
+ * was built from.
+ */
+public class VersionedDocument {
+
+    private static final String ETAG_DIGEST_ALGORITHM = "SHA-256";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final String version;
+    private final byte[] payload;
+    private final String eTag;
+    private final long lastModified;
+
+    public VersionedDocument(String version, String payload, long lastModified) throws NoSuchAlgorithmException {
+
+        this.version = version;
+        this.payload = payload.getBytes(StandardCharsets.UTF_8);
+        this.eTag = "\"" + toHex(MessageDigest.getInstance(ETAG_DIGEST_ALGORITHM).digest(this.payload)) + "\"";
+        // HTTP dates do not carry milliseconds.
+        this.lastModified = lastModified - lastModified % 1000;
+    }
+
+    public String getVersion() {
+
+        return version;
+    }
+
+    /**
+     * @return UTF-8 encoded document. The array is shared by all the responses and must not be modified.
+     */
+    public byte[] getPayload() {
+
+        return payload;
+    }
+
+    /**
+     * @return Strong entity tag derived from the payload, so that it is the same on all the nodes of a cluster.
+     */
+    public String getETag() {
+
+        return eTag;
+    }
+
+    public long getLastModified() {
+
+        return lastModified;
+    }
+
+    /**
+     * Check whether a client holding a copy of this document can reuse it, according to the If-None-Match header,
+     * or the If-Modified-Since header when the former is absent.
+     *
+     * @param ifNoneMatch     Value of the If-None-Match header, or null.
+     * @param ifModifiedSince Value of the If-Modified-Since header in milliseconds, or -1.
+     * @return true if a 304 Not Modified response can be sent.
+     */
+    public boolean isNotModified(String ifNoneMatch, long ifModifiedSince) {
+
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if ("*".equals(tag) || eTag.equals(tag) || ("W/" + eTag).equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return ifModifiedSince >= lastModified;
+    }
+
+    private static String toHex(byte[] bytes) {
+
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
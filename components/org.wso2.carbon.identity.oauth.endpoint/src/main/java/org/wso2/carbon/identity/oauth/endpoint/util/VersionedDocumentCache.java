@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.endpoint.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getLongProperty;
+
+/**
+ * Holds the latest {@link VersionedDocument} of each tenant for an endpoint.
+ * <p>
+ * A document is served as long as the version computed for the request matches the version it was built from.
+ * Otherwise the caller rebuilds the document and replaces the cached one. Responses built from a cached document
+ * carry an ETag, Last-Modified and Cache-Control header, and conditional requests are answered with 304 Not Modified.
+ */
+public class VersionedDocumentCache {
+
+    private static final Log log = LogFactory.getLog(VersionedDocumentCache.class);
+    private static final long DEFAULT_CACHE_CONTROL_MAX_AGE = 300;
+    private static final String CACHE_CONTROL_PUBLIC_MAX_AGE = "public, max-age=";
+
+    private final String name;
+    private final String cacheControlMaxAgeProperty;
+    private final Map<String, VersionedDocument> documents = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong rebuildCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+
+    /**
+     * @param name                       Name of the cached documents, used in logs.
+     * @param cacheControlMaxAgeProperty identity.xml property configuring the max-age of the responses in seconds.
+     */
+    protected VersionedDocumentCache(String name, String cacheControlMaxAgeProperty) {
+
+        this.name = name;
+        this.cacheControlMaxAgeProperty = cacheControlMaxAgeProperty;
+    }
+
+    /**
+     * Get the cached document of a tenant if it was built from the given version.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param version      Current version of the inputs of the document of the tenant.
+     * @return Cached document, or null if the document should be rebuilt.
+     */
+    public VersionedDocument get(String tenantDomain, String version) {
+
+        VersionedDocument document = documents.get(tenantDomain);
+        if (document != null && document.getVersion().equals(version)) {
+            hitCount.incrementAndGet();
+            return document;
+        }
+        return null;
+    }
+
+    public void put(String tenantDomain, VersionedDocument document) {
+
+        rebuildCount.incrementAndGet();
+        documents.put(tenantDomain, document);
+        if (log.isDebugEnabled()) {
+            log.debug("Rebuilt the " + name + " document of tenant domain: " + tenantDomain + ". " + this);
+        }
+    }
+
+    public void remove(String tenantDomain) {
+
+        documents.remove(tenantDomain);
+    }
+
+    public void clear() {
+
+        documents.clear();
+    }
+
+    /**
+     * Build the response serving the document, or a 304 Not Modified response if the client already holds it.
+     *
+     * @param document  Document to be served.
+     * @param request   Request, which may carry If-None-Match or If-Modified-Since headers. May be null.
+     * @param mediaType Media type of the document.
+     * @return Response.
+     */
+    public Response buildResponse(VersionedDocument document, HttpServletRequest request, String mediaType) {
+
+        String cacheControl = CACHE_CONTROL_PUBLIC_MAX_AGE +
+                getLongProperty(cacheControlMaxAgeProperty, DEFAULT_CACHE_CONTROL_MAX_AGE, 0);
+        if (request != null && document.isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH),
+                getIfModifiedSince(request))) {
+            notModifiedCount.incrementAndGet();
+            return Response.notModified()
+                    .header(HttpHeaders.ETAG, document.getETag())
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+        return Response.ok(document.getPayload(), mediaType)
+                .header(HttpHeaders.ETAG, document.getETag())
+                .lastModified(new Date(document.getLastModified()))
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .build();
+    }
+
+    /**
+     * @return Number of requests served from a cached document.
+     */
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    /**
+     * @return Number of documents built because there was none cached or their inputs changed.
+     */
+    public long getRebuildCount() {
+
+        return rebuildCount.get();
+    }
+
+    /**
+     * @return Number of requests answered with 304 Not Modified.
+     */
+    public long getNotModifiedCount() {
+
+        return notModifiedCount.get();
+    }
+
+    private long getIfModifiedSince(HttpServletRequest request) {
+
+        try {
+            return request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Ignoring the invalid " + HttpHeaders.IF_MODIFIED_SINCE + " header of the " + name +
+                        " request.", e);
+            }
+            return -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return name + " cache{documents=" + documents.size() + ", hits=" + hitCount.get() + ", rebuilds=" +
+                rebuildCount.get() + ", notModified=" + notModifiedCount.get() + "}";
+    }
+}
@@ -13,10 +13,13 @@ import org.wso2.carbon.base.CarbonBaseConstants;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.oauth2.OAuth2TokenValidationService;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
 import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
 
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 
 import javax.ws.rs.core.Response;
 
@@ -86,6 +89,34 @@ public class OAuth2IntrospectionEndpointTest extends PowerMockIdentityBaseTest {
 
     }
 
+    @Test
+    public void testIntrospectBatch() {
+
+        OAuth2TokenValidationService mockedTokenService = mock(OAuth2TokenValidationService.class);
+        mockStatic(PrivilegedCarbonContext.class);
+        when(PrivilegedCarbonContext.getThreadLocalCarbonContext()).thenReturn(mockedPrivilegedCarbonContext);
+        when(mockedPrivilegedCarbonContext.getOSGiService(any())).thenReturn(mockedTokenService);
+
+        OAuth2IntrospectionResponseDTO activeResponse = new OAuth2IntrospectionResponseDTO();
+        activeResponse.setActive(true);
+        activeResponse.setTokenType("Bearer");
+        OAuth2IntrospectionResponseDTO inactiveResponse = new OAuth2IntrospectionResponseDTO();
+        inactiveResponse.setError("Token validation failed");
+        when(mockedTokenService.buildIntrospectionResponses(any(OAuth2TokenValidationRequestDTO[].class)))
+                .thenReturn(new OAuth2IntrospectionResponseDTO[]{activeResponse, inactiveResponse});
+
+        Response response = oAuth2IntrospectionEndpoint.introspectBatch(Arrays.asList("TOKEN1", "TOKEN2"),
+                BEARER_TOKEN_TYPE_HINT, null);
+
+        List<HashMap<String, Object>> responses = new Gson().fromJson((String) response.getEntity(),
+                new TypeToken<List<HashMap<String, Object>>>() {
+                }.getType());
+        assertEquals(responses.size(), 2);
+        assertEquals(responses.get(0).get("active"), true);
+        assertEquals(responses.get(0).get("token_type"), "Bearer");
+        assertEquals(responses.get(1).get("active"), false);
+    }
+
     @DataProvider(name = "provideTokenInfo")
     public Object[][] provideTokenInfo() {
 
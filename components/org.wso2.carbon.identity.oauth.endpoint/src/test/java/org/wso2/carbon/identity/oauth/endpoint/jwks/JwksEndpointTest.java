@@ -46,19 +46,27 @@ import org.wso2.carbon.utils.CarbonUtils;
 import java.io.FileInputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.KeyStore;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
 import static org.powermock.api.mockito.PowerMockito.doNothing;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -112,14 +120,10 @@ public class JwksEndpointTest extends PowerMockIdentityBaseTest {
     @Test(dataProvider = "provideTenantDomain")
     public void testJwks(String tenantDomain, int tenantId) throws Exception {
 
-        Path keystorePath = Paths.get(System.getProperty(CarbonBaseConstants.CARBON_HOME), "repository", "resources",
-                "security", "wso2carbon.jks");
+        // Each case mocks a different keyset, which should not be served from the cache of the previous case.
+        JwksDocumentCache.getInstance().clear();
         mockOAuthServerConfiguration();
-        mockStatic(CarbonUtils.class);
-        when(CarbonUtils.getServerConfiguration()).thenReturn(serverConfiguration);
-        when(serverConfiguration.getFirstProperty("Security.KeyStore.Location")).thenReturn(keystorePath.toString());
-        when(serverConfiguration.getFirstProperty("Security.KeyStore.Password")).thenReturn("wso2carbon");
-        when(serverConfiguration.getFirstProperty("Security.KeyStore.KeyAlias")).thenReturn("wso2carbon");
+        mockSuperTenantKeystore();
 
         ThreadLocal<Map<String, Object>> threadLocalProperties = new ThreadLocal() {
             protected Map<String, Object> initialValue() {
@@ -162,7 +166,7 @@ public class JwksEndpointTest extends PowerMockIdentityBaseTest {
         when(KeyStoreManager.getInstance(anyInt())).thenReturn(keyStoreManager);
         when(keyStoreManager.getKeyStore("foo-com.jks")).thenReturn(getKeyStoreFromFile("foo-com.jks", "foo.com"));
 
-        String result = jwksEndpoint.jwks();
+        String result = getEntity(jwksEndpoint.jwks(null));
 
         try {
             JSONObject jwksJson = new JSONObject(result);
@@ -192,6 +196,63 @@ public class JwksEndpointTest extends PowerMockIdentityBaseTest {
         threadLocalProperties.get().remove(OAuthConstants.TENANT_NAME_FROM_CONTEXT);
     }
 
+    @Test
+    public void testJwksConditionalRequest() throws Exception {
+
+        JwksDocumentCache jwksDocumentCache = JwksDocumentCache.getInstance();
+        jwksDocumentCache.clear();
+        mockSuperTenantKeystore();
+        mockOAuthServerConfiguration();
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getKID(any(), any(), anyString())).thenReturn(CERT_THUMB_PRINT);
+        when(OAuth2Util.mapSignatureAlgorithmForJWSAlgorithm("SHA256withRSA")).thenReturn(JWSAlgorithm.RS256);
+        when(OAuth2Util.mapSignatureAlgorithmForJWSAlgorithm("SHA512withRSA")).thenReturn(JWSAlgorithm.RS512);
+        when(OAuth2Util.mapSignatureAlgorithmForJWSAlgorithm("SHA384withRSA")).thenReturn(JWSAlgorithm.RS384);
+        long rebuildCount = jwksDocumentCache.getRebuildCount();
+        long hitCount = jwksDocumentCache.getHitCount();
+
+        Response response = jwksEndpoint.jwks(null);
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        String eTag = (String) response.getMetadata().getFirst(HttpHeaders.ETAG);
+        assertNotNull(eTag, "ETag header is not set");
+        assertEquals(response.getMetadata().getFirst(HttpHeaders.CACHE_CONTROL), "public, max-age=300");
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn(eTag);
+        Response notModifiedResponse = jwksEndpoint.jwks(request);
+        assertEquals(notModifiedResponse.getStatus(), Response.Status.NOT_MODIFIED.getStatusCode());
+        assertNull(notModifiedResponse.getEntity());
+
+        when(request.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn("\"stale\"");
+        Response modifiedResponse = jwksEndpoint.jwks(request);
+        assertEquals(modifiedResponse.getStatus(), Response.Status.OK.getStatusCode());
+        assertEquals(getEntity(modifiedResponse), getEntity(response));
+
+        assertEquals(jwksDocumentCache.getRebuildCount(), rebuildCount + 1, "JWKS should be built only once");
+        assertEquals(jwksDocumentCache.getHitCount(), hitCount + 2);
+        assertEquals(jwksDocumentCache.getNotModifiedCount(), 1);
+    }
+
+    private void mockSuperTenantKeystore() {
+
+        Path keystorePath = Paths.get(System.getProperty(CarbonBaseConstants.CARBON_HOME), "repository", "resources",
+                "security", "wso2carbon.jks");
+        mockStatic(CarbonUtils.class);
+        when(CarbonUtils.getServerConfiguration()).thenReturn(serverConfiguration);
+        when(serverConfiguration.getFirstProperty("Security.KeyStore.Location")).thenReturn(keystorePath.toString());
+        when(serverConfiguration.getFirstProperty("Security.KeyStore.Password")).thenReturn("wso2carbon");
+        when(serverConfiguration.getFirstProperty("Security.KeyStore.KeyAlias")).thenReturn("wso2carbon");
+    }
+
+    private String getEntity(Response response) {
+
+        Object entity = response.getEntity();
+        if (entity instanceof byte[]) {
+            return new String((byte[]) entity, StandardCharsets.UTF_8);
+        }
+        return (String) entity;
+    }
+
     private void mockOAuthServerConfiguration() throws Exception {
 
         mockStatic(OAuthServerConfiguration.class);
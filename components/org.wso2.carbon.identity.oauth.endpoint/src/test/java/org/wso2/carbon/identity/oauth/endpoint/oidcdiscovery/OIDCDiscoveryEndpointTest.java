@@ -39,9 +39,13 @@ import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 
@@ -119,6 +123,48 @@ public class OIDCDiscoveryEndpointTest extends PowerMockIdentityBaseTest {
         threadLocalProperties.get().remove(OAuthConstants.TENANT_NAME_FROM_CONTEXT);
     }
 
+    @Test
+    public void testGetOIDProviderConfigurationFromCache() throws Exception {
+
+        OIDCDiscoveryDocumentCache documentCache = OIDCDiscoveryDocumentCache.getInstance();
+        documentCache.clear();
+        long rebuildCount = documentCache.getRebuildCount();
+        long hitCount = documentCache.getHitCount();
+        DefaultOIDCProcessor processor = mock(DefaultOIDCProcessor.class);
+        OIDProviderConfigResponse configResponse = mock(OIDProviderConfigResponse.class);
+        mockStatic(IdentityUtil.class);
+        mockStatic(EndpointUtil.class);
+        when(EndpointUtil.getOIDCService()).thenReturn(processor);
+        when(processor.getResponseVersion(any(HttpServletRequest.class), any(String.class)))
+                .thenReturn("version1");
+        when(processor.getResponse(any(HttpServletRequest.class), any(String.class)))
+                .thenReturn(configResponse);
+        when(configResponse.getConfigMap()).thenReturn(getSampleConfigMap());
+        oidcDiscoveryEndpoint.setOidProviderResponseBuilder(new OIDProviderJSONResponseBuilder());
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE)).thenReturn(-1L);
+
+        Response response = oidcDiscoveryEndpoint.getOIDProviderConfiguration("token", request);
+        Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        String eTag = (String) response.getMetadata().getFirst(HttpHeaders.ETAG);
+        Assert.assertNotNull(eTag);
+        Assert.assertEquals("public, max-age=300", response.getMetadata().getFirst(HttpHeaders.CACHE_CONTROL));
+
+        when(request.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn(eTag);
+        response = oidcDiscoveryEndpoint.getOIDProviderConfiguration("token", request);
+        Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        verify(processor, times(1)).getResponse(any(HttpServletRequest.class), any(String.class));
+
+        // A change of the claims or scopes of the tenant changes the version, which rebuilds the document.
+        when(processor.getResponseVersion(any(HttpServletRequest.class), any(String.class)))
+                .thenReturn("version2");
+        response = oidcDiscoveryEndpoint.getOIDProviderConfiguration("token", request);
+        Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        verify(processor, times(2)).getResponse(any(HttpServletRequest.class), any(String.class));
+        Assert.assertEquals(rebuildCount + 2, documentCache.getRebuildCount());
+        Assert.assertEquals(hitCount + 1, documentCache.getHitCount());
+    }
+
     private Map<String, Object> getSampleConfigMap() {
 
         Map<String, Object> configMap = new HashMap<>();
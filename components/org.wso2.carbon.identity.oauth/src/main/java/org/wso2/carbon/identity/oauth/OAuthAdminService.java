@@ -72,6 +72,24 @@ public class OAuthAdminService extends AbstractAdmin {
         }
     }
 
+    /**
+     * Get a page of the registered OAuth applications of the logged in user, in the order of their creation.
+     *
+     * @param afterConsumerKey Consumer key of the last application of the previous page, or null for the first page.
+     * @param limit            Maximum number of applications to be returned.
+     * @return An array of <code>OAuthConsumerAppDTO</code> containing the applications of the page.
+     * @throws IdentityOAuthAdminException Error when reading the data from the persistence store.
+     */
+    public OAuthConsumerAppDTO[] getOAuthApplicationDataPage(String afterConsumerKey, int limit)
+            throws IdentityOAuthAdminException {
+
+        try {
+            return oAuthAdminServiceImpl.getOAuthApplicationDataPage(afterConsumerKey, limit);
+        } catch (IdentityOAuthAdminException ex) {
+            throw handleError(ex);
+        }
+    }
+
     /**
      * Get OAuth application data by the consumer key.
      *
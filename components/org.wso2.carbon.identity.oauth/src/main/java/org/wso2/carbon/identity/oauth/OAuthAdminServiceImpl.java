@@ -53,7 +53,10 @@ import org.wso2.carbon.identity.oauth2.OAuth2Service;
 import org.wso2.carbon.identity.oauth2.Oauth2ScopeConstants;
 import org.wso2.carbon.identity.oauth2.authz.handlers.ResponseTypeHandler;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.internal.cache.AuthorizedClientIdsCache;
+import org.wso2.carbon.identity.oauth2.internal.cache.AuthorizedClientIdsCacheEntry;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.CallbackURLMatcher;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.validators.OAuth2ScopeValidator;
 import org.wso2.carbon.user.api.UserStoreException;
@@ -63,7 +66,6 @@ import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -152,6 +154,56 @@ public class OAuthAdminServiceImpl {
         return dtos;
     }
 
+    /**
+     * Get a page of the registered OAuth applications of the logged in user, in the order of their creation.
+     * <p>
+     * The applications of a page, including their OIDC properties and scope validators, are read with a fixed number
+     * of queries, hence users with many applications can list them page by page.
+     *
+     * @param afterConsumerKey Consumer key of the last application of the previous page, or null for the first page.
+     * @param limit            Maximum number of applications to be returned.
+     * @return An array of <code>OAuthConsumerAppDTO</code> containing the applications of the page. A page with
+     * fewer applications than the limit is the last page.
+     * @throws IdentityOAuthAdminException Error when reading the data from the persistence store.
+     */
+    public OAuthConsumerAppDTO[] getOAuthApplicationDataPage(String afterConsumerKey, int limit)
+            throws IdentityOAuthAdminException {
+
+        String userName = CarbonContext.getThreadLocalCarbonContext().getUsername();
+        if (userName == null) {
+            String msg = "User not logged in to get the registered OAuth Applications.";
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(msg);
+            }
+            throw handleClientError(AUTHENTICATED_USER_NOT_FOUND, msg);
+        }
+        if (limit <= 0) {
+            throw handleClientError(INVALID_REQUEST, "Invalid page size: " + limit + ". The page size should be " +
+                    "a positive value.");
+        }
+
+        int afterAppId = 0;
+        if (StringUtils.isNotEmpty(afterConsumerKey)) {
+            try {
+                afterAppId = getOAuthApp(afterConsumerKey).getId();
+            } catch (InvalidOAuthClientException e) {
+                String msg = "Cannot find a valid OAuth client for consumerKey: " + afterConsumerKey;
+                throw handleClientError(INVALID_OAUTH_CLIENT, msg, e);
+            } catch (IdentityOAuth2Exception e) {
+                throw handleError("Error while retrieving the app information using consumerKey: " +
+                        afterConsumerKey, e);
+            }
+        }
+
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        OAuthAppDO[] apps = new OAuthAppDAO().getOAuthConsumerAppsOfUser(userName, tenantId, afterAppId, limit);
+        OAuthConsumerAppDTO[] dtos = new OAuthConsumerAppDTO[apps.length];
+        for (int i = 0; i < apps.length; i++) {
+            dtos[i] = OAuthUtil.buildConsumerAppDTO(apps[i]);
+        }
+        return dtos;
+    }
+
     /**
      * Get OAuth application data by the consumer key.
      *
@@ -460,6 +512,7 @@ public class OAuthAdminServiceImpl {
         oauthappdo.setOauthConsumerSecret(consumerAppDTO.getOauthConsumerSecret());
 
         validateCallbackURI(consumerAppDTO);
+        String previousCallbackUrl = oauthappdo.getCallbackUrl();
         oauthappdo.setCallbackUrl(consumerAppDTO.getCallbackUrl());
 
         oauthappdo.setApplicationName(consumerAppDTO.getApplicationName());
@@ -500,6 +553,11 @@ public class OAuthAdminServiceImpl {
         }
         dao.updateConsumerApplication(oauthappdo);
         AppInfoCache.getInstance().addToCache(oauthappdo.getOauthConsumerKey(), oauthappdo);
+        if (!StringUtils.equals(previousCallbackUrl, oauthappdo.getCallbackUrl())) {
+            CallbackURLMatcher.getInstance().clear(previousCallbackUrl);
+        }
+        OAuth2Util.clearSpTokenExpiryTimeConfigCache(oauthappdo.getOauthConsumerKey(),
+                CarbonContext.getThreadLocalCarbonContext().getTenantId());
         if (LOG.isDebugEnabled()) {
             LOG.debug("Oauth Application update success : " + consumerAppDTO.getApplicationName() + " in " +
                     "tenant domain: " + tenantDomain);
@@ -898,6 +956,8 @@ public class OAuthAdminServiceImpl {
         // remove client credentials from cache
         OAuthCache.getInstance().clearCacheEntry(new OAuthCacheKey(consumerKey));
         AppInfoCache.getInstance().clearCacheEntry(consumerKey);
+        OAuth2Util.clearSpTokenExpiryTimeConfigCache(consumerKey,
+                CarbonContext.getThreadLocalCarbonContext().getTenantId());
         if (LOG.isDebugEnabled()) {
             LOG.debug("Client credentials are removed from the cache for OAuth App with consumerKey: " + consumerKey);
         }
@@ -942,52 +1002,53 @@ public class OAuthAdminServiceImpl {
             }
         }
 
+        Set<String> clientIds = getAuthorizedClientIds(loggedInUser, userStoreDomain, username);
+        List<OAuthConsumerAppDTO> appDTOs = new ArrayList<>(clientIds.size());
+        for (String clientId : clientIds) {
+            OAuthAppDO appDO = getOAuthAppDO(clientId);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Found App: " + appDO.getApplicationName() + " for user: " + username);
+            }
+            appDTOs.add(OAuthUtil.buildConsumerAppDTO(appDO));
+        }
+        return appDTOs.toArray(new OAuthConsumerAppDTO[0]);
+    }
+
+    /**
+     * Get the ids of the clients to which the user has active or expired access tokens. The ids are read with a
+     * single query and cached until a token is issued to another client or the tokens of the user are revoked.
+     */
+    private Set<String> getAuthorizedClientIds(AuthenticatedUser user, String userStoreDomain, String username)
+            throws IdentityOAuthAdminException {
+
+        String userId = null;
+        try {
+            userId = user.getUserId();
+        } catch (UserIdNotFoundException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("User id cannot be found for user: " + username + ". Authorized apps are not cached.");
+            }
+        }
+        AuthorizedClientIdsCache cache = AuthorizedClientIdsCache.getInstance();
+        if (userId != null) {
+            AuthorizedClientIdsCacheEntry entry = cache.getValueFromCache(userId);
+            if (entry != null) {
+                return entry.getClientIds();
+            }
+        }
+
         Set<String> clientIds;
         try {
             clientIds = OAuthTokenPersistenceFactory.getInstance().getTokenManagementDAO()
-                    .getAllTimeAuthorizedClientIds(loggedInUser);
+                    .getAuthorizedClientIds(user, userStoreDomain);
         } catch (IdentityOAuth2Exception e) {
             String errorMsg = "Error occurred while retrieving apps authorized by User ID : " + username;
             throw handleError(errorMsg, e);
         }
-        Set<OAuthConsumerAppDTO> appDTOs = new HashSet<OAuthConsumerAppDTO>();
-        for (String clientId : clientIds) {
-            Set<AccessTokenDO> accessTokenDOs;
-            try {
-                accessTokenDOs = OAuthTokenPersistenceFactory.getInstance()
-                        .getAccessTokenDAO().getAccessTokens(
-                                clientId, loggedInUser, userStoreDomain, true);
-            } catch (IdentityOAuth2Exception e) {
-                String errorMsg = "Error occurred while retrieving access tokens issued for " +
-                        "Client ID : " + clientId + ", User ID : " + username;
-                throw handleError(errorMsg, e);
-            }
-            if (!accessTokenDOs.isEmpty()) {
-                Set<String> distinctClientUserScopeCombo = new HashSet<String>();
-                for (AccessTokenDO accessTokenDO : accessTokenDOs) {
-                    AccessTokenDO scopedToken;
-                    String scopeString = buildScopeString(accessTokenDO.getScope());
-                    try {
-                        scopedToken = OAuthTokenPersistenceFactory.getInstance().
-                                getAccessTokenDAO().getLatestAccessToken(clientId, loggedInUser, userStoreDomain,
-                                scopeString, true);
-                        if (scopedToken != null && !distinctClientUserScopeCombo.contains(clientId + ":" + username)) {
-                            OAuthAppDO appDO = getOAuthAppDO(scopedToken.getConsumerKey());
-                            if (LOG.isDebugEnabled()) {
-                                LOG.debug("Found App: " + appDO.getApplicationName() + " for user: " + username);
-                            }
-                            appDTOs.add(OAuthUtil.buildConsumerAppDTO(appDO));
-                            distinctClientUserScopeCombo.add(clientId + ":" + username);
-                        }
-                    } catch (IdentityOAuth2Exception e) {
-                        String errorMsg = "Error occurred while retrieving latest access token issued for Client ID :" +
-                                " " + clientId + ", User ID : " + username + " and Scope : " + scopeString;
-                        throw handleError(errorMsg, e);
-                    }
-                }
-            }
+        if (userId != null) {
+            cache.addToCache(userId, new AuthorizedClientIdsCacheEntry(clientIds));
         }
-        return appDTOs.toArray(new OAuthConsumerAppDTO[0]);
+        return clientIds;
     }
 
     private OAuthAppDO getOAuthAppDO(String consumerKey) throws IdentityOAuthAdminException {
@@ -40,6 +40,8 @@ import org.wso2.carbon.identity.oauth2.IdentityOAuth2ClientException;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2ServerException;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.internal.cache.AuthorizedClientIdsCache;
+import org.wso2.carbon.identity.oauth2.internal.cache.AuthorizedClientIdsCacheEntry;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.registry.core.utils.UUIDGenerator;
@@ -125,6 +127,7 @@ public final class OAuthUtil {
             }
             clearOAuthCache(consumerKey, userId);
             clearOAuthCacheWithAuthenticatedIDP(consumerKey, userId, null);
+            clearAuthorizedClientIdsCache(userId);
         }
     }
 
@@ -145,6 +148,45 @@ public final class OAuthUtil {
             return;
         }
         clearOAuthCacheWithAuthenticatedIDP(consumerKey, userId, authenticatedIDP);
+        clearAuthorizedClientIdsCache(userId);
+    }
+
+    /**
+     * Clear the cached ids of the clients authorized by the user, when the given client is not among them. Invoked
+     * after an access token is issued to the client on behalf of the user.
+     *
+     * @param consumerKey    Client id of the application the token issued to.
+     * @param authorizedUser Authorized user.
+     */
+    public static void clearAuthorizedClientIdsCache(String consumerKey, AuthenticatedUser authorizedUser) {
+
+        if (authorizedUser == null) {
+            return;
+        }
+        String userId;
+        try {
+            userId = authorizedUser.getUserId();
+        } catch (UserIdNotFoundException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("User id cannot be found for user: " + authorizedUser.getLoggableUserId());
+            }
+            return;
+        }
+        AuthorizedClientIdsCache cache = AuthorizedClientIdsCache.getInstance();
+        AuthorizedClientIdsCacheEntry entry = cache.getValueFromCache(userId);
+        if (entry != null && !entry.getClientIds().contains(consumerKey)) {
+            cache.clearCacheEntry(userId);
+        }
+    }
+
+    /**
+     * Clear the cached ids of the clients authorized by the user, as the tokens of the user may have been revoked.
+     *
+     * @param authorizedUserId Id of the authorized user.
+     */
+    private static void clearAuthorizedClientIdsCache(String authorizedUserId) {
+
+        AuthorizedClientIdsCache.getInstance().clearCacheEntry(authorizedUserId);
     }
 
     /**
@@ -175,6 +217,7 @@ public final class OAuthUtil {
             }
             clearOAuthCache(consumerKey, userId, scope);
             clearOAuthCacheWithAuthenticatedIDP(consumerKey, userId, scope, authenticatedIDP);
+            clearAuthorizedClientIdsCache(userId);
         }
     }
 
@@ -197,6 +240,7 @@ public final class OAuthUtil {
             return;
         }
         clearOAuthCacheWithAuthenticatedIDP(consumerKey, userId, scope, authenticatedIDP);
+        clearAuthorizedClientIdsCache(userId);
     }
 
     /**
@@ -230,6 +274,7 @@ public final class OAuthUtil {
             clearOAuthCache(consumerKey, userId, scope);
             clearOAuthCache(buildCacheKeyStringForToken(consumerKey, scope, userId, null,
                     tokenBindingReference));
+            clearAuthorizedClientIdsCache(userId);
         }
     }
 
@@ -255,6 +300,7 @@ public final class OAuthUtil {
         }
         clearOAuthCache(buildCacheKeyStringForToken(consumerKey, scope, userId,
                 authenticatedIDP, tokenBindingReference));
+        clearAuthorizedClientIdsCache(userId);
     }
 
     private static void clearOAuthCache(String consumerKey, String authorizedUserId) {
@@ -323,6 +369,13 @@ public final class OAuthUtil {
         OAuthCacheKey cacheKey = new OAuthCacheKey(accessTokenDO.getAccessToken());
         String tenantDomain = accessTokenDO.getAuthzUser().getTenantDomain();
         OAuthCache.getInstance().clearCacheEntry(cacheKey,  tenantDomain);
+        try {
+            clearAuthorizedClientIdsCache(accessTokenDO.getAuthzUser().getUserId());
+        } catch (UserIdNotFoundException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("User id cannot be found for user: " + accessTokenDO.getAuthzUser().getLoggableUserId());
+            }
+        }
     }
 
     public static AuthenticatedUser getAuthenticatedUser(String fullyQualifiedUserName) {
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getLongProperty;
+
+/**
+ * In-process near cache of active {@link AccessTokenDO}s placed in front of {@link OAuthCache}.
+ * <p>
+ * Entries are held as plain references on the local node, so the hottest tokens are validated without
+ * serialization or cluster hops. An entry lives for the configured time to live, capped at the remaining lifetime of
+ * the token, and is invalidated whenever the corresponding {@link OAuthCache} entry is cleared, including removals
+ * propagated to this node through the {@link org.wso2.carbon.identity.oauth.listener.OAuthCacheRemoveListener}.
+ * The number of entries is bounded; when the bound is reached the least recently used entry is evicted.
+ * <p>
+ * The cached {@link AccessTokenDO} instances are shared by all the threads that validate the token, in the same way as
+ * the entries of a local {@link OAuthCache}. Callers must not modify the returned instances.
+ * <p>
+ * The near cache is configured in identity.xml under OAuth.TokenValidation.NearCache and is disabled by default.
+ */
+public class AccessTokenNearCache {
+
+    private static final Log log = LogFactory.getLog(AccessTokenNearCache.class);
+
+    private static final String NEAR_CACHE_ENABLE = "OAuth.TokenValidation.NearCache.Enable";
+    private static final String NEAR_CACHE_MAX_ENTRIES = "OAuth.TokenValidation.NearCache.MaxEntries";
+    private static final String NEAR_CACHE_TIME_TO_LIVE_SECONDS = "OAuth.TokenValidation.NearCache.TimeToLiveSeconds";
+
+    private static final int DEFAULT_MAX_ENTRIES = 5000;
+    private static final long DEFAULT_TIME_TO_LIVE_SECONDS = 60;
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long timeToLiveMillis;
+    // Access ordered, so that the eldest entry is the least recently used one. Guarded by itself.
+    private final Map<String, NearCacheEntry> entries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expirationCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    AccessTokenNearCache(boolean enabled, int maxEntries, long timeToLiveMillis) {
+
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.entries = new LinkedHashMap<String, NearCacheEntry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 2386423589042217164L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NearCacheEntry> eldest) {
+
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                if (eldest.getValue().expiryTime <= System.currentTimeMillis()) {
+                    expirationCount.incrementAndGet();
+                } else {
+                    evictionCount.incrementAndGet();
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Create a near cache using the configuration in identity.xml.
+     *
+     * @return Near cache.
+     */
+    static AccessTokenNearCache createFromConfig() {
+
+        boolean enabled = Boolean.parseBoolean(IdentityUtil.getProperty(NEAR_CACHE_ENABLE));
+        int maxEntries = (int) getLongProperty(NEAR_CACHE_MAX_ENTRIES, DEFAULT_MAX_ENTRIES);
+        long timeToLiveSeconds = getLongProperty(NEAR_CACHE_TIME_TO_LIVE_SECONDS, DEFAULT_TIME_TO_LIVE_SECONDS);
+        if (enabled) {
+            log.info("Access token near cache is enabled with max entries: " + maxEntries + " and time to live: " +
+                    timeToLiveSeconds + "s.");
+        }
+        return new AccessTokenNearCache(enabled, maxEntries, TimeUnit.SECONDS.toMillis(timeToLiveSeconds));
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * Get the access token cached against the given key.
+     *
+     * @param key OAuth cache key.
+     * @return Cached access token, or null if it is not cached or has expired. The instance is shared and must not
+     * be modified.
+     */
+    public AccessTokenDO get(OAuthCacheKey key) {
+
+        if (!enabled || key == null || key.getCacheKeyString() == null) {
+            return null;
+        }
+        NearCacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(key.getCacheKeyString());
+            if (entry != null && entry.expiryTime <= System.currentTimeMillis()) {
+                entries.remove(key.getCacheKeyString());
+                expirationCount.incrementAndGet();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.accessTokenDO;
+    }
+
+    /**
+     * Cache the given entry if it is an active access token.
+     *
+     * @param key        OAuth cache key.
+     * @param cacheEntry Entry added to the OAuth cache.
+     */
+    public void put(OAuthCacheKey key, CacheEntry cacheEntry) {
+
+        if (!enabled || key == null || key.getCacheKeyString() == null) {
+            return;
+        }
+        if (!(cacheEntry instanceof AccessTokenDO)) {
+            // Keys are shared with other kinds of entries, so a stale token must not outlive a replacement.
+            invalidate(key);
+            return;
+        }
+        AccessTokenDO accessTokenDO = (AccessTokenDO) cacheEntry;
+        if (accessTokenDO.getTokenState() != null &&
+                !OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE.equals(accessTokenDO.getTokenState())) {
+            invalidate(key);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long expiryTime = now + timeToLiveMillis;
+        if (accessTokenDO.getIssuedTime() != null && accessTokenDO.getValidityPeriodInMillis() >= 0) {
+            long tokenExpiryTime = accessTokenDO.getIssuedTime().getTime() +
+                    accessTokenDO.getValidityPeriodInMillis();
+            expiryTime = Math.min(expiryTime, tokenExpiryTime);
+        }
+        if (expiryTime <= now) {
+            invalidate(key);
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key.getCacheKeyString(), new NearCacheEntry(accessTokenDO, expiryTime));
+        }
+    }
+
+    /**
+     * Remove the entry cached against the given key.
+     *
+     * @param key OAuth cache key.
+     */
+    public void invalidate(OAuthCacheKey key) {
+
+        if (!enabled || key == null || key.getCacheKeyString() == null) {
+            return;
+        }
+        synchronized (entries) {
+            if (entries.remove(key.getCacheKeyString()) != null) {
+                invalidationCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Remove all the cached entries.
+     */
+    public void clear() {
+
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+
+        return missCount.get();
+    }
+
+    /**
+     * @return Number of least recently used entries removed to keep the cache within its size bound.
+     */
+    public long getEvictionCount() {
+
+        return evictionCount.get();
+    }
+
+    /**
+     * @return Number of entries removed since their time to live had elapsed.
+     */
+    public long getExpirationCount() {
+
+        return expirationCount.get();
+    }
+
+    /**
+     * @return Number of entries removed since the corresponding OAuth cache entry was cleared.
+     */
+    public long getInvalidationCount() {
+
+        return invalidationCount.get();
+    }
+
+    @Override
+    public String toString() {
+
+        return "size: " + size() + ", hits: " + getHitCount() + ", misses: " + getMissCount() + ", evictions: " +
+                getEvictionCount() + ", expirations: " + getExpirationCount() + ", invalidations: " +
+                getInvalidationCount();
+    }
+
+    private static class NearCacheEntry {
+
+        private final AccessTokenDO accessTokenDO;
+        private final long expiryTime;
+
+        private NearCacheEntry(AccessTokenDO accessTokenDO, long expiryTime) {
+
+            this.accessTokenDO = accessTokenDO;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
+import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads OAuth applications into the {@link AppInfoCache} on cache misses.
+ * <p>
+ * Concurrent misses of the same consumer key are coalesced into a single load: the first request reads the
+ * application from the database while the others wait for its result, instead of each of them running the same
+ * queries. The load is not shared beyond the requests which overlap with it, so that a failure is reported only to
+ * them and the next miss loads again.
+ */
+public class AppInfoCacheLoader {
+
+    private static final Log log = LogFactory.getLog(AppInfoCacheLoader.class);
+
+    private static final AppInfoCacheLoader instance = new AppInfoCacheLoader();
+
+    private final Map<String, CompletableFuture<OAuthAppDO>> inFlightLoads = new ConcurrentHashMap<>();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong coalescedLoadCount = new AtomicLong();
+
+    AppInfoCacheLoader() {
+
+    }
+
+    public static AppInfoCacheLoader getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the application of the consumer key from the cache, loading it from the database on a cache miss.
+     *
+     * @param consumerKey Consumer key of the application.
+     * @param appLoader   Reads the application from the database, e.g. with
+     *                    {@link org.wso2.carbon.identity.oauth.dao.OAuthAppDAO#getAppInformation(String)}.
+     * @return Application information.
+     * @throws IdentityOAuth2Exception     If the application could not be loaded.
+     * @throws InvalidOAuthClientException If there is no application for the consumer key.
+     */
+    public OAuthAppDO getAppInformation(String consumerKey, AppLoader appLoader)
+            throws IdentityOAuth2Exception, InvalidOAuthClientException {
+
+        OAuthAppDO oAuthAppDO = AppInfoCache.getInstance().getValueFromCache(consumerKey);
+        if (oAuthAppDO != null) {
+            return oAuthAppDO;
+        }
+
+        CompletableFuture<OAuthAppDO> load = new CompletableFuture<>();
+        CompletableFuture<OAuthAppDO> inFlightLoad = inFlightLoads.putIfAbsent(consumerKey, load);
+        if (inFlightLoad != null) {
+            coalescedLoadCount.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Waiting for the in-flight load of the application with consumer key: " + consumerKey);
+            }
+            return awaitLoad(inFlightLoad);
+        }
+
+        try {
+            // The application may have been cached by a load which completed after the cache miss.
+            oAuthAppDO = AppInfoCache.getInstance().getValueFromCache(consumerKey);
+            if (oAuthAppDO == null) {
+                loadCount.incrementAndGet();
+                oAuthAppDO = appLoader.load(consumerKey);
+                if (oAuthAppDO != null) {
+                    AppInfoCache.getInstance().addToCache(consumerKey, oAuthAppDO);
+                }
+            }
+            load.complete(oAuthAppDO);
+            return oAuthAppDO;
+        } catch (Throwable e) {
+            // Completed with any failure, as the waiting requests would block otherwise.
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(consumerKey, load);
+        }
+    }
+
+    private static OAuthAppDO awaitLoad(CompletableFuture<OAuthAppDO> load)
+            throws IdentityOAuth2Exception, InvalidOAuthClientException {
+
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityOAuth2Exception("Interrupted while waiting for the application to be loaded.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvalidOAuthClientException) {
+                throw (InvalidOAuthClientException) cause;
+            }
+            if (cause instanceof IdentityOAuth2Exception) {
+                throw (IdentityOAuth2Exception) cause;
+            }
+            throw new IdentityOAuth2Exception("Error while retrieving the app information", cause);
+        }
+    }
+
+    /**
+     * @return Number of applications loaded from the database.
+     */
+    public long getLoadCount() {
+
+        return loadCount.get();
+    }
+
+    /**
+     * @return Number of cache misses served by waiting for a concurrent load instead of loading again.
+     */
+    public long getCoalescedLoadCount() {
+
+        return coalescedLoadCount.get();
+    }
+
+    /**
+     * @return Number of loads in progress.
+     */
+    public int getInFlightLoadCount() {
+
+        return inFlightLoads.size();
+    }
+
+    @Override
+    public String toString() {
+
+        return "loads: " + getLoadCount() + ", coalescedLoads: " + getCoalescedLoadCount() + ", inFlightLoads: " +
+                getInFlightLoadCount();
+    }
+
+    /**
+     * Reads an application from the database.
+     */
+    public interface AppLoader {
+
+        OAuthAppDO load(String consumerKey) throws IdentityOAuth2Exception, InvalidOAuthClientException;
+    }
+}
@@ -74,6 +74,7 @@ public class AuthorizationGrantCache extends
      * @param entry Actual object where cache entry is placed.
      */
     public void addToCacheByToken(AuthorizationGrantCacheKey key, AuthorizationGrantCacheEntry entry) {
+        OAuthAppCacheGeneration.getInstance().setGeneration(entry.getClientId(), entry);
         super.addToCache(key, entry);
         String tokenId = entry.getTokenId();
         if (tokenId == null) {
@@ -94,12 +95,17 @@ public class AuthorizationGrantCache extends
     public AuthorizationGrantCacheEntry getValueFromCacheByTokenId(AuthorizationGrantCacheKey key, String tokenId) {
 
         AuthorizationGrantCacheEntry cacheEntry = super.getValueFromCache(key);
-        if (cacheEntry == null) {
+        boolean fromSessionStore = cacheEntry == null;
+        if (fromSessionStore) {
             if (log.isDebugEnabled()) {
                 log.debug("Getting cache entry from session store using tokenId: " + tokenId);
             }
             cacheEntry = getFromSessionStore(tokenId);
         }
+        if (isStale(cacheEntry, fromSessionStore)) {
+            clearCacheEntryByTokenId(key, tokenId);
+            return null;
+        }
         return cacheEntry;
     }
 
@@ -111,7 +117,8 @@ public class AuthorizationGrantCache extends
      */
     public AuthorizationGrantCacheEntry getValueFromCacheByToken(AuthorizationGrantCacheKey key) {
         AuthorizationGrantCacheEntry cacheEntry = super.getValueFromCache(key);
-        if (cacheEntry == null) {
+        boolean fromSessionStore = cacheEntry == null;
+        if (fromSessionStore) {
             if (log.isDebugEnabled()) {
                 if (IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
                     log.debug("Getting cache entry from session store using access token(hashed): "
@@ -122,6 +129,10 @@ public class AuthorizationGrantCache extends
             }
             cacheEntry = getFromSessionStore(replaceFromTokenId(key.getUserAttributesId()));
         }
+        if (isStale(cacheEntry, fromSessionStore)) {
+            clearCacheEntryByToken(key);
+            return null;
+        }
         return cacheEntry;
     }
 
@@ -152,6 +163,7 @@ public class AuthorizationGrantCache extends
      * @param entry Actual object where cache entry is placed.
      */
     public void addToCacheByCode(AuthorizationGrantCacheKey key, AuthorizationGrantCacheEntry entry) {
+        OAuthAppCacheGeneration.getInstance().setGeneration(entry.getClientId(), entry);
         super.addToCache(key, entry);
         long validityPeriodNano = TimeUnit.SECONDS.toNanos(
                 OAuthServerConfiguration.getInstance().getAuthorizationCodeValidityPeriodInSeconds());
@@ -167,7 +179,8 @@ public class AuthorizationGrantCache extends
      */
     public AuthorizationGrantCacheEntry getValueFromCacheByCode(AuthorizationGrantCacheKey key) {
         AuthorizationGrantCacheEntry cacheEntry = super.getValueFromCache(key);
-        if (cacheEntry == null) {
+        boolean fromSessionStore = cacheEntry == null;
+        if (fromSessionStore) {
             if (log.isDebugEnabled()) {
                 if (IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.AUTHORIZATION_CODE)) {
                     log.debug("Getting cache entry from session store using authorization code(hashed): "
@@ -178,6 +191,10 @@ public class AuthorizationGrantCache extends
             }
             cacheEntry = getFromSessionStore(replaceFromCodeId(key.getUserAttributesId()));
         }
+        if (isStale(cacheEntry, fromSessionStore)) {
+            clearCacheEntryByCode(key);
+            return null;
+        }
         return cacheEntry;
     }
 
@@ -212,6 +229,24 @@ public class AuthorizationGrantCache extends
         clearFromSessionStore(authzCodeId);
     }
 
+    /**
+     * Check whether the application of the entry was updated after the entry was cached.
+     *
+     * @param entry            Cache entry, or null.
+     * @param fromSessionStore Whether the entry was read from the session data store.
+     * @return true if the entry is stale.
+     */
+    private static boolean isStale(AuthorizationGrantCacheEntry entry, boolean fromSessionStore) {
+
+        if (entry == null) {
+            return false;
+        }
+        if (fromSessionStore) {
+            return OAuthAppCacheGeneration.getInstance().isStaleInSessionStore(entry.getClientId(), entry);
+        }
+        return OAuthAppCacheGeneration.getInstance().isStale(entry.getClientId(), entry);
+    }
+
     /**
      * Retrieve the authorization code id using the authorization code
      * @param authzCode Authorization code
@@ -40,6 +40,8 @@ public class AuthorizationGrantCacheEntry extends CacheEntry {
 
     private String tokenId;
 
+    private String clientId;
+
     private Map<ClaimMapping, String> userAttributes;
 
     private String nonceValue;
@@ -174,6 +176,19 @@ public class AuthorizationGrantCacheEntry extends CacheEntry {
         this.tokenId = tokenId;
     }
 
+    /**
+     * @return Client id of the application the entry was cached for, or null if it is not known.
+     */
+    public String getClientId() {
+
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+
+        this.clientId = clientId;
+    }
+
     public String getPkceCodeChallenge() {
         return pkceCodeChallenge;
     }
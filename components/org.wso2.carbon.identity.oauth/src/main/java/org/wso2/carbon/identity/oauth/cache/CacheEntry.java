@@ -29,4 +29,35 @@ public abstract class CacheEntry extends org.wso2.carbon.identity.core.cache.Cac
 
     private static final long serialVersionUID = 1591693579088522864L;
 
+    private long cacheGeneration;
+
+    private long persistedCacheGeneration;
+
+    /**
+     * @return Cache generation of the application of the entry at the time it was cached, or 0 if it is not known.
+     * @see OAuthAppCacheGeneration
+     */
+    public long getCacheGeneration() {
+
+        return cacheGeneration;
+    }
+
+    public void setCacheGeneration(long cacheGeneration) {
+
+        this.cacheGeneration = cacheGeneration;
+    }
+
+    /**
+     * @return Persisted cache generation of the application of the entry at the time it was cached.
+     * @see OAuthAppCacheGeneration
+     */
+    public long getPersistedCacheGeneration() {
+
+        return persistedCacheGeneration;
+    }
+
+    public void setPersistedCacheGeneration(long persistedCacheGeneration) {
+
+        this.persistedCacheGeneration = persistedCacheGeneration;
+    }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.store.SessionDataStore;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generation of the cached token, authorization code and user attribute entries of each OAuth application.
+ * <p>
+ * Invalidating an application starts a new generation for its client id, instead of looking up and clearing every
+ * cache entry of the application. Each entry carries the generation of its application at the time it was cached,
+ * and the caches drop the entries of an older generation lazily when they are read.
+ * <p>
+ * The generation of an application is kept in the {@link OAuthAppGenerationCache}. Generations are numbered from a
+ * counter of the node, so that a new generation is always greater than the generations of the entries cached on the
+ * node before it. Invalidating an application removes its entry from that cache on every node of the cluster, and
+ * each node starts a new generation the next time it reads an entry of the application. An entry of the generation
+ * cache removed for any other reason, e.g. on expiry, also starts a new generation, which only drops entries early.
+ * These generations assume that the caches holding the entries are not distributed, since an entry cached by another
+ * node carries a generation of the counter of that node.
+ * <p>
+ * The entries of {@link AuthorizationGrantCache} read from the session data store may have been cached by another
+ * node, hence their generation is not comparable with the generation of this node. They are compared with a
+ * persisted generation instead, which is incremented in the session data store on each invalidation. These entries
+ * are only available when session data persistence is enabled.
+ */
+public class OAuthAppCacheGeneration {
+
+    private static final Log log = LogFactory.getLog(OAuthAppCacheGeneration.class);
+
+    private static final String SESSION_DATA_TYPE = "OAuthAppCacheGeneration";
+
+    private static final OAuthAppCacheGeneration instance = new OAuthAppCacheGeneration();
+
+    private final AtomicLong generationCounter = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final AtomicLong staleEntryCount = new AtomicLong();
+
+    OAuthAppCacheGeneration() {
+
+    }
+
+    public static OAuthAppCacheGeneration getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Set the current generation of an application to an entry which is being cached.
+     *
+     * @param consumerKey Client id of the application of the entry.
+     * @param entry       Entry to be cached.
+     */
+    public void setGeneration(String consumerKey, CacheEntry entry) {
+
+        if (consumerKey == null || entry == null) {
+            return;
+        }
+        OAuthAppGenerationCacheEntry generation = getGeneration(consumerKey);
+        entry.setCacheGeneration(generation.getGeneration());
+        entry.setPersistedCacheGeneration(generation.getPersistedGeneration());
+    }
+
+    /**
+     * Invalidate all the cached entries of an application, on all the nodes.
+     *
+     * @param consumerKey Client id of the application.
+     */
+    public void invalidate(String consumerKey) {
+
+        if (StringUtils.isBlank(consumerKey)) {
+            return;
+        }
+        long persistedGeneration = loadPersistedGeneration(consumerKey);
+        OAuthAppGenerationCacheEntry generation = getCachedGeneration(consumerKey);
+        if (generation != null) {
+            // Keeps the generation of a previous invalidation which is not visible in the store yet.
+            persistedGeneration = Math.max(persistedGeneration, generation.getPersistedGeneration());
+        }
+        persistedGeneration++;
+        storePersistedGeneration(consumerKey, persistedGeneration);
+        // Propagated to the other nodes, which start a new generation when they read an entry of the application.
+        clearCachedGeneration(consumerKey);
+        cacheGeneration(consumerKey, new OAuthAppGenerationCacheEntry(generationCounter.incrementAndGet(),
+                persistedGeneration));
+        invalidationCount.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Invalidated the cached entries of the application with client id: " + consumerKey);
+        }
+    }
+
+    /**
+     * Check whether an entry cached on this node belongs to an older generation of its application.
+     *
+     * @param consumerKey Client id of the application of the entry.
+     * @param entry       Cached entry.
+     * @return true if the application was invalidated after the entry was cached.
+     */
+    public boolean isStale(String consumerKey, CacheEntry entry) {
+
+        if (consumerKey == null || entry == null || entry.getCacheGeneration() == 0) {
+            return false;
+        }
+        if (entry.getCacheGeneration() < getGeneration(consumerKey).getGeneration()) {
+            staleEntryCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check whether an entry read from the session data store belongs to an older generation of its application.
+     *
+     * @param consumerKey Client id of the application of the entry.
+     * @param entry       Entry read from the session data store, possibly cached by another node.
+     * @return true if the application was invalidated after the entry was cached.
+     */
+    public boolean isStaleInSessionStore(String consumerKey, CacheEntry entry) {
+
+        if (consumerKey == null || entry == null || entry.getCacheGeneration() == 0) {
+            return false;
+        }
+        if (entry.getPersistedCacheGeneration() < getGeneration(consumerKey).getPersistedGeneration()) {
+            staleEntryCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public long getInvalidationCount() {
+
+        return invalidationCount.get();
+    }
+
+    /**
+     * @return Number of cached entries found to be stale when they were read.
+     */
+    public long getStaleEntryCount() {
+
+        return staleEntryCount.get();
+    }
+
+    private OAuthAppGenerationCacheEntry getGeneration(String consumerKey) {
+
+        OAuthAppGenerationCacheEntry generation = getCachedGeneration(consumerKey);
+        if (generation == null) {
+            generation = new OAuthAppGenerationCacheEntry(generationCounter.incrementAndGet(),
+                    loadPersistedGeneration(consumerKey));
+            cacheGeneration(consumerKey, generation);
+        }
+        return generation;
+    }
+
+    OAuthAppGenerationCacheEntry getCachedGeneration(String consumerKey) {
+
+        return OAuthAppGenerationCache.getInstance().getValueFromCache(consumerKey);
+    }
+
+    void cacheGeneration(String consumerKey, OAuthAppGenerationCacheEntry generation) {
+
+        OAuthAppGenerationCache.getInstance().addToCache(consumerKey, generation);
+    }
+
+    void clearCachedGeneration(String consumerKey) {
+
+        OAuthAppGenerationCache.getInstance().clearCacheEntry(consumerKey);
+    }
+
+    long loadPersistedGeneration(String consumerKey) {
+
+        try {
+            Object entry = SessionDataStore.getInstance().getSessionData(consumerKey, SESSION_DATA_TYPE);
+            if (entry instanceof OAuthAppGenerationCacheEntry) {
+                return ((OAuthAppGenerationCacheEntry) entry).getPersistedGeneration();
+            }
+        } catch (RuntimeException e) {
+            log.error("Error while reading the cache generation of the application with client id: " + consumerKey,
+                    e);
+        }
+        return 0;
+    }
+
+    void storePersistedGeneration(String consumerKey, long persistedGeneration) {
+
+        SessionDataStore.getInstance().storeSessionData(consumerKey, SESSION_DATA_TYPE,
+                new OAuthAppGenerationCacheEntry(0, persistedGeneration));
+    }
+}
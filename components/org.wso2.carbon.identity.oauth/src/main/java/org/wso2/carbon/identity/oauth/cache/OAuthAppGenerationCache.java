@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationBaseCache;
+import org.wso2.carbon.utils.CarbonUtils;
+
+/**
+ * Caches the current cache generation of each OAuth application against its client id.
+ * <p>
+ * Removing an entry is propagated to the other nodes of the cluster like the removals of the other OAuth caches, so
+ * that every node starts a new generation for the application.
+ */
+public class OAuthAppGenerationCache extends AuthenticationBaseCache<String, OAuthAppGenerationCacheEntry> {
+
+    private static final String OAUTH_APP_GENERATION_CACHE_NAME = "OAuthAppGenerationCache";
+
+    private static volatile OAuthAppGenerationCache instance;
+
+    private OAuthAppGenerationCache() {
+
+        super(OAUTH_APP_GENERATION_CACHE_NAME);
+    }
+
+    public static OAuthAppGenerationCache getInstance() {
+
+        CarbonUtils.checkSecurity();
+        if (instance == null) {
+            synchronized (OAuthAppGenerationCache.class) {
+                if (instance == null) {
+                    instance = new OAuthAppGenerationCache();
+                }
+            }
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+/**
+ * Cache generation of an OAuth application.
+ */
+public class OAuthAppGenerationCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -6128473947052918464L;
+
+    private final long generation;
+    private final long persistedGeneration;
+
+    public OAuthAppGenerationCacheEntry(long generation, long persistedGeneration) {
+
+        this.generation = generation;
+        this.persistedGeneration = persistedGeneration;
+    }
+
+    /**
+     * @return Generation of the entries cached on this node.
+     */
+    public long getGeneration() {
+
+        return generation;
+    }
+
+    /**
+     * @return Generation of the entries persisted in the session data store, shared by all the nodes.
+     */
+    public long getPersistedGeneration() {
+
+        return persistedGeneration;
+    }
+}
@@ -22,6 +22,7 @@ import org.wso2.carbon.identity.application.authentication.framework.cache.Authe
 import org.wso2.carbon.identity.core.cache.AbstractCacheListener;
 import org.wso2.carbon.identity.oauth.listener.OAuthCacheRemoveListener;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
 import org.wso2.carbon.utils.CarbonUtils;
 
 import java.util.ArrayList;
@@ -29,12 +30,18 @@ import java.util.List;
 
 /**
  * OAuth cache.
+ * <p>
+ * Entries are tagged with the node-local generation of their application by {@link OAuthAppCacheGeneration} and
+ * dropped on read once the application is invalidated. This assumes the cache is local to the node, i.e. not
+ * distributed, as the generation of an entry cached by another node is not comparable with the generation of this
+ * node.
  */
 public class OAuthCache extends AuthenticationBaseCache<OAuthCacheKey, CacheEntry> {
 
     private static final String OAUTH_CACHE_NAME = "OAuthCache";
     private static final List<AbstractCacheListener<OAuthCacheKey, CacheEntry>> cacheListeners = new ArrayList<>();
     private static volatile OAuthCache instance;
+    private final AccessTokenNearCache nearCache = AccessTokenNearCache.createFromConfig();
 
     static {
         cacheListeners.add(new OAuthCacheRemoveListener());
@@ -59,6 +66,7 @@ public class OAuthCache extends AuthenticationBaseCache<OAuthCacheKey, CacheEntr
     @Override
     public void addToCache(OAuthCacheKey key, CacheEntry entry) {
 
+        OAuthAppCacheGeneration.getInstance().setGeneration(getConsumerKey(entry), entry);
         if (entry instanceof AccessTokenDO) {
             AccessTokenDO tokenDO = (AccessTokenDO) entry;
             String tenantDomain = tokenDO.getAuthzUser().getTenantDomain();
@@ -66,5 +74,105 @@ public class OAuthCache extends AuthenticationBaseCache<OAuthCacheKey, CacheEntr
         } else {
             super.addToCache(key, entry);
         }
+        if (nearCache.isEnabled() && isEnabled()) {
+            nearCache.put(key, entry);
+        }
+    }
+
+    @Override
+    public void addToCache(OAuthCacheKey key, CacheEntry entry, String tenantDomain) {
+
+        OAuthAppCacheGeneration.getInstance().setGeneration(getConsumerKey(entry), entry);
+        super.addToCache(key, entry, tenantDomain);
+        if (nearCache.isEnabled() && isEnabled()) {
+            nearCache.put(key, entry);
+        }
+    }
+
+    @Override
+    public CacheEntry getValueFromCache(OAuthCacheKey key) {
+
+        CacheEntry entry = getEntry(key, null);
+        if (entry != null && isStale(entry)) {
+            // The application of the entry was updated after it was cached.
+            clearCacheEntry(key);
+            return null;
+        }
+        return entry;
+    }
+
+    @Override
+    public CacheEntry getValueFromCache(OAuthCacheKey key, String tenantDomain) {
+
+        CacheEntry entry = getEntry(key, tenantDomain);
+        if (entry != null && isStale(entry)) {
+            // The application of the entry was updated after it was cached.
+            clearCacheEntry(key, tenantDomain);
+            return null;
+        }
+        return entry;
+    }
+
+    @Override
+    public void clearCacheEntry(OAuthCacheKey key) {
+
+        nearCache.invalidate(key);
+        super.clearCacheEntry(key);
+    }
+
+    @Override
+    public void clearCacheEntry(OAuthCacheKey key, String tenantDomain) {
+
+        nearCache.invalidate(key);
+        super.clearCacheEntry(key, tenantDomain);
+    }
+
+    private CacheEntry getEntry(OAuthCacheKey key, String tenantDomain) {
+
+        if (!nearCache.isEnabled() || !isEnabled()) {
+            return getSharedEntry(key, tenantDomain);
+        }
+        AccessTokenDO accessTokenDO = nearCache.get(key);
+        if (accessTokenDO != null) {
+            return accessTokenDO;
+        }
+        CacheEntry entry = getSharedEntry(key, tenantDomain);
+        if (entry instanceof AccessTokenDO) {
+            nearCache.put(key, entry);
+        }
+        return entry;
+    }
+
+    private CacheEntry getSharedEntry(OAuthCacheKey key, String tenantDomain) {
+
+        if (tenantDomain == null) {
+            return super.getValueFromCache(key);
+        }
+        return super.getValueFromCache(key, tenantDomain);
+    }
+
+    private static boolean isStale(CacheEntry entry) {
+
+        return OAuthAppCacheGeneration.getInstance().isStale(getConsumerKey(entry), entry);
+    }
+
+    private static String getConsumerKey(CacheEntry entry) {
+
+        if (entry instanceof AccessTokenDO) {
+            return ((AccessTokenDO) entry).getConsumerKey();
+        } else if (entry instanceof AuthzCodeDO) {
+            return ((AuthzCodeDO) entry).getConsumerKey();
+        }
+        return null;
+    }
+
+    /**
+     * Get the in-process near cache of access tokens placed in front of this cache.
+     *
+     * @return Access token near cache.
+     */
+    public AccessTokenNearCache getNearCache() {
+
+        return nearCache;
     }
 }
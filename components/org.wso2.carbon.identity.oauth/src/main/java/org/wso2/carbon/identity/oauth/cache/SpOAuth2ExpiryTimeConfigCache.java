@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.cache.BaseCache;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfig;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.config.SpOAuth2ExpiryTimeConfiguration;
+
+/**
+ * SpOAuth2ExpiryTimeConfigCache is used to cache the service provider specific token expiry times read from the
+ * registry, per tenant and consumer key.
+ */
+public class SpOAuth2ExpiryTimeConfigCache extends BaseCache<SpOAuth2ExpiryTimeConfigCacheKey,
+        SpOAuth2ExpiryTimeConfiguration> {
+
+    private static final Log log = LogFactory.getLog(SpOAuth2ExpiryTimeConfigCache.class);
+    private static final String SP_EXPIRY_TIME_CONFIG_CACHE_NAME = "SpOAuth2ExpiryTimeConfigCache";
+    private static final String IDENTITY_CACHE_MANAGER = "IdentityApplicationManagementCacheManager";
+    private static volatile SpOAuth2ExpiryTimeConfigCache instance;
+
+    private SpOAuth2ExpiryTimeConfigCache() {
+        super(SP_EXPIRY_TIME_CONFIG_CACHE_NAME);
+    }
+
+    public static SpOAuth2ExpiryTimeConfigCache getInstance() {
+        if (instance == null) {
+            synchronized (SpOAuth2ExpiryTimeConfigCache.class) {
+                if (instance == null) {
+                    instance = new SpOAuth2ExpiryTimeConfigCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Add a cache entry.
+     *
+     * @param key      Key which cache entry is indexed.
+     * @param entry    Expiry time configuration of the service provider.
+     * @param tenantId Tenant where the cache is placed.
+     */
+    public void addToCache(SpOAuth2ExpiryTimeConfigCacheKey key, SpOAuth2ExpiryTimeConfiguration entry,
+                           int tenantId) {
+        if (isEnabled()) {
+            super.addToCache(key, entry, tenantId);
+            if (log.isDebugEnabled()) {
+                log.debug("Token expiry time configuration of the application: " + key.getConsumerKey() +
+                        " is added to the cache.");
+            }
+        }
+    }
+
+    /**
+     * Retrieves a cache entry.
+     *
+     * @param key      CacheKey
+     * @param tenantId Tenant where the cache is maintained.
+     * @return Cached entry.
+     */
+    public SpOAuth2ExpiryTimeConfiguration getValueFromCache(SpOAuth2ExpiryTimeConfigCacheKey key, int tenantId) {
+        SpOAuth2ExpiryTimeConfiguration entry = null;
+        if (isEnabled()) {
+            entry = super.getValueFromCache(key, tenantId);
+            if (log.isDebugEnabled()) {
+                log.debug("Token expiry time configuration of the application: " + key.getConsumerKey() +
+                        (entry == null ? " is not" : " is") + " found in the cache.");
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Clears a cache entry.
+     *
+     * @param key      Key to clear cache.
+     * @param tenantId Tenant where the cache is maintained.
+     */
+    public void clearCacheEntry(SpOAuth2ExpiryTimeConfigCacheKey key, int tenantId) {
+        if (isEnabled()) {
+            super.clearCacheEntry(key, tenantId);
+            if (log.isDebugEnabled()) {
+                log.debug("Token expiry time configuration of the application: " + key.getConsumerKey() +
+                        " is removed from the cache.");
+            }
+        }
+    }
+
+    private boolean isEnabled() {
+        IdentityCacheConfig cacheConfig = IdentityUtil.getIdentityCacheConfig(IDENTITY_CACHE_MANAGER,
+                SP_EXPIRY_TIME_CONFIG_CACHE_NAME);
+        // The cache is enabled unless it is explicitly disabled in identity.xml.
+        return cacheConfig == null || cacheConfig.isEnabled();
+    }
+}
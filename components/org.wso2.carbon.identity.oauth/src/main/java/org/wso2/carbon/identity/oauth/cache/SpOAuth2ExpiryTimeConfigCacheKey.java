@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+/**
+ * Cache key of {@link SpOAuth2ExpiryTimeConfigCache}. Entries are kept per tenant, hence the key only holds the
+ * consumer key of the application.
+ */
+public class SpOAuth2ExpiryTimeConfigCacheKey extends CacheKey {
+
+    private static final long serialVersionUID = 2316590385327462937L;
+    private String consumerKey;
+
+    public SpOAuth2ExpiryTimeConfigCacheKey(String consumerKey) {
+        this.consumerKey = consumerKey;
+    }
+
+    public String getConsumerKey() {
+        return consumerKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SpOAuth2ExpiryTimeConfigCacheKey)) {
+            return false;
+        }
+        return (this.consumerKey.equals(((SpOAuth2ExpiryTimeConfigCacheKey) o).getConsumerKey()));
+    }
+
+    @Override
+    public int hashCode() {
+        return consumerKey.hashCode();
+    }
+}
@@ -51,6 +51,7 @@ import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
 import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuerImpl;
 import org.wso2.carbon.identity.oauth2.token.handlers.grant.AuthorizationGrantHandler;
 import org.wso2.carbon.identity.oauth2.token.handlers.grant.saml.SAML2TokenCallbackHandler;
+import org.wso2.carbon.identity.oauth2.util.AllowedScopeMatcher;
 import org.wso2.carbon.identity.oauth2.validators.OAuth2ScopeHandler;
 import org.wso2.carbon.identity.oauth2.validators.OAuth2ScopeValidator;
 import org.wso2.carbon.identity.oauth2.validators.grant.AuthorizationCodeGrantValidator;
@@ -265,6 +266,7 @@ public class OAuthServerConfiguration {
     private boolean enableIntrospectionDataProviders = false;
     // Property to define the allowed scopes.
     private List<String> allowedScopes = new ArrayList<>();
+    private AllowedScopeMatcher allowedScopeMatcher = new AllowedScopeMatcher(allowedScopes);
 
     // Property to check whether to drop unregistered scopes.
     private boolean dropUnregisteredScopes = false;
@@ -447,6 +449,7 @@ public class OAuthServerConfiguration {
                 allowedScopes.add(scopeElement.getText());
             }
         }
+        allowedScopeMatcher = new AllowedScopeMatcher(allowedScopes);
     }
 
     private void parseTokenIntrospectionConfig(OMElement oauthElem) {
@@ -514,6 +517,16 @@ public class OAuthServerConfiguration {
         return allowedScopes;
     }
 
+    /**
+     * Get the matcher of the allowed scopes, built once from the allowed scopes configuration.
+     *
+     * @return Matcher of the allowed scopes.
+     */
+    public AllowedScopeMatcher getAllowedScopeMatcher() {
+
+        return allowedScopeMatcher;
+    }
+
     public String getOAuth1RequestTokenUrl() {
         return oauth1RequestTokenUrl;
     }
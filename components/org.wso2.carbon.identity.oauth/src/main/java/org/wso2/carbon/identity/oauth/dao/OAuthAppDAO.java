@@ -42,6 +42,7 @@ import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcess
 import org.wso2.carbon.identity.oauth.tokenprocessor.TokenPersistenceProcessor;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.util.JdbcUtils;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
@@ -57,6 +58,7 @@ import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -90,6 +92,8 @@ public class OAuthAppDAO {
     private static final String USERNAME = "USERNAME";
     private static final String LOWER_USERNAME = "LOWER(USERNAME)";
     private static final String CONSUMER_KEY_CONSTRAINT = "CONSUMER_KEY_CONSTRAINT";
+    // Keeps the IN lists of the bulk queries within the limit of Oracle.
+    private static final int MAX_IN_LIST_SIZE = 1000;
 
     private TokenPersistenceProcessor persistenceProcessor;
     private boolean isHashDisabled = OAuth2Util.isHashDisabled();
@@ -239,8 +243,27 @@ public class OAuthAppDAO {
     }
 
     public OAuthAppDO[] getOAuthConsumerAppsOfUser(String username, int tenantId) throws IdentityOAuthAdminException {
-        OAuthAppDO[] oauthAppsOfUser;
 
+        return getOAuthConsumerAppsOfUser(username, tenantId, 0, 0);
+    }
+
+    /**
+     * Get a page of the OAuth consumer apps of a user, in the order of their ids.
+     * <p>
+     * The OIDC properties and the scope validators of all the apps in the page are read with one query each, instead
+     * of two queries per app.
+     *
+     * @param username   Username of the app owner.
+     * @param tenantId   Tenant id of the app owner.
+     * @param afterAppId Id of the last app of the previous page, or 0 to get the first page.
+     * @param limit      Maximum number of apps to be returned, or 0 to get all the apps after the given id.
+     * @return OAuth consumer apps of the page. A page with fewer apps than the limit is the last page.
+     * @throws IdentityOAuthAdminException Error when reading the apps from the persistence store.
+     */
+    public OAuthAppDO[] getOAuthConsumerAppsOfUser(String username, int tenantId, int afterAppId, int limit)
+            throws IdentityOAuthAdminException {
+
+        List<OAuthAppDO> oauthApps = new ArrayList<>();
         try (Connection connection = IdentityDatabaseUtil.getDBConnection(false)) {
             RealmService realmService = OAuthComponentServiceHolder.getInstance().getRealmService();
             String tenantDomain = realmService.getTenantManager().getDomain(tenantId);
@@ -248,61 +271,41 @@ public class OAuthAppDAO {
             String tenantQualifiedUsername = UserCoreUtil.addTenantDomainToEntry(tenantAwareUserName, tenantDomain);
             boolean isUsernameCaseSensitive = isUsernameCaseSensitive(tenantQualifiedUsername);
 
-            String sql = SQLQueries.OAuthAppDAOSQLQueries.GET_CONSUMER_APPS_OF_USER_WITH_PKCE;
-
+            String sql = SQLQueries.OAuthAppDAOSQLQueries.GET_CONSUMER_APPS_OF_USER_AFTER_ID;
+            String appOwner = UserCoreUtil.removeDomainFromName(tenantAwareUserName);
             if (!isUsernameCaseSensitive) {
                 sql = sql.replace(USERNAME, LOWER_USERNAME);
+                appOwner = appOwner.toLowerCase();
+            }
+            if (limit > 0) {
+                sql = JdbcUtils.limitPage(sql, limit, connection);
             }
-            try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
-                if (isUsernameCaseSensitive) {
-                    prepStmt.setString(1, UserCoreUtil.removeDomainFromName(tenantAwareUserName));
-                } else {
-                    prepStmt.setString(1,
-                            UserCoreUtil.removeDomainFromName(tenantAwareUserName).toLowerCase());
-                }
-                prepStmt.setString(2, IdentityUtil.extractDomainFromName(tenantAwareUserName));
-                prepStmt.setInt(3, tenantId);
-
-                try (ResultSet rSet = prepStmt.executeQuery()) {
-                    List<OAuthAppDO> oauthApps = new ArrayList<>();
-                    while (rSet.next()) {
-                        if (rSet.getString(3) != null && rSet.getString(3).length() > 0) {
-                            OAuthAppDO oauthApp = new OAuthAppDO();
-                            String preprocessedClientId = persistenceProcessor.getPreprocessedClientId(rSet.getString
-                                    (1));
 
-                            oauthApp.setOauthConsumerKey(preprocessedClientId);
-                            oauthApp.setOauthConsumerKey(persistenceProcessor.getPreprocessedClientId(rSet.getString
-                                    (1)));
-                            if (isHashDisabled) {
-                                oauthApp.setOauthConsumerSecret(persistenceProcessor.getPreprocessedClientSecret(rSet
-                                        .getString(2)));
+            int lastAppId = afterAppId;
+            int rowCount;
+            // Apps without a name are skipped, hence rows are read until the page is filled or no rows are left.
+            do {
+                rowCount = 0;
+                try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+                    prepStmt.setString(1, appOwner);
+                    prepStmt.setString(2, IdentityUtil.extractDomainFromName(tenantAwareUserName));
+                    prepStmt.setInt(3, tenantId);
+                    prepStmt.setInt(4, lastAppId);
+
+                    try (ResultSet rSet = prepStmt.executeQuery()) {
+                        while (rSet.next() && (limit <= 0 || oauthApps.size() < limit)) {
+                            rowCount++;
+                            lastAppId = rSet.getInt(7);
+                            if (StringUtils.isNotEmpty(rSet.getString(3))) {
+                                oauthApps.add(buildConsumerAppOfUser(rSet));
                             }
-                            oauthApp.setApplicationName(rSet.getString(3));
-                            oauthApp.setOauthVersion(rSet.getString(4));
-                            oauthApp.setCallbackUrl(rSet.getString(5));
-                            oauthApp.setGrantTypes(rSet.getString(6));
-                            oauthApp.setId(rSet.getInt(7));
-                            AuthenticatedUser authenticatedUser = new AuthenticatedUser();
-                            authenticatedUser.setUserName(rSet.getString(8));
-                            authenticatedUser.setTenantDomain(IdentityTenantUtil.getTenantDomain(rSet.getInt(9)));
-                            authenticatedUser.setUserStoreDomain(rSet.getString(10));
-                            oauthApp.setPkceMandatory(!"0".equals(rSet.getString(11)));
-                            oauthApp.setPkceSupportPlain(!"0".equals(rSet.getString(12)));
-                            oauthApp.setUserAccessTokenExpiryTime(rSet.getLong(13));
-                            oauthApp.setApplicationAccessTokenExpiryTime(rSet.getLong(14));
-                            oauthApp.setRefreshTokenExpiryTime(rSet.getLong(15));
-                            oauthApp.setIdTokenExpiryTime(rSet.getLong(16));
-                            oauthApp.setUser(authenticatedUser);
-                            String spTenantDomain = authenticatedUser.getTenantDomain();
-                            handleSpOIDCProperties(connection, preprocessedClientId, spTenantDomain, oauthApp);
-                            oauthApp.setScopeValidators(getScopeValidators(connection, oauthApp.getId()));
-                            oauthApps.add(oauthApp);
                         }
                     }
-                    oauthAppsOfUser = oauthApps.toArray(new OAuthAppDO[oauthApps.size()]);
                 }
-            }
+            } while (limit > 0 && rowCount == limit && oauthApps.size() < limit);
+
+            setSpOIDCProperties(connection, tenantId, oauthApps);
+            setScopeValidators(connection, oauthApps);
         } catch (SQLException e) {
             throw handleError("Error occurred while retrieving OAuth consumer apps of user", e);
         } catch (UserStoreException e) {
@@ -311,7 +314,33 @@ public class OAuthAppDAO {
             throw handleError("Error occurred while processing client id and client secret by " +
                     "TokenPersistenceProcessor", e);
         }
-        return oauthAppsOfUser;
+        return oauthApps.toArray(new OAuthAppDO[0]);
+    }
+
+    private OAuthAppDO buildConsumerAppOfUser(ResultSet rSet) throws SQLException, IdentityOAuth2Exception {
+
+        OAuthAppDO oauthApp = new OAuthAppDO();
+        oauthApp.setOauthConsumerKey(persistenceProcessor.getPreprocessedClientId(rSet.getString(1)));
+        if (isHashDisabled) {
+            oauthApp.setOauthConsumerSecret(persistenceProcessor.getPreprocessedClientSecret(rSet.getString(2)));
+        }
+        oauthApp.setApplicationName(rSet.getString(3));
+        oauthApp.setOauthVersion(rSet.getString(4));
+        oauthApp.setCallbackUrl(rSet.getString(5));
+        oauthApp.setGrantTypes(rSet.getString(6));
+        oauthApp.setId(rSet.getInt(7));
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser();
+        authenticatedUser.setUserName(rSet.getString(8));
+        authenticatedUser.setTenantDomain(IdentityTenantUtil.getTenantDomain(rSet.getInt(9)));
+        authenticatedUser.setUserStoreDomain(rSet.getString(10));
+        oauthApp.setPkceMandatory(!"0".equals(rSet.getString(11)));
+        oauthApp.setPkceSupportPlain(!"0".equals(rSet.getString(12)));
+        oauthApp.setUserAccessTokenExpiryTime(rSet.getLong(13));
+        oauthApp.setApplicationAccessTokenExpiryTime(rSet.getLong(14));
+        oauthApp.setRefreshTokenExpiryTime(rSet.getLong(15));
+        oauthApp.setIdTokenExpiryTime(rSet.getLong(16));
+        oauthApp.setUser(authenticatedUser);
+        return oauthApp;
     }
 
     public OAuthAppDO getAppInformation(String consumerKey) throws
@@ -1074,6 +1103,43 @@ public class OAuthAppDAO {
         return scopeValidators.toArray(new String[0]);
     }
 
+    /**
+     * Set the scope validators of the given apps, reading them with a single query per {@value #MAX_IN_LIST_SIZE}
+     * apps.
+     *
+     * @param connection Same db connection used in retrieving the OAuth apps.
+     * @param oauthApps  OAuth apps.
+     * @throws SQLException Sql error.
+     */
+    private void setScopeValidators(Connection connection, List<OAuthAppDO> oauthApps) throws SQLException {
+
+        Map<Integer, List<String>> scopeValidatorsOfApps = new HashMap<>();
+        for (int from = 0; from < oauthApps.size(); from += MAX_IN_LIST_SIZE) {
+            List<OAuthAppDO> chunk = oauthApps.subList(from, Math.min(from + MAX_IN_LIST_SIZE, oauthApps.size()));
+            String sql = SQLQueries.OAuthAppDAOSQLQueries.GET_SCOPE_VALIDATORS_OF_APPS.replace(
+                    SQLQueries.OAuthAppDAOSQLQueries.APP_ID_LIST_PLACEHOLDER, getPlaceholders(chunk.size()));
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i).getId());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        scopeValidatorsOfApps.computeIfAbsent(rs.getInt(1), k -> new ArrayList<>())
+                                .add(rs.getString(2));
+                    }
+                }
+            }
+        }
+        for (OAuthAppDO oauthApp : oauthApps) {
+            List<String> scopeValidators = scopeValidatorsOfApps.getOrDefault(oauthApp.getId(),
+                    Collections.emptyList());
+            oauthApp.setScopeValidators(scopeValidators.toArray(new String[0]));
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(String.format("Retrieved the scope validators registered for %d OAuth apps", oauthApps.size()));
+        }
+    }
+
     /**
      * Update the scope validator of OAuth app by remove all the registered scope validators and then add as new entry.
      *
@@ -1239,6 +1305,46 @@ public class OAuthAppDAO {
         return spOIDCProperties;
     }
 
+    /**
+     * Set the OIDC properties of the given apps, reading them with a single query per {@value #MAX_IN_LIST_SIZE} apps.
+     *
+     * @param connection Same db connection used in retrieving the OAuth apps.
+     * @param tenantId   Tenant id of the OAuth apps.
+     * @param oauthApps  OAuth apps.
+     * @throws SQLException Sql error.
+     */
+    private void setSpOIDCProperties(Connection connection, int tenantId, List<OAuthAppDO> oauthApps)
+            throws SQLException {
+
+        Map<String, Map<String, List<String>>> spOIDCPropertiesOfApps = new HashMap<>();
+        for (int from = 0; from < oauthApps.size(); from += MAX_IN_LIST_SIZE) {
+            List<OAuthAppDO> chunk = oauthApps.subList(from, Math.min(from + MAX_IN_LIST_SIZE, oauthApps.size()));
+            String sql = SQLQueries.OAuthAppDAOSQLQueries.GET_ALL_SP_OIDC_PROPERTIES_OF_CONSUMER_KEYS.replace(
+                    SQLQueries.OAuthAppDAOSQLQueries.CONSUMER_KEY_LIST_PLACEHOLDER, getPlaceholders(chunk.size()));
+            try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+                prepStmt.setInt(1, tenantId);
+                for (int i = 0; i < chunk.size(); i++) {
+                    prepStmt.setString(i + 2, chunk.get(i).getOauthConsumerKey());
+                }
+                try (ResultSet rSet = prepStmt.executeQuery()) {
+                    while (rSet.next()) {
+                        spOIDCPropertiesOfApps.computeIfAbsent(rSet.getString(1), k -> new HashMap<>())
+                                .computeIfAbsent(rSet.getString(2), k -> new ArrayList<>()).add(rSet.getString(3));
+                    }
+                }
+            }
+        }
+        for (OAuthAppDO oauthApp : oauthApps) {
+            Map<String, List<String>> spOIDCProperties = spOIDCPropertiesOfApps.get(oauthApp.getOauthConsumerKey());
+            setSpOIDCProperties(spOIDCProperties != null ? spOIDCProperties : new HashMap<>(), oauthApp);
+        }
+    }
+
+    private static String getPlaceholders(int count) {
+
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
     private void setSpOIDCProperties(Map<String, List<String>> spOIDCProperties, OAuthAppDO oauthApp) {
 
         // Handle OIDC audience values
@@ -85,6 +85,9 @@ public class SQLQueries {
                 "FROM IDN_OAUTH_CONSUMER_APPS" +
                 " WHERE USERNAME=? AND USER_DOMAIN=? AND TENANT_ID=?";
 
+        public static final String GET_CONSUMER_APPS_OF_USER_AFTER_ID = GET_CONSUMER_APPS_OF_USER_WITH_PKCE +
+                " AND ID > ? ORDER BY ID";
+
         public static final String GET_APP_INFO = "SELECT CONSUMER_SECRET, USERNAME, APP_NAME, OAUTH_VERSION, " +
                 "CALLBACK_URL, TENANT_ID, USER_DOMAIN, GRANT_TYPES, ID, USER_ACCESS_TOKEN_EXPIRE_TIME," +
                 " APP_ACCESS_TOKEN_EXPIRE_TIME, REFRESH_TOKEN_EXPIRE_TIME, ID_TOKEN_EXPIRE_TIME," +
@@ -99,6 +102,12 @@ public class SQLQueries {
         public static final String GET_ALL_SP_OIDC_PROPERTIES =
                 "SELECT PROPERTY_KEY, PROPERTY_VALUE FROM IDN_OIDC_PROPERTY WHERE TENANT_ID = ? AND CONSUMER_KEY = ?";
 
+        public static final String CONSUMER_KEY_LIST_PLACEHOLDER = "_CONSUMER_KEY_LIST_";
+
+        public static final String GET_ALL_SP_OIDC_PROPERTIES_OF_CONSUMER_KEYS = "SELECT CONSUMER_KEY, PROPERTY_KEY, " +
+                "PROPERTY_VALUE FROM IDN_OIDC_PROPERTY WHERE TENANT_ID = ? AND CONSUMER_KEY IN (" +
+                CONSUMER_KEY_LIST_PLACEHOLDER + ")";
+
         public static final String GET_SP_OIDC_PROPERTY =
                 "SELECT PROPERTY_VALUE FROM IDN_OIDC_PROPERTY WHERE TENANT_ID = ? AND CONSUMER_KEY = ? " +
                         "AND PROPERTY_KEY = ?";
@@ -193,6 +202,11 @@ public class SQLQueries {
         public static final String GET_APP_SCOPE_VALIDATORS = "SELECT SCOPE_VALIDATOR " +
                 "FROM IDN_OAUTH2_SCOPE_VALIDATORS WHERE APP_ID=?";
 
+        public static final String APP_ID_LIST_PLACEHOLDER = "_APP_ID_LIST_";
+
+        public static final String GET_SCOPE_VALIDATORS_OF_APPS = "SELECT APP_ID, SCOPE_VALIDATOR " +
+                "FROM IDN_OAUTH2_SCOPE_VALIDATORS WHERE APP_ID IN (" + APP_ID_LIST_PLACEHOLDER + ")";
+
         public static final String REMOVE_APP_SCOPE_VALIDATORS = "DELETE FROM IDN_OAUTH2_SCOPE_VALIDATORS " +
                 "WHERE APP_ID=?";
 
@@ -43,6 +43,11 @@ public class OAuthCacheRemoveListener extends AbstractCacheListener<OAuthCacheKe
     public void entryRemoved(CacheEntryEvent<? extends OAuthCacheKey, ? extends CacheEntry> cacheEntryEvent)
             throws CacheEntryListenerException {
 
+        OAuthCache oauthCache = OAuthCache.getInstance();
+
+        // Removals propagated from other nodes may not carry the value, hence invalidate the local near cache first.
+        oauthCache.getNearCache().invalidate(cacheEntryEvent.getKey());
+
         CacheEntry cacheEntry = cacheEntryEvent.getValue();
         if (!(cacheEntry instanceof AccessTokenDO)) {
             return;
@@ -53,8 +58,6 @@ public class OAuthCacheRemoveListener extends AbstractCacheListener<OAuthCacheKe
             log.debug("OAuth cache removed for consumer id : " + accessTokenDO.getConsumerKey());
         }
 
-        OAuthCache oauthCache = OAuthCache.getInstance();
-
         OAuthCacheKey oauthcacheKey = new OAuthCacheKey(accessTokenDO.getAccessToken());
         oauthCache.clearCacheEntry(oauthcacheKey);
 
@@ -29,6 +29,8 @@ import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * An implementation of <Code>TokenPersistenceProcessor</Code>
@@ -40,6 +42,11 @@ public class HashingPersistenceProcessor implements TokenPersistenceProcessor {
     public static final String ALGORITHM = "algorithm";
     public static final String HASH = "hash";
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    // Message digests are not thread safe, hence one is kept per thread instead of creating one per hash.
+    private static final ThreadLocal<MessageDigest> MESSAGE_DIGEST = new ThreadLocal<>();
+    private static final Map<String, HashEnvelope> HASH_ENVELOPES = new ConcurrentHashMap<>();
+
     @Override
     public String getProcessedClientId(String clientId) throws IdentityOAuth2Exception {
 
@@ -113,30 +120,62 @@ public class HashingPersistenceProcessor implements TokenPersistenceProcessor {
             throw new IdentityOAuth2Exception("plainText value is null or empty to be hash.");
         }
 
-        MessageDigest messageDigest = null;
-        byte[] hash = null;
         String hashAlgorithm = OAuthServerConfiguration.getInstance().getHashAlgorithm();
-        try {
-            messageDigest = MessageDigest.getInstance(hashAlgorithm);
-            messageDigest.update(plainText.getBytes(StandardCharsets.UTF_8));
-            hash = messageDigest.digest();
-
-        } catch (NoSuchAlgorithmException e) {
-            throw new IdentityOAuth2Exception(
-                    "Error while retrieving MessageDigest for the provided hash algorithm: " + hashAlgorithm, e);
+        byte[] hash = getMessageDigest(hashAlgorithm).digest(plainText.getBytes(StandardCharsets.UTF_8));
+        return HASH_ENVELOPES.computeIfAbsent(hashAlgorithm, HashEnvelope::new).wrap(hash);
+    }
+
+    private static MessageDigest getMessageDigest(String hashAlgorithm) throws IdentityOAuth2Exception {
+
+        MessageDigest messageDigest = MESSAGE_DIGEST.get();
+        if (messageDigest == null || !messageDigest.getAlgorithm().equals(hashAlgorithm)) {
+            try {
+                messageDigest = MessageDigest.getInstance(hashAlgorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IdentityOAuth2Exception(
+                        "Error while retrieving MessageDigest for the provided hash algorithm: " + hashAlgorithm, e);
+            }
+            MESSAGE_DIGEST.set(messageDigest);
+        } else {
+            messageDigest.reset();
         }
-        JSONObject object = new JSONObject();
-        object.put(ALGORITHM, hashAlgorithm);
-        object.put(HASH, bytesToHex(hash));
-        return object.toString();
+        return messageDigest;
     }
 
-    private static String bytesToHex(byte[] bytes) {
+    /**
+     * The JSON object holding the hash and its algorithm, split around the hash. It is derived from the
+     * {@link JSONObject} serialization once per algorithm, so that the key order and escaping stay the same as when
+     * the object was serialized for every hash.
+     */
+    private static final class HashEnvelope {
+
+        private static final String HASH_MARKER = "0123456789abcdef";
+
+        private final char[] prefix;
+        private final char[] suffix;
+
+        private HashEnvelope(String hashAlgorithm) {
+
+            JSONObject object = new JSONObject();
+            object.put(ALGORITHM, hashAlgorithm);
+            object.put(HASH, HASH_MARKER);
+            String envelope = object.toString();
+            int hashIndex = envelope.lastIndexOf('"' + HASH_MARKER + '"') + 1;
+            this.prefix = envelope.substring(0, hashIndex).toCharArray();
+            this.suffix = envelope.substring(hashIndex + HASH_MARKER.length()).toCharArray();
+        }
 
-        StringBuilder result = new StringBuilder();
-        for (byte byt : bytes) {
-            result.append(Integer.toString((byt & 0xff) + 0x100, 16).substring(1));
+        private String wrap(byte[] hash) {
+
+            char[] chars = new char[prefix.length + hash.length * 2 + suffix.length];
+            System.arraycopy(prefix, 0, chars, 0, prefix.length);
+            int index = prefix.length;
+            for (byte byt : hash) {
+                chars[index++] = HEX_DIGITS[(byt >> 4) & 0x0f];
+                chars[index++] = HEX_DIGITS[byt & 0x0f];
+            }
+            System.arraycopy(suffix, 0, chars, index, suffix.length);
+            return new String(chars);
         }
-        return result.toString();
     }
 }
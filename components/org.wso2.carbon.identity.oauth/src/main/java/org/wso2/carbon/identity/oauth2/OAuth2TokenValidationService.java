@@ -30,7 +30,9 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.validators.TokenValidationHandler;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.wso2.carbon.identity.oauth2.util.OAuth2Util.triggerOnIntrospectionExceptionListeners;
@@ -128,6 +130,42 @@ public class OAuth2TokenValidationService extends AbstractAdmin {
         return oAuth2IntrospectionResponseDTO;
     }
 
+    /**
+     * Builds the introspection responses of a batch of tokens. The access tokens of the batch which are not cached
+     * are looked up from the database at once, instead of one by one while each token is validated.
+     *
+     * @param validationReqs Validation requests of the tokens.
+     * @return Introspection responses, in the order of the requests.
+     */
+    public OAuth2IntrospectionResponseDTO[] buildIntrospectionResponses(
+            OAuth2TokenValidationRequestDTO[] validationReqs) {
+
+        List<String> tokenIdentifiers = new ArrayList<>();
+        for (OAuth2TokenValidationRequestDTO validationReq : validationReqs) {
+            if (validationReq.getAccessToken() != null && validationReq.getAccessToken().getIdentifier() != null) {
+                tokenIdentifiers.add(validationReq.getAccessToken().getIdentifier());
+            }
+        }
+        try {
+            OAuth2Util.prefetchAccessTokens(tokenIdentifiers);
+        } catch (IdentityOAuth2Exception e) {
+            // The tokens are still looked up one by one while they are validated.
+            log.error("Error occurred while looking up the access tokens of a batch of " + tokenIdentifiers.size() +
+                    " tokens.", e);
+        }
+
+        OAuth2IntrospectionResponseDTO[] introspectionResponses =
+                new OAuth2IntrospectionResponseDTO[validationReqs.length];
+        try {
+            for (int i = 0; i < validationReqs.length; i++) {
+                introspectionResponses[i] = buildIntrospectionResponse(validationReqs[i]);
+            }
+        } finally {
+            OAuth2Util.clearPrefetchedAccessTokens();
+        }
+        return introspectionResponses;
+    }
+
     private void triggerPreValidationListeners(OAuth2TokenValidationRequestDTO requestDTO)
             throws IdentityOAuth2Exception {
         OAuthEventInterceptor oAuthEventInterceptorProxy = OAuthComponentServiceHolder.getInstance()
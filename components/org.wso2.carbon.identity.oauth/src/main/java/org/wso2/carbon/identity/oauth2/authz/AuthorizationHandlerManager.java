@@ -24,6 +24,7 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.IdentityOAuthAdminException;
 import org.wso2.carbon.identity.oauth.cache.AppInfoCache;
+import org.wso2.carbon.identity.oauth.cache.AppInfoCacheLoader;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -35,6 +36,7 @@ import org.wso2.carbon.identity.oauth2.authz.handlers.ResponseTypeHandler;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeReqDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeRespDTO;
 import org.wso2.carbon.identity.oauth2.model.OAuth2Parameters;
+import org.wso2.carbon.identity.oauth2.util.AllowedScopeMatcher;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.validators.JDBCPermissionBasedInternalScopeValidator;
 import org.wso2.carbon.identity.oauth2.validators.RoleBasedInternalScopeValidator;
@@ -133,13 +135,13 @@ public class AuthorizationHandlerManager {
             return authorizeRespDTO;
         }
 
-        List<String> allowedScopes = OAuthServerConfiguration.getInstance().getAllowedScopes();
+        AllowedScopeMatcher allowedScopeMatcher = OAuthServerConfiguration.getInstance().getAllowedScopeMatcher();
         List<String> requestedAllowedScopes = new ArrayList<>();
         String[] requestedScopes = authzReqMsgCtx.getAuthorizationReqDTO().getScopes();
         List<String> scopesToBeValidated = new ArrayList<>();
         if (requestedScopes != null) {
             for (String scope : requestedScopes) {
-                if (OAuth2Util.isAllowedScope(allowedScopes, scope)) {
+                if (OAuth2Util.isAllowedScope(allowedScopeMatcher, scope)) {
                     requestedAllowedScopes.add(scope);
                 } else {
                     scopesToBeValidated.add(scope);
@@ -317,14 +319,8 @@ public class AuthorizationHandlerManager {
 
     private OAuthAppDO getAppInformation(OAuth2AuthorizeReqDTO authzReqDTO) throws IdentityOAuth2Exception,
             InvalidOAuthClientException {
-        OAuthAppDO oAuthAppDO = AppInfoCache.getInstance().getValueFromCache(authzReqDTO.getConsumerKey());
-        if (oAuthAppDO != null) {
-            return oAuthAppDO;
-        } else {
-            oAuthAppDO = new OAuthAppDAO().getAppInformation(authzReqDTO.getConsumerKey());
-            AppInfoCache.getInstance().addToCache(authzReqDTO.getConsumerKey(), oAuthAppDO);
-            return oAuthAppDO;
-        }
+        return AppInfoCacheLoader.getInstance().getAppInformation(authzReqDTO.getConsumerKey(),
+                consumerKey -> new OAuthAppDAO().getAppInformation(consumerKey));
     }
 
     private void handleErrorRequest(OAuth2AuthorizeRespDTO respDTO, String errorCode,
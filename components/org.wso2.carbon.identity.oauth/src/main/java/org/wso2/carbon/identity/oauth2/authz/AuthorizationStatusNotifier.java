@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.authz;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getIntProperty;
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getLongProperty;
+
+/**
+ * Notifies the token requests polling for a decoupled authorization, e.g. of the CIBA and device flows, when the
+ * status of the authorization is changed on this node.
+ * <p>
+ * A grant handler which would answer a poll with authorization_pending may instead hold the token request until the
+ * status of the authorization is changed or the wait time elapses, which is bounded by the polling interval of the
+ * authorization and OAuth.AuthorizationStatus.LongPoll.MaxWaitTime (in milliseconds). Status changes are also kept
+ * for a short while, so that a poll which read the old status just before the change does not wait in vain.
+ * <p>
+ * Long polling is meant for single node deployments and is enabled with OAuth.AuthorizationStatus.LongPoll.Enable.
+ * Notifications are local to the node, hence in a cluster a poll served by another node than the one which changed
+ * the status waits for the whole wait time. Each waiting poll holds a request thread, so at most
+ * OAuth.AuthorizationStatus.LongPoll.MaxWaitingPolls polls wait at a time, which should be well below the maxThreads
+ * of the HTTP connector. Polls beyond this limit are answered right away.
+ */
+public class AuthorizationStatusNotifier {
+
+    private static final Log log = LogFactory.getLog(AuthorizationStatusNotifier.class);
+
+    private static final String LONG_POLL_ENABLE = "OAuth.AuthorizationStatus.LongPoll.Enable";
+    private static final String LONG_POLL_MAX_WAIT_TIME = "OAuth.AuthorizationStatus.LongPoll.MaxWaitTime";
+    private static final String LONG_POLL_MAX_WAITING_POLLS = "OAuth.AuthorizationStatus.LongPoll.MaxWaitingPolls";
+    private static final long DEFAULT_MAX_WAIT_TIME = 5000;
+    private static final int DEFAULT_MAX_WAITING_POLLS = 50;
+    private static final long STATUS_CHANGE_RETENTION_TIME = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_RETAINED_STATUS_CHANGES = 100000;
+
+    private static final AuthorizationStatusNotifier instance = new AuthorizationStatusNotifier();
+
+    private final boolean enabled;
+    private final long maxWaitTime;
+    private final int maxWaitingPolls;
+    // Each waiting poll has a latch of its own, so that a poll which times out does not affect the others.
+    private final Map<String, Set<CountDownLatch>> waitingPolls = new ConcurrentHashMap<>();
+    private final Map<String, Long> statusChanges = new ConcurrentHashMap<>();
+    private final AtomicInteger waitingPollCount = new AtomicInteger();
+    private final AtomicLong notifiedPollCount = new AtomicLong();
+    private final AtomicLong timedOutPollCount = new AtomicLong();
+
+    private AuthorizationStatusNotifier() {
+
+        this(Boolean.parseBoolean(StringUtils.trim(IdentityUtil.getProperty(LONG_POLL_ENABLE))),
+                getLongProperty(LONG_POLL_MAX_WAIT_TIME, DEFAULT_MAX_WAIT_TIME, 0),
+                getIntProperty(LONG_POLL_MAX_WAITING_POLLS, DEFAULT_MAX_WAITING_POLLS, 0));
+    }
+
+    AuthorizationStatusNotifier(boolean enabled, long maxWaitTime, int maxWaitingPolls) {
+
+        this.enabled = enabled;
+        this.maxWaitTime = maxWaitTime;
+        this.maxWaitingPolls = maxWaitingPolls;
+    }
+
+    public static AuthorizationStatusNotifier getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Wait until the status of an authorization is changed.
+     *
+     * @param key         Key of the authorization.
+     * @param maxWaitTime Maximum time to wait in milliseconds, e.g. the polling interval of the authorization.
+     * @return true if the status was changed and should be read again, false if the wait time elapsed.
+     */
+    public boolean awaitStatusChange(String key, long maxWaitTime) {
+
+        if (!enabled || key == null) {
+            return false;
+        }
+        if (isStatusChanged(key)) {
+            notifiedPollCount.incrementAndGet();
+            return true;
+        }
+        long waitTime = Math.min(maxWaitTime, this.maxWaitTime);
+        if (waitTime <= 0) {
+            return false;
+        }
+        if (waitingPollCount.incrementAndGet() > maxWaitingPolls) {
+            waitingPollCount.decrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug(maxWaitingPolls + " polls are already waiting for a status change.");
+            }
+            return false;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        waitingPolls.compute(key, (k, latches) -> {
+            if (latches == null) {
+                latches = ConcurrentHashMap.newKeySet();
+            }
+            latches.add(latch);
+            return latches;
+        });
+        try {
+            // The status may have been changed after it was read by the caller and before the latch was registered.
+            if (isStatusChanged(key) || latch.await(waitTime, TimeUnit.MILLISECONDS)) {
+                notifiedPollCount.incrementAndGet();
+                return true;
+            }
+            timedOutPollCount.incrementAndGet();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitingPolls.computeIfPresent(key, (k, latches) -> {
+                latches.remove(latch);
+                return latches.isEmpty() ? null : latches;
+            });
+            waitingPollCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Notify the polls waiting for an authorization after its status change is committed.
+     *
+     * @param key Key of the authorization.
+     */
+    public void notifyStatusChange(String key) {
+
+        if (!enabled || key == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (statusChanges.size() >= MAX_RETAINED_STATUS_CHANGES) {
+            removeExpired(now);
+            if (statusChanges.size() >= MAX_RETAINED_STATUS_CHANGES) {
+                statusChanges.clear();
+            }
+        }
+        statusChanges.put(key, now);
+        Set<CountDownLatch> latches = waitingPolls.remove(key);
+        if (latches != null) {
+            latches.forEach(CountDownLatch::countDown);
+        }
+    }
+
+    /**
+     * Forget the status change of an authorization, e.g. once a token is issued for it.
+     *
+     * @param key Key of the authorization.
+     */
+    public void remove(String key) {
+
+        if (key != null) {
+            statusChanges.remove(key);
+        }
+    }
+
+    /**
+     * @return Number of polls which are waiting for a status change.
+     */
+    public int getWaitingPollCount() {
+
+        return waitingPollCount.get();
+    }
+
+    /**
+     * @return Number of polls which were completed by a status change.
+     */
+    public long getNotifiedPollCount() {
+
+        return notifiedPollCount.get();
+    }
+
+    /**
+     * @return Number of polls which waited for the whole wait time.
+     */
+    public long getTimedOutPollCount() {
+
+        return timedOutPollCount.get();
+    }
+
+    private boolean isStatusChanged(String key) {
+
+        Long changedTime = statusChanges.get(key);
+        if (changedTime == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - changedTime > STATUS_CHANGE_RETENTION_TIME) {
+            statusChanges.remove(key, changedTime);
+            return false;
+        }
+        return true;
+    }
+
+    private void removeExpired(long now) {
+
+        Iterator<Map.Entry<String, Long>> iterator = statusChanges.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().getValue() > STATUS_CHANGE_RETENTION_TIME) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -22,7 +22,6 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.oltu.oauth2.common.exception.OAuthSystemException;
-import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.authentication.framework.exception.UserIdNotFoundException;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.application.common.model.Claim;
@@ -30,6 +29,7 @@ import org.wso2.carbon.identity.application.common.model.ClaimMapping;
 import org.wso2.carbon.identity.base.IdentityConstants;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.OAuthUtil;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheEntry;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheKey;
@@ -43,7 +43,6 @@ import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
 import org.wso2.carbon.identity.oauth.event.OAuthEventInterceptor;
 import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
-import org.wso2.carbon.identity.oauth2.OAuth2Service;
 import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
 import org.wso2.carbon.identity.oauth2.bean.OAuthClientAuthnContext;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
@@ -51,9 +50,11 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeReqDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeRespDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuthRevocationRequestDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuthRevocationResponseDTO;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
 import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
+import org.wso2.carbon.identity.oauth2.token.lock.TokenIssuanceLock;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.openidconnect.IDTokenBuilder;
 
@@ -64,6 +65,7 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import static org.wso2.carbon.identity.oauth.common.OAuthConstants.TokenBindings.NONE;
 import static org.wso2.carbon.identity.oauth.common.OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE;
 
 /**
@@ -159,7 +161,8 @@ public class ResponseTypeHandlerUtil {
                     + authorizationReqDTO.getUser().getLoggableUserId());
         }
 
-        synchronized ((consumerKey + ":" + authorizedUserId + ":" + scope).intern()) {
+        try (TokenIssuanceLock tokenIssuanceLock = OAuth2ServiceComponentHolder.getTokenIssuanceLockManager()
+                .acquire(consumerKey, authorizedUserId, scope)) {
 
             AccessTokenDO existingTokenBean = getExistingToken(oauthAuthzMsgCtx, authorizedUserId, cacheEnabled);
 
@@ -177,7 +180,7 @@ public class ResponseTypeHandlerUtil {
                                     + " and scope: " + scope + ".");
                         }
 
-                        revokeExistingToken(existingTokenBean.getConsumerKey(), existingTokenBean.getAccessToken());
+                        revokeExistingToken(existingTokenBean);
 
                         // When revoking the token state will be set as REVOKED.
                         // existingTokenBean.setTokenState(TOKEN_STATE_REVOKED) can be used instead of 'null' but
@@ -379,6 +382,7 @@ public class ResponseTypeHandlerUtil {
         Map<ClaimMapping, String> userAttributes = authorizeReqDTO.getUser().getUserAttributes();
         AuthorizationGrantCacheKey authorizationGrantCacheKey = new AuthorizationGrantCacheKey(accessToken);
         AuthorizationGrantCacheEntry authorizationGrantCacheEntry = new AuthorizationGrantCacheEntry(userAttributes);
+        authorizationGrantCacheEntry.setClientId(authorizeReqDTO.getConsumerKey());
         if (StringUtils.isNotBlank(authorizeReqDTO.getEssentialClaims())) {
             authorizationGrantCacheEntry.setEssentialClaims(authorizeReqDTO.getEssentialClaims());
         }
@@ -940,40 +944,55 @@ public class ResponseTypeHandlerUtil {
     }
 
     /**
-     * Builds the revocation request and calls the revoke oauth service.
+     * Revokes the existing token of the client, user and scope while the token issuance lock of the caller is held.
+     * <p>
+     * OAuth2Service.revokeTokenByOAuthClient is not used here, as it acquires the token issuance lock of the token
+     * binding as well. Acquiring a second lock while holding one may deadlock with a request which acquires them in
+     * the opposite order, e.g. when both keys share a lock stripe. Hence the caches are cleared, the token is revoked
+     * and the revocation listeners are invoked the same way as the service does, under the held lock.
      *
-     * @param clientId client id.
-     * @param accessToken access token.
+     * @param existingTokenBean Existing access token.
+     * @throws IdentityOAuth2Exception If the token could not be revoked.
      */
-    private static void revokeExistingToken(String clientId, String accessToken) throws IdentityOAuth2Exception {
+    private static void revokeExistingToken(AccessTokenDO existingTokenBean) throws IdentityOAuth2Exception {
 
-        // This is used to avoid client validation failure in revokeTokenByOAuthClient.
-        // This will not affect the flow negatively as the client is already authenticated by this point.
-        OAuthClientAuthnContext oAuthClientAuthnContext =
-                buildAuthenticatedOAuthClientAuthnContext(clientId);
+        String clientId = existingTokenBean.getConsumerKey();
+        OAuthRevocationRequestDTO revocationRequestDTO = OAuth2Util.buildOAuthRevocationRequest(
+                buildAuthenticatedOAuthClientAuthnContext(clientId), existingTokenBean.getAccessToken());
+        OAuthRevocationResponseDTO revocationResponseDTO = new OAuthRevocationResponseDTO();
 
-        OAuthRevocationRequestDTO revocationRequestDTO =
-                OAuth2Util.buildOAuthRevocationRequest(oAuthClientAuthnContext, accessToken);
-
-        OAuthRevocationResponseDTO revocationResponseDTO =
-                getOauth2Service().revokeTokenByOAuthClient(revocationRequestDTO);
-
-        if (revocationResponseDTO.isError()) {
-            String msg = "Error while revoking tokens for clientId:" + clientId +
-                    " Error Message:" + revocationResponseDTO.getErrorMsg();
-            log.error(msg);
-            throw new IdentityOAuth2Exception(msg);
+        OAuthEventInterceptor oAuthEventInterceptorProxy = OAuthComponentServiceHolder.getInstance()
+                .getOAuthEventInterceptorProxy();
+        if (oAuthEventInterceptorProxy != null && oAuthEventInterceptorProxy.isEnabled()) {
+            oAuthEventInterceptorProxy.onPreTokenRevocationByClient(revocationRequestDTO, new HashMap<>());
         }
-    }
 
-    private static OAuth2Service getOauth2Service() {
+        String tokenBindingReference = NONE;
+        if (existingTokenBean.getTokenBinding() != null &&
+                StringUtils.isNotBlank(existingTokenBean.getTokenBinding().getBindingReference())) {
+            tokenBindingReference = existingTokenBean.getTokenBinding().getBindingReference();
+        }
+        String scope = OAuth2Util.buildScopeString(existingTokenBean.getScope());
+        OAuthUtil.clearOAuthCache(clientId, existingTokenBean.getAuthzUser(), scope, tokenBindingReference);
+        OAuthUtil.clearOAuthCache(clientId, existingTokenBean.getAuthzUser(), scope);
+        OAuthUtil.clearOAuthCache(clientId, existingTokenBean.getAuthzUser());
+        OAuthUtil.clearOAuthCache(existingTokenBean);
+        OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
+                .revokeAccessTokens(new String[]{existingTokenBean.getAccessToken()});
 
-        return (OAuth2Service) PrivilegedCarbonContext
-                .getThreadLocalCarbonContext().getOSGiService(OAuth2Service.class, null);
+        if (oAuthEventInterceptorProxy != null && oAuthEventInterceptorProxy.isEnabled()) {
+            try {
+                oAuthEventInterceptorProxy.onPostTokenRevocationByClient(revocationRequestDTO,
+                        revocationResponseDTO, existingTokenBean, null, new HashMap<>());
+            } catch (IdentityOAuth2Exception e) {
+                log.error("Error occurred when invoking post token revoke listener ", e);
+            }
+        }
     }
 
     /**
-     * This method is used to avoid client validation failure in OAuth2Service.revokeTokenByOAuthClient.
+     * Builds the client authentication context of the revocation request passed to the revocation listeners. The
+     * client is already authenticated by this point.
      *
      * @param clientId client id of the application.
      * @return Returns a OAuthClientAuthnContext with isAuthenticated set to true.
@@ -23,7 +23,11 @@ import org.wso2.carbon.utils.CarbonUtils;
 
 /**
  * JWKS cache enables caching responses from JWK URIs
+ *
+ * @deprecated The JWK sets are no longer cached in this cache, see
+ * {@link org.wso2.carbon.identity.oauth2.validators.jwt.JWKSourceDataProvider#getCachedJWKSource(String)}.
  */
+@Deprecated
 public class JWKSCache extends AuthenticationBaseCache<JWKSCacheKey, JWKSCacheEntry> {
 
     private static final String JWKS_CACHE_NAME = "JWKSCache";
@@ -23,7 +23,10 @@ import com.nimbusds.jose.proc.SecurityContext;
 
 /**
  * JWKSCacheEntry wraps RemoteJWKSet cache value to make them serializable. This will be used with JWKSCache.
+ *
+ * @deprecated {@link JWKSCache} is no longer used.
  */
+@Deprecated
 public class JWKSCacheEntry extends org.wso2.carbon.identity.application.common.cache.CacheEntry {
 
     private transient RemoteJWKSet<SecurityContext> jwkSet;
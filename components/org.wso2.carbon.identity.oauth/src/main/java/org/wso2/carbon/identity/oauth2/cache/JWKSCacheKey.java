@@ -23,7 +23,10 @@ import java.io.Serializable;
 
 /**
  * Key attribute of JWKSCache is jwksUri. JWKS cache is stored against this key.
+ *
+ * @deprecated {@link JWKSCache} is no longer used.
  */
+@Deprecated
 public class JWKSCacheKey implements Serializable {
 
     private static final long serialVersionUID = 5023478840178743769L;
@@ -18,10 +18,14 @@
 
 package org.wso2.carbon.identity.oauth2.config;
 
+import java.io.Serializable;
+
 /**
  *  Runtime representation of Service Provider specific OAuth2 token expiry times.
  */
-public class SpOAuth2ExpiryTimeConfiguration {
+public class SpOAuth2ExpiryTimeConfiguration implements Serializable {
+
+    private static final long serialVersionUID = -4710325932147608873L;
 
     private String consumerKey;
     private Long userAccessTokenExpiryTime;
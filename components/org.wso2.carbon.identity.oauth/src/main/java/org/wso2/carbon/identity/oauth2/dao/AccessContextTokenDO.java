@@ -20,6 +20,8 @@ package org.wso2.carbon.identity.oauth2.dao;
 
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Access token context data object.
  */
@@ -30,6 +32,7 @@ public class AccessContextTokenDO {
     private AccessTokenDO newAccessTokenDO;
     private AccessTokenDO existingAccessTokenDO;
     private String userStoreDomain;
+    private final CompletableFuture<Boolean> persistenceResult = new CompletableFuture<>();
 
     public AccessContextTokenDO(String accessToken, String consumerKey, AccessTokenDO newAccessTokenDO, AccessTokenDO
             existingAccessTokenDO, String userStoreDomain) {
@@ -59,4 +62,15 @@ public class AccessContextTokenDO {
     public AccessTokenDO getExistingAccessTokenDO() {
         return existingAccessTokenDO;
     }
+
+    /**
+     * Result of the asynchronous persistence of this token. Completes with true once the token is persisted as
+     * part of a batch, or with false if the batch could not be persisted and the token should be persisted
+     * individually by the requester.
+     *
+     * @return Persistence result of the token.
+     */
+    public CompletableFuture<Boolean> getPersistenceResult() {
+        return persistenceResult;
+    }
 }
@@ -24,8 +24,11 @@ import org.wso2.carbon.identity.application.authentication.framework.model.Authe
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -40,6 +43,21 @@ public interface AccessTokenDAO {
                               AccessTokenDO newAccessTokenDO, AccessTokenDO existingAccessTokenDO,
                               String rawUserStoreDomain) throws IdentityOAuth2Exception;
 
+    /**
+     * Persist a batch of access tokens in a single transaction. Implementations which do not support batching
+     * should return false so that the caller persists the tokens individually.
+     *
+     * @param accessContextTokenDOs Access tokens to be persisted.
+     * @return true if all the tokens were persisted, false if the batch was rolled back due to a 'CON_APP_KEY'
+     * constraint violation and the tokens should be persisted individually.
+     * @throws IdentityOAuth2Exception if failed to persist the batch.
+     */
+    default boolean insertAccessTokensInBatch(List<AccessContextTokenDO> accessContextTokenDOs)
+            throws IdentityOAuth2Exception {
+
+        return false;
+    }
+
     AccessTokenDO getLatestAccessToken(String consumerKey, AuthenticatedUser authzUser, String userStoreDomain,
                                        String scope, boolean includeExpiredTokens) throws IdentityOAuth2Exception;
 
@@ -89,6 +107,27 @@ public interface AccessTokenDAO {
 
     AccessTokenDO getAccessToken(String accessTokenIdentifier, boolean includeExpired) throws IdentityOAuth2Exception;
 
+    /**
+     * Get the active access tokens of the given token identifiers.
+     *
+     * @param accessTokenIdentifiers Access token identifiers.
+     * @return Active access tokens mapped by their token identifiers. Identifiers of tokens which are not active are
+     * not included.
+     * @throws IdentityOAuth2Exception
+     */
+    default Map<String, AccessTokenDO> getAccessTokens(Collection<String> accessTokenIdentifiers)
+            throws IdentityOAuth2Exception {
+
+        Map<String, AccessTokenDO> accessTokenDOs = new HashMap<>();
+        for (String accessTokenIdentifier : accessTokenIdentifiers) {
+            AccessTokenDO accessTokenDO = getAccessToken(accessTokenIdentifier, false);
+            if (accessTokenDO != null) {
+                accessTokenDOs.put(accessTokenIdentifier, accessTokenDO);
+            }
+        }
+        return accessTokenDOs;
+    }
+
     Set<String> getAccessTokensByUser(AuthenticatedUser authenticatedUser) throws IdentityOAuth2Exception;
 
     default Set<AccessTokenDO> getAccessTokensByUserForOpenidScope(AuthenticatedUser authenticatedUser)
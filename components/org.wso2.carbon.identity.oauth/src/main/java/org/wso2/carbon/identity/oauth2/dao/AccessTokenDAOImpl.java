@@ -35,6 +35,7 @@ import org.wso2.carbon.identity.application.mgt.util.JdbcUtils;
 import org.wso2.carbon.identity.base.IdentityConstants;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.OAuthUtil;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -57,10 +58,12 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -83,6 +86,10 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
     private static final String OAUTH_TOKEN_PERSISTENCE_RETRY_COUNT = "OAuth.TokenPersistence.RetryCount";
     private static final int DEFAULT_TOKEN_PERSIST_RETRY_COUNT = 5;
     private static final String IDN_OAUTH2_ACCESS_TOKEN = "IDN_OAUTH2_ACCESS_TOKEN";
+    // Keeps the access token hash lists of a query within the IN list limit of Oracle.
+    private static final int MAX_IN_LIST_SIZE = 1000;
+    private static final String CON_APP_KEY_CONSTRAINT = "CON_APP_KEY";
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE_CLASS = "23";
     private boolean isTokenCleanupFeatureEnabled = OAuthServerConfiguration.getInstance().isTokenCleanupEnabled();
     private static final String DEFAULT_TOKEN_TO_SESSION_MAPPING = "DEFAULT";
 
@@ -98,6 +105,9 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         } catch (SQLException e) {
             throw new IdentityOAuth2Exception("Error while inserting access token.", e);
         }
+        if (isPersistenceEnabled()) {
+            OAuthUtil.clearAuthorizedClientIdsCache(consumerKey, accessTokenDO.getAuthzUser());
+        }
     }
 
     private void insertAccessToken(String accessToken, String consumerKey, AccessTokenDO accessTokenDO,
@@ -124,23 +134,7 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
                     "Authorized user should be available for further execution.");
         }
 
-        String accessTokenHash = accessToken;
-        try {
-            OauthTokenIssuer oauthTokenIssuer = OAuth2Util.getOAuthTokenIssuerForOAuthApp(consumerKey);
-            //check for persist alias for the token type
-            if (oauthTokenIssuer.usePersistedAccessTokenAlias()) {
-                accessTokenHash = oauthTokenIssuer.getAccessTokenHash(accessToken);
-            }
-        } catch (OAuthSystemException e) {
-            if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
-                log.debug("Error while getting access token hash for token(hashed): " + DigestUtils
-                        .sha256Hex(accessTokenHash));
-            }
-            throw new IdentityOAuth2Exception("Error while getting access token hash.", e);
-        } catch (InvalidOAuthClientException e) {
-            throw new IdentityOAuth2Exception(
-                    "Error while retrieving oauth issuer for the app with clientId: " + consumerKey, e);
-        }
+        String accessTokenHash = getAccessTokenHash(accessToken, consumerKey);
 
         if (log.isDebugEnabled()) {
             if (IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
@@ -169,63 +163,15 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
             log.debug("Userstore domain for user: " + username + " is " + userDomain);
         }
 
-        String sql;
-        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
-            sql = SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN_WITH_IDP_NAME;
-        } else {
-            sql = SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN;
-        }
-        sql = OAuth2Util.getTokenPartitionedSqlByUserStore(sql, userDomain);
+        String sql = getInsertAccessTokenSql(userDomain);
         String sqlAddScopes = OAuth2Util.getTokenPartitionedSqlByUserStore(SQLQueries.INSERT_OAUTH2_TOKEN_SCOPE,
                 userDomain);
 
         try {
             insertTokenPrepStmt = connection.prepareStatement(sql);
-            insertTokenPrepStmt.setString(1, getPersistenceProcessor().getProcessedAccessTokenIdentifier(
-                    accessTokenHash));
-
-            if (accessTokenDO.getRefreshToken() != null) {
-                insertTokenPrepStmt.setString(2,
-                        getPersistenceProcessor().getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
-            } else {
-                insertTokenPrepStmt.setString(2, accessTokenDO.getRefreshToken());
-            }
-
-            insertTokenPrepStmt.setString(3, accessTokenDO.getAuthzUser().getUserName());
-            int tenantId = OAuth2Util.getTenantId(accessTokenDO.getAuthzUser().getTenantDomain());
-            insertTokenPrepStmt.setInt(4, tenantId);
-            insertTokenPrepStmt.setString(5, OAuth2Util.getSanitizedUserStoreDomain(userDomain));
-            insertTokenPrepStmt
-                    .setTimestamp(6, accessTokenDO.getIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone(UTC)));
-            insertTokenPrepStmt.setTimestamp(7, accessTokenDO.getRefreshTokenIssuedTime(), Calendar.getInstance(TimeZone
-                    .getTimeZone(UTC)));
-            insertTokenPrepStmt.setLong(8, accessTokenDO.getValidityPeriodInMillis());
-            insertTokenPrepStmt.setLong(9, accessTokenDO.getRefreshTokenValidityPeriodInMillis());
-            insertTokenPrepStmt.setString(10, OAuth2Util.hashScopes(accessTokenDO.getScope()));
-            insertTokenPrepStmt.setString(11, accessTokenDO.getTokenState());
-            insertTokenPrepStmt.setString(12, accessTokenDO.getTokenType());
-            insertTokenPrepStmt.setString(13, accessTokenDO.getTokenId());
-            insertTokenPrepStmt.setString(14, accessTokenDO.getGrantType());
-            insertTokenPrepStmt.setString(15, accessTokenDO.getAuthzUser().getAuthenticatedSubjectIdentifier());
-            insertTokenPrepStmt
-                    .setString(16, getHashingPersistenceProcessor().getProcessedAccessTokenIdentifier(accessTokenHash));
-            if (accessTokenDO.getRefreshToken() != null) {
-                insertTokenPrepStmt.setString(17,
-                        getHashingPersistenceProcessor().getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
-            } else {
-                insertTokenPrepStmt.setString(17, accessTokenDO.getRefreshToken());
-            }
+            int tenantId = setInsertAccessTokenParameters(insertTokenPrepStmt, accessTokenHash, consumerKey,
+                    accessTokenDO, userDomain, authenticatedIDP);
             boolean tokenBindingAvailable = isTokenBindingAvailable(accessTokenDO.getTokenBinding());
-            if (tokenBindingAvailable) {
-                insertTokenPrepStmt.setString(18, accessTokenDO.getTokenBinding().getBindingReference());
-            } else {
-                insertTokenPrepStmt.setString(18, NONE);
-            }
-            insertTokenPrepStmt.setString(19, getPersistenceProcessor().getProcessedClientId(consumerKey));
-            if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
-                insertTokenPrepStmt.setString(20, authenticatedIDP);
-                insertTokenPrepStmt.setInt(21, tenantId);
-            }
             insertTokenPrepStmt.execute();
 
             String accessTokenId = accessTokenDO.getTokenId();
@@ -305,6 +251,252 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
 
     }
 
+    @Override
+    public boolean insertAccessTokensInBatch(List<AccessContextTokenDO> accessContextTokenDOs)
+            throws IdentityOAuth2Exception {
+
+        if (!isPersistenceEnabled() || accessContextTokenDOs.isEmpty()) {
+            return true;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Persisting a batch of " + accessContextTokenDOs.size() + " access tokens.");
+        }
+
+        // Statements are keyed by the (user store partitioned) SQL so that each partition gets its own batch.
+        Map<String, PreparedStatement> insertTokenPrepStmts = new LinkedHashMap<>();
+        Map<String, PreparedStatement> addScopePrepStmts = new LinkedHashMap<>();
+        PreparedStatement tokenBindingPrepStmt = null;
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try {
+            for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                AccessTokenDO accessTokenDO = accessContextTokenDO.getNewAccessTokenDO();
+                if (accessTokenDO == null || accessTokenDO.getAuthzUser() == null) {
+                    throw new IdentityOAuth2Exception("Access token data object and authorized user should be " +
+                            "available for further execution.");
+                }
+                String consumerKey = accessContextTokenDO.getConsumerKey();
+                String userStoreDomain = OAuth2Util.getSanitizedUserStoreDomain(
+                        accessContextTokenDO.getUserStoreDomain());
+                AccessTokenDO existingAccessTokenDO = accessContextTokenDO.getExistingAccessTokenDO();
+                if (existingAccessTokenDO != null) {
+                    //  Mark the existing access token as expired on database if a token exist for the user
+                    updateAccessTokenState(connection, existingAccessTokenDO.getTokenId(), OAuthConstants
+                            .TokenStates.TOKEN_STATE_EXPIRED, UUID.randomUUID().toString(), userStoreDomain);
+                }
+
+                String accessTokenHash = getAccessTokenHash(accessContextTokenDO.getAccessToken(), consumerKey);
+                String userDomain = OAuth2Util.getUserStoreDomain(accessTokenDO.getAuthzUser());
+                String authenticatedIDP = OAuth2Util.getAuthenticatedIDP(accessTokenDO.getAuthzUser());
+
+                String sql = getInsertAccessTokenSql(userDomain);
+                PreparedStatement insertTokenPrepStmt = insertTokenPrepStmts.get(sql);
+                if (insertTokenPrepStmt == null) {
+                    insertTokenPrepStmt = connection.prepareStatement(sql);
+                    insertTokenPrepStmts.put(sql, insertTokenPrepStmt);
+                }
+                int tenantId = setInsertAccessTokenParameters(insertTokenPrepStmt, accessTokenHash, consumerKey,
+                        accessTokenDO, userDomain, authenticatedIDP);
+                insertTokenPrepStmt.addBatch();
+
+                if (accessTokenDO.getScope() != null && accessTokenDO.getScope().length > 0) {
+                    String sqlAddScopes = OAuth2Util.getTokenPartitionedSqlByUserStore(
+                            SQLQueries.INSERT_OAUTH2_TOKEN_SCOPE, userDomain);
+                    PreparedStatement addScopePrepStmt = addScopePrepStmts.get(sqlAddScopes);
+                    if (addScopePrepStmt == null) {
+                        addScopePrepStmt = connection.prepareStatement(sqlAddScopes);
+                        addScopePrepStmts.put(sqlAddScopes, addScopePrepStmt);
+                    }
+                    for (String scope : accessTokenDO.getScope()) {
+                        addScopePrepStmt.setString(1, accessTokenDO.getTokenId());
+                        addScopePrepStmt.setString(2, scope);
+                        addScopePrepStmt.setInt(3, tenantId);
+                        addScopePrepStmt.addBatch();
+                    }
+                }
+
+                if (isTokenBindingAvailable(accessTokenDO.getTokenBinding())) {
+                    if (tokenBindingPrepStmt == null) {
+                        tokenBindingPrepStmt = connection.prepareStatement(STORE_TOKEN_BINDING);
+                    }
+                    tokenBindingPrepStmt.setString(1, accessTokenDO.getTokenId());
+                    tokenBindingPrepStmt.setString(2, accessTokenDO.getTokenBinding().getBindingType());
+                    tokenBindingPrepStmt.setString(3, accessTokenDO.getTokenBinding().getBindingReference());
+                    tokenBindingPrepStmt.setString(4, accessTokenDO.getTokenBinding().getBindingValue());
+                    tokenBindingPrepStmt.setInt(5, tenantId);
+                    tokenBindingPrepStmt.addBatch();
+                }
+            }
+
+            // Token rows should be written before the scope and binding rows which refer to them.
+            for (PreparedStatement insertTokenPrepStmt : insertTokenPrepStmts.values()) {
+                insertTokenPrepStmt.executeBatch();
+            }
+            for (PreparedStatement addScopePrepStmt : addScopePrepStmts.values()) {
+                addScopePrepStmt.executeBatch();
+            }
+            if (tokenBindingPrepStmt != null) {
+                tokenBindingPrepStmt.executeBatch();
+            }
+
+            if (isTokenCleanupFeatureEnabled) {
+                for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                    if (accessContextTokenDO.getExistingAccessTokenDO() != null) {
+                        oldTokenCleanupObject.cleanupTokenByTokenId(
+                                accessContextTokenDO.getExistingAccessTokenDO().getTokenId(), connection);
+                    }
+                }
+            }
+            IdentityDatabaseUtil.commitTransaction(connection);
+            for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                OAuthUtil.clearAuthorizedClientIdsCache(accessContextTokenDO.getConsumerKey(),
+                        accessContextTokenDO.getNewAccessTokenDO().getAuthzUser());
+            }
+            return true;
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            if (isConAppKeyConstraintViolation(e)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("'CON_APP_KEY' constraint violation occurred while persisting a batch of " +
+                            accessContextTokenDOs.size() + " access tokens. The batch is rolled back.");
+                }
+                return false;
+            }
+            throw new IdentityOAuth2Exception("Error occurred while persisting a batch of access tokens", e);
+        } catch (IdentityOAuth2Exception e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw e;
+        } finally {
+            for (PreparedStatement addScopePrepStmt : addScopePrepStmts.values()) {
+                IdentityDatabaseUtil.closeStatement(addScopePrepStmt);
+            }
+            for (PreparedStatement insertTokenPrepStmt : insertTokenPrepStmts.values()) {
+                IdentityDatabaseUtil.closeStatement(insertTokenPrepStmt);
+            }
+            IdentityDatabaseUtil.closeStatement(tokenBindingPrepStmt);
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+    }
+
+    private String getAccessTokenHash(String accessToken, String consumerKey) throws IdentityOAuth2Exception {
+
+        String accessTokenHash = accessToken;
+        try {
+            OauthTokenIssuer oauthTokenIssuer = OAuth2Util.getOAuthTokenIssuerForOAuthApp(consumerKey);
+            //check for persist alias for the token type
+            if (oauthTokenIssuer.usePersistedAccessTokenAlias()) {
+                accessTokenHash = oauthTokenIssuer.getAccessTokenHash(accessToken);
+            }
+        } catch (OAuthSystemException e) {
+            if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.ACCESS_TOKEN)) {
+                log.debug("Error while getting access token hash for token(hashed): " + DigestUtils
+                        .sha256Hex(accessTokenHash));
+            }
+            throw new IdentityOAuth2Exception("Error while getting access token hash.", e);
+        } catch (InvalidOAuthClientException e) {
+            throw new IdentityOAuth2Exception(
+                    "Error while retrieving oauth issuer for the app with clientId: " + consumerKey, e);
+        }
+        return accessTokenHash;
+    }
+
+    private String getInsertAccessTokenSql(String userDomain) throws IdentityOAuth2Exception {
+
+        String sql;
+        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+            sql = SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN_WITH_IDP_NAME;
+        } else {
+            sql = SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN;
+        }
+        return OAuth2Util.getTokenPartitionedSqlByUserStore(sql, userDomain);
+    }
+
+    /**
+     * Set the parameters of the access token insert statement.
+     *
+     * @return Tenant id of the authorized user.
+     */
+    private int setInsertAccessTokenParameters(PreparedStatement insertTokenPrepStmt, String accessTokenHash,
+                                               String consumerKey, AccessTokenDO accessTokenDO, String userDomain,
+                                               String authenticatedIDP)
+            throws SQLException, IdentityOAuth2Exception {
+
+        insertTokenPrepStmt.setString(1, getPersistenceProcessor().getProcessedAccessTokenIdentifier(
+                accessTokenHash));
+
+        if (accessTokenDO.getRefreshToken() != null) {
+            insertTokenPrepStmt.setString(2,
+                    getPersistenceProcessor().getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
+        } else {
+            insertTokenPrepStmt.setString(2, accessTokenDO.getRefreshToken());
+        }
+
+        insertTokenPrepStmt.setString(3, accessTokenDO.getAuthzUser().getUserName());
+        int tenantId = OAuth2Util.getTenantId(accessTokenDO.getAuthzUser().getTenantDomain());
+        insertTokenPrepStmt.setInt(4, tenantId);
+        insertTokenPrepStmt.setString(5, OAuth2Util.getSanitizedUserStoreDomain(userDomain));
+        insertTokenPrepStmt
+                .setTimestamp(6, accessTokenDO.getIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+        insertTokenPrepStmt.setTimestamp(7, accessTokenDO.getRefreshTokenIssuedTime(), Calendar.getInstance(TimeZone
+                .getTimeZone(UTC)));
+        insertTokenPrepStmt.setLong(8, accessTokenDO.getValidityPeriodInMillis());
+        insertTokenPrepStmt.setLong(9, accessTokenDO.getRefreshTokenValidityPeriodInMillis());
+        insertTokenPrepStmt.setString(10, OAuth2Util.hashScopes(accessTokenDO.getScope()));
+        insertTokenPrepStmt.setString(11, accessTokenDO.getTokenState());
+        insertTokenPrepStmt.setString(12, accessTokenDO.getTokenType());
+        insertTokenPrepStmt.setString(13, accessTokenDO.getTokenId());
+        insertTokenPrepStmt.setString(14, accessTokenDO.getGrantType());
+        insertTokenPrepStmt.setString(15, accessTokenDO.getAuthzUser().getAuthenticatedSubjectIdentifier());
+        insertTokenPrepStmt
+                .setString(16, getHashingPersistenceProcessor().getProcessedAccessTokenIdentifier(accessTokenHash));
+        if (accessTokenDO.getRefreshToken() != null) {
+            insertTokenPrepStmt.setString(17,
+                    getHashingPersistenceProcessor().getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
+        } else {
+            insertTokenPrepStmt.setString(17, accessTokenDO.getRefreshToken());
+        }
+        if (isTokenBindingAvailable(accessTokenDO.getTokenBinding())) {
+            insertTokenPrepStmt.setString(18, accessTokenDO.getTokenBinding().getBindingReference());
+        } else {
+            insertTokenPrepStmt.setString(18, NONE);
+        }
+        insertTokenPrepStmt.setString(19, getPersistenceProcessor().getProcessedClientId(consumerKey));
+        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+            insertTokenPrepStmt.setString(20, authenticatedIDP);
+            insertTokenPrepStmt.setInt(21, tenantId);
+        }
+        return tenantId;
+    }
+
+    /**
+     * Check whether the batch failed on the CON_APP_KEY constraint, which is the only violation recovered by
+     * persisting the tokens of the batch individually. The violated constraint is named in the error messages of the
+     * supported databases, e.g. a duplicate token id is not reported as a CON_APP_KEY violation.
+     *
+     * @param e Error of the batch.
+     * @return true if the error or one of its chained errors is a violation of the CON_APP_KEY constraint.
+     */
+    private boolean isConAppKeyConstraintViolation(SQLException e) {
+
+        // Batch drivers may report the actual violation as a chained exception of the BatchUpdateException.
+        SQLException current = e;
+        while (current != null) {
+            if (isConAppKeyViolationError(current) || (current.getCause() instanceof SQLException &&
+                    isConAppKeyViolationError((SQLException) current.getCause()))) {
+                return true;
+            }
+            current = current.getNextException();
+        }
+        return false;
+    }
+
+    private boolean isConAppKeyViolationError(SQLException e) {
+
+        boolean integrityConstraintViolation = e instanceof SQLIntegrityConstraintViolationException ||
+                StringUtils.startsWith(e.getSQLState(), INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE_CLASS);
+        return integrityConstraintViolation && StringUtils.containsIgnoreCase(e.getMessage(), CON_APP_KEY_CONSTRAINT);
+    }
+
     @Override
     public boolean insertAccessToken(String accessToken, String consumerKey,
                                      AccessTokenDO newAccessTokenDO, AccessTokenDO existingAccessTokenDO,
@@ -341,6 +533,7 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
                 oldTokenCleanupObject.cleanupTokenByTokenId(existingAccessTokenDO.getTokenId(), connection);
             }
             IdentityDatabaseUtil.commitTransaction(connection);
+            OAuthUtil.clearAuthorizedClientIdsCache(consumerKey, newAccessTokenDO.getAuthzUser());
             return true;
         } catch (SQLException e) {
             IdentityDatabaseUtil.rollbackTransaction(connection);
@@ -886,53 +1079,7 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
             while (resultSet.next()) {
 
                 if (iterateId == 0) {
-
-                    String consumerKey = getPersistenceProcessor().getPreprocessedClientId(resultSet.getString(1));
-                    String authorizedUser = resultSet.getString(2);
-                    int tenantId = resultSet.getInt(3);
-                    String tenantDomain = OAuth2Util.getTenantDomain(tenantId);
-                    String userDomain = resultSet.getString(4);
-                    String[] scope = OAuth2Util.buildScopeArray(resultSet.getString(5));
-                    Timestamp issuedTime = resultSet.getTimestamp(6, Calendar.getInstance(TimeZone.getTimeZone(UTC)));
-                    Timestamp refreshTokenIssuedTime = resultSet.getTimestamp(7,
-                            Calendar.getInstance(TimeZone.getTimeZone(UTC)));
-                    long validityPeriodInMillis = resultSet.getLong(8);
-                    long refreshTokenValidityPeriodMillis = resultSet.getLong(9);
-                    String tokenType = resultSet.getString(10);
-                    String refreshToken = resultSet.getString(11);
-                    String tokenId = resultSet.getString(12);
-                    String grantType = resultSet.getString(13);
-                    String subjectIdentifier = resultSet.getString(14);
-                    String authenticatedIDP = null;
-                    String tokenBindingReference = resultSet.getString(15);
-                    if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
-                        authenticatedIDP = resultSet.getString(16);
-                    }
-
-                    AuthenticatedUser user = OAuth2Util.createAuthenticatedUser(authorizedUser,
-                            userDomain, tenantDomain, authenticatedIDP);
-                    ServiceProvider serviceProvider;
-                    try {
-                        serviceProvider = OAuth2ServiceComponentHolder.getApplicationMgtService().
-                                getServiceProviderByClientId(consumerKey, OAuthConstants.Scope.OAUTH2, tenantDomain);
-                    } catch (IdentityApplicationManagementException e) {
-                        throw new IdentityOAuth2Exception("Error occurred while retrieving OAuth2 application data " +
-                                "for client id " + consumerKey, e);
-                    }
-
-                    user.setAuthenticatedSubjectIdentifier(subjectIdentifier, serviceProvider);
-
-                    dataDO = new AccessTokenDO(consumerKey, user, scope, issuedTime, refreshTokenIssuedTime,
-                            validityPeriodInMillis, refreshTokenValidityPeriodMillis, tokenType);
-                    dataDO.setAccessToken(accessTokenIdentifier);
-                    dataDO.setRefreshToken(refreshToken);
-                    dataDO.setTokenId(tokenId);
-                    dataDO.setGrantType(grantType);
-                    dataDO.setTenantID(tenantId);
-
-                    if (StringUtils.isNotBlank(tokenBindingReference) && !NONE.equals(tokenBindingReference)) {
-                        setTokenBindingToAccessTokenDO(dataDO, connection, tokenId);
-                    }
+                    dataDO = buildAccessTokenDO(resultSet, accessTokenIdentifier, connection);
                 } else {
                     scopes.add(resultSet.getString(5));
                 }
@@ -954,6 +1101,136 @@ public class AccessTokenDAOImpl extends AbstractOAuthDAO implements AccessTokenD
         return dataDO;
     }
 
+    @Override
+    public Map<String, AccessTokenDO> getAccessTokens(Collection<String> accessTokenIdentifiers)
+            throws IdentityOAuth2Exception {
+
+        Map<String, AccessTokenDO> accessTokenDOs = new HashMap<>();
+        if (accessTokenIdentifiers == null || accessTokenIdentifiers.isEmpty()) {
+            return accessTokenDOs;
+        }
+        String sql;
+        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+            sql = SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKENS_BY_HASH_IDP_NAME;
+        } else {
+            sql = SQLQueries.RETRIEVE_ACTIVE_ACCESS_TOKENS_BY_HASH;
+        }
+
+        // Tokens of users in different user stores may be persisted in different partitions.
+        Map<String, Map<String, String>> identifiersByPartitionedSql = new HashMap<>();
+        for (String accessTokenIdentifier : accessTokenIdentifiers) {
+            String accessTokenHash =
+                    getHashingPersistenceProcessor().getProcessedAccessTokenIdentifier(accessTokenIdentifier);
+            identifiersByPartitionedSql.computeIfAbsent(OAuth2Util.getTokenPartitionedSqlByToken(sql,
+                    accessTokenIdentifier), partitionedSql -> new LinkedHashMap<>())
+                    .put(accessTokenHash, accessTokenIdentifier);
+        }
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection(false);
+        try {
+            for (Map.Entry<String, Map<String, String>> entry : identifiersByPartitionedSql.entrySet()) {
+                List<String> accessTokenHashes = new ArrayList<>(entry.getValue().keySet());
+                for (int fromIndex = 0; fromIndex < accessTokenHashes.size(); fromIndex += MAX_IN_LIST_SIZE) {
+                    List<String> hashes = accessTokenHashes.subList(fromIndex,
+                            Math.min(fromIndex + MAX_IN_LIST_SIZE, accessTokenHashes.size()));
+                    getAccessTokens(connection, entry.getKey(), hashes, entry.getValue(), accessTokenDOs);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error when retrieving " + accessTokenIdentifiers.size() +
+                    " access tokens.", e);
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieved " + accessTokenDOs.size() + " active access tokens out of " +
+                    accessTokenIdentifiers.size() + " requested.");
+        }
+        return accessTokenDOs;
+    }
+
+    private void getAccessTokens(Connection connection, String sql, List<String> accessTokenHashes,
+                                 Map<String, String> identifiersByHash, Map<String, AccessTokenDO> accessTokenDOs)
+            throws SQLException, IdentityOAuth2Exception {
+
+        sql = sql.replace(SQLQueries.ACCESS_TOKEN_HASH_LIST_PLACEHOLDER,
+                String.join(", ", Collections.nCopies(accessTokenHashes.size(), "?")));
+        try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+            int parameterIndex = 1;
+            for (String accessTokenHash : accessTokenHashes) {
+                prepStmt.setString(parameterIndex++, accessTokenHash);
+            }
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                while (resultSet.next()) {
+                    String accessTokenIdentifier = identifiersByHash.get(resultSet.getString("ACCESS_TOKEN_HASH"));
+                    if (accessTokenIdentifier == null) {
+                        continue;
+                    }
+                    AccessTokenDO dataDO = accessTokenDOs.get(accessTokenIdentifier);
+                    if (dataDO == null) {
+                        accessTokenDOs.put(accessTokenIdentifier,
+                                buildAccessTokenDO(resultSet, accessTokenIdentifier, connection));
+                    } else {
+                        // Each scope of a token is returned in a separate row.
+                        dataDO.setScope((String[]) ArrayUtils.add(dataDO.getScope(), resultSet.getString(5)));
+                    }
+                }
+            }
+        }
+    }
+
+    private AccessTokenDO buildAccessTokenDO(ResultSet resultSet, String accessTokenIdentifier, Connection connection)
+            throws SQLException, IdentityOAuth2Exception {
+
+        String consumerKey = getPersistenceProcessor().getPreprocessedClientId(resultSet.getString(1));
+        String authorizedUser = resultSet.getString(2);
+        int tenantId = resultSet.getInt(3);
+        String tenantDomain = OAuth2Util.getTenantDomain(tenantId);
+        String userDomain = resultSet.getString(4);
+        String[] scope = OAuth2Util.buildScopeArray(resultSet.getString(5));
+        Timestamp issuedTime = resultSet.getTimestamp(6, Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+        Timestamp refreshTokenIssuedTime = resultSet.getTimestamp(7,
+                Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+        long validityPeriodInMillis = resultSet.getLong(8);
+        long refreshTokenValidityPeriodMillis = resultSet.getLong(9);
+        String tokenType = resultSet.getString(10);
+        String refreshToken = resultSet.getString(11);
+        String tokenId = resultSet.getString(12);
+        String grantType = resultSet.getString(13);
+        String subjectIdentifier = resultSet.getString(14);
+        String authenticatedIDP = null;
+        String tokenBindingReference = resultSet.getString(15);
+        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+            authenticatedIDP = resultSet.getString(16);
+        }
+
+        AuthenticatedUser user = OAuth2Util.createAuthenticatedUser(authorizedUser,
+                userDomain, tenantDomain, authenticatedIDP);
+        ServiceProvider serviceProvider;
+        try {
+            serviceProvider = OAuth2ServiceComponentHolder.getApplicationMgtService().
+                    getServiceProviderByClientId(consumerKey, OAuthConstants.Scope.OAUTH2, tenantDomain);
+        } catch (IdentityApplicationManagementException e) {
+            throw new IdentityOAuth2Exception("Error occurred while retrieving OAuth2 application data " +
+                    "for client id " + consumerKey, e);
+        }
+
+        user.setAuthenticatedSubjectIdentifier(subjectIdentifier, serviceProvider);
+
+        AccessTokenDO dataDO = new AccessTokenDO(consumerKey, user, scope, issuedTime, refreshTokenIssuedTime,
+                validityPeriodInMillis, refreshTokenValidityPeriodMillis, tokenType);
+        dataDO.setAccessToken(accessTokenIdentifier);
+        dataDO.setRefreshToken(refreshToken);
+        dataDO.setTokenId(tokenId);
+        dataDO.setGrantType(grantType);
+        dataDO.setTenantID(tenantId);
+
+        if (StringUtils.isNotBlank(tokenBindingReference) && !NONE.equals(tokenBindingReference)) {
+            setTokenBindingToAccessTokenDO(dataDO, connection, tokenId);
+        }
+        return dataDO;
+    }
+
     private void setTokenBindingToAccessTokenDO(AccessTokenDO dataDO, Connection connection, String tokenId)
             throws SQLException {
 
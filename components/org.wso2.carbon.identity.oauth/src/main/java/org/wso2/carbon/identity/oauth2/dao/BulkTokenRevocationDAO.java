@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+
+import java.util.List;
+
+/**
+ * DAO used to revoke a large number of access tokens page by page.
+ */
+public interface BulkTokenRevocationDAO {
+
+    /**
+     * Get a page of the active or expired access tokens matching the filter, ordered by token id.
+     *
+     * @param filter          Filter selecting the tokens.
+     * @param userStoreDomain User store domain used to resolve the partitioned token table.
+     * @param lastTokenId     Id of the last token of the previous page, or null to get the first page.
+     * @param pageSize        Maximum number of tokens in the page.
+     * @return Tokens of the page, including their consumer key, authorized user, scope, state and tenant id.
+     * @throws IdentityOAuth2Exception in case of failure.
+     */
+    List<AccessTokenDO> getRevocableAccessTokens(BulkTokenRevocationFilter filter, String userStoreDomain,
+                                                 String lastTokenId, int pageSize) throws IdentityOAuth2Exception;
+
+    /**
+     * Revoke the given page of access tokens in a single transaction.
+     *
+     * @param accessTokenDOs  Tokens returned by {@link #getRevocableAccessTokens}.
+     * @param userStoreDomain User store domain used to resolve the partitioned token table.
+     * @return Number of revoked tokens.
+     * @throws IdentityOAuth2Exception in case of failure.
+     */
+    int revokeAccessTokens(List<AccessTokenDO> accessTokenDOs, String userStoreDomain)
+            throws IdentityOAuth2Exception;
+}
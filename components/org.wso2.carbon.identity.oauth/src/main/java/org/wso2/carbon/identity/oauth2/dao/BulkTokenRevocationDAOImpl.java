@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.JdbcUtils;
+import org.wso2.carbon.identity.oauth2.util.OAuth2TokenUtil;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * JDBC implementation of {@link BulkTokenRevocationDAO}.
+ * <p>
+ * Tokens are paged with keyset pagination on the token id, so each page is read with an index range scan regardless
+ * of how many tokens were revoked before it. The active tokens of a page are revoked with a single UPDATE sharing one
+ * token state id, which cannot violate the unique key of the token table as at most one active token exists per
+ * application, user, scope and binding. Expired tokens may share that key, hence they are revoked with their own
+ * token state ids in a JDBC batch. Token id lists are split into chunks of at most 1000 ids, the IN list limit of
+ * Oracle.
+ */
+public class BulkTokenRevocationDAOImpl extends AbstractOAuthDAO implements BulkTokenRevocationDAO {
+
+    private static final Log log = LogFactory.getLog(BulkTokenRevocationDAOImpl.class);
+
+    private static final int MAX_IN_LIST_SIZE = 1000;
+
+    private final OldTokensCleanDAO oldTokenCleanupObject = new OldTokensCleanDAO();
+
+    @Override
+    public List<AccessTokenDO> getRevocableAccessTokens(BulkTokenRevocationFilter filter, String userStoreDomain,
+                                                        String lastTokenId, int pageSize)
+            throws IdentityOAuth2Exception {
+
+        boolean isUsernameCaseSensitive = filter.getUsername() == null || filter.getTenantId() == null ||
+                IdentityUtil.isUserStoreCaseSensitive(filter.getUserStoreDomain(), filter.getTenantId());
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection(false);
+        PreparedStatement prepStmt = null;
+        ResultSet resultSet = null;
+        Map<String, AccessTokenDO> accessTokenDOs = new LinkedHashMap<>();
+        try {
+            String sql;
+            if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+                sql = SQLQueries.LIST_REVOCABLE_ACCESS_TOKENS_IDP_NAME;
+            } else {
+                sql = SQLQueries.LIST_REVOCABLE_ACCESS_TOKENS;
+            }
+            sql = sql.replace(SQLQueries.REVOCABLE_ACCESS_TOKENS_STATE_CRITERIA,
+                    SQLQueries.REVOCABLE_ACCESS_TOKENS_STATE_CRITERIA + buildFilterCriteria(filter,
+                            isUsernameCaseSensitive));
+            if (lastTokenId == null) {
+                sql = sql.replace(SQLQueries.REVOCABLE_ACCESS_TOKENS_KEYSET_CRITERIA, "");
+            }
+            sql = OAuth2Util.getTokenPartitionedSqlByUserStore(JdbcUtils.limitPage(sql, pageSize, connection),
+                    userStoreDomain);
+
+            prepStmt = connection.prepareStatement(sql);
+            int parameterIndex = 1;
+            if (filter.getTenantId() != null) {
+                prepStmt.setInt(parameterIndex++, filter.getTenantId());
+            }
+            if (filter.getConsumerKey() != null) {
+                prepStmt.setString(parameterIndex++, filter.getConsumerKey());
+            }
+            if (filter.getUserStoreDomain() != null) {
+                prepStmt.setString(parameterIndex++, filter.getUserStoreDomain());
+            }
+            if (filter.getUsername() != null) {
+                prepStmt.setString(parameterIndex++, isUsernameCaseSensitive ? filter.getUsername() :
+                        filter.getUsername().toLowerCase());
+            }
+            if (lastTokenId != null) {
+                prepStmt.setString(parameterIndex, lastTokenId);
+            }
+            resultSet = prepStmt.executeQuery();
+
+            Map<Integer, String> tenantDomains = new HashMap<>();
+            while (resultSet.next()) {
+                String tokenId = resultSet.getString(1);
+                String accessToken = getPersistenceProcessor().getPreprocessedAccessTokenIdentifier(
+                        resultSet.getString(2));
+                String authzUser = resultSet.getString(3);
+                String tokenUserStoreDomain = resultSet.getString(4);
+                int tenantId = resultSet.getInt(5);
+                String tokenState = resultSet.getString(6);
+                String consumerKey = resultSet.getString(7);
+                String authenticatedIDP = null;
+                if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+                    authenticatedIDP = resultSet.getString(8);
+                }
+
+                String tenantDomain = tenantDomains.get(tenantId);
+                if (tenantDomain == null) {
+                    tenantDomain = OAuth2Util.getTenantDomain(tenantId);
+                    tenantDomains.put(tenantId, tenantDomain);
+                }
+                AuthenticatedUser user = OAuth2Util.createAuthenticatedUser(authzUser, tokenUserStoreDomain,
+                        tenantDomain, authenticatedIDP);
+
+                AccessTokenDO accessTokenDO = new AccessTokenDO();
+                accessTokenDO.setTokenId(tokenId);
+                accessTokenDO.setAccessToken(accessToken);
+                accessTokenDO.setConsumerKey(consumerKey);
+                accessTokenDO.setAuthzUser(user);
+                accessTokenDO.setTenantID(tenantId);
+                accessTokenDO.setTokenState(tokenState);
+                accessTokenDO.setScope(new String[0]);
+                accessTokenDOs.put(tokenId, accessTokenDO);
+            }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error occurred while retrieving the access tokens to be revoked for " +
+                    filter, e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
+        }
+
+        if (!accessTokenDOs.isEmpty()) {
+            populateScopes(accessTokenDOs, userStoreDomain);
+        }
+        return new ArrayList<>(accessTokenDOs.values());
+    }
+
+    @Override
+    public int revokeAccessTokens(List<AccessTokenDO> accessTokenDOs, String userStoreDomain)
+            throws IdentityOAuth2Exception {
+
+        if (accessTokenDOs.isEmpty()) {
+            return 0;
+        }
+
+        List<String> tokenIds = new ArrayList<>();
+        List<String> activeTokenIds = new ArrayList<>();
+        List<String> expiredTokenIds = new ArrayList<>();
+        for (AccessTokenDO accessTokenDO : accessTokenDOs) {
+            tokenIds.add(accessTokenDO.getTokenId());
+            if (OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE.equals(accessTokenDO.getTokenState())) {
+                activeTokenIds.add(accessTokenDO.getTokenId());
+            } else {
+                expiredTokenIds.add(accessTokenDO.getTokenId());
+            }
+        }
+
+        int revokedCount = 0;
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement revokeExpiredTokensStmt = null;
+        try {
+            for (int fromIndex = 0; fromIndex < activeTokenIds.size(); fromIndex += MAX_IN_LIST_SIZE) {
+                revokedCount += revokeActiveTokens(connection, activeTokenIds.subList(fromIndex,
+                        Math.min(fromIndex + MAX_IN_LIST_SIZE, activeTokenIds.size())), userStoreDomain);
+            }
+            if (!expiredTokenIds.isEmpty()) {
+                revokeExpiredTokensStmt = connection.prepareStatement(OAuth2Util.getTokenPartitionedSqlByUserStore(
+                        SQLQueries.REVOKE_ACCESS_TOKEN_BY_TOKEN_ID, userStoreDomain));
+                for (String tokenId : expiredTokenIds) {
+                    revokeExpiredTokensStmt.setString(1, OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+                    revokeExpiredTokensStmt.setString(2, UUID.randomUUID().toString());
+                    revokeExpiredTokensStmt.setString(3, OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+                    revokeExpiredTokensStmt.setString(4, tokenId);
+                    revokeExpiredTokensStmt.addBatch();
+                }
+                for (int count : revokeExpiredTokensStmt.executeBatch()) {
+                    // Drivers may report SUCCESS_NO_INFO (-2) instead of the update count.
+                    revokedCount += count > 0 ? count : 0;
+                }
+            }
+            IdentityDatabaseUtil.commitTransaction(connection);
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw new IdentityOAuth2Exception("Error occurred while revoking a page of " + accessTokenDOs.size() +
+                    " access tokens.", e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, null, revokeExpiredTokensStmt);
+        }
+
+        // To revoke request objects which have persisted against the access tokens.
+        OAuth2TokenUtil.postUpdateAccessTokens(tokenIds, OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+
+        if (OAuthServerConfiguration.getInstance().isTokenCleanupEnabled()) {
+            cleanupTokens(tokenIds);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Revoked " + revokedCount + " of " + accessTokenDOs.size() + " access tokens in the page.");
+        }
+        return revokedCount;
+    }
+
+    private int revokeActiveTokens(Connection connection, List<String> tokenIds, String userStoreDomain)
+            throws SQLException {
+
+        String sql = SQLQueries.REVOKE_ACCESS_TOKENS_BY_TOKEN_ID.replace(SQLQueries.TOKEN_ID_LIST_PLACEHOLDER,
+                getPlaceholders(tokenIds.size()));
+        PreparedStatement prepStmt = null;
+        try {
+            prepStmt = connection.prepareStatement(OAuth2Util.getTokenPartitionedSqlByUserStore(sql,
+                    userStoreDomain));
+            prepStmt.setString(1, OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+            int parameterIndex = 4;
+            for (String tokenId : tokenIds) {
+                prepStmt.setString(parameterIndex++, tokenId);
+            }
+            return prepStmt.executeUpdate();
+        } finally {
+            IdentityDatabaseUtil.closeStatement(prepStmt);
+        }
+    }
+
+    private void populateScopes(Map<String, AccessTokenDO> accessTokenDOs, String userStoreDomain)
+            throws IdentityOAuth2Exception {
+
+        List<String> tokenIds = new ArrayList<>(accessTokenDOs.keySet());
+        Map<String, List<String>> scopes = new HashMap<>();
+        Connection connection = IdentityDatabaseUtil.getDBConnection(false);
+        try {
+            for (int fromIndex = 0; fromIndex < tokenIds.size(); fromIndex += MAX_IN_LIST_SIZE) {
+                readScopes(connection, tokenIds.subList(fromIndex,
+                        Math.min(fromIndex + MAX_IN_LIST_SIZE, tokenIds.size())), userStoreDomain, scopes);
+            }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error occurred while retrieving the scopes of the access tokens to be " +
+                    "revoked.", e);
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+
+        for (Map.Entry<String, List<String>> tokenScopes : scopes.entrySet()) {
+            AccessTokenDO accessTokenDO = accessTokenDOs.get(tokenScopes.getKey());
+            if (accessTokenDO != null) {
+                accessTokenDO.setScope(tokenScopes.getValue().toArray(new String[0]));
+            }
+        }
+    }
+
+    private void readScopes(Connection connection, List<String> tokenIds, String userStoreDomain,
+                            Map<String, List<String>> scopes) throws SQLException {
+
+        String sql = SQLQueries.LIST_SCOPES_OF_ACCESS_TOKENS.replace(SQLQueries.TOKEN_ID_LIST_PLACEHOLDER,
+                getPlaceholders(tokenIds.size()));
+        PreparedStatement prepStmt = null;
+        ResultSet resultSet = null;
+        try {
+            prepStmt = connection.prepareStatement(OAuth2Util.getTokenPartitionedSqlByUserStore(sql,
+                    userStoreDomain));
+            int parameterIndex = 1;
+            for (String tokenId : tokenIds) {
+                prepStmt.setString(parameterIndex++, tokenId);
+            }
+            resultSet = prepStmt.executeQuery();
+            while (resultSet.next()) {
+                scopes.computeIfAbsent(resultSet.getString(1), tokenId -> new ArrayList<>())
+                        .add(resultSet.getString(2).trim());
+            }
+        } finally {
+            IdentityDatabaseUtil.closeResultSet(resultSet);
+            IdentityDatabaseUtil.closeStatement(prepStmt);
+        }
+    }
+
+    private void cleanupTokens(List<String> tokenIds) {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try {
+            for (String tokenId : tokenIds) {
+                oldTokenCleanupObject.cleanupTokenByTokenId(tokenId, connection);
+            }
+        } catch (SQLException e) {
+            // Revocation has already been committed, the tokens just remain in the token table.
+            log.error("Error occurred while cleaning up the revoked access tokens.", e);
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+    }
+
+    private static String buildFilterCriteria(BulkTokenRevocationFilter filter, boolean isUsernameCaseSensitive) {
+
+        StringBuilder criteria = new StringBuilder();
+        if (filter.getTenantId() != null) {
+            criteria.append(SQLQueries.REVOCABLE_ACCESS_TOKENS_TENANT_CRITERIA);
+        }
+        if (filter.getConsumerKey() != null) {
+            criteria.append(SQLQueries.REVOCABLE_ACCESS_TOKENS_CONSUMER_KEY_CRITERIA);
+        }
+        if (filter.getUserStoreDomain() != null) {
+            criteria.append(SQLQueries.REVOCABLE_ACCESS_TOKENS_USER_STORE_CRITERIA);
+        }
+        if (filter.getUsername() != null) {
+            String userCriteria = SQLQueries.REVOCABLE_ACCESS_TOKENS_USER_CRITERIA;
+            if (!isUsernameCaseSensitive) {
+                userCriteria = userCriteria.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
+            }
+            criteria.append(userCriteria);
+        }
+        return criteria.toString();
+    }
+
+    private static String getPlaceholders(int count) {
+
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import java.io.Serializable;
+
+/**
+ * Selects the access tokens revoked by a bulk token revocation: all the tokens of a tenant, of a user store of a
+ * tenant, of an application or of a user.
+ */
+public class BulkTokenRevocationFilter implements Serializable {
+
+    private static final long serialVersionUID = -3529163907421405732L;
+
+    private final Integer tenantId;
+    private final String consumerKey;
+    private final String userStoreDomain;
+    private final String username;
+
+    private BulkTokenRevocationFilter(Integer tenantId, String consumerKey, String userStoreDomain, String username) {
+
+        this.tenantId = tenantId;
+        this.consumerKey = consumerKey;
+        this.userStoreDomain = userStoreDomain;
+        this.username = username;
+    }
+
+    /**
+     * @param tenantId Tenant id.
+     * @return Filter selecting the tokens issued to the users of the tenant.
+     */
+    public static BulkTokenRevocationFilter forTenant(int tenantId) {
+
+        return new BulkTokenRevocationFilter(tenantId, null, null, null);
+    }
+
+    /**
+     * @param tenantId        Tenant id.
+     * @param userStoreDomain User store domain.
+     * @return Filter selecting the tokens issued to the users of a user store of the tenant.
+     */
+    public static BulkTokenRevocationFilter forUserStore(int tenantId, String userStoreDomain) {
+
+        return new BulkTokenRevocationFilter(tenantId, null, userStoreDomain, null);
+    }
+
+    /**
+     * @param consumerKey Consumer key of the application.
+     * @return Filter selecting the tokens issued to the application, for users of any tenant.
+     */
+    public static BulkTokenRevocationFilter forApplication(String consumerKey) {
+
+        return new BulkTokenRevocationFilter(null, consumerKey, null, null);
+    }
+
+    /**
+     * @param username        Username without the user store domain.
+     * @param userStoreDomain User store domain of the user.
+     * @param tenantId        Tenant id of the user.
+     * @return Filter selecting the tokens issued to the user.
+     */
+    public static BulkTokenRevocationFilter forUser(String username, String userStoreDomain, int tenantId) {
+
+        return new BulkTokenRevocationFilter(tenantId, null, userStoreDomain, username);
+    }
+
+    /**
+     * @return Tenant id, or null if the tokens are not filtered by tenant.
+     */
+    public Integer getTenantId() {
+
+        return tenantId;
+    }
+
+    public String getConsumerKey() {
+
+        return consumerKey;
+    }
+
+    public String getUserStoreDomain() {
+
+        return userStoreDomain;
+    }
+
+    public String getUsername() {
+
+        return username;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder builder = new StringBuilder();
+        if (tenantId != null) {
+            builder.append("tenant id: ").append(tenantId);
+        }
+        if (consumerKey != null) {
+            builder.append(builder.length() > 0 ? ", " : "").append("consumer key: ").append(consumerKey);
+        }
+        if (userStoreDomain != null) {
+            builder.append(builder.length() > 0 ? ", " : "").append("user store domain: ").append(userStoreDomain);
+        }
+        return builder.toString();
+    }
+}
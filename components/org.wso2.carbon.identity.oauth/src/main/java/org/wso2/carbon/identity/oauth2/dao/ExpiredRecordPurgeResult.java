@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+/**
+ * Result of purging a chunk of expired tokens or codes with {@link OldTokensCleanDAO}.
+ */
+public class ExpiredRecordPurgeResult {
+
+    private final String lastKey;
+    private final int scannedCount;
+    private final int purgedCount;
+
+    public ExpiredRecordPurgeResult(String lastKey, int scannedCount, int purgedCount) {
+
+        this.lastKey = lastKey;
+        this.scannedCount = scannedCount;
+        this.purgedCount = purgedCount;
+    }
+
+    /**
+     * @return Key of the last row read in the chunk, to be passed as the starting point of the next chunk.
+     */
+    public String getLastKey() {
+
+        return lastKey;
+    }
+
+    /**
+     * @return Number of rows read in the chunk, including those which are not purgeable yet.
+     */
+    public int getScannedCount() {
+
+        return scannedCount;
+    }
+
+    /**
+     * @return Number of rows deleted in the chunk.
+     */
+    public int getPurgedCount() {
+
+        return purgedCount;
+    }
+}
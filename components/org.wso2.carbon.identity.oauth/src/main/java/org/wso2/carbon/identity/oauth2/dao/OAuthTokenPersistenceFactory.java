@@ -39,6 +39,7 @@ public class OAuthTokenPersistenceFactory {
     private ScopeClaimMappingDAO scopeClaimMappingDAO;
     private TokenBindingMgtDAO tokenBindingMgtDAO;
     private OAuthUserConsentedScopesDAO oauthUserConsentedScopesDAO;
+    private BulkTokenRevocationDAO bulkTokenRevocationDAO;
 
     public OAuthTokenPersistenceFactory() {
 
@@ -50,6 +51,7 @@ public class OAuthTokenPersistenceFactory {
         this.scopeClaimMappingDAO = new CacheBackedScopeClaimMappingDAOImpl();
         this.tokenBindingMgtDAO = new TokenBindingMgtDAOImpl();
         this.oauthUserConsentedScopesDAO = new CacheBackedOAuthUserConsentedScopesDAOImpl();
+        this.bulkTokenRevocationDAO = new BulkTokenRevocationDAOImpl();
     }
 
     public static OAuthTokenPersistenceFactory getInstance() {
@@ -96,4 +98,9 @@ public class OAuthTokenPersistenceFactory {
 
         return oauthUserConsentedScopesDAO;
     }
+
+    public BulkTokenRevocationDAO getBulkTokenRevocationDAO() {
+
+        return bulkTokenRevocationDAO;
+    }
 }
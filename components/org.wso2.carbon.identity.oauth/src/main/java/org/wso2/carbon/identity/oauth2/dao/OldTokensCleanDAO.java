@@ -20,21 +20,33 @@ package org.wso2.carbon.identity.oauth2.dao;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.model.OldAccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.JdbcUtils;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
+import java.util.TimeZone;
 
 /**
  * This is DAO class for cleaning old Tokens. When new tokens is generated ,refreshed or revoked old access token
  * will be moved to Audit table and deleted from the Access token table. Token cleaning process can be enable or
  * disable and old tokens can retain enable or disable by the configuration setting.
+ * <p>
+ * Expired tokens and codes which are not touched again are purged in chunks by the
+ * {@link org.wso2.carbon.identity.oauth2.token.cleanup.ExpiredTokenPurger}.
  */
 public class OldTokensCleanDAO {
 
@@ -173,4 +185,216 @@ public class OldTokensCleanDAO {
             cleanupTokenByTokenValue(token, connection);
         }
     }
+
+    /**
+     * Purge a chunk of the access tokens of a token partition which cannot be used since the cutoff time, i.e.
+     * revoked or inactive tokens and tokens of which both the access token and the refresh token have expired. The
+     * tokens are moved to the audit table if old access tokens are retained.
+     *
+     * @param userStoreDomain User store domain of the token partition.
+     * @param lastTokenId     Last key of the previous chunk, or null to start from the first token.
+     * @param cutoffTime      Time in milliseconds before which the tokens should have become unusable.
+     * @param chunkSize       Maximum number of tokens to be read in the chunk.
+     * @return Result of the chunk.
+     * @throws IdentityOAuth2Exception If the chunk could not be purged. Nothing is purged in that case.
+     */
+    public ExpiredRecordPurgeResult purgeExpiredAccessTokens(String userStoreDomain, String lastTokenId,
+                                                             long cutoffTime, int chunkSize)
+            throws IdentityOAuth2Exception {
+
+        return purgeChunk("access tokens", SQLQueries.LIST_PURGEABLE_ACCESS_TOKENS,
+                SQLQueries.PURGEABLE_ACCESS_TOKENS_KEYSET_CRITERIA, userStoreDomain, lastTokenId, cutoffTime,
+                chunkSize, resultSet -> {
+                    String tokenState = resultSet.getString(2);
+                    if (!OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE.equals(tokenState)
+                            && !OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED.equals(tokenState)) {
+                        return true;
+                    }
+                    // Expired tokens can still be refreshed until the refresh token expires.
+                    return isExpiredBefore(resultSet.getTimestamp(3, getUTCCalendar()), resultSet.getLong(4),
+                            cutoffTime) && isExpiredBefore(resultSet.getTimestamp(5, getUTCCalendar()),
+                            resultSet.getLong(6), cutoffTime);
+                }, SQLQueries.DELETE_ACCESS_TOKENS_BY_TOKEN_ID);
+    }
+
+    /**
+     * Purge a chunk of the authorization codes which are used, revoked or expired before the cutoff time.
+     *
+     * @param lastCodeId Last key of the previous chunk, or null to start from the first code.
+     * @param cutoffTime Time in milliseconds before which the codes should have become unusable.
+     * @param chunkSize  Maximum number of codes to be read in the chunk.
+     * @return Result of the chunk.
+     * @throws IdentityOAuth2Exception If the chunk could not be purged. Nothing is purged in that case.
+     */
+    public ExpiredRecordPurgeResult purgeExpiredAuthorizationCodes(String lastCodeId, long cutoffTime, int chunkSize)
+            throws IdentityOAuth2Exception {
+
+        return purgeChunk("authorization codes", SQLQueries.LIST_PURGEABLE_AUTHORIZATION_CODES,
+                SQLQueries.PURGEABLE_AUTHORIZATION_CODES_KEYSET_CRITERIA, null, lastCodeId, cutoffTime, chunkSize,
+                resultSet -> !OAuthConstants.AuthorizationCodeState.ACTIVE.equals(resultSet.getString(2))
+                        || isExpiredBefore(resultSet.getTimestamp(3, getUTCCalendar()), resultSet.getLong(4),
+                        cutoffTime),
+                // The code scopes are not deleted in cascade.
+                SQLQueries.DELETE_AUTHORIZATION_CODE_SCOPES_BY_CODE_ID,
+                SQLQueries.DELETE_AUTHORIZATION_CODES_BY_CODE_ID);
+    }
+
+    /**
+     * Purge a chunk of the device flow codes which are expired before the cutoff time.
+     *
+     * @param lastDeviceCode Last key of the previous chunk, or null to start from the first code.
+     * @param cutoffTime     Time in milliseconds before which the codes should have expired.
+     * @param chunkSize      Maximum number of codes to be read in the chunk.
+     * @return Result of the chunk.
+     * @throws IdentityOAuth2Exception If the chunk could not be purged. Nothing is purged in that case.
+     */
+    public ExpiredRecordPurgeResult purgeExpiredDeviceCodes(String lastDeviceCode, long cutoffTime, int chunkSize)
+            throws IdentityOAuth2Exception {
+
+        return purgeChunk("device codes", SQLQueries.LIST_PURGEABLE_DEVICE_CODES,
+                SQLQueries.PURGEABLE_DEVICE_CODES_KEYSET_CRITERIA, null, lastDeviceCode, cutoffTime, chunkSize,
+                resultSet -> true, SQLQueries.DELETE_DEVICE_CODES_BY_DEVICE_CODE);
+    }
+
+    /**
+     * Purge a chunk of the CIBA authentication request codes which are expired before the cutoff time.
+     *
+     * @param lastAuthCodeKey Last key of the previous chunk, or null to start from the first code.
+     * @param cutoffTime      Time in milliseconds before which the codes should have expired.
+     * @param chunkSize       Maximum number of codes to be read in the chunk.
+     * @return Result of the chunk.
+     * @throws IdentityOAuth2Exception If the chunk could not be purged. Nothing is purged in that case.
+     */
+    public ExpiredRecordPurgeResult purgeExpiredCibaAuthCodes(String lastAuthCodeKey, long cutoffTime, int chunkSize)
+            throws IdentityOAuth2Exception {
+
+        return purgeChunk("CIBA auth codes", SQLQueries.LIST_PURGEABLE_CIBA_AUTH_CODES,
+                SQLQueries.PURGEABLE_CIBA_AUTH_CODES_KEYSET_CRITERIA, null, lastAuthCodeKey, cutoffTime, chunkSize,
+                // EXPIRES_IN is stored in seconds.
+                resultSet -> isExpiredBefore(resultSet.getTimestamp(2, getUTCCalendar()),
+                        resultSet.getLong(3) * 1000, cutoffTime),
+                SQLQueries.DELETE_CIBA_AUTH_CODES_BY_AUTH_CODE_KEY);
+    }
+
+    /**
+     * Read a chunk of rows in key order and delete those accepted by the filter, in a single transaction. The first
+     * column of the list query is the key of the row and the first parameter is the cutoff time.
+     */
+    private ExpiredRecordPurgeResult purgeChunk(String recordName, String listSql, String keysetCriteria,
+                                                String userStoreDomain, String lastKey, long cutoffTime,
+                                                int chunkSize, PurgeableRecordFilter filter, String... deleteSqls)
+            throws IdentityOAuth2Exception {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement prepStmt = null;
+        ResultSet resultSet = null;
+        try {
+            String sql = lastKey == null ? listSql.replace(keysetCriteria, "") : listSql;
+            sql = getPartitionedSql(JdbcUtils.limitPage(sql, chunkSize, connection), userStoreDomain);
+            prepStmt = connection.prepareStatement(sql);
+            prepStmt.setTimestamp(1, new Timestamp(cutoffTime), getUTCCalendar());
+            if (lastKey != null) {
+                prepStmt.setString(2, lastKey);
+            }
+            resultSet = prepStmt.executeQuery();
+
+            String lastScannedKey = lastKey;
+            int scannedCount = 0;
+            List<String> purgeableKeys = new ArrayList<>();
+            while (resultSet.next()) {
+                lastScannedKey = resultSet.getString(1);
+                scannedCount++;
+                if (filter.isPurgeable(resultSet)) {
+                    purgeableKeys.add(lastScannedKey);
+                }
+            }
+
+            int purgedCount = 0;
+            if (!purgeableKeys.isEmpty()) {
+                if (userStoreDomain != null && OAuthServerConfiguration.getInstance().useRetainOldAccessTokens()) {
+                    storeTokensInAuditTable(purgeableKeys, userStoreDomain, connection);
+                }
+                for (String deleteSql : deleteSqls) {
+                    // The count of the last statement, which deletes from the main table, is reported.
+                    purgedCount = deleteByKeys(getPartitionedSql(deleteSql, userStoreDomain), purgeableKeys,
+                            connection);
+                }
+            }
+            IdentityDatabaseUtil.commitTransaction(connection);
+            if (log.isDebugEnabled()) {
+                log.debug("Purged " + purgedCount + " of " + scannedCount + " " + recordName + " read in the chunk.");
+            }
+            return new ExpiredRecordPurgeResult(lastScannedKey, scannedCount, purgedCount);
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollbackTransaction(connection);
+            throw new IdentityOAuth2Exception("Error occurred while purging a chunk of expired " + recordName + ".", e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
+        }
+    }
+
+    private void storeTokensInAuditTable(List<String> tokenIds, String userStoreDomain, Connection connection)
+            throws SQLException, IdentityOAuth2Exception {
+
+        String sql;
+        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+            sql = SQLQueries.RETRIEVE_AND_STORE_IN_AUDIT_WITH_IDP_NAME;
+        } else {
+            sql = SQLQueries.RETRIEVE_AND_STORE_IN_AUDIT;
+        }
+        Timestamp invalidatedTime = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement prepStmt = connection.prepareStatement(getPartitionedSql(sql, userStoreDomain))) {
+            for (String tokenId : tokenIds) {
+                prepStmt.setTimestamp(1, invalidatedTime);
+                prepStmt.setString(2, tokenId);
+                prepStmt.addBatch();
+            }
+            prepStmt.executeBatch();
+        }
+    }
+
+    private int deleteByKeys(String sql, List<String> keys, Connection connection) throws SQLException {
+
+        String placeholders = String.join(", ", Collections.nCopies(keys.size(), "?"));
+        sql = sql.replace(SQLQueries.TOKEN_ID_LIST_PLACEHOLDER, placeholders)
+                .replace(SQLQueries.CODE_ID_LIST_PLACEHOLDER, placeholders);
+        try (PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+            int parameterIndex = 1;
+            for (String key : keys) {
+                prepStmt.setString(parameterIndex++, key);
+            }
+            return prepStmt.executeUpdate();
+        }
+    }
+
+    private static String getPartitionedSql(String sql, String userStoreDomain) throws IdentityOAuth2Exception {
+
+        if (userStoreDomain == null) {
+            return sql;
+        }
+        return OAuth2Util.getTokenPartitionedSqlByUserStore(sql, userStoreDomain);
+    }
+
+    /**
+     * Whether a token or code issued at the given time with the given validity period in milliseconds had expired
+     * at the cutoff time. Negative validity periods never expire.
+     */
+    private static boolean isExpiredBefore(Timestamp issuedTime, long validityPeriod, long cutoffTime) {
+
+        // Compared without adding to the issued time, as the validity period of non expiring tokens is very large.
+        return issuedTime != null && validityPeriod >= 0 && issuedTime.getTime() <= cutoffTime - validityPeriod;
+    }
+
+    private static Calendar getUTCCalendar() {
+
+        return Calendar.getInstance(TimeZone.getTimeZone(AbstractOAuthDAO.UTC));
+    }
+
+    /**
+     * Decides whether the current row of a purge chunk can be deleted.
+     */
+    private interface PurgeableRecordFilter {
+
+        boolean isPurgeable(ResultSet resultSet) throws SQLException;
+    }
 }
@@ -284,6 +284,38 @@ public class SQLQueries {
             "ON ACCESS_TOKEN_TABLE.TOKEN_ID = IDN_OAUTH2_ACCESS_TOKEN_SCOPE.TOKEN_ID " +
             "JOIN IDP ON IDP_ID = IDP.ID";
 
+    public static final String ACCESS_TOKEN_HASH_LIST_PLACEHOLDER = "_ACCESS_TOKEN_HASH_LIST_";
+
+    public static final String RETRIEVE_ACTIVE_ACCESS_TOKENS_BY_HASH = "SELECT CONSUMER_KEY, AUTHZ_USER, " +
+            "ACCESS_TOKEN_TABLE.TENANT_ID, USER_DOMAIN, TOKEN_SCOPE, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, " +
+            "VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, REFRESH_TOKEN, ACCESS_TOKEN_TABLE.TOKEN_ID, " +
+            "GRANT_TYPE, SUBJECT_IDENTIFIER, TOKEN_BINDING_REF, ACCESS_TOKEN_HASH FROM (SELECT TOKEN_ID, " +
+            "CONSUMER_KEY, AUTHZ_USER, IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID AS TENANT_ID, " +
+            "IDN_OAUTH2_ACCESS_TOKEN.USER_DOMAIN AS USER_DOMAIN, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, " +
+            "VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, REFRESH_TOKEN, " +
+            "IDN_OAUTH2_ACCESS_TOKEN.GRANT_TYPE AS GRANT_TYPE, SUBJECT_IDENTIFIER, TOKEN_BINDING_REF, " +
+            "ACCESS_TOKEN_HASH FROM (SELECT * FROM IDN_OAUTH2_ACCESS_TOKEN WHERE ACCESS_TOKEN_HASH IN (" +
+            ACCESS_TOKEN_HASH_LIST_PLACEHOLDER + ") AND TOKEN_STATE='ACTIVE') IDN_OAUTH2_ACCESS_TOKEN " +
+            "JOIN IDN_OAUTH_CONSUMER_APPS ON CONSUMER_KEY_ID = ID) ACCESS_TOKEN_TABLE" +
+            " LEFT JOIN IDN_OAUTH2_ACCESS_TOKEN_SCOPE " +
+            "ON ACCESS_TOKEN_TABLE.TOKEN_ID = IDN_OAUTH2_ACCESS_TOKEN_SCOPE.TOKEN_ID";
+
+    public static final String RETRIEVE_ACTIVE_ACCESS_TOKENS_BY_HASH_IDP_NAME =
+            "SELECT CONSUMER_KEY, AUTHZ_USER, ACCESS_TOKEN_TABLE.TENANT_ID, " +
+                    "USER_DOMAIN, TOKEN_SCOPE, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, " +
+                    "REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, REFRESH_TOKEN, ACCESS_TOKEN_TABLE.TOKEN_ID, " +
+                    "GRANT_TYPE, SUBJECT_IDENTIFIER, TOKEN_BINDING_REF, IDP.NAME, ACCESS_TOKEN_HASH FROM (SELECT " +
+                    "TOKEN_ID, CONSUMER_KEY, AUTHZ_USER, IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID AS TENANT_ID, " +
+                    "IDN_OAUTH2_ACCESS_TOKEN.USER_DOMAIN AS USER_DOMAIN, TIME_CREATED, " +
+                    "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, " +
+                    "REFRESH_TOKEN, IDN_OAUTH2_ACCESS_TOKEN.GRANT_TYPE AS GRANT_TYPE, SUBJECT_IDENTIFIER, " +
+                    "IDN_OAUTH2_ACCESS_TOKEN.IDP_ID AS IDP_ID, TOKEN_BINDING_REF, ACCESS_TOKEN_HASH " +
+                    "FROM (SELECT * FROM IDN_OAUTH2_ACCESS_TOKEN WHERE ACCESS_TOKEN_HASH IN (" +
+                    ACCESS_TOKEN_HASH_LIST_PLACEHOLDER + ") AND TOKEN_STATE='ACTIVE') IDN_OAUTH2_ACCESS_TOKEN " +
+                    "JOIN IDN_OAUTH_CONSUMER_APPS ON CONSUMER_KEY_ID = ID) ACCESS_TOKEN_TABLE" +
+                    " LEFT JOIN IDN_OAUTH2_ACCESS_TOKEN_SCOPE ON ACCESS_TOKEN_TABLE.TOKEN_ID = " +
+                    "IDN_OAUTH2_ACCESS_TOKEN_SCOPE.TOKEN_ID JOIN IDP ON IDP_ID = IDP.ID";
+
     public static final String UPDATE_TOKEN_STATE = "UPDATE IDN_OAUTH2_ACCESS_TOKEN SET TOKEN_STATE=?, " +
             "TOKEN_STATE_ID=? WHERE TOKEN_ID=?";
     @Deprecated
@@ -389,6 +421,10 @@ public class SQLQueries {
             "ID WHERE AUTHZ_USER=? AND IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID=? AND IDN_OAUTH2_ACCESS_TOKEN.USER_DOMAIN=? " +
             "AND (TOKEN_STATE='ACTIVE' OR TOKEN_STATE='EXPIRED')";
 
+    public static final String GET_DISTINCT_APPS_AUTHORIZED_BY_USER_IDP_NAME =
+            GET_DISTINCT_APPS_AUTHORIZED_BY_USER_ALL_TIME + " AND IDP_ID=(SELECT ID FROM IDP WHERE NAME=? AND " +
+                    "TENANT_ID=IDN_OAUTH2_ACCESS_TOKEN.TENANT_ID)";
+
     public static final String RETRIEVE_ACCESS_TOKEN_VALIDATION_DATA_MYSQL = "SELECT ACCESS_TOKEN, AUTHZ_USER, " +
             "ACCESS_TOKEN_SELECTED.TENANT_ID, USER_DOMAIN, TOKEN_SCOPE, TOKEN_STATE, REFRESH_TOKEN_TIME_CREATED, " +
             "REFRESH_TOKEN_VALIDITY_PERIOD, ACCESS_TOKEN_SELECTED.TOKEN_ID, GRANT_TYPE, SUBJECT_IDENTIFIER, " +
@@ -1295,6 +1331,94 @@ public class SQLQueries {
     public static final String GET_CONSENT_ID_FOR_CONSENT = "SELECT CONSENT_ID FROM IDN_OAUTH2_USER_CONSENT WHERE " +
             "USER_ID = ? AND APP_ID = ? AND TENANT_ID = ?";
 
+    public static final String INSERT_TOKEN_ISSUANCE_LOCK = "INSERT INTO IDN_OAUTH2_TOKEN_ISSUANCE_LOCK " +
+            "(LOCK_KEY, LOCK_OWNER, LOCKED_TIME) VALUES (?, ?, ?)";
+
+    public static final String DELETE_TOKEN_ISSUANCE_LOCK = "DELETE FROM IDN_OAUTH2_TOKEN_ISSUANCE_LOCK WHERE " +
+            "LOCK_KEY = ? AND LOCK_OWNER = ?";
+
+    public static final String DELETE_EXPIRED_TOKEN_ISSUANCE_LOCK = "DELETE FROM IDN_OAUTH2_TOKEN_ISSUANCE_LOCK " +
+            "WHERE LOCK_KEY = ? AND LOCKED_TIME < ?";
+
+    public static final String TOKEN_ID_LIST_PLACEHOLDER = "_TOKEN_ID_LIST_";
+
+    public static final String REVOCABLE_ACCESS_TOKENS_STATE_CRITERIA = "(TOKEN_STATE='ACTIVE' OR " +
+            "TOKEN_STATE='EXPIRED')";
+
+    public static final String REVOCABLE_ACCESS_TOKENS_KEYSET_CRITERIA = " AND ACCESS_TOKEN_TABLE.TOKEN_ID > ?";
+
+    public static final String LIST_REVOCABLE_ACCESS_TOKENS = "SELECT ACCESS_TOKEN_TABLE.TOKEN_ID, ACCESS_TOKEN, " +
+            "AUTHZ_USER, ACCESS_TOKEN_TABLE.USER_DOMAIN, ACCESS_TOKEN_TABLE.TENANT_ID, TOKEN_STATE, CONSUMER_KEY " +
+            "FROM IDN_OAUTH2_ACCESS_TOKEN ACCESS_TOKEN_TABLE JOIN IDN_OAUTH_CONSUMER_APPS ON " +
+            "IDN_OAUTH_CONSUMER_APPS.ID = ACCESS_TOKEN_TABLE.CONSUMER_KEY_ID WHERE " +
+            REVOCABLE_ACCESS_TOKENS_STATE_CRITERIA + REVOCABLE_ACCESS_TOKENS_KEYSET_CRITERIA +
+            " ORDER BY ACCESS_TOKEN_TABLE.TOKEN_ID";
+
+    public static final String LIST_REVOCABLE_ACCESS_TOKENS_IDP_NAME = "SELECT ACCESS_TOKEN_TABLE.TOKEN_ID, " +
+            "ACCESS_TOKEN, AUTHZ_USER, ACCESS_TOKEN_TABLE.USER_DOMAIN, ACCESS_TOKEN_TABLE.TENANT_ID, TOKEN_STATE, " +
+            "CONSUMER_KEY, IDP.NAME FROM IDN_OAUTH2_ACCESS_TOKEN ACCESS_TOKEN_TABLE JOIN IDN_OAUTH_CONSUMER_APPS ON " +
+            "IDN_OAUTH_CONSUMER_APPS.ID = ACCESS_TOKEN_TABLE.CONSUMER_KEY_ID JOIN IDP ON " +
+            "IDP.ID = ACCESS_TOKEN_TABLE.IDP_ID WHERE " + REVOCABLE_ACCESS_TOKENS_STATE_CRITERIA +
+            REVOCABLE_ACCESS_TOKENS_KEYSET_CRITERIA + " ORDER BY ACCESS_TOKEN_TABLE.TOKEN_ID";
+
+    public static final String REVOCABLE_ACCESS_TOKENS_TENANT_CRITERIA = " AND ACCESS_TOKEN_TABLE.TENANT_ID=?";
+
+    public static final String REVOCABLE_ACCESS_TOKENS_CONSUMER_KEY_CRITERIA = " AND " +
+            "IDN_OAUTH_CONSUMER_APPS.CONSUMER_KEY=?";
+
+    public static final String REVOCABLE_ACCESS_TOKENS_USER_STORE_CRITERIA = " AND ACCESS_TOKEN_TABLE.USER_DOMAIN=?";
+
+    public static final String REVOCABLE_ACCESS_TOKENS_USER_CRITERIA = " AND AUTHZ_USER=?";
+
+    public static final String LIST_SCOPES_OF_ACCESS_TOKENS = "SELECT TOKEN_ID, TOKEN_SCOPE FROM " +
+            "IDN_OAUTH2_ACCESS_TOKEN_SCOPE WHERE TOKEN_ID IN (" + TOKEN_ID_LIST_PLACEHOLDER + ")";
+
+    public static final String REVOKE_ACCESS_TOKENS_BY_TOKEN_ID = "UPDATE IDN_OAUTH2_ACCESS_TOKEN SET " +
+            "TOKEN_STATE=?, TOKEN_STATE_ID=? WHERE TOKEN_STATE=? AND TOKEN_ID IN (" + TOKEN_ID_LIST_PLACEHOLDER + ")";
+
+    public static final String REVOKE_ACCESS_TOKEN_BY_TOKEN_ID = "UPDATE IDN_OAUTH2_ACCESS_TOKEN SET " +
+            "TOKEN_STATE=?, TOKEN_STATE_ID=? WHERE TOKEN_STATE=? AND TOKEN_ID=?";
+
+    public static final String CODE_ID_LIST_PLACEHOLDER = "_CODE_ID_LIST_";
+
+    public static final String PURGEABLE_ACCESS_TOKENS_KEYSET_CRITERIA = " AND TOKEN_ID > ?";
+
+    public static final String LIST_PURGEABLE_ACCESS_TOKENS = "SELECT TOKEN_ID, TOKEN_STATE, TIME_CREATED, " +
+            "VALIDITY_PERIOD, REFRESH_TOKEN_TIME_CREATED, REFRESH_TOKEN_VALIDITY_PERIOD FROM IDN_OAUTH2_ACCESS_TOKEN " +
+            "WHERE TIME_CREATED < ?" + PURGEABLE_ACCESS_TOKENS_KEYSET_CRITERIA + " ORDER BY TOKEN_ID";
+
+    public static final String DELETE_ACCESS_TOKENS_BY_TOKEN_ID = "DELETE FROM IDN_OAUTH2_ACCESS_TOKEN WHERE " +
+            "TOKEN_ID IN (" + TOKEN_ID_LIST_PLACEHOLDER + ")";
+
+    public static final String PURGEABLE_AUTHORIZATION_CODES_KEYSET_CRITERIA = " AND CODE_ID > ?";
+
+    public static final String LIST_PURGEABLE_AUTHORIZATION_CODES = "SELECT CODE_ID, STATE, TIME_CREATED, " +
+            "VALIDITY_PERIOD FROM IDN_OAUTH2_AUTHORIZATION_CODE WHERE TIME_CREATED < ?" +
+            PURGEABLE_AUTHORIZATION_CODES_KEYSET_CRITERIA + " ORDER BY CODE_ID";
+
+    public static final String DELETE_AUTHORIZATION_CODE_SCOPES_BY_CODE_ID = "DELETE FROM " +
+            "IDN_OAUTH2_AUTHZ_CODE_SCOPE WHERE CODE_ID IN (" + CODE_ID_LIST_PLACEHOLDER + ")";
+
+    public static final String DELETE_AUTHORIZATION_CODES_BY_CODE_ID = "DELETE FROM IDN_OAUTH2_AUTHORIZATION_CODE " +
+            "WHERE CODE_ID IN (" + CODE_ID_LIST_PLACEHOLDER + ")";
+
+    public static final String PURGEABLE_DEVICE_CODES_KEYSET_CRITERIA = " AND DEVICE_CODE > ?";
+
+    public static final String LIST_PURGEABLE_DEVICE_CODES = "SELECT DEVICE_CODE FROM IDN_OAUTH2_DEVICE_FLOW WHERE " +
+            "EXPIRY_TIME < ?" + PURGEABLE_DEVICE_CODES_KEYSET_CRITERIA + " ORDER BY DEVICE_CODE";
+
+    public static final String DELETE_DEVICE_CODES_BY_DEVICE_CODE = "DELETE FROM IDN_OAUTH2_DEVICE_FLOW WHERE " +
+            "DEVICE_CODE IN (" + CODE_ID_LIST_PLACEHOLDER + ")";
+
+    public static final String PURGEABLE_CIBA_AUTH_CODES_KEYSET_CRITERIA = " AND AUTH_CODE_KEY > ?";
+
+    public static final String LIST_PURGEABLE_CIBA_AUTH_CODES = "SELECT AUTH_CODE_KEY, ISSUED_TIME, EXPIRES_IN FROM " +
+            "IDN_OAUTH2_CIBA_AUTH_CODE WHERE ISSUED_TIME < ?" + PURGEABLE_CIBA_AUTH_CODES_KEYSET_CRITERIA +
+            " ORDER BY AUTH_CODE_KEY";
+
+    public static final String DELETE_CIBA_AUTH_CODES_BY_AUTH_CODE_KEY = "DELETE FROM IDN_OAUTH2_CIBA_AUTH_CODE " +
+            "WHERE AUTH_CODE_KEY IN (" + CODE_ID_LIST_PLACEHOLDER + ")";
+
     private SQLQueries() {
 
     }
@@ -61,4 +61,18 @@ public interface TokenManagementDAO {
             IdentityOAuth2Exception;
 
     Set<String> getAllTimeAuthorizedClientIds(AuthenticatedUser authzUser) throws IdentityOAuth2Exception;
+
+    /**
+     * Get the ids of the clients to which the user has active or expired access tokens, with a single query.
+     *
+     * @param authzUser       Authorized user.
+     * @param userStoreDomain User store domain of the token partition, or null if the tokens are not partitioned.
+     * @return Ids of the clients authorized by the user.
+     * @throws IdentityOAuth2Exception Error when reading the client ids.
+     */
+    default Set<String> getAuthorizedClientIds(AuthenticatedUser authzUser, String userStoreDomain)
+            throws IdentityOAuth2Exception {
+
+        return getAllTimeAuthorizedClientIds(authzUser);
+    }
 }
@@ -719,4 +719,54 @@ public class TokenManagementDAOImpl extends AbstractOAuthDAO implements TokenMan
         return distinctConsumerKeys;
     }
 
+    @Override
+    public Set<String> getAuthorizedClientIds(AuthenticatedUser authzUser, String userStoreDomain)
+            throws IdentityOAuth2Exception {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieving the clients authorized by user: " + authzUser.getLoggableUserId());
+        }
+
+        int tenantId = OAuth2Util.getTenantId(authzUser.getTenantDomain());
+        boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreCaseSensitive(authzUser.getUserStoreDomain(),
+                tenantId);
+        String sql;
+        if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+            sql = SQLQueries.GET_DISTINCT_APPS_AUTHORIZED_BY_USER_IDP_NAME;
+        } else {
+            sql = SQLQueries.GET_DISTINCT_APPS_AUTHORIZED_BY_USER_ALL_TIME;
+        }
+        sql = OAuth2Util.getTokenPartitionedSqlByUserStore(sql,
+                OAuth2Util.getSanitizedUserStoreDomain(userStoreDomain));
+        if (!isUsernameCaseSensitive) {
+            sql = sql.replace(AUTHZ_USER, LOWER_AUTHZ_USER);
+        }
+
+        Set<String> clientIds = new HashSet<>();
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(false);
+             PreparedStatement prepStmt = connection.prepareStatement(sql)) {
+            if (isUsernameCaseSensitive) {
+                prepStmt.setString(1, authzUser.getUserName());
+            } else {
+                prepStmt.setString(1, authzUser.getUserName().toLowerCase());
+            }
+            prepStmt.setInt(2, tenantId);
+            prepStmt.setString(3, OAuth2Util.getUserStoreDomain(authzUser));
+            if (OAuth2ServiceComponentHolder.isIDPIdColumnEnabled()) {
+                prepStmt.setString(4, OAuth2Util.getAuthenticatedIDP(authzUser));
+            }
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                while (resultSet.next()) {
+                    clientIds.add(getPersistenceProcessor().getPreprocessedClientId(resultSet.getString(1)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error occurred while retrieving the clients authorized by user: " +
+                    authzUser.getLoggableUserId(), e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Found " + clientIds.size() + " clients authorized by user: " + authzUser.getLoggableUserId());
+        }
+        return clientIds;
+    }
 }
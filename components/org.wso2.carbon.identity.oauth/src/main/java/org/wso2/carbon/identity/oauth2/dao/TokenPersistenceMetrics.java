@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the batched access token persistence pipeline.
+ */
+public class TokenPersistenceMetrics {
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong persistedTokenCount = new AtomicLong();
+    private final AtomicLong fallbackBatchCount = new AtomicLong();
+    private final AtomicLong rejectedTokenCount = new AtomicLong();
+    private final AtomicLong totalBatchLatencyNanos = new AtomicLong();
+    private final AtomicLong maxBatchLatencyNanos = new AtomicLong();
+
+    void recordBatch(int batchSize, long latencyNanos, boolean persisted) {
+
+        batchCount.incrementAndGet();
+        if (persisted) {
+            persistedTokenCount.addAndGet(batchSize);
+        } else {
+            fallbackBatchCount.incrementAndGet();
+        }
+        totalBatchLatencyNanos.addAndGet(latencyNanos);
+        long currentMax;
+        do {
+            currentMax = maxBatchLatencyNanos.get();
+        } while (latencyNanos > currentMax && !maxBatchLatencyNanos.compareAndSet(currentMax, latencyNanos));
+    }
+
+    void recordRejectedToken() {
+
+        rejectedTokenCount.incrementAndGet();
+    }
+
+    /**
+     * @return Number of batches handled by the persistence consumers.
+     */
+    public long getBatchCount() {
+
+        return batchCount.get();
+    }
+
+    /**
+     * @return Number of tokens persisted as part of a batch.
+     */
+    public long getPersistedTokenCount() {
+
+        return persistedTokenCount.get();
+    }
+
+    /**
+     * @return Number of batches which were rolled back and handed back for individual persistence.
+     */
+    public long getFallbackBatchCount() {
+
+        return fallbackBatchCount.get();
+    }
+
+    /**
+     * @return Number of tokens persisted inline by the requester since the queue was full.
+     */
+    public long getRejectedTokenCount() {
+
+        return rejectedTokenCount.get();
+    }
+
+    public long getAverageBatchLatencyMillis() {
+
+        long batches = batchCount.get();
+        if (batches == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(totalBatchLatencyNanos.get() / batches);
+    }
+
+    public long getMaxBatchLatencyMillis() {
+
+        return TimeUnit.NANOSECONDS.toMillis(maxBatchLatencyNanos.get());
+    }
+
+    @Override
+    public String toString() {
+
+        return "batches: " + getBatchCount() + ", persistedTokens: " + getPersistedTokenCount() +
+                ", fallbackBatches: " + getFallbackBatchCount() + ", rejectedTokens: " + getRejectedTokenCount() +
+                ", avgBatchLatency: " + getAverageBatchLatencyMillis() + "ms, maxBatchLatency: " +
+                getMaxBatchLatencyMillis() + "ms";
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.OAuthTaskExecutor;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getLongProperty;
+
+/**
+ * Group commit pipeline for access token persistence.
+ * <p>
+ * When enabled, token requests hand their access tokens to a bounded queue and wait until a
+ * {@link TokenPersistenceTask} persists them together with other queued tokens in a single transaction. The token
+ * is therefore stored before the response is sent, as in the default mode, while concurrent requests share the
+ * database round trip. If a batch fails, the requester persists its token individually so that the existing
+ * 'CON_APP_KEY' conflict recovery is applied with the request context in place.
+ * <p>
+ * The pipeline is configured in identity.xml under OAuth.TokenPersistence.Batch and is disabled by default.
+ */
+public class TokenPersistencePipeline {
+
+    private static final Log log = LogFactory.getLog(TokenPersistencePipeline.class);
+
+    private static final String BATCH_PERSISTENCE_ENABLE = "OAuth.TokenPersistence.Batch.Enable";
+    private static final String BATCH_SIZE = "OAuth.TokenPersistence.Batch.Size";
+    private static final String BATCH_MAX_LINGER_MILLIS = "OAuth.TokenPersistence.Batch.MaxLingerMillis";
+    private static final String BATCH_QUEUE_SIZE = "OAuth.TokenPersistence.Batch.QueueSize";
+    private static final String BATCH_POOL_SIZE = "OAuth.TokenPersistence.Batch.PoolSize";
+    private static final String BATCH_WAIT_TIMEOUT_MILLIS = "OAuth.TokenPersistence.Batch.WaitTimeoutMillis";
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long DEFAULT_BATCH_MAX_LINGER_MILLIS = 5;
+    private static final int DEFAULT_BATCH_QUEUE_SIZE = 10000;
+    private static final int DEFAULT_BATCH_POOL_SIZE = 2;
+    private static final long DEFAULT_BATCH_WAIT_TIMEOUT_MILLIS = 10000;
+
+    private static volatile TokenPersistencePipeline instance;
+
+    private final boolean enabled;
+    private final long waitTimeoutMillis;
+    private final BlockingDeque<AccessContextTokenDO> accessContextTokenQueue;
+    private final TokenPersistenceMetrics metrics = new TokenPersistenceMetrics();
+    private ExecutorService persistenceExecutor;
+
+    private TokenPersistencePipeline() {
+
+        this.enabled = Boolean.parseBoolean(IdentityUtil.getProperty(BATCH_PERSISTENCE_ENABLE));
+        this.waitTimeoutMillis = getLongProperty(BATCH_WAIT_TIMEOUT_MILLIS, DEFAULT_BATCH_WAIT_TIMEOUT_MILLIS);
+        this.accessContextTokenQueue = new LinkedBlockingDeque<>((int) getLongProperty(BATCH_QUEUE_SIZE,
+                DEFAULT_BATCH_QUEUE_SIZE));
+        if (enabled) {
+            startConsumers();
+        }
+    }
+
+    public static TokenPersistencePipeline getInstance() {
+
+        if (instance == null) {
+            synchronized (TokenPersistencePipeline.class) {
+                if (instance == null) {
+                    instance = new TokenPersistencePipeline();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Persist the access token, replacing the existing token if available. Blocks until the token is persisted.
+     *
+     * @param accessToken           Access token.
+     * @param consumerKey           Client id of the application.
+     * @param newAccessTokenDO      Access token data object to be persisted.
+     * @param existingAccessTokenDO Existing active access token to be marked as expired, if any.
+     * @param rawUserStoreDomain    User store domain.
+     * @return true if the token was persisted.
+     * @throws IdentityOAuth2Exception if failed to persist the access token.
+     */
+    public boolean insertAccessToken(String accessToken, String consumerKey, AccessTokenDO newAccessTokenDO,
+                                     AccessTokenDO existingAccessTokenDO, String rawUserStoreDomain)
+            throws IdentityOAuth2Exception {
+
+        AccessTokenDAO accessTokenDAO = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO();
+        if (!enabled) {
+            return accessTokenDAO.insertAccessToken(accessToken, consumerKey, newAccessTokenDO,
+                    existingAccessTokenDO, rawUserStoreDomain);
+        }
+
+        AccessContextTokenDO accessContextTokenDO = new AccessContextTokenDO(accessToken, consumerKey,
+                newAccessTokenDO, existingAccessTokenDO, rawUserStoreDomain);
+        if (!accessContextTokenQueue.offer(accessContextTokenDO)) {
+            // Apply backpressure by persisting inline rather than growing the queue.
+            metrics.recordRejectedToken();
+            if (log.isDebugEnabled()) {
+                log.debug("Access token persistence queue is full. Persisting the token of client: " + consumerKey +
+                        " individually.");
+            }
+            return accessTokenDAO.insertAccessToken(accessToken, consumerKey, newAccessTokenDO,
+                    existingAccessTokenDO, rawUserStoreDomain);
+        }
+
+        if (awaitBatchPersistence(accessContextTokenDO)) {
+            return true;
+        }
+        return accessTokenDAO.insertAccessToken(accessToken, consumerKey, newAccessTokenDO, existingAccessTokenDO,
+                rawUserStoreDomain);
+    }
+
+    private boolean awaitBatchPersistence(AccessContextTokenDO accessContextTokenDO)
+            throws IdentityOAuth2Exception {
+
+        try {
+            try {
+                return accessContextTokenDO.getPersistenceResult().get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (accessContextTokenQueue.remove(accessContextTokenDO)) {
+                    // The token was not picked by a consumer yet. Take it back and persist it individually.
+                    metrics.recordRejectedToken();
+                    return false;
+                }
+            }
+            // A consumer is already persisting the token, hence the result is awaited once more. A consumer which
+            // does not complete within this time, e.g. due to a hung database connection, fails the request and the
+            // token is cancelled.
+            return accessContextTokenDO.getPersistenceResult().get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (!accessContextTokenDO.getPersistenceResult().cancel(false)) {
+                // The consumer completed while the wait timed out, the token is persisted individually on failure.
+                return accessContextTokenDO.getPersistenceResult().getNow(false);
+            }
+            throw new IdentityOAuth2Exception("Timed out after " + (2 * waitTimeoutMillis) + "ms while waiting " +
+                    "for the access token to be persisted.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // The token is not issued, hence it is taken back or cancelled so that a consumer does not persist it.
+            if (!accessContextTokenQueue.remove(accessContextTokenDO) &&
+                    !accessContextTokenDO.getPersistenceResult().cancel(false) &&
+                    accessContextTokenDO.getPersistenceResult().getNow(false)) {
+                // The token was already persisted, hence it is issued.
+                return true;
+            }
+            throw new IdentityOAuth2Exception("Interrupted while waiting for the access token to be persisted.", e);
+        } catch (ExecutionException e) {
+            throw new IdentityOAuth2Exception("Error occurred while persisting the access token.", e.getCause());
+        }
+    }
+
+    private void startConsumers() {
+
+        int batchSize = (int) getLongProperty(BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        long maxLingerMillis = getLongProperty(BATCH_MAX_LINGER_MILLIS, DEFAULT_BATCH_MAX_LINGER_MILLIS);
+        int poolSize = (int) getLongProperty(BATCH_POOL_SIZE, DEFAULT_BATCH_POOL_SIZE);
+
+        // Each consumer runs on a thread of its own, hence none of them is expected to be queued.
+        persistenceExecutor = OAuthTaskExecutor.getInstance().newDedicatedExecutor("OAuthTokenPersistenceWorker",
+                poolSize, poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            persistenceExecutor.execute(new TokenPersistenceTask(accessContextTokenQueue, batchSize,
+                    maxLingerMillis, metrics));
+        }
+        log.info("Batched access token persistence is enabled with " + poolSize + " consumers, batch size: " +
+                batchSize + " and max linger time: " + maxLingerMillis + "ms.");
+    }
+
+    /**
+     * Stop the persistence consumers. Tokens which are still queued are handed back to the requesters.
+     */
+    public void shutdown() {
+
+        if (persistenceExecutor == null) {
+            return;
+        }
+        persistenceExecutor.shutdownNow();
+        AccessContextTokenDO accessContextTokenDO;
+        while ((accessContextTokenDO = accessContextTokenQueue.poll()) != null) {
+            accessContextTokenDO.getPersistenceResult().complete(false);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Batched access token persistence is stopped. " + metrics);
+        }
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    /**
+     * @return Number of access tokens waiting to be persisted.
+     */
+    public int getQueueDepth() {
+
+        return accessContextTokenQueue.size();
+    }
+
+    public TokenPersistenceMetrics getMetrics() {
+
+        return metrics;
+    }
+}
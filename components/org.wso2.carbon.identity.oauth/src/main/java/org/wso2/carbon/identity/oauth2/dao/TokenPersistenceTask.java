@@ -20,24 +20,51 @@ package org.wso2.carbon.identity.oauth2.dao;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.TimeUnit;
 
 /**
  * OAuth token persistence task.
+ * <p>
+ * When created with a batch size, the task drains up to that many tokens from the queue, waiting at most the
+ * configured linger time for the batch to fill, and persists them in a single transaction. Requesters are
+ * notified through {@link AccessContextTokenDO#getPersistenceResult()}, which a requester cancels when it stops
+ * waiting. Cancelled tokens are not persisted, or are revoked if they were cancelled while the batch was committed.
  */
 public class TokenPersistenceTask implements Runnable {
 
     private static final Log log = LogFactory.getLog(TokenPersistenceTask.class);
     private BlockingDeque<AccessContextTokenDO> accessContextTokenQueue;
+    private int batchSize;
+    private long maxLingerNanos;
+    private TokenPersistenceMetrics metrics;
 
     public TokenPersistenceTask(BlockingDeque<AccessContextTokenDO> accessContextTokenQueue) {
         this.accessContextTokenQueue = accessContextTokenQueue;
     }
 
+    public TokenPersistenceTask(BlockingDeque<AccessContextTokenDO> accessContextTokenQueue, int batchSize,
+                                long maxLingerMillis, TokenPersistenceMetrics metrics) {
+
+        this.accessContextTokenQueue = accessContextTokenQueue;
+        this.batchSize = batchSize;
+        this.maxLingerNanos = TimeUnit.MILLISECONDS.toNanos(maxLingerMillis);
+        this.metrics = metrics;
+    }
+
     @Override
     public void run() {
 
+        if (batchSize > 0) {
+            runBatched();
+            return;
+        }
+
         log.debug("Access Token context persist consumer is started");
 
         while (true) {
@@ -61,4 +88,108 @@ public class TokenPersistenceTask implements Runnable {
             }
         }
     }
+
+    private void runBatched() {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Access Token context batch persist consumer is started with batch size: " + batchSize +
+                    " and max linger time: " + TimeUnit.NANOSECONDS.toMillis(maxLingerNanos) + "ms");
+        }
+
+        while (!Thread.currentThread().isInterrupted()) {
+            List<AccessContextTokenDO> batch = new ArrayList<>(batchSize);
+            try {
+                batch.add(accessContextTokenQueue.take());
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                // Tokens which were already taken must not be left waiting for the consumer.
+                requestIndividualPersistence(batch);
+                Thread.currentThread().interrupt();
+                break;
+            }
+            persistBatch(batch);
+        }
+
+        log.debug("Access Token context batch persist consumer is stopped");
+    }
+
+    private void fillBatch(List<AccessContextTokenDO> batch) throws InterruptedException {
+
+        long deadline = System.nanoTime() + maxLingerNanos;
+        while (batch.size() < batchSize) {
+            accessContextTokenQueue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            AccessContextTokenDO next = accessContextTokenQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void persistBatch(List<AccessContextTokenDO> batch) {
+
+        // The requesters of cancelled tokens stopped waiting and did not issue them, hence they must not be persisted.
+        batch.removeIf(accessContextTokenDO -> accessContextTokenDO.getPersistenceResult().isCancelled());
+        if (batch.isEmpty()) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        boolean persisted = false;
+        try {
+            persisted = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO().insertAccessTokensInBatch(batch);
+            if (!persisted) {
+                log.warn("Batch of " + batch.size() + " access tokens could not be persisted due to a 'CON_APP_KEY' " +
+                        "constraint violation. Falling back to individual token persistence.");
+            }
+        } catch (IdentityException e) {
+            log.error("Error occurred while persisting a batch of " + batch.size() + " access tokens. Falling back " +
+                    "to individual token persistence.", e);
+        } catch (RuntimeException e) {
+            log.error("Unexpected error occurred while persisting a batch of " + batch.size() + " access tokens. " +
+                    "Falling back to individual token persistence.", e);
+        }
+        metrics.recordBatch(batch.size(), System.nanoTime() - startTime, persisted);
+
+        if (persisted) {
+            for (AccessContextTokenDO accessContextTokenDO : batch) {
+                if (!accessContextTokenDO.getPersistenceResult().complete(true)) {
+                    // The token was cancelled while the batch was committed.
+                    revokeCancelledToken(accessContextTokenDO);
+                }
+            }
+        } else {
+            requestIndividualPersistence(batch);
+        }
+    }
+
+    private void revokeCancelledToken(AccessContextTokenDO accessContextTokenDO) {
+
+        String tokenId = accessContextTokenDO.getNewAccessTokenDO().getTokenId();
+        try {
+            OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO().updateAccessTokenState(tokenId,
+                    OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+            if (log.isDebugEnabled()) {
+                log.debug("Revoked the access token with id: " + tokenId + " which was persisted after its " +
+                        "requester stopped waiting.");
+            }
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error occurred while revoking the access token with id: " + tokenId + " which was " +
+                    "persisted after its requester stopped waiting.", e);
+        }
+    }
+
+    /**
+     * Hand the tokens back to the requesting threads so that they are persisted individually, with the request
+     * context of the requester available for 'CON_APP_KEY' conflict recovery.
+     */
+    private void requestIndividualPersistence(List<AccessContextTokenDO> batch) {
+
+        for (AccessContextTokenDO accessContextTokenDO : batch) {
+            accessContextTokenDO.getPersistenceResult().complete(false);
+        }
+    }
 }
@@ -21,6 +21,7 @@ package org.wso2.carbon.identity.oauth2.device.api;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.device.codegenerator.GenerateKeys;
 import org.wso2.carbon.identity.oauth2.device.dao.DeviceFlowPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.device.grant.DeviceFlowPollStateTracker;
 import org.wso2.carbon.identity.oauth2.device.model.DeviceFlowDO;
 
 /**
@@ -54,6 +55,7 @@ public class DeviceAuthServiceImpl implements DeviceAuthService {
     public void setAuthenticationStatus(String userCode) throws IdentityOAuth2Exception {
 
         DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setAuthenticationStatus(userCode);
+        DeviceFlowPollStateTracker.getInstance().invalidateByUserCode(userCode);
     }
 
     @Override
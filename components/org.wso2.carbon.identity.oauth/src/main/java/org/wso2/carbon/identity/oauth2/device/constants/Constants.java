@@ -54,6 +54,7 @@ public class Constants {
     public static final String DEVICE_ENDPOINT_PATH = "/authenticationendpoint/device.do";
     public static final String DEVICE_SUCCESS_ENDPOINT_PATH = "/authenticationendpoint/device_success.do";
     public static final String USERCODE_QUANTIFIER_CONSTRAINT = "USRCDE_QNTFR_CONSTRAINT";
+    public static final String STATUS_CHANGE_KEY_PREFIX = "device_flow:";
 
     public static final String EXPIRY_TIME_PATH = "OAuth.SupportedGrantTypes.SupportedGrantType.ExpiryTime";
     public static final String CONF_KEY_SET = "OAuth.SupportedGrantTypes.SupportedGrantType.KeySet";
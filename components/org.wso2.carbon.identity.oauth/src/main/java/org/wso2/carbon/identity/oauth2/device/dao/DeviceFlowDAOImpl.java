@@ -183,6 +183,7 @@ public class DeviceFlowDAOImpl implements DeviceFlowDAO {
                     tenantId = resultSet.getInt(6);
                     userDomain = resultSet.getString(7);
                     authenticatedIDP = resultSet.getString(8);
+                    deviceFlowDO.setUserCode(resultSet.getString(9));
                     isMatchingDeviceCodeAndClientId = true;
                 }
                 if (isMatchingDeviceCodeAndClientId) {
@@ -234,6 +235,7 @@ public class DeviceFlowDAOImpl implements DeviceFlowDAO {
                     tenantId = resultSet.getInt(6);
                     userDomain = resultSet.getString(7);
                     authenticatedIDP = resultSet.getString(8);
+                    deviceFlowDO.setUserCode(resultSet.getString(9));
                     isMatchingDeviceCodeAndClientId = true;
                 }
                 if (isMatchingDeviceCodeAndClientId) {
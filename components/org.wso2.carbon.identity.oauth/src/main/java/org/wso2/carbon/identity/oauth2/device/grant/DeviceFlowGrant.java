@@ -23,6 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.authz.AuthorizationStatusNotifier;
 import org.wso2.carbon.identity.oauth2.device.constants.Constants;
 import org.wso2.carbon.identity.oauth2.device.dao.DeviceFlowPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.device.errorcodes.DeviceErrorCodes;
@@ -65,30 +66,56 @@ public class DeviceFlowGrant extends AbstractAuthorizationGrantHandler {
             log.debug("Getting ready to release token for device_code: " + deviceCode);
         }
 
+        Date date = new Date();
+        // Polls of a pending device code are answered from memory until its status has to be read again.
+        DeviceFlowPollStateTracker pollStateTracker = DeviceFlowPollStateTracker.getInstance();
+        String pollError = pollStateTracker.answerPoll(deviceCode, clientId, date.getTime());
+        if (DeviceErrorCodes.SubDeviceErrorCodes.AUTHORIZATION_PENDING.equals(pollError) &&
+                awaitAuthorization(pollStateTracker.getUserCode(deviceCode),
+                        pollStateTracker.getPollInterval(deviceCode))) {
+            // The device was authorized while the poll was waiting, read the new status.
+            pollStateTracker.remove(deviceCode);
+            date = new Date();
+        } else if (pollError != null) {
+            throw new IdentityOAuth2Exception(pollError, pollError);
+        }
+
         DeviceFlowDO deviceFlowDO = DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO()
                 .getAuthenticationDetails(deviceCode, clientId);
-        Date date = new Date();
         deviceStatus = deviceFlowDO.getStatus();
-        deviceFlowDO.setScope(getScopes(deviceCode));
         deviceFlowDO.setDeviceCode(deviceCode);
         if (Constants.NOT_EXIST.equals(deviceStatus)) {
             throw new IdentityOAuth2Exception(DeviceErrorCodes.INVALID_REQUEST, DeviceErrorCodes.INVALID_REQUEST);
         } else if (Constants.EXPIRED.equals(deviceStatus) || isExpiredDeviceCode(deviceFlowDO, date)) {
+            pollStateTracker.remove(deviceCode);
             throw new IdentityOAuth2Exception(DeviceErrorCodes.SubDeviceErrorCodes.EXPIRED_TOKEN,
                     DeviceErrorCodes.SubDeviceErrorCodes.EXPIRED_TOKEN);
         } else if (Constants.AUTHORIZED.equals(deviceStatus)) {
             authStatus = true;
-            DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setDeviceCodeExpired(deviceCode,
-                    Constants.EXPIRED);
-            setPropertiesForTokenGeneration(oAuthTokenReqMessageContext, deviceFlowDO);
+            authorizeDeviceCode(oAuthTokenReqMessageContext, deviceFlowDO);
         } else if (Constants.USED.equals(deviceStatus) || Constants.PENDING.equals(deviceStatus)) {
             Timestamp newPollTime = new Timestamp(date.getTime());
-            if (isValidPollTime(newPollTime, deviceFlowDO)) {
-                DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setLastPollTime(deviceCode, newPollTime);
+            // Polls answered from memory since the last read are not persisted yet.
+            long lastPollTime = pollStateTracker.getLastPollTime(deviceCode);
+            if (deviceFlowDO.getLastPollTime() != null && lastPollTime > deviceFlowDO.getLastPollTime().getTime()) {
+                deviceFlowDO.setLastPollTime(new Timestamp(lastPollTime));
+            }
+            boolean isValidPollTime = isValidPollTime(newPollTime, deviceFlowDO);
+            DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setLastPollTime(deviceCode, newPollTime);
+            pollStateTracker.track(deviceFlowDO, clientId, date.getTime());
+            if (isValidPollTime) {
+                if (awaitAuthorization(deviceFlowDO.getUserCode(), deviceFlowDO.getPollTime())) {
+                    DeviceFlowDO authorizedDeviceFlowDO = DeviceFlowPersistenceFactory.getInstance()
+                            .getDeviceFlowDAO().getAuthenticationDetails(deviceCode, clientId);
+                    if (Constants.AUTHORIZED.equals(authorizedDeviceFlowDO.getStatus())) {
+                        authorizedDeviceFlowDO.setDeviceCode(deviceCode);
+                        authorizeDeviceCode(oAuthTokenReqMessageContext, authorizedDeviceFlowDO);
+                        return true;
+                    }
+                }
                 throw new IdentityOAuth2Exception(DeviceErrorCodes.SubDeviceErrorCodes.AUTHORIZATION_PENDING,
                         DeviceErrorCodes.SubDeviceErrorCodes.AUTHORIZATION_PENDING);
             } else {
-                DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setLastPollTime(deviceCode, newPollTime);
                 throw new IdentityOAuth2Exception(DeviceErrorCodes.SubDeviceErrorCodes.SLOW_DOWN,
                         DeviceErrorCodes.SubDeviceErrorCodes.SLOW_DOWN);
             }
@@ -96,6 +123,41 @@ public class DeviceFlowGrant extends AbstractAuthorizationGrantHandler {
         return authStatus;
     }
 
+    /**
+     * Mark an authorized device code as used and prepare the token request.
+     *
+     * @param tokReqMsgCtx Token request message context.
+     * @param deviceFlowDO Device flow DO of the authorized device code.
+     * @throws IdentityOAuth2Exception Error while updating the device code or getting its scopes.
+     */
+    private void authorizeDeviceCode(OAuthTokenReqMessageContext tokReqMsgCtx, DeviceFlowDO deviceFlowDO)
+            throws IdentityOAuth2Exception {
+
+        String deviceCode = deviceFlowDO.getDeviceCode();
+        DeviceFlowPollStateTracker.getInstance().remove(deviceCode);
+        if (deviceFlowDO.getUserCode() != null) {
+            AuthorizationStatusNotifier.getInstance().remove(Constants.STATUS_CHANGE_KEY_PREFIX +
+                    deviceFlowDO.getUserCode());
+        }
+        DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setDeviceCodeExpired(deviceCode,
+                Constants.EXPIRED);
+        deviceFlowDO.setScope(getScopes(deviceCode));
+        setPropertiesForTokenGeneration(tokReqMsgCtx, deviceFlowDO);
+    }
+
+    /**
+     * Hold a pending poll until the device is authorized on this node or the polling interval elapses.
+     *
+     * @param userCode     User code of the device code, or null if not known.
+     * @param pollInterval Polling interval of the device code in milliseconds.
+     * @return true if the device was authorized while waiting.
+     */
+    private static boolean awaitAuthorization(String userCode, long pollInterval) {
+
+        return userCode != null && AuthorizationStatusNotifier.getInstance()
+                .awaitStatusChange(Constants.STATUS_CHANGE_KEY_PREFIX + userCode, pollInterval);
+    }
+
     /**
      * To set the properties of the token generation.
      *
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.device.grant;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.device.errorcodes.DeviceErrorCodes;
+import org.wso2.carbon.identity.oauth2.device.model.DeviceFlowDO;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getLongProperty;
+
+/**
+ * Tracks the polling state of the device codes which are waiting for the user to authorize the device, so that the
+ * polls of the device flow grant can be answered with authorization_pending or slow_down without reading or
+ * updating the database.
+ * <p>
+ * The state of a device code is tracked once the grant has read a pending status from the database. Polls are then
+ * answered from memory until the status refresh interval (OAuth.DeviceFlow.PollState.StatusRefreshInterval in
+ * seconds) elapses, after which the grant reads the status again and persists the last poll time. When the user
+ * authorizes the device on this node the state is invalidated right away, so the refresh interval only bounds the
+ * delay of authorizations completed on other nodes of a cluster. Setting OAuth.DeviceFlow.PollState.Enable to false
+ * reads the database on every poll.
+ */
+public class DeviceFlowPollStateTracker {
+
+    private static final Log log = LogFactory.getLog(DeviceFlowPollStateTracker.class);
+
+    private static final String POLL_STATE_ENABLE = "OAuth.DeviceFlow.PollState.Enable";
+    private static final String STATUS_REFRESH_INTERVAL = "OAuth.DeviceFlow.PollState.StatusRefreshInterval";
+    private static final long DEFAULT_STATUS_REFRESH_INTERVAL = 30;
+    // Device codes expire within minutes, this only guards against unbounded growth under a flood of device codes.
+    private static final int MAX_TRACKED_DEVICE_CODES = 100000;
+
+    private static final DeviceFlowPollStateTracker instance = new DeviceFlowPollStateTracker();
+
+    private final boolean enabled;
+    private final long statusRefreshIntervalMillis;
+    private final Map<String, PollState> pollStates = new ConcurrentHashMap<>();
+    private final Map<String, String> deviceCodesByUserCode = new ConcurrentHashMap<>();
+    private final AtomicLong answeredFromMemoryCount = new AtomicLong();
+    private final AtomicLong statusReadCount = new AtomicLong();
+
+    private DeviceFlowPollStateTracker() {
+
+        this(!"false".equalsIgnoreCase(StringUtils.trim(IdentityUtil.getProperty(POLL_STATE_ENABLE))),
+                TimeUnit.SECONDS.toMillis(getLongProperty(STATUS_REFRESH_INTERVAL, DEFAULT_STATUS_REFRESH_INTERVAL,
+                        0)));
+    }
+
+    DeviceFlowPollStateTracker(boolean enabled, long statusRefreshIntervalMillis) {
+
+        this.enabled = enabled;
+        this.statusRefreshIntervalMillis = statusRefreshIntervalMillis;
+    }
+
+    public static DeviceFlowPollStateTracker getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Answer a poll from the tracked state of the device code.
+     *
+     * @param deviceCode Device code.
+     * @param clientId   Client id of the token request.
+     * @param pollTime   Time of the poll.
+     * @return authorization_pending or slow_down error code, or null if the status should be read from the database.
+     */
+    public String answerPoll(String deviceCode, String clientId, long pollTime) {
+
+        if (!enabled || deviceCode == null) {
+            return null;
+        }
+        PollState pollState = pollStates.get(deviceCode);
+        if (pollState == null || !pollState.clientId.equals(clientId)) {
+            return null;
+        }
+        if (pollTime >= pollState.expiryTime) {
+            // Let the grant mark the device code as expired.
+            remove(deviceCode);
+            return null;
+        }
+        if (pollTime - pollState.statusReadTime >= statusRefreshIntervalMillis) {
+            return null;
+        }
+        boolean isValidPollTime;
+        synchronized (pollState) {
+            isValidPollTime = pollTime - pollState.lastPollTime > pollState.pollInterval;
+            pollState.lastPollTime = pollTime;
+        }
+        answeredFromMemoryCount.incrementAndGet();
+        return isValidPollTime ? DeviceErrorCodes.SubDeviceErrorCodes.AUTHORIZATION_PENDING :
+                DeviceErrorCodes.SubDeviceErrorCodes.SLOW_DOWN;
+    }
+
+    /**
+     * Get the last poll time of the device code known to this node, which may be later than the persisted one.
+     *
+     * @param deviceCode Device code.
+     * @return Last poll time, or -1 if the device code is not tracked.
+     */
+    public long getLastPollTime(String deviceCode) {
+
+        PollState pollState = deviceCode == null ? null : pollStates.get(deviceCode);
+        return pollState == null ? -1 : pollState.lastPollTime;
+    }
+
+    /**
+     * Get the user code of a tracked device code.
+     *
+     * @param deviceCode Device code.
+     * @return User code, or null if the device code is not tracked.
+     */
+    public String getUserCode(String deviceCode) {
+
+        PollState pollState = deviceCode == null ? null : pollStates.get(deviceCode);
+        return pollState == null ? null : pollState.userCode;
+    }
+
+    /**
+     * Get the polling interval of a tracked device code.
+     *
+     * @param deviceCode Device code.
+     * @return Polling interval in milliseconds, or -1 if the device code is not tracked.
+     */
+    public long getPollInterval(String deviceCode) {
+
+        PollState pollState = deviceCode == null ? null : pollStates.get(deviceCode);
+        return pollState == null ? -1 : pollState.pollInterval;
+    }
+
+    /**
+     * Track the state of a device code after its pending status is read from the database and the poll time is
+     * persisted.
+     *
+     * @param deviceFlowDO Device flow details read from the database.
+     * @param clientId     Client id of the token request.
+     * @param pollTime     Time of the poll.
+     */
+    public void track(DeviceFlowDO deviceFlowDO, String clientId, long pollTime) {
+
+        statusReadCount.incrementAndGet();
+        if (!enabled || deviceFlowDO.getDeviceCode() == null || deviceFlowDO.getExpiryTime() == null) {
+            return;
+        }
+        if (pollStates.size() >= MAX_TRACKED_DEVICE_CODES && !pollStates.containsKey(deviceFlowDO.getDeviceCode())) {
+            removeExpired(pollTime);
+            if (pollStates.size() >= MAX_TRACKED_DEVICE_CODES) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Poll state of " + MAX_TRACKED_DEVICE_CODES + " device codes is already tracked.");
+                }
+                return;
+            }
+        }
+        pollStates.put(deviceFlowDO.getDeviceCode(), new PollState(clientId, deviceFlowDO.getUserCode(),
+                deviceFlowDO.getExpiryTime().getTime(), deviceFlowDO.getPollTime(), pollTime));
+        if (deviceFlowDO.getUserCode() != null) {
+            deviceCodesByUserCode.put(deviceFlowDO.getUserCode(), deviceFlowDO.getDeviceCode());
+        }
+    }
+
+    /**
+     * Stop tracking a device code, e.g. once it is authorized or expired.
+     *
+     * @param deviceCode Device code.
+     */
+    public void remove(String deviceCode) {
+
+        if (deviceCode == null) {
+            return;
+        }
+        PollState pollState = pollStates.remove(deviceCode);
+        if (pollState != null && pollState.userCode != null) {
+            deviceCodesByUserCode.remove(pollState.userCode);
+        }
+    }
+
+    /**
+     * Stop tracking the device code of a user code after the status of the user code is changed, so that the next
+     * poll reads the new status from the database.
+     *
+     * @param userCode User code.
+     */
+    public void invalidateByUserCode(String userCode) {
+
+        if (userCode == null) {
+            return;
+        }
+        String deviceCode = deviceCodesByUserCode.remove(userCode);
+        if (deviceCode != null) {
+            pollStates.remove(deviceCode);
+        }
+    }
+
+    /**
+     * @return Number of polls answered without reading the database.
+     */
+    public long getAnsweredFromMemoryCount() {
+
+        return answeredFromMemoryCount.get();
+    }
+
+    /**
+     * @return Number of pending statuses read from the database.
+     */
+    public long getStatusReadCount() {
+
+        return statusReadCount.get();
+    }
+
+    private void removeExpired(long now) {
+
+        Iterator<Map.Entry<String, PollState>> iterator = pollStates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            PollState pollState = iterator.next().getValue();
+            if (pollState.expiryTime <= now) {
+                iterator.remove();
+                if (pollState.userCode != null) {
+                    deviceCodesByUserCode.remove(pollState.userCode);
+                }
+            }
+        }
+    }
+
+    /**
+     * Polling state of a pending device code.
+     */
+    private static class PollState {
+
+        private final String clientId;
+        private final String userCode;
+        private final long expiryTime;
+        private final long pollInterval;
+        private final long statusReadTime;
+        private volatile long lastPollTime;
+
+        private PollState(String clientId, String userCode, long expiryTime, long pollInterval, long pollTime) {
+
+            this.clientId = clientId;
+            this.userCode = userCode;
+            this.expiryTime = expiryTime;
+            this.pollInterval = pollInterval;
+            this.statusReadTime = pollTime;
+            this.lastPollTime = pollTime;
+        }
+    }
+}
@@ -20,10 +20,12 @@ package org.wso2.carbon.identity.oauth2.device.response;
 
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.authz.AuthorizationStatusNotifier;
 import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
 import org.wso2.carbon.identity.oauth2.authz.handlers.AbstractResponseTypeHandler;
 import org.wso2.carbon.identity.oauth2.device.constants.Constants;
 import org.wso2.carbon.identity.oauth2.device.dao.DeviceFlowPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.device.grant.DeviceFlowPollStateTracker;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeReqDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeRespDTO;
 
@@ -49,6 +51,9 @@ public class DeviceFlowResponseTypeHandler extends AbstractResponseTypeHandler {
         String userCode = authzReqDTO.getNonce();
         DeviceFlowPersistenceFactory.getInstance().getDeviceFlowDAO().setAuthzUserAndStatus(userCode,
                 Constants.AUTHORIZED, authenticatedUser);
+        // Let the waiting or the next poll of the device read the new status.
+        DeviceFlowPollStateTracker.getInstance().invalidateByUserCode(userCode);
+        AuthorizationStatusNotifier.getInstance().notifyStatusChange(Constants.STATUS_CHANGE_KEY_PREFIX + userCode);
         respDTO.setCallbackURI(authzReqDTO.getCallbackUrl());
         return respDTO;
     }
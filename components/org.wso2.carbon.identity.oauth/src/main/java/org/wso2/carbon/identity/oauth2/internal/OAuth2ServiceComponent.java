@@ -46,6 +46,7 @@ import org.wso2.carbon.identity.oauth2.client.authentication.OAuthClientAuthenti
 import org.wso2.carbon.identity.oauth2.client.authentication.OAuthClientAuthnService;
 import org.wso2.carbon.identity.oauth2.client.authentication.PublicClientAuthenticator;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.dao.TokenPersistencePipeline;
 import org.wso2.carbon.identity.oauth2.device.api.DeviceAuthService;
 import org.wso2.carbon.identity.oauth2.device.api.DeviceAuthServiceImpl;
 import org.wso2.carbon.identity.oauth2.keyidprovider.DefaultKeyIDProviderImpl;
@@ -55,12 +56,17 @@ import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinder;
 import org.wso2.carbon.identity.oauth2.token.bindings.handlers.TokenBindingExpiryEventHandler;
 import org.wso2.carbon.identity.oauth2.token.bindings.impl.CookieBasedTokenBinder;
 import org.wso2.carbon.identity.oauth2.token.bindings.impl.SSOSessionBasedTokenBinder;
+import org.wso2.carbon.identity.oauth2.token.cleanup.ExpiredTokenPurger;
+import org.wso2.carbon.identity.oauth2.token.lock.TokenIssuanceLockManager;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.OAuthTaskExecutor;
+import org.wso2.carbon.identity.oauth2.util.TenantSigningMaterialRegistry;
 import org.wso2.carbon.identity.oauth2.validators.scope.ScopeValidator;
 import org.wso2.carbon.identity.openidconnect.OpenIDConnectClaimFilter;
 import org.wso2.carbon.identity.openidconnect.OpenIDConnectClaimFilterImpl;
 import org.wso2.carbon.identity.user.store.configuration.listener.UserStoreConfigListener;
 import org.wso2.carbon.idp.mgt.IdpManager;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtListener;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
 
@@ -193,6 +199,16 @@ public class OAuth2ServiceComponent {
                 log.error("OAuth - ApplicationMgtListener could not be registered.");
             }
 
+            ServiceRegistration oauthIdentityProviderMgtListenerSR = bundleContext.registerService(
+                    IdentityProviderMgtListener.class.getName(), new OAuthIdentityProviderMgtListener(), null);
+            if (oauthIdentityProviderMgtListenerSR != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("OAuth - IdentityProviderMgtListener registered.");
+                }
+            } else {
+                log.error("OAuth - IdentityProviderMgtListener could not be registered.");
+            }
+
             // PKCE enabled by default.
             OAuth2ServiceComponentHolder.setPkceEnabled(true);
 
@@ -219,6 +235,8 @@ public class OAuth2ServiceComponent {
                 log.debug("TokenBindingExpiryEventHandler is successfully registered.");
             }
 
+            ExpiredTokenPurger.getInstance().start();
+
         } catch (Throwable e) {
             String errMsg = "Error while activating OAuth2ServiceComponent.";
             log.error(errMsg, e);
@@ -250,6 +268,16 @@ public class OAuth2ServiceComponent {
         }
     }
 
+    protected void deactivate(ComponentContext context) {
+
+        TokenPersistencePipeline.getInstance().shutdown();
+        ExpiredTokenPurger.getInstance().shutdown();
+        OAuthTaskExecutor.getInstance().shutdown();
+        if (log.isDebugEnabled()) {
+            log.debug("Identity OAuth bundle is deactivated");
+        }
+    }
+
     /**
      * Set Application management service implementation
      *
@@ -394,6 +422,29 @@ public class OAuth2ServiceComponent {
         }
     }
 
+    @Reference(
+            name = "token.issuance.lock.manager",
+            service = TokenIssuanceLockManager.class,
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unsetTokenIssuanceLockManager"
+    )
+    protected void setTokenIssuanceLockManager(TokenIssuanceLockManager tokenIssuanceLockManager) {
+
+        OAuth2ServiceComponentHolder.setTokenIssuanceLockManager(tokenIssuanceLockManager);
+        if (log.isDebugEnabled()) {
+            log.debug("Token issuance lock manager: " + tokenIssuanceLockManager.getClass().getName() +
+                    " registered replacing the default token issuance lock manager.");
+        }
+    }
+
+    protected void unsetTokenIssuanceLockManager(TokenIssuanceLockManager tokenIssuanceLockManager) {
+
+        if (OAuth2ServiceComponentHolder.getTokenIssuanceLockManager() == tokenIssuanceLockManager) {
+            OAuth2ServiceComponentHolder.setTokenIssuanceLockManager(null);
+        }
+    }
+
     @Reference(
             name = "keyid.provider.component",
             service = KeyIDProvider.class,
@@ -408,6 +459,8 @@ public class OAuth2ServiceComponent {
                 equals(DefaultKeyIDProviderImpl.class.getSimpleName())) {
 
             OAuth2ServiceComponentHolder.setKeyIDProvider(keyIDProvider);
+            // Key ids computed by the previous provider must not be reused.
+            TenantSigningMaterialRegistry.getInstance().clearKeyIds();
             if (log.isDebugEnabled()) {
                 log.debug("Custom Key ID Provider: " + keyIDProvider.getClass().getSimpleName() +
                         "Registered replacing the default Key ID provider implementation.");
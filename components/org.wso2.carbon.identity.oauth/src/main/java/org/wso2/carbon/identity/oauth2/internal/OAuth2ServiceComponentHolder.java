@@ -26,6 +26,8 @@ import org.wso2.carbon.identity.oauth.OAuthAdminServiceImpl;
 import org.wso2.carbon.identity.oauth2.client.authentication.OAuthClientAuthenticator;
 import org.wso2.carbon.identity.oauth2.keyidprovider.KeyIDProvider;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinder;
+import org.wso2.carbon.identity.oauth2.token.lock.TokenIssuanceLockManager;
+import org.wso2.carbon.identity.oauth2.token.lock.TokenIssuanceLockManagerFactory;
 import org.wso2.carbon.identity.openidconnect.ClaimProvider;
 import org.wso2.carbon.idp.mgt.IdpManager;
 import org.wso2.carbon.registry.core.service.RegistryService;
@@ -52,6 +54,7 @@ public class OAuth2ServiceComponentHolder {
     private OAuthAdminServiceImpl oauthAdminService;
     private static AuthenticationDataPublisher authenticationDataPublisherProxy;
     private static KeyIDProvider keyIDProvider = null;
+    private static volatile TokenIssuanceLockManager tokenIssuanceLockManager;
     private IdpManager idpManager;
 
     private OAuth2ServiceComponentHolder() {
@@ -246,6 +249,34 @@ public class OAuth2ServiceComponentHolder {
         OAuth2ServiceComponentHolder.keyIDProvider = keyIDProvider;
     }
 
+    /**
+     * Method to get the token issuance lock manager. The default lock manager is created from the configuration
+     * when a custom implementation is not registered.
+     *
+     * @return Token issuance lock manager.
+     */
+    public static TokenIssuanceLockManager getTokenIssuanceLockManager() {
+
+        if (tokenIssuanceLockManager == null) {
+            synchronized (OAuth2ServiceComponentHolder.class) {
+                if (tokenIssuanceLockManager == null) {
+                    tokenIssuanceLockManager = TokenIssuanceLockManagerFactory.createDefaultLockManager();
+                }
+            }
+        }
+        return tokenIssuanceLockManager;
+    }
+
+    /**
+     * Method to set the token issuance lock manager.
+     *
+     * @param tokenIssuanceLockManager Token issuance lock manager. Null to fall back to the default lock manager.
+     */
+    public static void setTokenIssuanceLockManager(TokenIssuanceLockManager tokenIssuanceLockManager) {
+
+        OAuth2ServiceComponentHolder.tokenIssuanceLockManager = tokenIssuanceLockManager;
+    }
+
     /**
      * Set Idp manager Instance.
      *
@@ -43,9 +43,7 @@ import org.wso2.carbon.identity.oauth.OAuthAdminService;
 import org.wso2.carbon.identity.oauth.OAuthAdminServiceImpl;
 import org.wso2.carbon.identity.oauth.OAuthUtil;
 import org.wso2.carbon.identity.oauth.cache.AppInfoCache;
-import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
-import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheKey;
-import org.wso2.carbon.identity.oauth.cache.CacheEntry;
+import org.wso2.carbon.identity.oauth.cache.OAuthAppCacheGeneration;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
@@ -57,9 +55,8 @@ import org.wso2.carbon.identity.oauth.dto.OAuthConsumerAppDTO;
 import org.wso2.carbon.identity.oauth.internal.OAuthComponentServiceHolder;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
-import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
-import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.OAuthTaskExecutor;
 
 import java.io.ByteArrayInputStream;
 import java.io.StringWriter;
@@ -132,7 +129,7 @@ public class OAuthApplicationMgtListener extends AbstractApplicationMgtListener
         revokeAccessTokensWhenSaaSDisabled(serviceProvider, tenantDomain);
         addClientSecret(serviceProvider);
         updateAuthApplication(serviceProvider);
-        removeEntriesFromCache(serviceProvider, tenantDomain);
+        removeEntriesFromCache(serviceProvider);
         return true;
     }
 
@@ -424,80 +421,23 @@ public class OAuthApplicationMgtListener extends AbstractApplicationMgtListener
                 authenticationRequestConfigConfig.getInboundAuthKey());
     }
 
-    private void removeEntriesFromCache(Set<String> consumerKeys) throws IdentityOAuth2Exception {
-
-
+    private void removeEntriesFromCache(Set<String> consumerKeys) {
 
         if (isNotEmpty(consumerKeys)) {
-            Set<AccessTokenDO> accessTokenDOSet = new HashSet<>();
-            Set<AuthzCodeDO> authzCodeDOSet = new HashSet<>();
-
             AppInfoCache appInfoCache = AppInfoCache.getInstance();
             for (String oauthKey : consumerKeys) {
-                accessTokenDOSet.addAll(OAuthTokenPersistenceFactory.getInstance()
-                        .getAccessTokenDAO().getActiveTokenSetWithTokenIdByConsumerKeyForOpenidScope(oauthKey));
-                authzCodeDOSet.addAll(OAuthTokenPersistenceFactory.getInstance()
-                        .getAuthorizationCodeDAO().getAuthorizationCodeDOSetByConsumerKeyForOpenidScope(oauthKey));
+                // Invalidates the cached tokens, codes and user attributes of the app, which are dropped when read.
+                OAuthAppCacheGeneration.getInstance().invalidate(oauthKey);
                 // Remove client credential from AppInfoCache
                 appInfoCache.clearCacheEntry(oauthKey);
                 OAuthCache.getInstance().clearCacheEntry(new OAuthCacheKey(oauthKey));
             }
-
-            if (isNotEmpty(accessTokenDOSet)) {
-                clearCacheEntriesAgainstToken(accessTokenDOSet);
-            }
-
-            if (isNotEmpty(authzCodeDOSet)) {
-                clearCacheEntriesAgainstAuthzCode(authzCodeDOSet);
-            }
         }
     }
 
-    private void removeEntriesFromCache(ServiceProvider serviceProvider,
-                                        String tenantDomain) throws IdentityApplicationManagementException {
+    private void removeEntriesFromCache(ServiceProvider serviceProvider) {
 
-        Set<String> consumerKeys = getOAuthAppsAssociatedWithApplication(serviceProvider);
-        try {
-            removeEntriesFromCache(consumerKeys);
-        } catch (IdentityOAuth2Exception e) {
-            String applicationName = serviceProvider.getApplicationName();
-            throw new IdentityApplicationManagementException("Error while clearing cache for oauth application data " +
-                    "associated with service provider: " + applicationName + " of tenantDomain: " + tenantDomain, e);
-        }
-    }
-
-    private void clearCacheEntriesAgainstAuthzCode(Set<AuthzCodeDO> authzCodeDOSet) {
-
-        for (AuthzCodeDO authzCodeDO : authzCodeDOSet) {
-            // Remove authorization code from AuthorizationGrantCache
-            AuthorizationGrantCacheKey grantCacheKey = new AuthorizationGrantCacheKey(
-                    authzCodeDO.getAuthorizationCode());
-            AuthorizationGrantCache.getInstance()
-                    .clearCacheEntryByCodeId(grantCacheKey, authzCodeDO.getAuthzCodeId());
-            // Remove authorization code from OAuthCache
-            OAuthCacheKey oauthCacheKey = new OAuthCacheKey(authzCodeDO.getAuthorizationCode());
-            CacheEntry oauthCacheEntry = OAuthCache.getInstance().getValueFromCache(oauthCacheKey);
-            if (oauthCacheEntry != null) {
-                OAuthCache.getInstance().clearCacheEntry(oauthCacheKey);
-            }
-        }
-    }
-
-    private void clearCacheEntriesAgainstToken(Set<AccessTokenDO> accessTokenDOSet) {
-
-        for (AccessTokenDO accessTokenDo : accessTokenDOSet) {
-            // Remove access token from AuthorizationGrantCache
-            AuthorizationGrantCacheKey grantCacheKey = new AuthorizationGrantCacheKey(
-                    accessTokenDo.getAccessToken());
-            AuthorizationGrantCache.getInstance()
-                    .clearCacheEntryByTokenId(grantCacheKey, accessTokenDo.getTokenId());
-            // Remove access token from OAuthCache
-            OAuthCacheKey oauthCacheKey = new OAuthCacheKey(accessTokenDo.getAccessToken());
-            CacheEntry oauthCacheEntry = OAuthCache.getInstance().getValueFromCache(oauthCacheKey);
-            if (oauthCacheEntry != null) {
-                OAuthCache.getInstance().clearCacheEntry(oauthCacheKey);
-            }
-        }
+        removeEntriesFromCache(getOAuthAppsAssociatedWithApplication(serviceProvider));
     }
 
     /**
@@ -585,7 +525,7 @@ public class OAuthApplicationMgtListener extends AbstractApplicationMgtListener
                 }
                 final int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
 
-                new Thread(() -> {
+                Runnable revocationTask = () -> {
                     InboundAuthenticationRequestConfig[] configs = serviceProvider.getInboundAuthenticationConfig()
                             .getInboundAuthenticationRequestConfigs();
                     for (InboundAuthenticationRequestConfig config : configs) {
@@ -602,7 +542,12 @@ public class OAuthApplicationMgtListener extends AbstractApplicationMgtListener
                             }
                         }
                     }
-                }).start();
+                };
+                if (!OAuthTaskExecutor.getInstance().execute(OAuthTaskExecutor.Workload.TOKEN, revocationTask)) {
+                    log.warn("Token maintenance queue is full. Revoking the SaaS tokens of application: " +
+                            serviceProvider.getApplicationName() + " in the current thread.");
+                    revocationTask.run();
+                }
             }
         } finally {
             IdentityUtil.threadLocalProperties.get().remove(SAAS_PROPERTY);
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.internal.cache;
+
+import org.wso2.carbon.identity.core.cache.BaseCache;
+
+/**
+ * Cache of the ids of the clients authorized by a user, keyed by the user id. User ids are unique across tenants,
+ * hence the entries are not kept per tenant.
+ * <p>
+ * Entries are cleared when a token is issued to a client which is not in the entry of its user, when the tokens of a
+ * user are revoked, and when expired tokens are purged.
+ */
+public class AuthorizedClientIdsCache extends BaseCache<String, AuthorizedClientIdsCacheEntry> {
+
+    private static final String CACHE_NAME = "AuthorizedClientIdsCache";
+
+    private static final AuthorizedClientIdsCache instance = new AuthorizedClientIdsCache();
+
+    private AuthorizedClientIdsCache() {
+
+        super(CACHE_NAME);
+    }
+
+    public static AuthorizedClientIdsCache getInstance() {
+
+        return instance;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.internal.cache;
+
+import org.wso2.carbon.identity.core.cache.CacheEntry;
+
+import java.util.Set;
+
+/**
+ * Cache entry holding the ids of the clients authorized by a user.
+ */
+public class AuthorizedClientIdsCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = 4386902517823349170L;
+
+    private final Set<String> clientIds;
+
+    public AuthorizedClientIdsCacheEntry(Set<String> clientIds) {
+
+        this.clientIds = clientIds;
+    }
+
+    public Set<String> getClientIds() {
+
+        return clientIds;
+    }
+}
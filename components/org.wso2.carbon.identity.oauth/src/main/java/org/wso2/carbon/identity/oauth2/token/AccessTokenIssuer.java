@@ -50,6 +50,7 @@ import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinder;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
 import org.wso2.carbon.identity.oauth2.token.handlers.grant.AuthorizationGrantHandler;
+import org.wso2.carbon.identity.oauth2.util.AllowedScopeMatcher;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.validators.JDBCPermissionBasedInternalScopeValidator;
 import org.wso2.carbon.identity.oauth2.validators.RoleBasedInternalScopeValidator;
@@ -281,13 +282,13 @@ public class AccessTokenIssuer {
             return tokenRespDTO;
         }
 
-        List<String> allowedScopes = OAuthServerConfiguration.getInstance().getAllowedScopes();
+        AllowedScopeMatcher allowedScopeMatcher = OAuthServerConfiguration.getInstance().getAllowedScopeMatcher();
         List<String> requestedAllowedScopes = new ArrayList<>();
         String[] requestedScopes = tokReqMsgCtx.getScope();
         List<String> scopesToBeValidated = new ArrayList<>();
         if (requestedScopes != null) {
             for (String scope : requestedScopes) {
-                if (OAuth2Util.isAllowedScope(allowedScopes, scope)) {
+                if (OAuth2Util.isAllowedScope(allowedScopeMatcher, scope)) {
                     requestedAllowedScopes.add(scope);
                 } else {
                     scopesToBeValidated.add(scope);
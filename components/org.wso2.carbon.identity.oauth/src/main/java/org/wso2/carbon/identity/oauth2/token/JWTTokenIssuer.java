@@ -21,14 +21,10 @@ package org.wso2.carbon.identity.oauth2.token;
 import com.nimbusds.jose.Algorithm;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.util.Base64URL;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.JWTParser;
 import com.nimbusds.jwt.PlainJWT;
-import com.nimbusds.jwt.SignedJWT;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -53,13 +49,13 @@ import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.token.handlers.grant.AuthorizationGrantHandler;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.TenantSigningMaterial;
+import org.wso2.carbon.identity.oauth2.util.TenantSigningMaterialRegistry;
 import org.wso2.carbon.identity.openidconnect.CustomClaimsCallbackHandler;
 import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
 import org.wso2.carbon.user.core.util.UserCoreUtil;
 
-import java.security.Key;
-import java.security.interfaces.RSAPrivateKey;
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -68,7 +64,6 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.apache.commons.lang.StringUtils.isNotBlank;
-import static org.wso2.carbon.identity.oauth2.util.OAuth2Util.getPrivateKey;
 
 /**
  * Self contained access token builder.
@@ -156,6 +151,17 @@ public class JWTTokenIssuer extends OauthTokenIssuerImpl {
         }
     }
 
+    @Override
+    public TokenMatch matchAccessToken(String accessToken) {
+
+        // A JWT always has dot separated segments, so an opaque token can never be resolved through its JTI.
+        int separatorCount = StringUtils.countMatches(accessToken, ".");
+        if (separatorCount == 0) {
+            return TokenMatch.NOT_MATCHED;
+        }
+        return separatorCount == 2 ? TokenMatch.MATCHED : TokenMatch.UNKNOWN;
+    }
+
     @Override
     public boolean renewAccessTokenPerRequest() {
         return true;
@@ -331,16 +337,11 @@ public class JWTTokenIssuer extends OauthTokenIssuerImpl {
             String tenantDomain = resolveSigningTenantDomain(tokenContext, authorizationContext);
             int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
 
-            Key privateKey = getPrivateKey(tenantDomain, tenantId);
-            JWSSigner signer = OAuth2Util.createJWSSigner((RSAPrivateKey) privateKey);
-            JWSHeader.Builder headerBuilder = new JWSHeader.Builder((JWSAlgorithm) signatureAlgorithm);
-            String certThumbPrint = OAuth2Util.getThumbPrint(tenantDomain, tenantId);
-            headerBuilder.keyID(OAuth2Util.getKID(OAuth2Util.getCertificate(tenantDomain, tenantId),
-                    (JWSAlgorithm) signatureAlgorithm, tenantDomain));
-            headerBuilder.x509CertThumbprint(new Base64URL(certThumbPrint));
-            SignedJWT signedJWT = new SignedJWT(headerBuilder.build(), jwtClaimsSet);
-            signedJWT.sign(signer);
-            return signedJWT.serialize();
+            // The registry holds the key, certificate thumbprint, kid and a shared signer of the tenant, so that
+            // signing does not access the key store per token.
+            TenantSigningMaterial signingMaterial = TenantSigningMaterialRegistry.getInstance()
+                    .getSigningMaterial(tenantDomain, tenantId);
+            return signingMaterial.sign(jwtClaimsSet, (JWSAlgorithm) signatureAlgorithm).serialize();
         } catch (JOSEException e) {
             throw new IdentityOAuth2Exception("Error occurred while signing JWT", e);
         }
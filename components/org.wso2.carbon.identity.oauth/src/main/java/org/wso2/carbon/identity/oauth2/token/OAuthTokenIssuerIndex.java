@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token;
+
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, precomputed view of the configured token issuers used when resolving a received access token to its
+ * persisted entry. The default issuers (JWT first, then the default opaque issuer) are ordered ahead of the custom
+ * ones and, for a given token, issuers that report {@link OauthTokenIssuer.TokenMatch#MATCHED} are tried before the
+ * ones that cannot tell. Issuers that report {@link OauthTokenIssuer.TokenMatch#NOT_MATCHED} are skipped.
+ */
+public final class OAuthTokenIssuerIndex {
+
+    private final Map<String, OauthTokenIssuer> sourceSnapshot;
+    private final Map<String, OauthTokenIssuer> orderedIssuers;
+
+    public OAuthTokenIssuerIndex(Map<String, OauthTokenIssuer> tokenIssuerMap) {
+
+        Map<String, OauthTokenIssuer> snapshot = tokenIssuerMap == null ? new HashMap<>() :
+                new HashMap<>(tokenIssuerMap);
+        Map<String, OauthTokenIssuer> ordered = new LinkedHashMap<>();
+        addIfPresent(ordered, snapshot, OAuthServerConfiguration.JWT_TOKEN_TYPE);
+        addIfPresent(ordered, snapshot, OAuthServerConfiguration.DEFAULT_TOKEN_TYPE);
+        for (Map.Entry<String, OauthTokenIssuer> entry : snapshot.entrySet()) {
+            if (entry.getValue() != null && !ordered.containsKey(entry.getKey())) {
+                ordered.put(entry.getKey(), entry.getValue());
+            }
+        }
+        this.sourceSnapshot = snapshot;
+        this.orderedIssuers = Collections.unmodifiableMap(ordered);
+    }
+
+    /**
+     * Checks whether this index still reflects the given token issuer map.
+     *
+     * @param tokenIssuerMap Current token issuer map.
+     * @return true if the map holds exactly the same issuer instances this index was built from.
+     */
+    public boolean isBuiltFrom(Map<String, OauthTokenIssuer> tokenIssuerMap) {
+
+        if (tokenIssuerMap == null) {
+            return sourceSnapshot.isEmpty();
+        }
+        if (tokenIssuerMap.size() != sourceSnapshot.size()) {
+            return false;
+        }
+        for (Map.Entry<String, OauthTokenIssuer> entry : tokenIssuerMap.entrySet()) {
+            if (sourceSnapshot.get(entry.getKey()) != entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get all token issuers in lookup order.
+     *
+     * @return Unmodifiable ordered map of token issuers.
+     */
+    public Map<String, OauthTokenIssuer> getOrderedIssuers() {
+
+        return orderedIssuers;
+    }
+
+    /**
+     * Get the token issuers which may have issued the given token, in the order they should be tried.
+     *
+     * @param accessToken Access token received in the request.
+     * @return Ordered map of candidate token issuers.
+     */
+    public Map<String, OauthTokenIssuer> getCandidateIssuers(String accessToken) {
+
+        Map<String, OauthTokenIssuer> matched = new LinkedHashMap<>();
+        Map<String, OauthTokenIssuer> unknown = new LinkedHashMap<>();
+        for (Map.Entry<String, OauthTokenIssuer> entry : orderedIssuers.entrySet()) {
+            OauthTokenIssuer.TokenMatch tokenMatch = entry.getValue().matchAccessToken(accessToken);
+            if (tokenMatch == OauthTokenIssuer.TokenMatch.MATCHED) {
+                matched.put(entry.getKey(), entry.getValue());
+            } else if (tokenMatch != OauthTokenIssuer.TokenMatch.NOT_MATCHED) {
+                unknown.put(entry.getKey(), entry.getValue());
+            }
+        }
+        matched.putAll(unknown);
+        return matched;
+    }
+
+    private static void addIfPresent(Map<String, OauthTokenIssuer> ordered, Map<String, OauthTokenIssuer> snapshot,
+                                     String tokenType) {
+
+        OauthTokenIssuer tokenIssuer = snapshot.get(tokenType);
+        if (tokenIssuer != null) {
+            ordered.put(tokenType, tokenIssuer);
+        }
+    }
+}
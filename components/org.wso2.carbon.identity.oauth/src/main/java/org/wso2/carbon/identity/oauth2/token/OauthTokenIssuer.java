@@ -86,4 +86,27 @@ public interface OauthTokenIssuer {
     default boolean usePersistedAccessTokenAlias() {
         return true;
     }
+
+    /**
+     * Cheaply checks whether the given access token could have been issued by this issuer, without touching the
+     * database. Used to skip issuers that cannot own a token when resolving a token to its persisted entry. Issuers
+     * which do not override this, e.g. custom issuers, cannot tell and are always tried after the matched ones.
+     *
+     * @param accessToken Access token received in the request.
+     * @return {@link TokenMatch#MATCHED} if the token has the shape this issuer produces,
+     * {@link TokenMatch#NOT_MATCHED} if it can never have been issued by this issuer and {@link TokenMatch#UNKNOWN}
+     * if the issuer cannot tell.
+     */
+    default TokenMatch matchAccessToken(String accessToken) {
+        return TokenMatch.UNKNOWN;
+    }
+
+    /**
+     * Result of {@link #matchAccessToken(String)}.
+     */
+    enum TokenMatch {
+        MATCHED,
+        NOT_MATCHED,
+        UNKNOWN
+    }
 }
@@ -19,18 +19,29 @@
 
 package org.wso2.carbon.identity.oauth2.token;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.oltu.oauth2.as.issuer.OAuthIssuer;
+import org.apache.oltu.oauth2.as.issuer.OAuthIssuerImpl;
+import org.apache.oltu.oauth2.as.issuer.UUIDValueGenerator;
+import org.apache.oltu.oauth2.as.issuer.ValueGenerator;
 import org.apache.oltu.oauth2.common.exception.OAuthSystemException;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
 
+import java.util.regex.Pattern;
+
 /**
  * UUID based access token issuer builder.
  */
 public class OauthTokenIssuerImpl implements OauthTokenIssuer {
 
+    private static final Pattern UUID_PATTERN =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
     private OAuthIssuer oAuthIssuerImpl = OAuthServerConfiguration.getInstance()
             .getOAuthTokenGenerator();
+    private final boolean uuidTokens = getClass() == OauthTokenIssuerImpl.class &&
+            isUUIDTokenGenerator(oAuthIssuerImpl);
     private boolean persistAccessTokenAlias = true;
 
     public String accessToken(OAuthTokenReqMessageContext tokReqMsgCtx) throws OAuthSystemException {
@@ -60,4 +71,35 @@ public class OauthTokenIssuerImpl implements OauthTokenIssuer {
     public boolean usePersistedAccessTokenAlias() {
         return persistAccessTokenAlias;
     }
+
+    /**
+     * Matches the tokens of the default UUID token generator only. UUIDs are matched and JWTs are not. The issuer
+     * cannot tell for other tokens, or when a custom token generator, token value generator or a subclass of this
+     * issuer is in use, since their tokens may have any shape.
+     *
+     * @param accessToken Access token received in the request.
+     * @return Whether the token may have been issued by this issuer.
+     */
+    @Override
+    public TokenMatch matchAccessToken(String accessToken) {
+
+        if (!uuidTokens || accessToken == null) {
+            return TokenMatch.UNKNOWN;
+        }
+        if (UUID_PATTERN.matcher(accessToken).matches()) {
+            return TokenMatch.MATCHED;
+        }
+        // A UUID has no dots, hence a JWT is left to the JWT token issuer.
+        return StringUtils.countMatches(accessToken, ".") == 2 ? TokenMatch.NOT_MATCHED : TokenMatch.UNKNOWN;
+    }
+
+    private static boolean isUUIDTokenGenerator(OAuthIssuer oAuthIssuer) {
+
+        if (oAuthIssuer == null || oAuthIssuer.getClass() != OAuthIssuerImpl.class) {
+            return false;
+        }
+        // The default token generator uses the configured token value generator.
+        ValueGenerator valueGenerator = OAuthServerConfiguration.getInstance().getTokenValueGenerator();
+        return valueGenerator != null && valueGenerator.getClass() == UUIDValueGenerator.class;
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.cleanup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the {@link ExpiredTokenPurger}.
+ */
+public class ExpiredTokenPurgeMetrics {
+
+    private final AtomicLong runCount = new AtomicLong();
+    private final AtomicLong chunkCount = new AtomicLong();
+    private final AtomicLong scannedRowCount = new AtomicLong();
+    private final AtomicLong purgedRowCount = new AtomicLong();
+    private volatile long lastRunPurgedRowCount;
+    private volatile long lastRunDurationNanos;
+
+    void recordChunk(int scannedCount, int purgedCount) {
+
+        chunkCount.incrementAndGet();
+        scannedRowCount.addAndGet(scannedCount);
+        purgedRowCount.addAndGet(purgedCount);
+    }
+
+    void recordRun(long purgedCount, long durationNanos) {
+
+        runCount.incrementAndGet();
+        lastRunPurgedRowCount = purgedCount;
+        lastRunDurationNanos = durationNanos;
+    }
+
+    public long getRunCount() {
+
+        return runCount.get();
+    }
+
+    /**
+     * @return Number of chunks, each purged in its own transaction.
+     */
+    public long getChunkCount() {
+
+        return chunkCount.get();
+    }
+
+    /**
+     * @return Number of rows read by the purger, including those which were not purgeable yet.
+     */
+    public long getScannedRowCount() {
+
+        return scannedRowCount.get();
+    }
+
+    public long getPurgedRowCount() {
+
+        return purgedRowCount.get();
+    }
+
+    public long getLastRunPurgedRowCount() {
+
+        return lastRunPurgedRowCount;
+    }
+
+    public long getLastRunDurationMillis() {
+
+        return TimeUnit.NANOSECONDS.toMillis(lastRunDurationNanos);
+    }
+
+    /**
+     * @return Purge rate of the last run, including the time spent waiting for the rate limit.
+     */
+    public long getLastRunRowsPerSecond() {
+
+        long durationNanos = lastRunDurationNanos;
+        if (durationNanos == 0) {
+            return 0;
+        }
+        return lastRunPurgedRowCount * TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+
+    @Override
+    public String toString() {
+
+        return "runs: " + getRunCount() + ", chunks: " + getChunkCount() + ", scannedRows: " + getScannedRowCount() +
+                ", purgedRows: " + getPurgedRowCount() + ", lastRunPurgedRows: " + getLastRunPurgedRowCount() +
+                ", lastRunDuration: " + getLastRunDurationMillis() + "ms, lastRunRowsPerSecond: " +
+                getLastRunRowsPerSecond();
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.cleanup;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.ExpiredRecordPurgeResult;
+import org.wso2.carbon.identity.oauth2.dao.OldTokensCleanDAO;
+import org.wso2.carbon.identity.oauth2.internal.cache.AuthorizedClientIdsCache;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.oauth2.util.OAuthTaskExecutor;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getLongProperty;
+
+/**
+ * Background job purging the expired access tokens, authorization codes, device codes and CIBA auth codes which are
+ * not cleaned up inline by {@link OldTokensCleanDAO} since nobody touches them again.
+ * <p>
+ * Each table is walked in key order in chunks, each of which is read and purged in its own short transaction so that
+ * locks are held briefly and replicas receive small transactions. The number of rows read per second is limited and
+ * the job only runs within the configured maintenance window, stopping as soon as the window closes. A later run
+ * starts over, which is cheap as the purged rows are gone.
+ * <p>
+ * The job is configured in identity.xml under OAuth.TokenCleanup.Purge and is disabled by default. In a cluster it
+ * is sufficient to enable it on a single node.
+ */
+public class ExpiredTokenPurger implements Runnable {
+
+    private static final Log log = LogFactory.getLog(ExpiredTokenPurger.class);
+
+    private static final String PURGE_ENABLE = "OAuth.TokenCleanup.Purge.Enable";
+    private static final String PURGE_INTERVAL_MINUTES = "OAuth.TokenCleanup.Purge.IntervalMinutes";
+    private static final String PURGE_CHUNK_SIZE = "OAuth.TokenCleanup.Purge.ChunkSize";
+    private static final String PURGE_MAX_ROWS_PER_SECOND = "OAuth.TokenCleanup.Purge.MaxRowsPerSecond";
+    private static final String PURGE_RETENTION_MINUTES = "OAuth.TokenCleanup.Purge.RetentionMinutes";
+    private static final String PURGE_WINDOW_START_TIME = "OAuth.TokenCleanup.Purge.WindowStartTime";
+    private static final String PURGE_WINDOW_END_TIME = "OAuth.TokenCleanup.Purge.WindowEndTime";
+
+    private static final long DEFAULT_INTERVAL_MINUTES = 60;
+    private static final long DEFAULT_CHUNK_SIZE = 500;
+    // Keeps the key lists of a chunk within the IN list limit of Oracle.
+    private static final int MAX_CHUNK_SIZE = 1000;
+    private static final long DEFAULT_MAX_ROWS_PER_SECOND = 1000;
+    private static final long DEFAULT_RETENTION_MINUTES = 1440;
+
+    private static volatile ExpiredTokenPurger instance;
+
+    private final boolean enabled;
+    private final long intervalMinutes;
+    private final int chunkSize;
+    private final long maxRowsPerSecond;
+    private final long retentionMillis;
+    private final LocalTime windowStartTime;
+    private final LocalTime windowEndTime;
+    private final OldTokensCleanDAO oldTokensCleanDAO;
+    private final ExpiredTokenPurgeMetrics metrics = new ExpiredTokenPurgeMetrics();
+    private ScheduledExecutorService purgeScheduler;
+
+    ExpiredTokenPurger(OldTokensCleanDAO oldTokensCleanDAO) {
+
+        this.enabled = Boolean.parseBoolean(IdentityUtil.getProperty(PURGE_ENABLE));
+        this.intervalMinutes = getLongProperty(PURGE_INTERVAL_MINUTES, DEFAULT_INTERVAL_MINUTES);
+        this.chunkSize = (int) Math.min(getLongProperty(PURGE_CHUNK_SIZE, DEFAULT_CHUNK_SIZE), MAX_CHUNK_SIZE);
+        this.maxRowsPerSecond = getLongProperty(PURGE_MAX_ROWS_PER_SECOND, DEFAULT_MAX_ROWS_PER_SECOND);
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(getLongProperty(PURGE_RETENTION_MINUTES,
+                DEFAULT_RETENTION_MINUTES));
+        LocalTime startTime = getTimeProperty(PURGE_WINDOW_START_TIME);
+        LocalTime endTime = getTimeProperty(PURGE_WINDOW_END_TIME);
+        if (startTime == null || endTime == null || startTime.equals(endTime)) {
+            // Without a proper window the job runs at any time.
+            startTime = null;
+            endTime = null;
+        }
+        this.windowStartTime = startTime;
+        this.windowEndTime = endTime;
+        this.oldTokensCleanDAO = oldTokensCleanDAO;
+    }
+
+    public static ExpiredTokenPurger getInstance() {
+
+        if (instance == null) {
+            synchronized (ExpiredTokenPurger.class) {
+                if (instance == null) {
+                    instance = new ExpiredTokenPurger(new OldTokensCleanDAO());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Schedule the purge job, if enabled.
+     */
+    public synchronized void start() {
+
+        if (!enabled || purgeScheduler != null) {
+            return;
+        }
+        purgeScheduler = OAuthTaskExecutor.getInstance().newDedicatedScheduler("OAuthExpiredTokenPurger");
+        purgeScheduler.scheduleWithFixedDelay(this, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        log.info("Expired token purging is enabled with interval: " + intervalMinutes + " minutes, chunk size: " +
+                chunkSize + ", max rows per second: " + maxRowsPerSecond + (windowStartTime == null ? "" :
+                " and maintenance window: " + windowStartTime + " - " + windowEndTime) + ".");
+    }
+
+    /**
+     * Stop the purge job. A chunk being purged is completed, while the rest of the run is abandoned.
+     */
+    public synchronized void shutdown() {
+
+        if (purgeScheduler == null) {
+            return;
+        }
+        purgeScheduler.shutdownNow();
+        purgeScheduler = null;
+        if (log.isDebugEnabled()) {
+            log.debug("Expired token purging is stopped. " + metrics);
+        }
+    }
+
+    @Override
+    public void run() {
+
+        if (!isWithinMaintenanceWindow(LocalTime.now())) {
+            if (log.isDebugEnabled()) {
+                log.debug("Skipping the expired token purging as it is outside the maintenance window.");
+            }
+            return;
+        }
+
+        long cutoffTime = System.currentTimeMillis() - retentionMillis;
+        long startTime = System.nanoTime();
+        long purgedCount = 0;
+        try {
+            for (String userStoreDomain : OAuth2Util.getTokenPartitionedUserStoreDomains()) {
+                purgedCount += purge("access tokens of " + userStoreDomain, lastKey ->
+                        oldTokensCleanDAO.purgeExpiredAccessTokens(userStoreDomain, lastKey, cutoffTime, chunkSize));
+            }
+            if (purgedCount > 0) {
+                // The purged tokens are not known by user, hence the authorized apps of all the users are cleared.
+                AuthorizedClientIdsCache.getInstance().clear();
+            }
+            purgedCount += purge("authorization codes", lastKey ->
+                    oldTokensCleanDAO.purgeExpiredAuthorizationCodes(lastKey, cutoffTime, chunkSize));
+            purgedCount += purge("device codes", lastKey ->
+                    oldTokensCleanDAO.purgeExpiredDeviceCodes(lastKey, cutoffTime, chunkSize));
+            purgedCount += purge("CIBA auth codes", lastKey ->
+                    oldTokensCleanDAO.purgeExpiredCibaAuthCodes(lastKey, cutoffTime, chunkSize));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (log.isDebugEnabled()) {
+                log.debug("Expired token purging is interrupted.");
+            }
+        } catch (IdentityOAuth2Exception | RuntimeException e) {
+            // Caught to keep the job scheduled for the next run.
+            log.error("Error occurred while purging expired tokens.", e);
+        }
+
+        long durationNanos = System.nanoTime() - startTime;
+        metrics.recordRun(purgedCount, durationNanos);
+        if (purgedCount > 0) {
+            log.info("Purged " + purgedCount + " expired tokens and codes within " +
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos) + "ms (" + metrics.getLastRunRowsPerSecond() +
+                    " rows per second).");
+        } else if (log.isDebugEnabled()) {
+            log.debug("No expired tokens or codes to be purged.");
+        }
+    }
+
+    /**
+     * Purge the chunks of a table until the table is walked through or the maintenance window closes.
+     */
+    private long purge(String recordName, ChunkPurger chunkPurger) throws InterruptedException {
+
+        long purgedCount = 0;
+        String lastKey = null;
+        ExpiredRecordPurgeResult result;
+        do {
+            if (!isWithinMaintenanceWindow(LocalTime.now())) {
+                if (lastKey != null) {
+                    log.info("Stopped purging expired " + recordName + " as the maintenance window is closed.");
+                }
+                break;
+            }
+            long chunkStartTime = System.nanoTime();
+            try {
+                result = chunkPurger.purge(lastKey);
+            } catch (IdentityOAuth2Exception e) {
+                // Other tables are still purged, e.g. when the CIBA tables are not available.
+                log.error("Error occurred while purging expired " + recordName + ".", e);
+                break;
+            }
+            metrics.recordChunk(result.getScannedCount(), result.getPurgedCount());
+            purgedCount += result.getPurgedCount();
+            lastKey = result.getLastKey();
+            throttle(result.getScannedCount(), System.nanoTime() - chunkStartTime);
+        } while (result.getScannedCount() == chunkSize);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Purged " + purgedCount + " expired " + recordName + ".");
+        }
+        return purgedCount;
+    }
+
+    /**
+     * Wait so that the rows of a chunk are not read faster than the configured rate.
+     */
+    private void throttle(int rowCount, long elapsedNanos) throws InterruptedException {
+
+        long waitMillis = rowCount * 1000L / maxRowsPerSecond - TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (waitMillis > 0) {
+            Thread.sleep(waitMillis);
+        }
+    }
+
+    boolean isWithinMaintenanceWindow(LocalTime time) {
+
+        if (windowStartTime == null) {
+            return true;
+        }
+        if (windowStartTime.isBefore(windowEndTime)) {
+            return !time.isBefore(windowStartTime) && time.isBefore(windowEndTime);
+        }
+        // The window spans midnight.
+        return !time.isBefore(windowStartTime) || time.isBefore(windowEndTime);
+    }
+
+    public boolean isEnabled() {
+
+        return enabled;
+    }
+
+    public ExpiredTokenPurgeMetrics getMetrics() {
+
+        return metrics;
+    }
+
+    private static LocalTime getTimeProperty(String propertyName) {
+
+        String value = IdentityUtil.getProperty(propertyName);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return LocalTime.parse(value.trim());
+            } catch (DateTimeParseException e) {
+                log.warn("Invalid value: " + value + " configured for " + propertyName + ". Expected the format " +
+                        "HH:mm.");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Purges a chunk of a table, starting after the given key.
+     */
+    private interface ChunkPurger {
+
+        ExpiredRecordPurgeResult purge(String lastKey) throws IdentityOAuth2Exception;
+    }
+}
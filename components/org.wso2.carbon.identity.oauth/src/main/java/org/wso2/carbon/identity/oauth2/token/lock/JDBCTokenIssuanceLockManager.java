@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.lock;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.SQLQueries;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster wide {@link TokenIssuanceLockManager} backed by the IDN_OAUTH2_TOKEN_ISSUANCE_LOCK table.
+ * <p>
+ * A lock is held by inserting a row for the hashed lock key, which fails with a constraint violation while another
+ * node holds it. Requests on the same node are first serialized with a local striped lock, so at most one thread
+ * per node competes for a given row. The local stripe is released while waiting for a row held by another node. Rows
+ * of crashed nodes are taken over once their lease expires. A thread which already holds the row of a key only counts
+ * the nested acquisition, and the row is deleted when the outermost lock is closed.
+ * <p>
+ * The table is not part of the identity database scripts. It is created with the scripts shipped in
+ * dbscripts/identity/token-issuance-lock before enabling OAuth.TokenIssuanceLock.ClusterWide.Enable, e.g. for H2:
+ * <pre>
+ * CREATE TABLE IDN_OAUTH2_TOKEN_ISSUANCE_LOCK (
+ *     LOCK_KEY VARCHAR(64) NOT NULL,
+ *     LOCK_OWNER VARCHAR(36) NOT NULL,
+ *     LOCKED_TIME TIMESTAMP NOT NULL,
+ *     PRIMARY KEY (LOCK_KEY)
+ * );
+ * </pre>
+ */
+public class JDBCTokenIssuanceLockManager implements TokenIssuanceLockManager {
+
+    private static final Log log = LogFactory.getLog(JDBCTokenIssuanceLockManager.class);
+    private static final String UTC = "UTC";
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE_CLASS = "23";
+
+    private final StripedTokenIssuanceLockManager localLockManager;
+    private final String lockOwner = UUID.randomUUID().toString();
+    private final long leaseMillis;
+    private final long acquireTimeoutMillis;
+    private final long retryIntervalMillis;
+    private final long slowWaitThresholdNanos;
+    private final TokenIssuanceLockStats stats = new TokenIssuanceLockStats();
+    private final ThreadLocal<Map<String, HeldLock>> heldLocks = ThreadLocal.withInitial(HashMap::new);
+
+    public JDBCTokenIssuanceLockManager(StripedTokenIssuanceLockManager localLockManager, long leaseMillis,
+                                        long acquireTimeoutMillis, long retryIntervalMillis,
+                                        long slowWaitThresholdMillis) {
+
+        this.localLockManager = localLockManager;
+        this.leaseMillis = leaseMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.retryIntervalMillis = retryIntervalMillis;
+        this.slowWaitThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowWaitThresholdMillis);
+    }
+
+    @Override
+    public TokenIssuanceLock acquire(String... keyParts) throws IdentityOAuth2Exception {
+
+        long startTime = System.nanoTime();
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+        String lockKey = DigestUtils.sha256Hex(StringUtils.join(keyParts, ":"));
+        HeldLock heldLock = heldLocks.get().get(lockKey);
+        if (heldLock != null) {
+            // The row is already held by this thread, inserting it again would wait for the thread itself.
+            heldLock.holdCount++;
+            return () -> release(lockKey);
+        }
+        try {
+            while (true) {
+                TokenIssuanceLock localLock = localLockManager.acquire(keyParts);
+                boolean acquired = false;
+                try {
+                    acquired = tryInsertLock(lockKey) || (removeExpiredLock(lockKey) && tryInsertLock(lockKey));
+                } finally {
+                    if (!acquired) {
+                        localLock.close();
+                    }
+                }
+                if (acquired) {
+                    recordAcquisition(lockKey, System.nanoTime() - startTime);
+                    heldLocks.get().put(lockKey, new HeldLock(localLock));
+                    return () -> release(lockKey);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IdentityOAuth2Exception("Timed out after " + acquireTimeoutMillis + "ms while " +
+                            "acquiring the cluster wide token issuance lock.");
+                }
+                // The local stripe is not held while backing off, so that the other keys mapped to the stripe are
+                // not blocked by a row held on another node.
+                Thread.sleep(retryIntervalMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityOAuth2Exception("Interrupted while acquiring the cluster wide token issuance lock.", e);
+        }
+    }
+
+    @Override
+    public TokenIssuanceLockStats getStats() {
+
+        return stats;
+    }
+
+    private void release(String lockKey) {
+
+        HeldLock heldLock = heldLocks.get().get(lockKey);
+        if (heldLock == null) {
+            return;
+        }
+        if (--heldLock.holdCount > 0) {
+            return;
+        }
+        heldLocks.get().remove(lockKey);
+        try {
+            deleteLock(lockKey);
+        } finally {
+            heldLock.localLock.close();
+        }
+    }
+
+    private void recordAcquisition(String lockKey, long waitNanos) {
+
+        boolean slow = waitNanos >= slowWaitThresholdNanos;
+        stats.recordAcquisition(slow ? waitNanos : 0, slow);
+        if (slow && log.isDebugEnabled()) {
+            log.debug("Waited " + TimeUnit.NANOSECONDS.toMillis(waitNanos) + "ms for the cluster wide token " +
+                    "issuance lock with key hash: " + lockKey);
+        }
+    }
+
+    private boolean tryInsertLock(String lockKey) throws IdentityOAuth2Exception {
+
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(true)) {
+            try (PreparedStatement prepStmt = connection.prepareStatement(SQLQueries.INSERT_TOKEN_ISSUANCE_LOCK)) {
+                prepStmt.setString(1, lockKey);
+                prepStmt.setString(2, lockOwner);
+                prepStmt.setTimestamp(3, new Timestamp(System.currentTimeMillis()),
+                        Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+                prepStmt.executeUpdate();
+                IdentityDatabaseUtil.commitTransaction(connection);
+                return true;
+            } catch (SQLException e) {
+                IdentityDatabaseUtil.rollbackTransaction(connection);
+                // Not all the JDBC drivers throw SQLIntegrityConstraintViolationException for duplicate keys.
+                if (e instanceof SQLIntegrityConstraintViolationException ||
+                        StringUtils.startsWith(e.getSQLState(), INTEGRITY_CONSTRAINT_VIOLATION_SQL_STATE_CLASS)) {
+                    return false;
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error while acquiring the cluster wide token issuance lock.", e);
+        }
+    }
+
+    private boolean removeExpiredLock(String lockKey) throws IdentityOAuth2Exception {
+
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(true)) {
+            try (PreparedStatement prepStmt = connection.prepareStatement(
+                    SQLQueries.DELETE_EXPIRED_TOKEN_ISSUANCE_LOCK)) {
+                prepStmt.setString(1, lockKey);
+                prepStmt.setTimestamp(2, new Timestamp(System.currentTimeMillis() - leaseMillis),
+                        Calendar.getInstance(TimeZone.getTimeZone(UTC)));
+                int removedCount = prepStmt.executeUpdate();
+                IdentityDatabaseUtil.commitTransaction(connection);
+                if (removedCount > 0) {
+                    log.warn("Removed an expired cluster wide token issuance lock with key hash: " + lockKey);
+                    return true;
+                }
+                return false;
+            } catch (SQLException e) {
+                IdentityDatabaseUtil.rollbackTransaction(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error while removing an expired token issuance lock.", e);
+        }
+    }
+
+    private void deleteLock(String lockKey) {
+
+        try (Connection connection = IdentityDatabaseUtil.getDBConnection(true)) {
+            try (PreparedStatement prepStmt = connection.prepareStatement(SQLQueries.DELETE_TOKEN_ISSUANCE_LOCK)) {
+                prepStmt.setString(1, lockKey);
+                prepStmt.setString(2, lockOwner);
+                prepStmt.executeUpdate();
+                IdentityDatabaseUtil.commitTransaction(connection);
+            } catch (SQLException e) {
+                IdentityDatabaseUtil.rollbackTransaction(connection);
+                throw e;
+            }
+        } catch (SQLException e) {
+            // The lock will be taken over by other requests once its lease expires.
+            log.error("Error while releasing the cluster wide token issuance lock with key hash: " + lockKey, e);
+        }
+    }
+
+    /**
+     * Lock row held by the current thread, with the number of nested acquisitions which are not closed yet.
+     */
+    private static class HeldLock {
+
+        private final TokenIssuanceLock localLock;
+        private int holdCount = 1;
+
+        HeldLock(TokenIssuanceLock localLock) {
+
+            this.localLock = localLock;
+        }
+    }
+}
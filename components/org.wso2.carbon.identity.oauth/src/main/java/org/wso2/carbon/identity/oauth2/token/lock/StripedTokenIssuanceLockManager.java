@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.lock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Node local {@link TokenIssuanceLockManager} which maps lock keys to a bounded set of reentrant lock stripes.
+ * <p>
+ * The stripe is selected from the hash of the key parts, hence no key string is built or interned per request and
+ * the memory used by the locks does not grow with the number of clients and users. Unrelated keys may share a
+ * stripe, which is the price of the bound; the stripe count should be large compared to the number of request
+ * threads.
+ */
+public class StripedTokenIssuanceLockManager implements TokenIssuanceLockManager {
+
+    private static final Log log = LogFactory.getLog(StripedTokenIssuanceLockManager.class);
+
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+    private final long slowWaitThresholdNanos;
+    private final TokenIssuanceLockStats stats = new TokenIssuanceLockStats();
+
+    /**
+     * @param stripeCount              Number of lock stripes. Rounded up to the next power of two.
+     * @param slowWaitThresholdMillis  Lock waits longer than this are counted and logged as slow.
+     */
+    public StripedTokenIssuanceLockManager(int stripeCount, long slowWaitThresholdMillis) {
+
+        int size = 1;
+        while (size < stripeCount && size < (1 << 30)) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.stripeMask = size - 1;
+        this.slowWaitThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowWaitThresholdMillis);
+    }
+
+    @Override
+    public TokenIssuanceLock acquire(String... keyParts) {
+
+        ReentrantLock stripe = getStripe(keyParts);
+        long waitNanos = 0;
+        if (!stripe.tryLock()) {
+            long startTime = System.nanoTime();
+            stripe.lock();
+            waitNanos = Math.max(System.nanoTime() - startTime, 1);
+        }
+        boolean slow = waitNanos > 0 && waitNanos >= slowWaitThresholdNanos;
+        stats.recordAcquisition(waitNanos, slow);
+        if (slow && log.isDebugEnabled()) {
+            log.debug("Waited " + TimeUnit.NANOSECONDS.toMillis(waitNanos) + "ms for the token issuance lock of: "
+                    + Arrays.toString(keyParts));
+        }
+        return stripe::unlock;
+    }
+
+    @Override
+    public TokenIssuanceLockStats getStats() {
+
+        return stats;
+    }
+
+    private ReentrantLock getStripe(String... keyParts) {
+
+        int hash = 1;
+        for (String keyPart : keyParts) {
+            hash = 31 * hash + (keyPart == null ? 0 : keyPart.hashCode());
+        }
+        // Spread the higher bits since only the lower bits select the stripe.
+        hash ^= (hash >>> 16);
+        return stripes[hash & stripeMask];
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.lock;
+
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+/**
+ * Provides mutual exclusion for access token issuance and revocation of a given client, user, scope and token
+ * binding combination, so that concurrent requests do not create duplicate active tokens.
+ * <p>
+ * Custom implementations can be registered as an OSGi service to replace the default implementation.
+ */
+public interface TokenIssuanceLockManager {
+
+    /**
+     * Acquire the lock for the given key, blocking until it is available. Locks are reentrant for the same thread.
+     *
+     * @param keyParts Parts of the lock key, e.g. consumer key, user id, scope and token binding reference.
+     * @return Held lock which should be closed to release it.
+     * @throws IdentityOAuth2Exception If the lock could not be acquired.
+     */
+    TokenIssuanceLock acquire(String... keyParts) throws IdentityOAuth2Exception;
+
+    /**
+     * Get the lock wait statistics of this lock manager.
+     *
+     * @return Lock wait statistics.
+     */
+    TokenIssuanceLockStats getStats();
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.lock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getLongProperty;
+
+/**
+ * Creates the default {@link TokenIssuanceLockManager} from the OAuth.TokenIssuanceLock configuration.
+ */
+public class TokenIssuanceLockManagerFactory {
+
+    private static final Log log = LogFactory.getLog(TokenIssuanceLockManagerFactory.class);
+
+    private static final String STRIPE_COUNT = "OAuth.TokenIssuanceLock.StripeCount";
+    private static final String SLOW_WAIT_THRESHOLD_MILLIS = "OAuth.TokenIssuanceLock.SlowWaitThresholdMillis";
+    private static final String CLUSTER_WIDE_ENABLE = "OAuth.TokenIssuanceLock.ClusterWide.Enable";
+    private static final String CLUSTER_WIDE_LEASE_MILLIS = "OAuth.TokenIssuanceLock.ClusterWide.LeaseMillis";
+    private static final String CLUSTER_WIDE_ACQUIRE_TIMEOUT_MILLIS =
+            "OAuth.TokenIssuanceLock.ClusterWide.AcquireTimeoutMillis";
+    private static final String CLUSTER_WIDE_RETRY_INTERVAL_MILLIS =
+            "OAuth.TokenIssuanceLock.ClusterWide.RetryIntervalMillis";
+
+    private static final int DEFAULT_STRIPE_COUNT = 1024;
+    private static final long DEFAULT_SLOW_WAIT_THRESHOLD_MILLIS = 100;
+    private static final long DEFAULT_CLUSTER_WIDE_LEASE_MILLIS = 30000;
+    private static final long DEFAULT_CLUSTER_WIDE_ACQUIRE_TIMEOUT_MILLIS = 10000;
+    private static final long DEFAULT_CLUSTER_WIDE_RETRY_INTERVAL_MILLIS = 50;
+
+    private TokenIssuanceLockManagerFactory() {
+
+    }
+
+    public static TokenIssuanceLockManager createDefaultLockManager() {
+
+        long slowWaitThresholdMillis = getLongProperty(SLOW_WAIT_THRESHOLD_MILLIS,
+                DEFAULT_SLOW_WAIT_THRESHOLD_MILLIS);
+        StripedTokenIssuanceLockManager stripedLockManager = new StripedTokenIssuanceLockManager(
+                (int) getLongProperty(STRIPE_COUNT, DEFAULT_STRIPE_COUNT), slowWaitThresholdMillis);
+        if (!Boolean.parseBoolean(IdentityUtil.getProperty(CLUSTER_WIDE_ENABLE))) {
+            return stripedLockManager;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Cluster wide token issuance lock is enabled.");
+        }
+        return new JDBCTokenIssuanceLockManager(stripedLockManager,
+                getLongProperty(CLUSTER_WIDE_LEASE_MILLIS, DEFAULT_CLUSTER_WIDE_LEASE_MILLIS),
+                getLongProperty(CLUSTER_WIDE_ACQUIRE_TIMEOUT_MILLIS, DEFAULT_CLUSTER_WIDE_ACQUIRE_TIMEOUT_MILLIS),
+                getLongProperty(CLUSTER_WIDE_RETRY_INTERVAL_MILLIS, DEFAULT_CLUSTER_WIDE_RETRY_INTERVAL_MILLIS),
+                slowWaitThresholdMillis);
+    }
+}
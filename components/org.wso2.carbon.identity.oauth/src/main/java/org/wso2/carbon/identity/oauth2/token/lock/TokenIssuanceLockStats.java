@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.lock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock wait statistics of a {@link TokenIssuanceLockManager}.
+ */
+public class TokenIssuanceLockStats {
+
+    private final AtomicLong acquisitionCount = new AtomicLong();
+    private final AtomicLong contendedAcquisitionCount = new AtomicLong();
+    private final AtomicLong slowAcquisitionCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Record an acquisition of a lock.
+     *
+     * @param waitNanos Time spent waiting for the lock. Zero if the lock was free.
+     * @param slow      Whether the wait exceeded the configured threshold.
+     */
+    public void recordAcquisition(long waitNanos, boolean slow) {
+
+        acquisitionCount.incrementAndGet();
+        if (waitNanos <= 0) {
+            return;
+        }
+        contendedAcquisitionCount.incrementAndGet();
+        if (slow) {
+            slowAcquisitionCount.incrementAndGet();
+        }
+        totalWaitNanos.addAndGet(waitNanos);
+        long currentMax;
+        do {
+            currentMax = maxWaitNanos.get();
+        } while (waitNanos > currentMax && !maxWaitNanos.compareAndSet(currentMax, waitNanos));
+    }
+
+    public long getAcquisitionCount() {
+
+        return acquisitionCount.get();
+    }
+
+    /**
+     * @return Number of acquisitions which had to wait for another holder of the lock.
+     */
+    public long getContendedAcquisitionCount() {
+
+        return contendedAcquisitionCount.get();
+    }
+
+    /**
+     * @return Number of acquisitions which waited longer than the configured threshold.
+     */
+    public long getSlowAcquisitionCount() {
+
+        return slowAcquisitionCount.get();
+    }
+
+    public long getTotalWaitMillis() {
+
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    public long getMaxWaitMillis() {
+
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    @Override
+    public String toString() {
+
+        return "acquisitions: " + getAcquisitionCount() + ", contended: " + getContendedAcquisitionCount() +
+                ", slow: " + getSlowAcquisitionCount() + ", totalWait: " + getTotalWaitMillis() + "ms, maxWait: " +
+                getMaxWaitMillis() + "ms";
+    }
+}
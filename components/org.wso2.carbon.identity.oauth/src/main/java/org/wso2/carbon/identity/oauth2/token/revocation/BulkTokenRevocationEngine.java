@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.revocation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.oauth.OAuthUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.BulkTokenRevocationDAO;
+import org.wso2.carbon.identity.oauth2.dao.BulkTokenRevocationFilter;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getIntProperty;
+
+/**
+ * Revokes all the access tokens of a tenant, a user store, an application or a user without loading them at once.
+ * <p>
+ * The active and expired tokens matching the filter are read page by page in token id order from each token
+ * partition. Each page is revoked in a single transaction and the cache entries of its tokens are cleared before the
+ * next page is read, so memory use is bounded by the page size (OAuth.TokenRevocation.Bulk.PageSize in identity.xml)
+ * and the revocation can be resumed from the checkpoint kept in {@link BulkTokenRevocationProgress}.
+ */
+public class BulkTokenRevocationEngine {
+
+    private static final Log log = LogFactory.getLog(BulkTokenRevocationEngine.class);
+
+    private static final String PAGE_SIZE = "OAuth.TokenRevocation.Bulk.PageSize";
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    // Keeps the token id lists of a page within the IN list limit of Oracle.
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final BulkTokenRevocationEngine instance = new BulkTokenRevocationEngine();
+
+    private BulkTokenRevocationEngine() {
+
+    }
+
+    public static BulkTokenRevocationEngine getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Revoke all the tokens matching the filter.
+     *
+     * @param filter Filter selecting the tokens to be revoked.
+     * @return Progress of the completed revocation.
+     * @throws IdentityOAuth2Exception When a page could not be read or revoked.
+     */
+    public BulkTokenRevocationProgress revokeTokens(BulkTokenRevocationFilter filter) throws IdentityOAuth2Exception {
+
+        return revokeTokens(new BulkTokenRevocationProgress(filter), null);
+    }
+
+    /**
+     * Revoke the tokens matching the filter of the given progress, starting from its checkpoint.
+     *
+     * @param progress Progress of a new revocation, or of an interrupted revocation to be resumed.
+     * @param listener Listener notified after each page, or null.
+     * @return The given progress, completed.
+     * @throws IdentityOAuth2Exception When a page could not be read or revoked. The progress holds the checkpoint
+     *                                 of the last revoked page.
+     */
+    public BulkTokenRevocationProgress revokeTokens(BulkTokenRevocationProgress progress,
+                                                    BulkTokenRevocationListener listener)
+            throws IdentityOAuth2Exception {
+
+        BulkTokenRevocationFilter filter = progress.getFilter();
+        BulkTokenRevocationDAO revocationDAO = OAuthTokenPersistenceFactory.getInstance().getBulkTokenRevocationDAO();
+        int pageSize = Math.min(getIntProperty(PAGE_SIZE, DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+        long startTime = System.currentTimeMillis();
+
+        List<String> userStoreDomains = getUserStoreDomains(filter);
+        int domainIndex = progress.getUserStoreDomain() == null ? -1 :
+                userStoreDomains.indexOf(progress.getUserStoreDomain());
+        if (domainIndex < 0) {
+            domainIndex = 0;
+            progress.startUserStoreDomain(userStoreDomains.get(0));
+        }
+
+        for (; domainIndex < userStoreDomains.size(); domainIndex++) {
+            String userStoreDomain = userStoreDomains.get(domainIndex);
+            if (!userStoreDomain.equals(progress.getUserStoreDomain())) {
+                progress.startUserStoreDomain(userStoreDomain);
+            }
+            List<AccessTokenDO> page;
+            do {
+                page = revocationDAO.getRevocableAccessTokens(filter, userStoreDomain, progress.getLastTokenId(),
+                        pageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                // Caches are cleared after the tokens are revoked, so that they are not cached again in between.
+                int revokedCount = revocationDAO.revokeAccessTokens(page, userStoreDomain);
+                clearCacheEntries(page);
+                progress.recordPage(page.get(page.size() - 1).getTokenId(), page.size(), revokedCount);
+                if (log.isDebugEnabled()) {
+                    log.debug("Revoked a page of access tokens. " + progress);
+                }
+                if (listener != null) {
+                    listener.onPageRevoked(progress);
+                }
+            } while (page.size() == pageSize);
+        }
+        progress.complete();
+
+        if (progress.getRevokedTokenCount() > 0) {
+            log.info("Revoked " + progress.getRevokedTokenCount() + " access tokens of " + filter + " in " +
+                    progress.getPageCount() + " pages within " + (System.currentTimeMillis() - startTime) + "ms.");
+        } else if (log.isDebugEnabled()) {
+            log.debug("No access tokens to be revoked for " + filter);
+        }
+        return progress;
+    }
+
+    private static void clearCacheEntries(List<AccessTokenDO> page) {
+
+        Set<String> clearedKeys = new HashSet<>();
+        for (AccessTokenDO accessTokenDO : page) {
+            AuthenticatedUser authzUser = accessTokenDO.getAuthzUser();
+            String scope = OAuth2Util.buildScopeString(accessTokenDO.getScope());
+            String userKey = accessTokenDO.getConsumerKey() + ":" + authzUser + ":" +
+                    authzUser.getFederatedIdPName();
+            // Tokens of the same user share these entries, clear them once per page.
+            if (clearedKeys.add(userKey + ":" + scope)) {
+                OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), authzUser, scope);
+            }
+            if (clearedKeys.add(userKey)) {
+                OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), authzUser);
+            }
+            OAuthUtil.clearOAuthCache(accessTokenDO);
+        }
+    }
+
+    private static List<String> getUserStoreDomains(BulkTokenRevocationFilter filter)
+            throws IdentityOAuth2Exception {
+
+        List<String> userStoreDomains = new ArrayList<>();
+        if (filter.getUserStoreDomain() != null) {
+            userStoreDomains.add(filter.getUserStoreDomain());
+            return userStoreDomains;
+        }
+        return OAuth2Util.getTokenPartitionedUserStoreDomains();
+    }
+}
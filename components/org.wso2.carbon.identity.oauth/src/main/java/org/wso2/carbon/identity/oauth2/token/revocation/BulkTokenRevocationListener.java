@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.revocation;
+
+/**
+ * Notified by the {@link BulkTokenRevocationEngine} after each page of tokens is revoked and its cache entries are
+ * cleared, e.g. to report the progress or to persist the checkpoint of the revocation.
+ */
+public interface BulkTokenRevocationListener {
+
+    /**
+     * Invoked after a page of tokens is revoked.
+     *
+     * @param progress Progress of the revocation, including the checkpoint after the page.
+     */
+    void onPageRevoked(BulkTokenRevocationProgress progress);
+}
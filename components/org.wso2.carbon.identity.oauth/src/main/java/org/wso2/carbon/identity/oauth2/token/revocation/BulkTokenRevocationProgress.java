@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.revocation;
+
+import org.wso2.carbon.identity.oauth2.dao.BulkTokenRevocationFilter;
+
+import java.io.Serializable;
+
+/**
+ * Progress of a bulk token revocation.
+ * <p>
+ * The user store domain and the last token id form the checkpoint of the revocation. A caller that persists them
+ * after each page, e.g. from a {@link BulkTokenRevocationListener}, can resume an interrupted revocation by passing
+ * a progress created with {@link #BulkTokenRevocationProgress(BulkTokenRevocationFilter, String, String)} to
+ * {@link BulkTokenRevocationEngine#revokeTokens(BulkTokenRevocationProgress, BulkTokenRevocationListener)}.
+ * Starting over is also safe, as only tokens which are not revoked yet are selected.
+ */
+public class BulkTokenRevocationProgress implements Serializable {
+
+    private static final long serialVersionUID = 6154896235748237751L;
+
+    private final BulkTokenRevocationFilter filter;
+    private volatile String userStoreDomain;
+    private volatile String lastTokenId;
+    private volatile long revokedTokenCount;
+    private volatile long processedTokenCount;
+    private volatile int pageCount;
+    private volatile boolean completed;
+
+    /**
+     * Create the progress of a new revocation.
+     *
+     * @param filter Filter selecting the tokens to be revoked.
+     */
+    public BulkTokenRevocationProgress(BulkTokenRevocationFilter filter) {
+
+        this(filter, null, null);
+    }
+
+    /**
+     * Create the progress of a revocation resumed from a checkpoint.
+     *
+     * @param filter          Filter selecting the tokens to be revoked.
+     * @param userStoreDomain User store domain of the partition being revoked at the checkpoint.
+     * @param lastTokenId     Id of the last token revoked before the checkpoint.
+     */
+    public BulkTokenRevocationProgress(BulkTokenRevocationFilter filter, String userStoreDomain, String lastTokenId) {
+
+        this.filter = filter;
+        this.userStoreDomain = userStoreDomain;
+        this.lastTokenId = lastTokenId;
+    }
+
+    public BulkTokenRevocationFilter getFilter() {
+
+        return filter;
+    }
+
+    /**
+     * @return User store domain of the token partition being revoked, or null if the revocation has not started.
+     */
+    public String getUserStoreDomain() {
+
+        return userStoreDomain;
+    }
+
+    /**
+     * @return Id of the last token of the last revoked page of the current partition.
+     */
+    public String getLastTokenId() {
+
+        return lastTokenId;
+    }
+
+    /**
+     * @return Number of tokens revoked by this run.
+     */
+    public long getRevokedTokenCount() {
+
+        return revokedTokenCount;
+    }
+
+    /**
+     * @return Number of tokens read by this run, including those revoked concurrently by other requests.
+     */
+    public long getProcessedTokenCount() {
+
+        return processedTokenCount;
+    }
+
+    public int getPageCount() {
+
+        return pageCount;
+    }
+
+    public boolean isCompleted() {
+
+        return completed;
+    }
+
+    void startUserStoreDomain(String userStoreDomain) {
+
+        this.userStoreDomain = userStoreDomain;
+        this.lastTokenId = null;
+    }
+
+    void recordPage(String lastTokenId, int processedCount, int revokedCount) {
+
+        this.lastTokenId = lastTokenId;
+        this.processedTokenCount += processedCount;
+        this.revokedTokenCount += revokedCount;
+        this.pageCount++;
+    }
+
+    void complete() {
+
+        this.completed = true;
+    }
+
+    @Override
+    public String toString() {
+
+        return "filter: {" + filter + "}, user store domain: " + userStoreDomain + ", pages: " + pageCount +
+                ", processed tokens: " + processedTokenCount + ", revoked tokens: " + revokedTokenCount +
+                ", completed: " + completed;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches scopes against the allowed scope patterns of the OAuth configuration, which are regular expressions
+ * matched against the whole scope.
+ * <p>
+ * The patterns are classified once when the matcher is built. Literal patterns such as openid are kept in a hash set,
+ * prefix patterns such as internal_.* are kept in a prefix trie, and only the remaining patterns are compiled and
+ * evaluated as regular expressions. Leading ^ and trailing $ anchors are redundant for a whole match and are ignored
+ * while classifying a pattern.
+ */
+public class AllowedScopeMatcher {
+
+    private static final Log log = LogFactory.getLog(AllowedScopeMatcher.class);
+
+    private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+    private static final String ANY_SUFFIX = ".*";
+
+    private final Set<String> literals = new HashSet<>();
+    private final PrefixNode prefixes = new PrefixNode();
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final boolean empty;
+
+    /**
+     * Build a matcher of the allowed scope patterns.
+     *
+     * @param allowedScopes Allowed scope patterns.
+     */
+    public AllowedScopeMatcher(List<String> allowedScopes) {
+
+        List<String> scopePatterns = allowedScopes == null ? Collections.emptyList() : allowedScopes;
+        for (String scopePattern : scopePatterns) {
+            if (scopePattern != null) {
+                addPattern(scopePattern);
+            }
+        }
+        empty = literals.isEmpty() && !prefixes.hasEntries() && patterns.isEmpty();
+    }
+
+    /**
+     * Check whether the scope matches any of the allowed scope patterns.
+     *
+     * @param scope Scope to be checked.
+     * @return true if the scope is allowed.
+     */
+    public boolean matches(String scope) {
+
+        if (empty || scope == null) {
+            return false;
+        }
+        if (literals.contains(scope) || prefixes.matchesPrefixOf(scope)) {
+            return true;
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(scope).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+
+        return empty;
+    }
+
+    private void addPattern(String scopePattern) {
+
+        String body = scopePattern;
+        if (body.startsWith("^")) {
+            body = body.substring(1);
+        }
+        if (body.endsWith("$") && !body.endsWith("\\$")) {
+            body = body.substring(0, body.length() - 1);
+        }
+        if (isLiteral(body)) {
+            literals.add(body);
+            return;
+        }
+        if (body.endsWith(ANY_SUFFIX)) {
+            String prefix = body.substring(0, body.length() - ANY_SUFFIX.length());
+            if (isLiteral(prefix)) {
+                prefixes.add(prefix);
+                return;
+            }
+        }
+        try {
+            patterns.add(Pattern.compile(scopePattern));
+        } catch (PatternSyntaxException e) {
+            log.error("Invalid allowed scope pattern: " + scopePattern + " is ignored.", e);
+        }
+    }
+
+    private static boolean isLiteral(String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            if (REGEX_META_CHARACTERS.indexOf(value.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the regex dot, which does not match line terminators, matches each character of the value from the
+     * given index.
+     */
+    private static boolean isAnySuffix(String value, int beginIndex) {
+
+        for (int i = beginIndex; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == 0x85 || c == 0x2028 || c == 0x2029) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Node of a trie of scope prefixes, with the children sorted by character.
+     */
+    private static class PrefixNode {
+
+        private final Map<Character, PrefixNode> children = new TreeMap<>();
+        private boolean prefixEnd;
+
+        void add(String prefix) {
+
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new PrefixNode());
+            }
+            node.prefixEnd = true;
+        }
+
+        boolean hasEntries() {
+
+            return prefixEnd || !children.isEmpty();
+        }
+
+        boolean matchesPrefixOf(String scope) {
+
+            PrefixNode node = this;
+            for (int i = 0; ; i++) {
+                if (node.prefixEnd && isAnySuffix(scope, i)) {
+                    return true;
+                }
+                if (i == scope.length()) {
+                    return false;
+                }
+                node = node.children.get(scope.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getIntProperty;
+
+/**
+ * Matches URLs against the callback URLs registered as a regex, i.e. with the
+ * {@link OAuthConstants#CALLBACK_URL_REGEXP_PREFIX} prefix.
+ * <p>
+ * The compiled patterns are kept in a bounded LRU cache keyed by the registered callback URL
+ * (OAuth.CallbackURLRegex.CacheSize in identity.xml), so that a pattern is not compiled again on each authorize or
+ * logout request. A match taking longer than OAuth.CallbackURLRegex.MatchTimeoutMillis is abandoned and treated as a
+ * mismatch, so that a regex with catastrophic backtracking cannot tie up the request threads.
+ */
+public class CallbackURLMatcher {
+
+    private static final Log log = LogFactory.getLog(CallbackURLMatcher.class);
+
+    private static final String CACHE_SIZE = "OAuth.CallbackURLRegex.CacheSize";
+    private static final String MATCH_TIMEOUT_MILLIS = "OAuth.CallbackURLRegex.MatchTimeoutMillis";
+    private static final int DEFAULT_CACHE_SIZE = 1000;
+    private static final int DEFAULT_MATCH_TIMEOUT_MILLIS = 200;
+
+    private static volatile CallbackURLMatcher instance;
+
+    private final long matchTimeoutNanos;
+    private final Map<String, Pattern> patterns;
+
+    CallbackURLMatcher(int cacheSize, long matchTimeoutMillis) {
+
+        this.matchTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(matchTimeoutMillis);
+        this.patterns = new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = -3253627935254395386L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public static CallbackURLMatcher getInstance() {
+
+        if (instance == null) {
+            synchronized (CallbackURLMatcher.class) {
+                if (instance == null) {
+                    instance = new CallbackURLMatcher(getIntProperty(CACHE_SIZE, DEFAULT_CACHE_SIZE),
+                            getIntProperty(MATCH_TIMEOUT_MILLIS, DEFAULT_MATCH_TIMEOUT_MILLIS));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Check whether a URL matches the regex of a registered callback URL.
+     *
+     * @param registeredCallbackUrl Registered callback URL.
+     * @param url                   URL to be matched.
+     * @return true if the registered callback URL is a regex and the URL matches it within the match timeout.
+     */
+    public boolean matches(String registeredCallbackUrl, String url) {
+
+        if (registeredCallbackUrl == null || url == null ||
+                !registeredCallbackUrl.startsWith(OAuthConstants.CALLBACK_URL_REGEXP_PREFIX)) {
+            return false;
+        }
+        Pattern pattern = getPattern(registeredCallbackUrl);
+        if (pattern == null) {
+            return false;
+        }
+        try {
+            return pattern.matcher(new DeadlineCharSequence(url, System.nanoTime() + matchTimeoutNanos)).matches();
+        } catch (MatchTimeoutException e) {
+            log.warn("Matching the URL: " + url + " against the registered callback URL: " + registeredCallbackUrl +
+                    " did not complete within " + TimeUnit.NANOSECONDS.toMillis(matchTimeoutNanos) +
+                    "ms. The URL is considered as not matching.");
+            return false;
+        }
+    }
+
+    /**
+     * Remove the compiled pattern of a registered callback URL, e.g. when the callback URL of an application is
+     * updated.
+     *
+     * @param registeredCallbackUrl Registered callback URL.
+     */
+    public void clear(String registeredCallbackUrl) {
+
+        if (registeredCallbackUrl == null) {
+            return;
+        }
+        synchronized (patterns) {
+            patterns.remove(registeredCallbackUrl);
+        }
+    }
+
+    int getCachedPatternCount() {
+
+        synchronized (patterns) {
+            return patterns.size();
+        }
+    }
+
+    private Pattern getPattern(String registeredCallbackUrl) {
+
+        synchronized (patterns) {
+            Pattern pattern = patterns.get(registeredCallbackUrl);
+            if (pattern != null) {
+                return pattern;
+            }
+        }
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(registeredCallbackUrl.substring(
+                    OAuthConstants.CALLBACK_URL_REGEXP_PREFIX.length()));
+        } catch (PatternSyntaxException e) {
+            log.warn("Invalid regex in the registered callback URL: " + registeredCallbackUrl, e);
+            return null;
+        }
+        synchronized (patterns) {
+            patterns.put(registeredCallbackUrl, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * Character sequence which fails the match once the deadline has passed. The regex engine reads the input
+     * through {@link #charAt(int)} on every step, including the backtracking ones.
+     */
+    private static class DeadlineCharSequence implements CharSequence {
+
+        // The clock is read once per this many character reads.
+        private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+        private final CharSequence value;
+        private final long deadline;
+        private int readCount;
+
+        DeadlineCharSequence(CharSequence value, long deadline) {
+
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int length() {
+
+            return value.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+
+            if (++readCount % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                throw new MatchTimeoutException();
+            }
+            return value.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+
+            return new DeadlineCharSequence(value.subSequence(start, end), deadline);
+        }
+
+        @Override
+        public String toString() {
+
+            return value.toString();
+        }
+    }
+
+    /**
+     * Thrown when a match exceeds its deadline.
+     */
+    private static class MatchTimeoutException extends RuntimeException {
+
+        private static final long serialVersionUID = 8297466245387390315L;
+
+        MatchTimeoutException() {
+
+            // The stack trace is not needed to abandon the match.
+            super(null, null, false, false);
+        }
+    }
+}
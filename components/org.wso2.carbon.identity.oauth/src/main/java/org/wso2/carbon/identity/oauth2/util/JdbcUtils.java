@@ -20,6 +20,9 @@ import org.wso2.carbon.database.utils.jdbc.JdbcTemplate;
 import org.wso2.carbon.database.utils.jdbc.exceptions.DataAccessException;
 import org.wso2.carbon.identity.core.persistence.JDBCPersistenceManager;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+
 import static org.wso2.carbon.identity.application.mgt.ApplicationConstants.DB2;
 import static org.wso2.carbon.identity.application.mgt.ApplicationConstants.H2;
 import static org.wso2.carbon.identity.application.mgt.ApplicationConstants.INFORMIX;
@@ -89,6 +92,34 @@ public class JdbcUtils {
         return isDBTypeOf(INFORMIX);
     }
 
+    /**
+     * Limit the number of rows returned by the given select query, using the syntax of the connected database.
+     *
+     * @param sql        Select query.
+     * @param limit      Maximum number of rows to be returned.
+     * @param connection Database connection.
+     * @return Query limited to the given number of rows.
+     * @throws SQLException If the database metadata could not be read.
+     */
+    public static String limitPage(String sql, int limit, Connection connection) throws SQLException {
+
+        String driverName = connection.getMetaData().getDriverName();
+        if (driverName.contains("MySQL")
+                || driverName.contains("MariaDB")
+                || driverName.contains("H2")
+                || driverName.contains("PostgreSQL")) {
+            return sql + " LIMIT " + limit;
+        } else if (connection.getMetaData().getDatabaseProductName().contains("DB2")) {
+            return sql + " FETCH FIRST " + limit + " ROWS ONLY";
+        } else if (driverName.contains("MS SQL") || driverName.contains("Microsoft")) {
+            return sql.replaceFirst("^SELECT ", "SELECT TOP " + limit + " ");
+        } else if (driverName.contains("Informix")) {
+            // Driver name = "IBM Informix JDBC Driver for IBM Informix Dynamic Server"
+            return sql.replaceFirst("^SELECT ", "SELECT FIRST " + limit + " ");
+        }
+        return "SELECT * FROM (" + sql + ") WHERE ROWNUM <= " + limit;
+    }
+
     /**
      * Check whether the DB type string contains in the driver name or db product name.
      *
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+/**
+ * Utility methods to read numeric configurations of the OAuth components from identity.xml.
+ */
+public class OAuth2ConfigUtil {
+
+    private static final Log log = LogFactory.getLog(OAuth2ConfigUtil.class);
+
+    private OAuth2ConfigUtil() {
+
+    }
+
+    /**
+     * Read a positive long value.
+     *
+     * @param propertyName Name of the property in identity.xml.
+     * @param defaultValue Value used if the property is not configured, or is not a positive number.
+     * @return Configured value, or the default value.
+     */
+    public static long getLongProperty(String propertyName, long defaultValue) {
+
+        return getLongProperty(propertyName, defaultValue, 1);
+    }
+
+    /**
+     * Read a long value.
+     *
+     * @param propertyName Name of the property in identity.xml.
+     * @param defaultValue Value used if the property is not configured, or is not a number of at least minValue.
+     * @param minValue     Smallest accepted value.
+     * @return Configured value, or the default value.
+     */
+    public static long getLongProperty(String propertyName, long defaultValue, long minValue) {
+
+        String value = IdentityUtil.getProperty(propertyName);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                long parsedValue = Long.parseLong(value.trim());
+                if (parsedValue >= minValue) {
+                    return parsedValue;
+                }
+            } catch (NumberFormatException e) {
+                // Logged below along with the values out of range.
+            }
+            log.warn("Invalid value: " + value + " configured for " + propertyName + ". Using the default value: " +
+                    defaultValue);
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Read a positive int value.
+     *
+     * @param propertyName Name of the property in identity.xml.
+     * @param defaultValue Value used if the property is not configured, or is not a positive number.
+     * @return Configured value, or the default value.
+     */
+    public static int getIntProperty(String propertyName, int defaultValue) {
+
+        return getIntProperty(propertyName, defaultValue, 1);
+    }
+
+    /**
+     * Read an int value.
+     *
+     * @param propertyName Name of the property in identity.xml.
+     * @param defaultValue Value used if the property is not configured, or is not a number of at least minValue.
+     * @param minValue     Smallest accepted value.
+     * @return Configured value, or the default value.
+     */
+    public static int getIntProperty(String propertyName, int defaultValue, int minValue) {
+
+        long value = getLongProperty(propertyName, defaultValue, minValue);
+        return value > Integer.MAX_VALUE ? defaultValue : (int) value;
+    }
+}
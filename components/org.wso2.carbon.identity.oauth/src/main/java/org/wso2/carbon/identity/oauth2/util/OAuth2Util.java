@@ -26,7 +26,6 @@ import com.nimbusds.jose.JWEEncrypter;
 import com.nimbusds.jose.JWEHeader;
 import com.nimbusds.jose.JWEObject;
 import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.JWSSigner;
 import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.Payload;
@@ -83,10 +82,12 @@ import org.wso2.carbon.identity.core.util.IdentityIOStreamUtils;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.IdentityOAuthAdminException;
-import org.wso2.carbon.identity.oauth.cache.AppInfoCache;
+import org.wso2.carbon.identity.oauth.cache.AppInfoCacheLoader;
 import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
+import org.wso2.carbon.identity.oauth.cache.SpOAuth2ExpiryTimeConfigCache;
+import org.wso2.carbon.identity.oauth.cache.SpOAuth2ExpiryTimeConfigCacheKey;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -116,11 +117,13 @@ import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.ClientCredentialDO;
 import org.wso2.carbon.identity.oauth2.token.JWTTokenIssuer;
+import org.wso2.carbon.identity.oauth2.token.OAuthTokenIssuerIndex;
 import org.wso2.carbon.identity.oauth2.token.OAuthTokenReqMessageContext;
 import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinder;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinding;
 import org.wso2.carbon.identity.oauth2.token.handlers.grant.AuthorizationGrantHandler;
+import org.wso2.carbon.identity.oauth2.validators.OAuth2TokenValidationMessageContext;
 import org.wso2.carbon.identity.openidconnect.model.Constants;
 import org.wso2.carbon.identity.openidconnect.model.RequestedClaim;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
@@ -166,9 +169,12 @@ import java.sql.Timestamp;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -210,6 +216,7 @@ public class OAuth2Util {
 
     public static final String REMOTE_ACCESS_TOKEN = "REMOTE_ACCESS_TOKEN";
     public static final String JWT_ACCESS_TOKEN = "JWT_ACCESS_TOKEN";
+    public static final String SIGNED_JWT = "SignedJWT";
     public static final String ACCESS_TOKEN_DO = "AccessTokenDo";
     public static final String OAUTH2_VALIDATION_MESSAGE_CONTEXT = "OAuth2TokenValidationMessageContext";
     public static final String CONFIG_ELEM_OAUTH = "OAuth";
@@ -316,6 +323,8 @@ public class OAuth2Util {
     private static ThreadLocal<Integer> clientTenantId = new ThreadLocal<>();
     private static ThreadLocal<OAuthTokenReqMessageContext> tokenRequestContext = new ThreadLocal<>();
     private static ThreadLocal<OAuthAuthzReqMessageContext> authzRequestContext = new ThreadLocal<>();
+    // Active access tokens looked up in a batch, mapped by their persisted identifiers. Null if not active.
+    private static ThreadLocal<Map<String, AccessTokenDO>> prefetchedAccessTokens = new ThreadLocal<>();
     //Precompile PKCE Regex pattern for performance improvement
     private static Pattern pkceCodeVerifierPattern = Pattern.compile("[\\w\\-\\._~]+");
     // System flag to allow the weak keys (key length less than 2048) to be used for the signing.
@@ -323,6 +332,8 @@ public class OAuth2Util {
 
     private static Map<Integer, Certificate> publicCerts = new ConcurrentHashMap<Integer, Certificate>();
     private static Map<Integer, Key> privateKeys = new ConcurrentHashMap<Integer, Key>();
+    private static final Map<Integer, Object> signingKeyLoadLocks = new ConcurrentHashMap<>();
+    private static volatile OAuthTokenIssuerIndex oauthTokenIssuerIndex;
 
     // Supported Signature Algorithms
     private static final String NONE = "NONE";
@@ -903,6 +914,27 @@ public class OAuth2Util {
         return partitionedSql;
     }
 
+    /**
+     * Returns the user store domains whose access tokens are kept in separate tables. This is the primary domain,
+     * followed by the mapped domains when access token partitioning and username assertion are enabled.
+     *
+     * @return User store domains to pass to {@link #getTokenPartitionedSqlByUserStore(String, String)}.
+     * @throws IdentityOAuth2Exception If the user store domain mappings cannot be read.
+     */
+    public static List<String> getTokenPartitionedUserStoreDomains() throws IdentityOAuth2Exception {
+
+        List<String> userStoreDomains = new ArrayList<>();
+        userStoreDomains.add(IdentityUtil.getPrimaryDomainName());
+        if (OAuth2Util.checkAccessTokenPartitioningEnabled() && OAuth2Util.checkUserNameAssertionEnabled()) {
+            for (String userStoreDomain : OAuth2Util.getAvailableUserStoreDomainMappings().keySet()) {
+                if (!userStoreDomains.contains(userStoreDomain)) {
+                    userStoreDomains.add(userStoreDomain);
+                }
+            }
+        }
+        return userStoreDomains;
+    }
+
     /**
      * Returns the updated sql using username.
      * <p>
@@ -1695,10 +1727,17 @@ public class OAuth2Util {
             }
         }
 
-        // cache miss, load the access token info from the database.
+        // cache miss, load the access token info from the database, unless it was already looked up in a batch.
         if (accessTokenDO == null) {
-            accessTokenDO = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
-                    .getAccessToken(accessTokenIdentifier, includeExpired);
+            Map<String, AccessTokenDO> prefetchedAccessTokenDOs = prefetchedAccessTokens.get();
+            if (!includeExpired && prefetchedAccessTokenDOs != null &&
+                    prefetchedAccessTokenDOs.containsKey(accessTokenIdentifier)) {
+                // A prefetched token is handed out once, as callers may modify it.
+                accessTokenDO = prefetchedAccessTokenDOs.remove(accessTokenIdentifier);
+            } else {
+                accessTokenDO = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
+                        .getAccessToken(accessTokenIdentifier, includeExpired);
+            }
         }
 
         if (accessTokenDO == null) {
@@ -1718,6 +1757,66 @@ public class OAuth2Util {
         return accessTokenDO;
     }
 
+    /**
+     * Look up the active access tokens of a batch of token identifiers at once, so that finding each of them in the
+     * current thread afterwards does not hit the database. Identifiers are resolved through the candidate token
+     * issuers as in {@link #findAccessToken(String, boolean)}, and tokens already in the OAuthCache are not looked
+     * up. {@link #clearPrefetchedAccessTokens()} has to be called once the batch is processed.
+     *
+     * @param tokenIdentifiers Token identifiers of the batch.
+     * @throws IdentityOAuth2Exception Error while looking up the access tokens.
+     */
+    public static void prefetchAccessTokens(Collection<String> tokenIdentifiers) throws IdentityOAuth2Exception {
+
+        Set<String> persistedIdentifiers = new LinkedHashSet<>();
+        for (String tokenIdentifier : tokenIdentifiers) {
+            Map<String, OauthTokenIssuer> candidateTokenIssuerMap =
+                    getOAuthTokenIssuerIndex().getCandidateIssuers(tokenIdentifier);
+            if (candidateTokenIssuerMap == null) {
+                continue;
+            }
+            for (OauthTokenIssuer oauthTokenIssuer : candidateTokenIssuerMap.values()) {
+                String persistedIdentifier = tokenIdentifier;
+                try {
+                    if (oauthTokenIssuer.usePersistedAccessTokenAlias()) {
+                        persistedIdentifier = oauthTokenIssuer.getAccessTokenHash(tokenIdentifier);
+                    }
+                } catch (OAuthSystemException e) {
+                    // The issuer cannot have issued the token, it is skipped when the token is validated as well.
+                    continue;
+                }
+                CacheEntry cacheEntry = OAuthCache.getInstance().getValueFromCache(
+                        new OAuthCacheKey(persistedIdentifier));
+                if (!(cacheEntry instanceof AccessTokenDO)) {
+                    persistedIdentifiers.add(persistedIdentifier);
+                }
+            }
+        }
+        if (persistedIdentifiers.isEmpty()) {
+            return;
+        }
+
+        Map<String, AccessTokenDO> accessTokenDOs = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO()
+                .getAccessTokens(persistedIdentifiers);
+        Map<String, AccessTokenDO> prefetchedAccessTokenDOs = new HashMap<>();
+        for (String persistedIdentifier : persistedIdentifiers) {
+            prefetchedAccessTokenDOs.put(persistedIdentifier, accessTokenDOs.get(persistedIdentifier));
+        }
+        prefetchedAccessTokens.set(prefetchedAccessTokenDOs);
+        if (log.isDebugEnabled()) {
+            log.debug("Looked up " + persistedIdentifiers.size() + " access token identifiers of a batch of " +
+                    tokenIdentifiers.size() + " tokens, " + accessTokenDOs.size() + " of them are active.");
+        }
+    }
+
+    /**
+     * Clear the access tokens looked up by {@link #prefetchAccessTokens(Collection)} in the current thread.
+     */
+    public static void clearPrefetchedAccessTokens() {
+
+        prefetchedAccessTokens.remove();
+    }
+
     public static String getClientIdForAccessToken(String accessTokenIdentifier) throws IdentityOAuth2Exception {
 
         AccessTokenDO accessTokenDO = getAccessTokenDOfromTokenIdentifier(accessTokenIdentifier);
@@ -1746,6 +1845,8 @@ public class OAuth2Util {
 
     /***
      * Return the SP-token Expiry time configuration object when consumer key is given.
+     * The configuration read from the registry is cached per tenant and consumer key in
+     * {@link SpOAuth2ExpiryTimeConfigCache}.
      * @param consumerKey
      * @param tenantId
      * @return A SpOAuth2ExpiryTimeConfiguration Object
@@ -1754,100 +1855,129 @@ public class OAuth2Util {
     @Deprecated
     public static SpOAuth2ExpiryTimeConfiguration getSpTokenExpiryTimeConfig(String consumerKey, int tenantId) {
 
-        SpOAuth2ExpiryTimeConfiguration spTokenTimeObject = new SpOAuth2ExpiryTimeConfiguration();
+        SpOAuth2ExpiryTimeConfigCacheKey cacheKey = new SpOAuth2ExpiryTimeConfigCacheKey(consumerKey);
+        SpOAuth2ExpiryTimeConfiguration spTokenTimeObject = SpOAuth2ExpiryTimeConfigCache.getInstance()
+                .getValueFromCache(cacheKey, tenantId);
+        if (spTokenTimeObject != null) {
+            return spTokenTimeObject;
+        }
         try {
-            if (log.isDebugEnabled()) {
-                log.debug("SP wise token expiry time feature is applied for tenant id : " + tenantId
-                        + "and consumer key : " + consumerKey);
-            }
-            IdentityTenantUtil.initializeRegistry(tenantId, getTenantDomain(tenantId));
-            Registry registry = IdentityTenantUtil.getConfigRegistry(tenantId);
-            if (registry.resourceExists(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH)) {
-                Resource resource = registry.get(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH);
-                String jsonString = "{}";
-                Object consumerKeyObject = resource.getProperties().get(consumerKey);
-                if (consumerKeyObject instanceof List) {
-                    if (!((List) consumerKeyObject).isEmpty()) {
-                        jsonString = ((List) consumerKeyObject).get(0).toString();
-                    }
+            spTokenTimeObject = loadSpTokenExpiryTimeConfig(consumerKey, tenantId);
+        } catch (RegistryException e) {
+            log.error("Error while getting data from the registry.", e);
+            // Not cached, so that the registry is read again on the next request.
+            return new SpOAuth2ExpiryTimeConfiguration();
+        } catch (IdentityException e) {
+            log.error("Error while getting the tenant domain from tenant id : " + tenantId, e);
+            return new SpOAuth2ExpiryTimeConfiguration();
+        }
+        SpOAuth2ExpiryTimeConfigCache.getInstance().addToCache(cacheKey, spTokenTimeObject, tenantId);
+        return spTokenTimeObject;
+    }
+
+    /**
+     * Clear the cached SP-token expiry time configuration of the given application.
+     *
+     * @param consumerKey Consumer key of the application.
+     * @param tenantId    Tenant id of the application.
+     */
+    public static void clearSpTokenExpiryTimeConfigCache(String consumerKey, int tenantId) {
+
+        SpOAuth2ExpiryTimeConfigCache.getInstance().clearCacheEntry(
+                new SpOAuth2ExpiryTimeConfigCacheKey(consumerKey), tenantId);
+    }
+
+    private static SpOAuth2ExpiryTimeConfiguration loadSpTokenExpiryTimeConfig(String consumerKey, int tenantId)
+            throws RegistryException, IdentityException {
+
+        SpOAuth2ExpiryTimeConfiguration spTokenTimeObject = new SpOAuth2ExpiryTimeConfiguration();
+        if (log.isDebugEnabled()) {
+            log.debug("SP wise token expiry time feature is applied for tenant id : " + tenantId
+                    + "and consumer key : " + consumerKey);
+        }
+        IdentityTenantUtil.initializeRegistry(tenantId, getTenantDomain(tenantId));
+        Registry registry = IdentityTenantUtil.getConfigRegistry(tenantId);
+        if (registry.resourceExists(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH)) {
+            Resource resource = registry.get(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH);
+            String jsonString = "{}";
+            Object consumerKeyObject = resource.getProperties().get(consumerKey);
+            if (consumerKeyObject instanceof List) {
+                if (!((List) consumerKeyObject).isEmpty()) {
+                    jsonString = ((List) consumerKeyObject).get(0).toString();
                 }
-                JSONObject spTimeObject = new JSONObject(jsonString);
-                if (spTimeObject.length() > 0) {
-                    if (spTimeObject.has(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
-                            !spTimeObject.isNull(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
-                        try {
-                            spTokenTimeObject.setUserAccessTokenExpiryTime(Long.parseLong(spTimeObject
-                                    .get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
-                            if (log.isDebugEnabled()) {
-                                log.debug("The user access token expiry time :" + spTimeObject
-                                        .get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
-                                        "  for application id : " + consumerKey);
-                            }
-                        } catch (NumberFormatException e) {
-                            String errorMsg = String.format(
-                                    "Invalid value provided as user access token expiry time for consumer " +
-                                            "key %s, tenant id : %d. Given value: %s, Expected a long value",
-                                    consumerKey, tenantId,
-                                    spTimeObject.get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
-                            log.error(errorMsg, e);
+            }
+            JSONObject spTimeObject = new JSONObject(jsonString);
+            if (spTimeObject.length() > 0) {
+                if (spTimeObject.has(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
+                        !spTimeObject.isNull(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
+                    try {
+                        spTokenTimeObject.setUserAccessTokenExpiryTime(Long.parseLong(spTimeObject
+                                .get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
+                        if (log.isDebugEnabled()) {
+                            log.debug("The user access token expiry time :" + spTimeObject
+                                    .get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
+                                    "  for application id : " + consumerKey);
                         }
-                    } else {
-                        spTokenTimeObject.setUserAccessTokenExpiryTime(OAuthServerConfiguration.getInstance()
-                                .getUserAccessTokenValidityPeriodInSeconds() * 1000);
+                    } catch (NumberFormatException e) {
+                        String errorMsg = String.format(
+                                "Invalid value provided as user access token expiry time for consumer " +
+                                        "key %s, tenant id : %d. Given value: %s, Expected a long value",
+                                consumerKey, tenantId,
+                                spTimeObject.get(USER_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
+                        log.error(errorMsg, e);
                     }
+                } else {
+                    spTokenTimeObject.setUserAccessTokenExpiryTime(OAuthServerConfiguration.getInstance()
+                            .getUserAccessTokenValidityPeriodInSeconds() * 1000);
+                }
 
-                    if (spTimeObject.has(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
-                            !spTimeObject.isNull(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
-                        try {
-                            spTokenTimeObject.setApplicationAccessTokenExpiryTime(Long.parseLong(spTimeObject
-                                    .get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
-                            if (log.isDebugEnabled()) {
-                                log.debug("The application access token expiry time :" + spTimeObject
-                                        .get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
-                                        "  for application id : " + consumerKey);
-                            }
-                        } catch (NumberFormatException e) {
-                            String errorMsg = String.format(
-                                    "Invalid value provided as application access token expiry time for consumer " +
-                                            "key %s, tenant id : %d. Given value: %s, Expected a long value ",
-                                    consumerKey, tenantId,
-                                    spTimeObject.get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
-                            log.error(errorMsg, e);
+                if (spTimeObject.has(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
+                        !spTimeObject.isNull(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
+                    try {
+                        spTokenTimeObject.setApplicationAccessTokenExpiryTime(Long.parseLong(spTimeObject
+                                .get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
+                        if (log.isDebugEnabled()) {
+                            log.debug("The application access token expiry time :" + spTimeObject
+                                    .get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
+                                    "  for application id : " + consumerKey);
                         }
-                    } else {
-                        spTokenTimeObject.setApplicationAccessTokenExpiryTime(OAuthServerConfiguration.getInstance()
-                                .getApplicationAccessTokenValidityPeriodInSeconds() * 1000);
+                    } catch (NumberFormatException e) {
+                        String errorMsg = String.format(
+                                "Invalid value provided as application access token expiry time for consumer " +
+                                        "key %s, tenant id : %d. Given value: %s, Expected a long value ",
+                                consumerKey, tenantId,
+                                spTimeObject.get(APPLICATION_ACCESS_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
+                        log.error(errorMsg, e);
                     }
+                } else {
+                    spTokenTimeObject.setApplicationAccessTokenExpiryTime(OAuthServerConfiguration.getInstance()
+                            .getApplicationAccessTokenValidityPeriodInSeconds() * 1000);
+                }
 
-                    if (spTimeObject.has(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
-                            !spTimeObject.isNull(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
-                        try {
-                            spTokenTimeObject.setRefreshTokenExpiryTime(Long.parseLong(spTimeObject
-                                    .get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
-                            if (log.isDebugEnabled()) {
-                                log.debug("The refresh token expiry time :" + spTimeObject
-                                        .get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
-                                        " for application id : " + consumerKey);
-                            }
-
-                        } catch (NumberFormatException e) {
-                            String errorMsg = String.format(
-                                    "Invalid value provided as refresh token expiry time for consumer key %s, tenant " +
-                                            "id : %d. Given value: %s, Expected a long value",
-                                    consumerKey, tenantId,
-                                    spTimeObject.get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
-                            log.error(errorMsg, e);
+                if (spTimeObject.has(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS) &&
+                        !spTimeObject.isNull(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS)) {
+                    try {
+                        spTokenTimeObject.setRefreshTokenExpiryTime(Long.parseLong(spTimeObject
+                                .get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString()));
+                        if (log.isDebugEnabled()) {
+                            log.debug("The refresh token expiry time :" + spTimeObject
+                                    .get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString() +
+                                    " for application id : " + consumerKey);
                         }
-                    } else {
-                        spTokenTimeObject.setRefreshTokenExpiryTime(OAuthServerConfiguration.getInstance()
-                                .getRefreshTokenValidityPeriodInSeconds() * 1000);
+
+                    } catch (NumberFormatException e) {
+                        String errorMsg = String.format(
+                                "Invalid value provided as refresh token expiry time for consumer key %s, tenant " +
+                                        "id : %d. Given value: %s, Expected a long value",
+                                consumerKey, tenantId,
+                                spTimeObject.get(REFRESH_TOKEN_EXP_TIME_IN_MILLISECONDS).toString());
+                        log.error(errorMsg, e);
                     }
+                } else {
+                    spTokenTimeObject.setRefreshTokenExpiryTime(OAuthServerConfiguration.getInstance()
+                            .getRefreshTokenValidityPeriodInSeconds() * 1000);
                 }
             }
-        } catch (RegistryException e) {
-            log.error("Error while getting data from the registry.", e);
-        } catch (IdentityException e) {
-            log.error("Error while getting the tenant domain from tenant id : " + tenantId, e);
         }
         return spTokenTimeObject;
     }
@@ -2076,16 +2206,8 @@ public class OAuth2Util {
     public static OAuthAppDO getAppInformationByClientId(String clientId)
             throws IdentityOAuth2Exception, InvalidOAuthClientException {
 
-        OAuthAppDO oAuthAppDO = AppInfoCache.getInstance().getValueFromCache(clientId);
-        if (oAuthAppDO != null) {
-            return oAuthAppDO;
-        } else {
-            oAuthAppDO = new OAuthAppDAO().getAppInformation(clientId);
-            if (oAuthAppDO != null) {
-                AppInfoCache.getInstance().addToCache(clientId, oAuthAppDO);
-            }
-            return oAuthAppDO;
-        }
+        return AppInfoCacheLoader.getInstance().getAppInformation(clientId,
+                consumerKey -> new OAuthAppDAO().getAppInformation(consumerKey));
     }
 
     /**
@@ -2818,14 +2940,8 @@ public class OAuth2Util {
             }
 
             int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
-            Key privateKey = getPrivateKey(tenantDomain, tenantId);
-            JWSSigner signer = OAuth2Util.createJWSSigner((RSAPrivateKey) privateKey);
-            JWSHeader.Builder headerBuilder = new JWSHeader.Builder((JWSAlgorithm) signatureAlgorithm);
-            headerBuilder.keyID(getKID(getCertificate(tenantDomain, tenantId), signatureAlgorithm, tenantDomain));
-            headerBuilder.x509CertThumbprint(new Base64URL(getThumbPrint(tenantDomain, tenantId)));
-            SignedJWT signedJWT = new SignedJWT(headerBuilder.build(), jwtClaimsSet);
-            signedJWT.sign(signer);
-            return signedJWT;
+            return TenantSigningMaterialRegistry.getInstance().getSigningMaterial(tenantDomain, tenantId)
+                    .sign(jwtClaimsSet, signatureAlgorithm);
         } catch (JOSEException e) {
             throw new IdentityOAuth2Exception("Error occurred while signing JWT", e);
         }
@@ -2833,43 +2949,79 @@ public class OAuth2Util {
 
     public static Key getPrivateKey(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
 
-        Key privateKey;
-        if (!(privateKeys.containsKey(tenantId))) {
-
-            try {
-                IdentityTenantUtil.initializeRegistry(tenantId, tenantDomain);
-            } catch (IdentityException e) {
-                throw new IdentityOAuth2Exception("Error occurred while loading registry for tenant " + tenantDomain,
-                        e);
+        Key privateKey = privateKeys.get(tenantId);
+        if (privateKey != null) {
+            return privateKey;
+        }
+        // Load the key of a tenant only once, even when the first requests for the tenant arrive concurrently.
+        synchronized (getSigningKeyLoadLock(tenantId)) {
+            privateKey = privateKeys.get(tenantId);
+            if (privateKey == null) {
+                privateKey = loadPrivateKey(tenantDomain, tenantId);
+                //privateKey will not be null always
+                privateKeys.put(tenantId, privateKey);
             }
+        }
+        return privateKey;
+    }
+
+    /**
+     * Load the private key of the tenant from its key store, bypassing the cached keys.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param tenantId     Tenant id.
+     * @return Private key of the tenant.
+     * @throws IdentityOAuth2Exception When failed to load the private key.
+     */
+    static Key loadPrivateKey(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
 
-            // get tenant's key store manager
-            KeyStoreManager tenantKSM = KeyStoreManager.getInstance(tenantId);
+        Key privateKey;
+        try {
+            IdentityTenantUtil.initializeRegistry(tenantId, tenantDomain);
+        } catch (IdentityException e) {
+            throw new IdentityOAuth2Exception("Error occurred while loading registry for tenant " + tenantDomain,
+                    e);
+        }
 
-            if (!tenantDomain.equals(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
-                // derive key store name
-                String ksName = tenantDomain.trim().replace(".", "-");
-                String jksName = ksName + ".jks";
-                // obtain private key
-                privateKey = tenantKSM.getPrivateKey(jksName, tenantDomain);
+        // get tenant's key store manager
+        KeyStoreManager tenantKSM = KeyStoreManager.getInstance(tenantId);
+
+        if (!tenantDomain.equals(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
+            // derive key store name
+            String ksName = tenantDomain.trim().replace(".", "-");
+            String jksName = ksName + ".jks";
+            // obtain private key
+            privateKey = tenantKSM.getPrivateKey(jksName, tenantDomain);
 
-            } else {
-                try {
-                    privateKey = tenantKSM.getDefaultPrivateKey();
-                } catch (Exception e) {
-                    throw new IdentityOAuth2Exception("Error while obtaining private key for super tenant", e);
-                }
-            }
-            //privateKey will not be null always
-            privateKeys.put(tenantId, privateKey);
         } else {
-            //privateKey will not be null because containsKey() true says given key is exist and ConcurrentHashMap
-            // does not allow to store null values
-            privateKey = privateKeys.get(tenantId);
+            try {
+                privateKey = tenantKSM.getDefaultPrivateKey();
+            } catch (Exception e) {
+                throw new IdentityOAuth2Exception("Error while obtaining private key for super tenant", e);
+            }
         }
         return privateKey;
     }
 
+    /**
+     * Remove the cached private key and certificate of the tenant, so that they are loaded from the key store on the
+     * next access.
+     *
+     * @param tenantId Tenant id.
+     */
+    static void clearSigningKeys(int tenantId) {
+
+        synchronized (getSigningKeyLoadLock(tenantId)) {
+            privateKeys.remove(tenantId);
+            publicCerts.remove(tenantId);
+        }
+    }
+
+    private static Object getSigningKeyLoadLock(int tenantId) {
+
+        return signingKeyLoadLocks.computeIfAbsent(tenantId, id -> new Object());
+    }
+
     /**
      * Helper method to add algo into to JWT_HEADER to signature verification.
      *
@@ -2980,55 +3132,73 @@ public class OAuth2Util {
      */
     public static Certificate getCertificate(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
 
-        Certificate publicCert = null;
-
-        if (!(publicCerts.containsKey(tenantId))) {
-            if (log.isDebugEnabled()) {
-                log.debug(String.format("Obtaining certificate for the tenant %s", tenantDomain));
-            }
-            try {
-                IdentityTenantUtil.initializeRegistry(tenantId, tenantDomain);
-            } catch (IdentityException e) {
-                throw new IdentityOAuth2Exception("Error occurred while loading registry for tenant " + tenantDomain,
-                        e);
+        Certificate publicCert = publicCerts.get(tenantId);
+        if (publicCert != null) {
+            return publicCert;
+        }
+        synchronized (getSigningKeyLoadLock(tenantId)) {
+            publicCert = publicCerts.get(tenantId);
+            if (publicCert == null) {
+                publicCert = loadCertificate(tenantDomain, tenantId);
+                if (publicCert != null) {
+                    publicCerts.put(tenantId, publicCert);
+                }
             }
+        }
+        return publicCert;
+    }
 
-            // get tenant's key store manager
-            KeyStoreManager tenantKSM = KeyStoreManager.getInstance(tenantId);
+    /**
+     * Load the default signing certificate of the tenant from its key store, bypassing the cached certificates.
+     *
+     * @param tenantDomain Tenant Domain as a String.
+     * @param tenantId     Tenant ID as an integer.
+     * @return Default Signing Certificate of the tenant domain.
+     * @throws IdentityOAuth2Exception When failed to load the certificate for the requested tenant.
+     */
+    static Certificate loadCertificate(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
 
-            KeyStore keyStore = null;
-            if (!tenantDomain.equals(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
-                // derive key store name
-                String ksName = tenantDomain.trim().replace(".", "-");
-                String jksName = ksName + ".jks";
-                if (log.isDebugEnabled()) {
-                    log.debug(String.format("Loading default tenant certificate for tenant : %s from the KeyStore" +
-                            " %s", tenantDomain, ksName));
-                }
-                try {
-                    keyStore = tenantKSM.getKeyStore(jksName);
-                    publicCert = keyStore.getCertificate(tenantDomain);
-                } catch (KeyStoreException e) {
-                    throw new IdentityOAuth2Exception("Error occurred while loading public certificate for tenant: " +
-                            tenantDomain, e);
-                } catch (Exception e) {
-                    throw new IdentityOAuth2Exception("Error occurred while loading Keystore for tenant: " +
-                            tenantDomain, e);
-                }
+        Certificate publicCert;
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Obtaining certificate for the tenant %s", tenantDomain));
+        }
+        try {
+            IdentityTenantUtil.initializeRegistry(tenantId, tenantDomain);
+        } catch (IdentityException e) {
+            throw new IdentityOAuth2Exception("Error occurred while loading registry for tenant " + tenantDomain,
+                    e);
+        }
 
-            } else {
-                try {
-                    publicCert = tenantKSM.getDefaultPrimaryCertificate();
-                } catch (Exception e) {
-                    throw new IdentityOAuth2Exception("Error occurred while loading default public " +
-                            "certificate for tenant: " + tenantDomain, e);
-                }
+        // get tenant's key store manager
+        KeyStoreManager tenantKSM = KeyStoreManager.getInstance(tenantId);
+
+        KeyStore keyStore = null;
+        if (!tenantDomain.equals(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME)) {
+            // derive key store name
+            String ksName = tenantDomain.trim().replace(".", "-");
+            String jksName = ksName + ".jks";
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Loading default tenant certificate for tenant : %s from the KeyStore" +
+                        " %s", tenantDomain, ksName));
             }
-            if (publicCert != null) {
-                publicCerts.put(tenantId, publicCert);
+            try {
+                keyStore = tenantKSM.getKeyStore(jksName);
+                publicCert = keyStore.getCertificate(tenantDomain);
+            } catch (KeyStoreException e) {
+                throw new IdentityOAuth2Exception("Error occurred while loading public certificate for tenant: " +
+                        tenantDomain, e);
+            } catch (Exception e) {
+                throw new IdentityOAuth2Exception("Error occurred while loading Keystore for tenant: " +
+                        tenantDomain, e);
             }
+
         } else {
-            publicCert = publicCerts.get(tenantId);
+            try {
+                publicCert = tenantKSM.getDefaultPrimaryCertificate();
+            } catch (Exception e) {
+                throw new IdentityOAuth2Exception("Error occurred while loading default public " +
+                        "certificate for tenant: " + tenantDomain, e);
+            }
         }
         return publicCert;
     }
@@ -3330,17 +3500,38 @@ public class OAuth2Util {
      */
     public static boolean isParsableJWT(String tokenIdentifier) {
 
+        return parseJWT(tokenIdentifier) != null;
+    }
+
+    /**
+     * Return true if the token identifier is a parsable JWT. A signed JWT is added to the token validation message
+     * context, so that the token validators do not parse it again.
+     *
+     * @param tokenIdentifier String JWT token identifier.
+     * @param messageContext  Token validation message context.
+     * @return true for a JWT token.
+     */
+    public static boolean isParsableJWT(String tokenIdentifier, OAuth2TokenValidationMessageContext messageContext) {
+
+        JWT jwt = parseJWT(tokenIdentifier);
+        if (jwt instanceof SignedJWT) {
+            messageContext.addProperty(SIGNED_JWT, jwt);
+        }
+        return jwt != null;
+    }
+
+    private static JWT parseJWT(String tokenIdentifier) {
+
         if (StringUtils.isBlank(tokenIdentifier)) {
-            return false;
+            return null;
         }
         try {
-            JWTParser.parse(tokenIdentifier);
-            return true;
+            return JWTParser.parse(tokenIdentifier);
         } catch (ParseException e) {
             if (log.isDebugEnabled()) {
                 log.debug("Provided token identifier is not a parsable JWT.", e);
             }
-            return false;
+            return null;
         }
     }
 
@@ -3731,7 +3922,8 @@ public class OAuth2Util {
     }
 
     /**
-     * Find access tokenDO from token identifier by chaining through all available token issuers.
+     * Find access tokenDO from token identifier by chaining through all available token issuers. Issuers which
+     * cannot have issued the token are skipped and a persisted identifier is looked up at most once.
      *
      * @param tokenIdentifier access token data object from the validation request.
      * @return AccessTokenDO
@@ -3740,26 +3932,10 @@ public class OAuth2Util {
     public static AccessTokenDO findAccessToken(String tokenIdentifier, boolean includeExpired)
             throws IdentityOAuth2Exception {
 
-        AccessTokenDO accessTokenDO;
-
-        // Get a copy of the list of token issuers .
-        Map<String, OauthTokenIssuer> allOAuthTokenIssuerMap = new HashMap<>(
-                OAuthServerConfiguration.getInstance().getOauthTokenIssuerMap());
-
-        // Differentiate default token issuers and other issuers for better performance.
-        Map<String, OauthTokenIssuer> defaultOAuthTokenIssuerMap = new HashMap<>();
-        extractDefaultOauthTokenIssuers(allOAuthTokenIssuerMap, defaultOAuthTokenIssuerMap);
-
-        // First try default token issuers.
-        accessTokenDO = getAccessTokenDOFromMatchingTokenIssuer(tokenIdentifier, defaultOAuthTokenIssuerMap,
-                includeExpired);
-        if (accessTokenDO != null) {
-            return accessTokenDO;
-        }
-
-        // Loop through other issuer and try to get the hash.
-        accessTokenDO = getAccessTokenDOFromMatchingTokenIssuer(tokenIdentifier, allOAuthTokenIssuerMap,
-                includeExpired);
+        Map<String, OauthTokenIssuer> candidateTokenIssuerMap =
+                getOAuthTokenIssuerIndex().getCandidateIssuers(tokenIdentifier);
+        AccessTokenDO accessTokenDO = getAccessTokenDOFromMatchingTokenIssuer(tokenIdentifier,
+                candidateTokenIssuerMap, includeExpired);
 
         // If the lookup is only for tokens in 'ACTIVE' state, APIs calling this method expect an
         // IllegalArgumentException to be thrown to identify inactive/invalid tokens.
@@ -3769,6 +3945,23 @@ public class OAuth2Util {
         return accessTokenDO;
     }
 
+    /**
+     * Get the precomputed token issuer index, rebuilding it if the configured token issuers have changed.
+     *
+     * @return Token issuer index.
+     */
+    private static OAuthTokenIssuerIndex getOAuthTokenIssuerIndex() {
+
+        Map<String, OauthTokenIssuer> tokenIssuerMap = OAuthServerConfiguration.getInstance()
+                .getOauthTokenIssuerMap();
+        OAuthTokenIssuerIndex tokenIssuerIndex = oauthTokenIssuerIndex;
+        if (tokenIssuerIndex == null || !tokenIssuerIndex.isBuiltFrom(tokenIssuerMap)) {
+            tokenIssuerIndex = new OAuthTokenIssuerIndex(tokenIssuerMap);
+            oauthTokenIssuerIndex = tokenIssuerIndex;
+        }
+        return tokenIssuerIndex;
+    }
+
     /**
      * Loop through provided token issuer list and tries to get the access token DO.
      *
@@ -3784,15 +3977,23 @@ public class OAuth2Util {
 
         AccessTokenDO accessTokenDO;
         if (tokenIssuerMap != null) {
+            Set<String> probedIdentifiers = new HashSet<>();
             for (Map.Entry<String, OauthTokenIssuer> oauthTokenIssuerEntry: tokenIssuerMap.entrySet()) {
                 try {
                     OauthTokenIssuer oauthTokenIssuer = oauthTokenIssuerEntry.getValue();
-                    String tokenAlias = oauthTokenIssuer.getAccessTokenHash(tokenIdentifier);
+                    String persistedIdentifier = tokenIdentifier;
                     if (oauthTokenIssuer.usePersistedAccessTokenAlias()) {
-                        accessTokenDO = OAuth2Util.getAccessTokenDOFromTokenIdentifier(tokenAlias, includeExpired);
-                    } else {
-                        accessTokenDO = OAuth2Util.getAccessTokenDOFromTokenIdentifier(tokenIdentifier, includeExpired);
+                        persistedIdentifier = oauthTokenIssuer.getAccessTokenHash(tokenIdentifier);
                     }
+                    if (!probedIdentifiers.add(persistedIdentifier)) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Token issuer: " + oauthTokenIssuerEntry.getKey() + " resolves to an " +
+                                    "already looked up token identifier. Skipping the database lookup.");
+                        }
+                        continue;
+                    }
+                    accessTokenDO = OAuth2Util.getAccessTokenDOFromTokenIdentifier(persistedIdentifier,
+                            includeExpired);
                     if (accessTokenDO != null) {
                         return accessTokenDO;
                     }
@@ -3822,26 +4023,6 @@ public class OAuth2Util {
         return null;
     }
 
-    /**
-     * Differentiate default token issuers from all available token issuers map.
-     *
-     * @param allOAuthTokenIssuerMap Map of all available token issuers.
-     * @param defaultOAuthTokenIssuerMap default token issuers
-     */
-    private static void extractDefaultOauthTokenIssuers(Map<String, OauthTokenIssuer> allOAuthTokenIssuerMap,
-                                                        Map<String, OauthTokenIssuer> defaultOAuthTokenIssuerMap) {
-
-        // TODO: 4/9/19 Implement logic to read default issuer from config.
-        // TODO: 4/9/19 add sorting mechanism to use JWT issuer first.
-        defaultOAuthTokenIssuerMap.put(OAuthServerConfiguration.JWT_TOKEN_TYPE,
-                allOAuthTokenIssuerMap.get(OAuthServerConfiguration.JWT_TOKEN_TYPE));
-        allOAuthTokenIssuerMap.remove(OAuthServerConfiguration.JWT_TOKEN_TYPE);
-
-        defaultOAuthTokenIssuerMap.put(OAuthServerConfiguration.DEFAULT_TOKEN_TYPE,
-                allOAuthTokenIssuerMap.get(OAuthServerConfiguration.DEFAULT_TOKEN_TYPE));
-        allOAuthTokenIssuerMap.remove(OAuthServerConfiguration.DEFAULT_TOKEN_TYPE);
-    }
-
     /**
      * Return access token identifier from OAuth2TokenValidationResponseDTO. This method validated the token against
      * the cache and the DB.
@@ -4295,16 +4476,29 @@ public class OAuth2Util {
      * @param allowedScopesList Allowed scopes list
      * @param scope             The scope key to check.
      * @return - 'true' if the scope is allowed. 'false' if not.
+     * @deprecated Use {@link #isAllowedScope(AllowedScopeMatcher, String)} with the matcher of
+     * {@link OAuthServerConfiguration#getAllowedScopeMatcher()}, which does not compile the patterns on each call.
      */
+    @Deprecated
     public static boolean isAllowedScope(List<String> allowedScopesList, String scope) {
 
-        for (String scopeTobeSkipped : allowedScopesList) {
-            if (scope.matches(scopeTobeSkipped)) {
-                if (log.isDebugEnabled()) {
-                    log.debug(scope + " is found in the allowed list of scopes.");
-                }
-                return true;
+        return isAllowedScope(new AllowedScopeMatcher(allowedScopesList), scope);
+    }
+
+    /**
+     * Determines if the scope matches the allowed scopes.
+     *
+     * @param allowedScopeMatcher Matcher of the allowed scopes.
+     * @param scope               The scope key to check.
+     * @return - 'true' if the scope is allowed. 'false' if not.
+     */
+    public static boolean isAllowedScope(AllowedScopeMatcher allowedScopeMatcher, String scope) {
+
+        if (allowedScopeMatcher != null && allowedScopeMatcher.matches(scope)) {
+            if (log.isDebugEnabled()) {
+                log.debug(scope + " is found in the allowed list of scopes.");
             }
+            return true;
         }
         return false;
     }
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getIntProperty;
+
+/**
+ * Runs the asynchronous maintenance work of the OAuth components, so that load spikes cannot create unbounded threads.
+ * <p>
+ * Short background tasks are submitted to a bounded pool of their {@link Workload}. Each pool has a fixed number of
+ * named daemon threads, which time out when idle, and a bounded queue. Tasks submitted to a full queue are rejected
+ * and counted, and the caller decides whether to drop them or to run them itself. The pools are configured in
+ * identity.xml under OAuth.TaskExecutor.&lt;Workload&gt;, e.g. OAuth.TaskExecutor.Token.PoolSize and
+ * OAuth.TaskExecutor.Token.QueueSize.
+ * <p>
+ * Components with long running consumers or their own scheduling, e.g. the token persistence pipeline, get dedicated
+ * executors. Their queues are bounded as well, and their queued and rejected tasks are reported by name along with
+ * the shared pools. Each component shuts down its own dedicated executors when it is stopped, as they may belong to
+ * other bundles than this one.
+ */
+public class OAuthTaskExecutor {
+
+    private static final Log log = LogFactory.getLog(OAuthTaskExecutor.class);
+
+    private static final String CONFIG_PREFIX = "OAuth.TaskExecutor.";
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final int SHUTDOWN_WAIT_SECONDS = 5;
+
+    private static final OAuthTaskExecutor instance = new OAuthTaskExecutor();
+
+    private final Map<Workload, ThreadPoolExecutor> workloadExecutors = new EnumMap<>(Workload.class);
+    private final Map<Workload, AtomicLong> rejectedTaskCounts = new EnumMap<>(Workload.class);
+    private final Map<String, ThreadPoolExecutor> dedicatedExecutors = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> dedicatedRejectedTaskCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Classes of background work, each of which runs in a pool of its own so that a backlog of one class does not
+     * hold back the others.
+     */
+    public enum Workload {
+
+        /**
+         * Token maintenance, e.g. revoking the tokens of an application.
+         */
+        TOKEN("Token", 2, 1000),
+
+        /**
+         * Refreshing cached data, e.g. the JWK sets of remote jwks_uri endpoints.
+         */
+        CACHE("Cache", 2, 1000),
+
+        /**
+         * Notifying other parties, e.g. sending events or logout requests.
+         */
+        NOTIFICATION("Notification", 4, 10000);
+
+        private final String name;
+        private final int defaultPoolSize;
+        private final int defaultQueueSize;
+
+        Workload(String name, int defaultPoolSize, int defaultQueueSize) {
+
+            this.name = name;
+            this.defaultPoolSize = defaultPoolSize;
+            this.defaultQueueSize = defaultQueueSize;
+        }
+
+        public String getName() {
+
+            return name;
+        }
+    }
+
+    private OAuthTaskExecutor() {
+
+        for (Workload workload : Workload.values()) {
+            rejectedTaskCounts.put(workload, new AtomicLong());
+        }
+    }
+
+    public static OAuthTaskExecutor getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Submit a task to the pool of the workload.
+     *
+     * @param workload Workload class of the task.
+     * @param task     Task to be run.
+     * @return true if the task was accepted, false if it was rejected as the queue of the workload is full or the
+     * executor is stopped.
+     */
+    public boolean execute(Workload workload, Runnable task) {
+
+        try {
+            getWorkloadExecutor(workload).execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejectedTaskCounts.get(workload).incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Rejected a task of the " + workload.getName() + " workload. " +
+                        getStatistics(workload));
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Get an executor submitting tasks to the pool of the workload. The pool is resolved on each submission, hence
+     * the executor remains usable across restarts of the bundle.
+     *
+     * @param workload Workload class of the tasks.
+     * @return Executor throwing a {@link RejectedExecutionException} for tasks which are not accepted.
+     */
+    public Executor getExecutor(Workload workload) {
+
+        return task -> {
+            if (!execute(workload, task)) {
+                throw new RejectedExecutionException("Task rejected by the " + workload.getName() +
+                        " workload executor.");
+            }
+        };
+    }
+
+    /**
+     * Create a fixed size executor for long running tasks of a single component. Tasks submitted to a full queue are
+     * counted and rejected with a {@link RejectedExecutionException}.
+     *
+     * @param name      Name of the executor, used as the prefix of its thread names and to report its statistics.
+     * @param poolSize  Number of threads.
+     * @param queueSize Maximum number of tasks waiting for a thread.
+     * @return Executor, to be shut down by the component when it is stopped.
+     */
+    public ThreadPoolExecutor newDedicatedExecutor(String name, int poolSize, int queueSize) {
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), newThreadFactory(name, poolSize > 1),
+                newRejectionCounter(name));
+        registerDedicatedExecutor(name, executor);
+        return executor;
+    }
+
+    /**
+     * Create a single threaded scheduler for the periodic or delayed tasks of a single component. Cancelled tasks
+     * are removed from its queue right away. The delay queue of a scheduler cannot be bounded, hence the component
+     * is expected to bound the tasks it schedules.
+     *
+     * @param name Name of the scheduler thread.
+     * @return Scheduler, to be shut down by the component when it is stopped.
+     */
+    public ScheduledThreadPoolExecutor newDedicatedScheduler(String name) {
+
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, newThreadFactory(name, false),
+                newRejectionCounter(name));
+        scheduler.setRemoveOnCancelPolicy(true);
+        registerDedicatedExecutor(name, scheduler);
+        return scheduler;
+    }
+
+    /**
+     * @param workload Workload class.
+     * @return Number of tasks of the workload waiting for a thread.
+     */
+    public int getQueuedTaskCount(Workload workload) {
+
+        ThreadPoolExecutor executor = getExistingExecutor(workload);
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * @param workload Workload class.
+     * @return Approximate number of tasks of the workload being run.
+     */
+    public int getActiveTaskCount(Workload workload) {
+
+        ThreadPoolExecutor executor = getExistingExecutor(workload);
+        return executor == null ? 0 : executor.getActiveCount();
+    }
+
+    /**
+     * @param workload Workload class.
+     * @return Approximate number of tasks of the workload completed since the pool was started.
+     */
+    public long getCompletedTaskCount(Workload workload) {
+
+        ThreadPoolExecutor executor = getExistingExecutor(workload);
+        return executor == null ? 0 : executor.getCompletedTaskCount();
+    }
+
+    /**
+     * @param workload Workload class.
+     * @return Number of tasks of the workload rejected since the server was started.
+     */
+    public long getRejectedTaskCount(Workload workload) {
+
+        return rejectedTaskCounts.get(workload).get();
+    }
+
+    /**
+     * @param name Name of a dedicated executor.
+     * @return Number of tasks of the dedicated executor waiting for a thread, or 0 if it is not running.
+     */
+    public int getQueuedTaskCount(String name) {
+
+        ThreadPoolExecutor executor = getDedicatedExecutor(name);
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * @param name Name of a dedicated executor.
+     * @return Approximate number of tasks of the dedicated executor being run, or 0 if it is not running.
+     */
+    public int getActiveTaskCount(String name) {
+
+        ThreadPoolExecutor executor = getDedicatedExecutor(name);
+        return executor == null ? 0 : executor.getActiveCount();
+    }
+
+    /**
+     * @param name Name of a dedicated executor.
+     * @return Number of tasks rejected by the dedicated executors of this name since the server was started.
+     */
+    public long getRejectedTaskCount(String name) {
+
+        AtomicLong rejectedTaskCount = dedicatedRejectedTaskCounts.get(name);
+        return rejectedTaskCount == null ? 0 : rejectedTaskCount.get();
+    }
+
+    /**
+     * @return Names of the dedicated executors which are not stopped.
+     */
+    public Set<String> getDedicatedExecutorNames() {
+
+        dedicatedExecutors.values().removeIf(ExecutorService::isShutdown);
+        return Collections.unmodifiableSet(new TreeSet<>(dedicatedExecutors.keySet()));
+    }
+
+    /**
+     * @return Number of dedicated executors which are not stopped.
+     */
+    public int getDedicatedExecutorCount() {
+
+        dedicatedExecutors.values().removeIf(ExecutorService::isShutdown);
+        return dedicatedExecutors.size();
+    }
+
+    /**
+     * Stop the workload pools. Queued and running tasks are allowed to complete within a grace period, after which
+     * they are interrupted. Tasks submitted afterwards start the pools again. Dedicated executors are left to their
+     * components, which stop them when their bundles are deactivated.
+     */
+    public void shutdown() {
+
+        Map<Workload, ThreadPoolExecutor> executors;
+        synchronized (workloadExecutors) {
+            executors = new EnumMap<>(workloadExecutors);
+            workloadExecutors.clear();
+        }
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_WAIT_SECONDS);
+        for (Map.Entry<Workload, ThreadPoolExecutor> entry : executors.entrySet()) {
+            ThreadPoolExecutor executor = entry.getValue();
+            try {
+                if (!executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    int droppedTaskCount = executor.shutdownNow().size();
+                    log.warn("Tasks of the " + entry.getKey().getName() + " workload did not complete within " +
+                            SHUTDOWN_WAIT_SECONDS + " seconds of the shutdown. Dropped " + droppedTaskCount +
+                            " queued tasks.");
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            StringBuilder statistics = new StringBuilder("OAuth task executor is stopped.");
+            for (Workload workload : Workload.values()) {
+                statistics.append(' ').append(workload.getName()).append(" rejected tasks: ")
+                        .append(getRejectedTaskCount(workload)).append(',');
+            }
+            for (String name : getDedicatedExecutorNames()) {
+                statistics.append(' ').append(name).append(" is still running with queued tasks: ")
+                        .append(getQueuedTaskCount(name)).append(',');
+            }
+            log.debug(statistics.substring(0, statistics.length() - 1));
+        }
+    }
+
+    private ThreadPoolExecutor getWorkloadExecutor(Workload workload) {
+
+        synchronized (workloadExecutors) {
+            ThreadPoolExecutor executor = workloadExecutors.get(workload);
+            if (executor == null) {
+                int poolSize = getIntProperty(CONFIG_PREFIX + workload.getName() + ".PoolSize",
+                        workload.defaultPoolSize);
+                int queueSize = getIntProperty(CONFIG_PREFIX + workload.getName() + ".QueueSize",
+                        workload.defaultQueueSize);
+                executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(queueSize), newThreadFactory("OAuth" + workload.getName() + "Worker",
+                        true));
+                // Threads of rarely used workloads are not kept around.
+                executor.allowCoreThreadTimeOut(true);
+                workloadExecutors.put(workload, executor);
+                if (log.isDebugEnabled()) {
+                    log.debug("Started the " + workload.getName() + " workload executor with " + poolSize +
+                            " threads and queue size: " + queueSize);
+                }
+            }
+            return executor;
+        }
+    }
+
+    private ThreadPoolExecutor getExistingExecutor(Workload workload) {
+
+        synchronized (workloadExecutors) {
+            return workloadExecutors.get(workload);
+        }
+    }
+
+    private String getStatistics(Workload workload) {
+
+        return "Queued tasks: " + getQueuedTaskCount(workload) + ", active tasks: " + getActiveTaskCount(workload) +
+                ", rejected tasks: " + getRejectedTaskCount(workload);
+    }
+
+    private ThreadPoolExecutor getDedicatedExecutor(String name) {
+
+        ThreadPoolExecutor executor = dedicatedExecutors.get(name);
+        return executor == null || executor.isShutdown() ? null : executor;
+    }
+
+    private void registerDedicatedExecutor(String name, ThreadPoolExecutor executor) {
+
+        // Executors stopped by their components are no longer tracked.
+        dedicatedExecutors.values().removeIf(ExecutorService::isShutdown);
+        ThreadPoolExecutor previousExecutor = dedicatedExecutors.put(name, executor);
+        if (previousExecutor != null) {
+            log.warn("A dedicated executor named " + name + " is already running. Only the latest one is reported.");
+        }
+    }
+
+    private RejectedExecutionHandler newRejectionCounter(String name) {
+
+        AtomicLong rejectedTaskCount = dedicatedRejectedTaskCounts.computeIfAbsent(name, key -> new AtomicLong());
+        return (task, executor) -> {
+            rejectedTaskCount.incrementAndGet();
+            throw new RejectedExecutionException("Task rejected by the " + name + " executor.");
+        };
+    }
+
+    private static ThreadFactory newThreadFactory(String name, boolean numbered) {
+
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, numbered ? name + "-" + threadCount.incrementAndGet() : name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
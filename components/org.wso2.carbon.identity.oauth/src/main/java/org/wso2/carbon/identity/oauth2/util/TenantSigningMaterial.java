@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.security.Key;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Signing material of a tenant: the private key, the signing certificate, the certificate thumbprint, the key ids
+ * per signature algorithm and a reusable JWS signer. Instances are created and cached by
+ * {@link TenantSigningMaterialRegistry}, so that signing a token does not access the key store or recompute digests.
+ */
+public class TenantSigningMaterial {
+
+    private final String tenantDomain;
+    private final int tenantId;
+    private final Key privateKey;
+    private final Certificate certificate;
+    private final String thumbprint;
+    private final JWSSigner signer;
+    private final Map<JWSAlgorithm, String> keyIds = new ConcurrentHashMap<>();
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+    private volatile long lastValidatedTime;
+
+    TenantSigningMaterial(String tenantDomain, int tenantId, Key privateKey, Certificate certificate)
+            throws IdentityOAuth2Exception {
+
+        this.tenantDomain = tenantDomain;
+        this.tenantId = tenantId;
+        this.privateKey = privateKey;
+        this.certificate = certificate;
+        this.thumbprint = certificate == null ? null : OAuth2Util.getThumbPrint(certificate);
+        // The RSA signer creates a new signature instance per signing operation, hence it is safe to share.
+        this.signer = privateKey instanceof RSAPrivateKey ?
+                OAuth2Util.createJWSSigner((RSAPrivateKey) privateKey) : null;
+        this.lastValidatedTime = System.currentTimeMillis();
+    }
+
+    public String getTenantDomain() {
+
+        return tenantDomain;
+    }
+
+    public int getTenantId() {
+
+        return tenantId;
+    }
+
+    public Key getPrivateKey() {
+
+        return privateKey;
+    }
+
+    public Certificate getCertificate() {
+
+        return certificate;
+    }
+
+    /**
+     * @return SHA-256 thumbprint of the signing certificate as returned by {@link OAuth2Util#getThumbPrint}.
+     */
+    public String getThumbprint() {
+
+        return thumbprint;
+    }
+
+    /**
+     * @return Shared JWS signer of the tenant, or null if the private key is not an RSA key.
+     */
+    public JWSSigner getSigner() {
+
+        return signer;
+    }
+
+    /**
+     * Get the 'kid' of the signing certificate for the given algorithm, as computed by the configured
+     * {@link org.wso2.carbon.identity.oauth2.keyidprovider.KeyIDProvider}.
+     *
+     * @param signatureAlgorithm Signature algorithm.
+     * @return Key id.
+     * @throws IdentityOAuth2Exception When failed to compute the key id.
+     */
+    public String getKeyId(JWSAlgorithm signatureAlgorithm) throws IdentityOAuth2Exception {
+
+        String keyId = keyIds.get(signatureAlgorithm);
+        if (keyId == null) {
+            keyId = OAuth2Util.getKID(certificate, signatureAlgorithm, tenantDomain);
+            if (keyId != null) {
+                keyIds.put(signatureAlgorithm, keyId);
+            }
+        }
+        return keyId;
+    }
+
+    /**
+     * Sign the claims set with the private key of the tenant.
+     *
+     * @param jwtClaimsSet       Claims to be signed.
+     * @param signatureAlgorithm RSA signature algorithm.
+     * @return Signed JWT.
+     * @throws IdentityOAuth2Exception When the key id could not be computed.
+     * @throws JOSEException           When signing failed.
+     */
+    public SignedJWT sign(JWTClaimsSet jwtClaimsSet, JWSAlgorithm signatureAlgorithm)
+            throws IdentityOAuth2Exception, JOSEException {
+
+        if (signer == null) {
+            throw new IdentityOAuth2Exception("Private key of the tenant: " + tenantDomain + " is not an RSA key.");
+        }
+        JWSHeader.Builder headerBuilder = new JWSHeader.Builder(signatureAlgorithm);
+        headerBuilder.keyID(getKeyId(signatureAlgorithm));
+        headerBuilder.x509CertThumbprint(new Base64URL(thumbprint));
+        SignedJWT signedJWT = new SignedJWT(headerBuilder.build(), jwtClaimsSet);
+        signedJWT.sign(signer);
+        return signedJWT;
+    }
+
+    void clearKeyIds() {
+
+        keyIds.clear();
+    }
+
+    boolean isRevalidationDue(long now, long revalidationIntervalMillis) {
+
+        return revalidationIntervalMillis > 0 && now - lastValidatedTime >= revalidationIntervalMillis;
+    }
+
+    boolean startRevalidation() {
+
+        return revalidating.compareAndSet(false, true);
+    }
+
+    void endRevalidation(long now) {
+
+        lastValidatedTime = now;
+        revalidating.set(false);
+    }
+}
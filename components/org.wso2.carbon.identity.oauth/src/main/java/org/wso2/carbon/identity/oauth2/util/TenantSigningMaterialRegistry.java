@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+
+import java.security.Key;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getLongProperty;
+
+/**
+ * Registry of the {@link TenantSigningMaterial} of each tenant.
+ * <p>
+ * The signing material of a tenant is built once, even under concurrent first requests, from the keys cached by
+ * {@link OAuth2Util#getPrivateKey(String, int)} and {@link OAuth2Util#getCertificate(String, int)}. To pick up a
+ * rotated key store, the certificate in the key store is compared with the cached one at most once per revalidation
+ * interval (OAuth.SigningMaterial.RevalidationIntervalSeconds in identity.xml, 0 to disable) by a single request
+ * thread, and the material of the tenant is rebuilt if it has changed. Material can also be invalidated explicitly,
+ * e.g. when a tenant is deactivated or a key id provider is registered.
+ */
+public class TenantSigningMaterialRegistry {
+
+    private static final Log log = LogFactory.getLog(TenantSigningMaterialRegistry.class);
+
+    private static final String REVALIDATION_INTERVAL_SECONDS = "OAuth.SigningMaterial.RevalidationIntervalSeconds";
+    private static final long DEFAULT_REVALIDATION_INTERVAL_SECONDS = 300;
+
+    private static final TenantSigningMaterialRegistry instance = new TenantSigningMaterialRegistry();
+
+    private final Map<Integer, TenantSigningMaterial> signingMaterials = new ConcurrentHashMap<>();
+    private final Map<Integer, Object> loadLocks = new ConcurrentHashMap<>();
+    private volatile Long revalidationIntervalMillis;
+
+    private TenantSigningMaterialRegistry() {
+
+    }
+
+    public static TenantSigningMaterialRegistry getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Get the signing material of the tenant, loading it on first access.
+     *
+     * @param tenantDomain Tenant domain.
+     * @param tenantId     Tenant id.
+     * @return Signing material of the tenant.
+     * @throws IdentityOAuth2Exception When failed to load the signing keys of the tenant.
+     */
+    public TenantSigningMaterial getSigningMaterial(String tenantDomain, int tenantId)
+            throws IdentityOAuth2Exception {
+
+        TenantSigningMaterial signingMaterial = signingMaterials.get(tenantId);
+        if (signingMaterial != null) {
+            long now = System.currentTimeMillis();
+            if (!signingMaterial.isRevalidationDue(now, getRevalidationIntervalMillis()) ||
+                    !signingMaterial.startRevalidation()) {
+                return signingMaterial;
+            }
+            if (!revalidate(signingMaterial, now)) {
+                return signingMaterial;
+            }
+        }
+
+        synchronized (getLoadLock(tenantId)) {
+            signingMaterial = signingMaterials.get(tenantId);
+            if (signingMaterial == null) {
+                Key privateKey = OAuth2Util.getPrivateKey(tenantDomain, tenantId);
+                Certificate certificate = OAuth2Util.getCertificate(tenantDomain, tenantId);
+                signingMaterial = new TenantSigningMaterial(tenantDomain, tenantId, privateKey, certificate);
+                signingMaterials.put(tenantId, signingMaterial);
+                if (log.isDebugEnabled()) {
+                    log.debug("Signing material is loaded for the tenant: " + tenantDomain);
+                }
+            }
+        }
+        return signingMaterial;
+    }
+
+    /**
+     * Invalidate the signing material of the tenant along with the cached keys, so that they are reloaded from the
+     * key store on the next access.
+     *
+     * @param tenantId Tenant id.
+     */
+    public void invalidate(int tenantId) {
+
+        synchronized (getLoadLock(tenantId)) {
+            signingMaterials.remove(tenantId);
+            OAuth2Util.clearSigningKeys(tenantId);
+        }
+    }
+
+    /**
+     * Invalidate the key ids computed for all the tenants, e.g. when the key id provider changes.
+     */
+    public void clearKeyIds() {
+
+        for (TenantSigningMaterial signingMaterial : signingMaterials.values()) {
+            signingMaterial.clearKeyIds();
+        }
+    }
+
+    /**
+     * Compare the cached certificate with the one in the key store and invalidate the material if it was rotated.
+     *
+     * @return true if the material was invalidated.
+     */
+    private boolean revalidate(TenantSigningMaterial signingMaterial, long now) {
+
+        try {
+            Certificate currentCertificate = OAuth2Util.loadCertificate(signingMaterial.getTenantDomain(),
+                    signingMaterial.getTenantId());
+            if (isSameCertificate(signingMaterial.getCertificate(), currentCertificate)) {
+                return false;
+            }
+            log.info("Signing certificate of the tenant: " + signingMaterial.getTenantDomain() + " has changed. " +
+                    "Reloading the signing material.");
+            invalidate(signingMaterial.getTenantId());
+            return true;
+        } catch (IdentityOAuth2Exception | CertificateEncodingException e) {
+            // Keep signing with the existing material and try again in the next interval.
+            log.warn("Error while revalidating the signing certificate of the tenant: " +
+                    signingMaterial.getTenantDomain(), e);
+            return false;
+        } finally {
+            signingMaterial.endRevalidation(now);
+        }
+    }
+
+    private static boolean isSameCertificate(Certificate cachedCertificate, Certificate currentCertificate)
+            throws CertificateEncodingException {
+
+        if (cachedCertificate == null || currentCertificate == null) {
+            return cachedCertificate == currentCertificate;
+        }
+        return cachedCertificate == currentCertificate ||
+                Arrays.equals(cachedCertificate.getEncoded(), currentCertificate.getEncoded());
+    }
+
+    private Object getLoadLock(int tenantId) {
+
+        return loadLocks.computeIfAbsent(tenantId, id -> new Object());
+    }
+
+    private long getRevalidationIntervalMillis() {
+
+        Long intervalMillis = revalidationIntervalMillis;
+        if (intervalMillis == null) {
+            long intervalSeconds = getLongProperty(REVALIDATION_INTERVAL_SECONDS,
+                    DEFAULT_REVALIDATION_INTERVAL_SECONDS, 0);
+            intervalMillis = TimeUnit.SECONDS.toMillis(intervalSeconds);
+            revalidationIntervalMillis = intervalMillis;
+        }
+        return intervalMillis;
+    }
+}
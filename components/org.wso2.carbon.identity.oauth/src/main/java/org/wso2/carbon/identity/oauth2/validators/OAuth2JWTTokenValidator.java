@@ -34,20 +34,32 @@ import org.wso2.carbon.identity.application.common.util.IdentityApplicationConst
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.idp.mgt.IdentityProviderManager;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JWT Access token validator
+ * <p>
+ * Decoded identity provider certificates are cached by their PEM encoded value and signature verifiers are cached by
+ * the token issuer and the SHA-256 thumbprint of the signing certificate resolved by
+ * {@link #resolveSignerCertificate(JWSHeader, IdentityProvider)}. Updating the certificate of an identity provider
+ * changes both keys, so the stale entries are never used again. The caches are also cleared when identity providers
+ * are updated or deleted on this node.
  */
 public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
 
@@ -55,6 +67,13 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
     private static final Log log = LogFactory.getLog(OAuth2JWTTokenValidator.class);
     private static final String OIDC_IDP_ENTITY_ID = "IdPEntityId";
     private static final String DOT_SEPARATOR = ".";
+    private static final String THUMBPRINT_ALGORITHM = "SHA-256";
+    // Entries of replaced certificates are dropped along with the rest once the caches reach this size.
+    private static final int MAX_CACHE_SIZE = 100;
+
+    private static final Map<String, X509Certificate> CERTIFICATE_CACHE = new ConcurrentHashMap<>();
+    private static final Map<X509Certificate, String> THUMBPRINT_CACHE = new ConcurrentHashMap<>();
+    private static final Map<String, JWSVerifier> VERIFIER_CACHE = new ConcurrentHashMap<>();
 
     @Override
     public boolean validateAccessToken(OAuth2TokenValidationMessageContext validationReqDTO)
@@ -77,7 +96,7 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
 
             IdentityProvider identityProvider = getResidentIDPForIssuer(claimsSet.getIssuer());
 
-            if (!validateSignature(signedJWT, identityProvider)) {
+            if (!validateSignature(signedJWT, claimsSet.getIssuer(), identityProvider)) {
                 return false;
             }
             if (!checkExpirationTime(claimsSet.getExpirationTime())) {
@@ -108,19 +127,46 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
      */
     protected X509Certificate resolveSignerCertificate(JWSHeader header,
                                                        IdentityProvider idp) throws IdentityOAuth2Exception {
+        return getCachedCertificate(idp);
+    }
+
+    private X509Certificate getCachedCertificate(IdentityProvider idp) throws IdentityOAuth2Exception {
+
+        String encodedCertificate = idp.getCertificate();
+        if (encodedCertificate == null) {
+            return null;
+        }
+        X509Certificate cachedCertificate = CERTIFICATE_CACHE.get(encodedCertificate);
+        if (cachedCertificate != null) {
+            return cachedCertificate;
+        }
+
         X509Certificate x509Certificate;
         String tenantDomain = getTenantDomain();
         try {
             x509Certificate = (X509Certificate) IdentityApplicationManagementUtil
-                    .decodeCertificate(idp.getCertificate());
+                    .decodeCertificate(encodedCertificate);
         } catch (CertificateException e) {
             throw new IdentityOAuth2Exception("Error occurred while decoding public certificate of Identity Provider "
                     + idp.getIdentityProviderName() + " for tenant domain " + tenantDomain, e);
         }
+        if (x509Certificate == null) {
+            return null;
+        }
+        if (CERTIFICATE_CACHE.size() >= MAX_CACHE_SIZE) {
+            CERTIFICATE_CACHE.clear();
+        }
+        CERTIFICATE_CACHE.put(encodedCertificate, x509Certificate);
         return x509Certificate;
     }
 
     private SignedJWT getSignedJWT(OAuth2TokenValidationMessageContext validationReqDTO) throws ParseException {
+
+        // The token validation handler adds the token it parsed while selecting this validator.
+        Object signedJWT = validationReqDTO.getProperty(OAuth2Util.SIGNED_JWT);
+        if (signedJWT instanceof SignedJWT) {
+            return (SignedJWT) signedJWT;
+        }
         return SignedJWT.parse(validationReqDTO.getRequestDTO().getAccessToken().getIdentifier());
     }
 
@@ -155,7 +201,7 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
         return residentIdentityProvider;
     }
 
-    private boolean validateSignature(SignedJWT signedJWT, IdentityProvider idp)
+    private boolean validateSignature(SignedJWT signedJWT, String issuer, IdentityProvider idp)
             throws JOSEException, IdentityOAuth2Exception {
 
         JWSVerifier verifier = null;
@@ -175,13 +221,7 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
                 log.debug("Signature Algorithm found in the Token Header: " + alg);
             }
             if (alg.indexOf(ALGO_PREFIX) == 0) {
-                // At this point 'x509Certificate' will never be null.
-                PublicKey publicKey = x509Certificate.getPublicKey();
-                if (publicKey instanceof RSAPublicKey) {
-                    verifier = new RSASSAVerifier((RSAPublicKey) publicKey);
-                } else {
-                    throw new IdentityOAuth2Exception("Public key is not an RSA public key.");
-                }
+                verifier = getVerifier(issuer, x509Certificate);
             } else {
                 if (log.isDebugEnabled()) {
                     log.debug("Signature Algorithm not supported yet: " + alg);
@@ -199,6 +239,63 @@ public class OAuth2JWTTokenValidator extends DefaultOAuth2TokenValidator {
         return isValid;
     }
 
+    private JWSVerifier getVerifier(String issuer, X509Certificate x509Certificate) throws IdentityOAuth2Exception {
+
+        String verifierKey = issuer + ":" + getThumbprint(x509Certificate);
+        JWSVerifier verifier = VERIFIER_CACHE.get(verifierKey);
+        if (verifier != null) {
+            return verifier;
+        }
+
+        // At this point 'x509Certificate' will never be null.
+        PublicKey publicKey = x509Certificate.getPublicKey();
+        if (!(publicKey instanceof RSAPublicKey)) {
+            throw new IdentityOAuth2Exception("Public key is not an RSA public key.");
+        }
+        verifier = new RSASSAVerifier((RSAPublicKey) publicKey);
+        if (VERIFIER_CACHE.size() >= MAX_CACHE_SIZE) {
+            VERIFIER_CACHE.clear();
+        }
+        VERIFIER_CACHE.put(verifierKey, verifier);
+        return verifier;
+    }
+
+    private static String getThumbprint(X509Certificate x509Certificate) throws IdentityOAuth2Exception {
+
+        // The thumbprint is computed once per certificate, whichever way the certificate is resolved.
+        String cachedThumbprint = THUMBPRINT_CACHE.get(x509Certificate);
+        if (cachedThumbprint != null) {
+            return cachedThumbprint;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance(THUMBPRINT_ALGORITHM).digest(x509Certificate.getEncoded());
+            StringBuilder thumbprint = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                thumbprint.append(String.format("%02x", b));
+            }
+            if (THUMBPRINT_CACHE.size() >= MAX_CACHE_SIZE) {
+                THUMBPRINT_CACHE.clear();
+            }
+            THUMBPRINT_CACHE.put(x509Certificate, thumbprint.toString());
+            return thumbprint.toString();
+        } catch (NoSuchAlgorithmException | CertificateEncodingException e) {
+            throw new IdentityOAuth2Exception("Error while computing the thumbprint of the certificate: " +
+                    x509Certificate.getSubjectDN(), e);
+        }
+    }
+
+    /**
+     * Clear the cached certificates and signature verifiers, e.g. after the certificates of identity providers are
+     * rotated in bulk. Called by {@link org.wso2.carbon.identity.oauth2.internal.OAuthIdentityProviderMgtListener}
+     * when identity providers are updated or deleted.
+     */
+    public static void clearCertificateCache() {
+
+        CERTIFICATE_CACHE.clear();
+        THUMBPRINT_CACHE.clear();
+        VERIFIER_CACHE.clear();
+    }
+
     private boolean checkExpirationTime(Date expirationTime) {
         long timeStampSkewMillis = OAuthServerConfiguration.getInstance().getTimeStampSkewInSeconds() * 1000;
         long expirationTimeInMillis = expirationTime.getTime();
@@ -38,6 +38,7 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.AllowedScopeMatcher;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
 import java.util.ArrayList;
@@ -164,7 +165,7 @@ public class TokenValidationHandler {
         AccessTokenDO accessTokenDO = null;
 
         try {
-            tokenValidator = findAccessTokenValidator(accessToken);
+            tokenValidator = findAccessTokenValidator(accessToken, messageContext);
         } catch (IllegalArgumentException e) {
             // access token not provided.
             return buildClientAppErrorResponse(e.getMessage());
@@ -236,7 +237,7 @@ public class TokenValidationHandler {
         // To hold the applicable validators list from all the available validators. This list will be prioritized if we
         // have a token_type_hint.
         List<OAuth2TokenValidator> applicableValidators = new ArrayList<>();
-        boolean isJWTTokenValidation = isJWTTokenValidation(oAuth2Token.getIdentifier());
+        boolean isJWTTokenValidation = isJWTTokenValidation(oAuth2Token.getIdentifier(), messageContext);
 
         // If we have a token type hint, we have to prioritize our list.
         if (oAuth2Token.getTokenType() != null) {
@@ -415,12 +416,13 @@ public class TokenValidationHandler {
         } else {
             try {
                 accessTokenDO = OAuth2Util.findAccessToken(validationRequest.getAccessToken().getIdentifier(), false);
-                List<String> allowedScopes = OAuthServerConfiguration.getInstance().getAllowedScopes();
+                AllowedScopeMatcher allowedScopeMatcher =
+                        OAuthServerConfiguration.getInstance().getAllowedScopeMatcher();
                 String[] requestedScopes = accessTokenDO.getScope();
                 List<String> scopesToBeValidated = new ArrayList<>();
                 if (requestedScopes != null) {
                     for (String scope : requestedScopes) {
-                        if (OAuth2Util.isAllowedScope(allowedScopes, scope)) {
+                        if (OAuth2Util.isAllowedScope(allowedScopeMatcher, scope)) {
                             requestedAllowedScopes.add(scope);
                         } else {
                             scopesToBeValidated.add(scope);
@@ -586,10 +588,12 @@ public class TokenValidationHandler {
 
     /**
      * @param accessToken
+     * @param messageContext
      * @return
      * @throws IdentityOAuth2Exception
      */
-    private OAuth2TokenValidator findAccessTokenValidator(OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken)
+    private OAuth2TokenValidator findAccessTokenValidator(OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken,
+                                                          OAuth2TokenValidationMessageContext messageContext)
             throws IdentityOAuth2Exception {
         // incomplete token validation request
         if (accessToken == null) {
@@ -603,7 +607,7 @@ public class TokenValidationHandler {
         }
 
         OAuth2TokenValidator tokenValidator;
-        if (isJWTTokenValidation(accessToken.getIdentifier())) {
+        if (isJWTTokenValidation(accessToken.getIdentifier(), messageContext)) {
             /*
             If the token is a self-contained JWT based access token and the
             config EnableJWTTokenValidationDuringIntrospection is set to true
@@ -689,10 +693,18 @@ public class TokenValidationHandler {
         return OAuthTokenPersistenceFactory.getInstance().getTokenManagementDAO().getRefreshToken(refreshToken);
     }
 
-    private boolean isJWTTokenValidation(String tokenIdentifier) {
+    /**
+     * Check whether the token should be validated as a JWT. A signed JWT parsed here is added to the message context,
+     * so that the JWT token validator does not parse the token again.
+     *
+     * @param tokenIdentifier Token identifier.
+     * @param messageContext  Token validation message context.
+     * @return true if the JWT token validation is enabled and the token is a parsable JWT.
+     */
+    private boolean isJWTTokenValidation(String tokenIdentifier, OAuth2TokenValidationMessageContext messageContext) {
 
         return Boolean.parseBoolean(IdentityUtil.getProperty(ENABLE_JWT_TOKEN_VALIDATION)) && isParsableJWT(
-                tokenIdentifier);
+                tokenIdentifier, messageContext);
     }
 
     private boolean isSkipValidatorForJWT(OAuth2TokenValidator tokenValidator, boolean isJWTTokenValidation) {
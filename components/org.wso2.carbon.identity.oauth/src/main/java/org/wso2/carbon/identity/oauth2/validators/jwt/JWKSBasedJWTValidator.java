@@ -27,7 +27,6 @@ import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKMatcher;
 import com.nimbusds.jose.jwk.JWKSelector;
 import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.jwk.source.RemoteJWKSet;
 import com.nimbusds.jose.proc.BadJOSEException;
 import com.nimbusds.jose.proc.JWSKeySelector;
 import com.nimbusds.jose.proc.JWSVerificationKeySelector;
@@ -127,7 +126,7 @@ public class JWKSBasedJWTValidator implements JWTValidator {
 
         X509Certificate x509Certificate = null;
         List<JWK> matchingJWKs;
-        RemoteJWKSet<SecurityContext> remoteJWKSet = JWKSourceDataProvider.getInstance().getJWKSource(jwksUri);
+        JWKSource<SecurityContext> remoteJWKSet = JWKSourceDataProvider.getInstance().getCachedJWKSource(jwksUri);
         String kid = Optional.ofNullable(jwt.getHeader()).map(JWSHeader::getKeyID).orElse(null);
 
         if (kid == null) {
@@ -207,9 +206,9 @@ public class JWKSBasedJWTValidator implements JWTValidator {
     private void setJWKeySelector(String jwksUri, String algorithm) throws MalformedURLException {
 
         /* The public RSA keys to validate the signatures will be sourced from the OAuth 2.0 server's JWK set,
-        published at a well-known URL. The RemoteJWKSet object caches the retrieved keys to speed up subsequent
+        published at a well-known URL. The JWK source caches the retrieved keys to speed up subsequent
         look-ups and can also gracefully handle key-rollover. */
-        JWKSource<SecurityContext> keySource = JWKSourceDataProvider.getInstance().getJWKSource(jwksUri);
+        JWKSource<SecurityContext> keySource = JWKSourceDataProvider.getInstance().getCachedJWKSource(jwksUri);
 
         // The expected JWS algorithm of the access tokens (agreed out-of-band).
         JWSAlgorithm expectedJWSAlg = JWSAlgorithm.parse(algorithm);
@@ -18,24 +18,38 @@
 
 package org.wso2.carbon.identity.oauth2.validators.jwt;
 
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.jwk.source.RemoteJWKSet;
 import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jose.util.ResourceRetriever;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
-import org.wso2.carbon.identity.oauth2.cache.JWKSCache;
-import org.wso2.carbon.identity.oauth2.cache.JWKSCacheEntry;
-import org.wso2.carbon.identity.oauth2.cache.JWKSCacheKey;
 import org.wso2.carbon.identity.oauth2.device.constants.Constants;
+import org.wso2.carbon.identity.oauth2.util.OAuthTaskExecutor;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getLongProperty;
 
 /**
  * Provides JWK sources for JWT validation.
+ * <p>
+ * The JWK source of each jwks_uri is kept for the lifetime of the server and serves the last fetched JWK set while it
+ * is refreshed in the background, see {@link RefreshingJWKSource}. The refresh interval and the minimum interval
+ * between refetches for unknown key ids are configured in milliseconds with JWTValidatorConfigs.JWKSEndpoint
+ * .RefreshInterval and JWTValidatorConfigs.JWKSEndpoint.MinRefetchInterval.
  */
 public class JWKSourceDataProvider {
 
@@ -47,10 +61,21 @@ public class JWKSourceDataProvider {
             ".HTTPReadTimeout";
     private static final String HTTP_SIZE_LIMIT_XPATH = "JWTValidatorConfigs.JWKSEndpoint" +
             ".HTTPSizeLimit";
+    private static final String REFRESH_INTERVAL_XPATH = "JWTValidatorConfigs.JWKSEndpoint.RefreshInterval";
+    private static final String MIN_REFETCH_INTERVAL_XPATH = "JWTValidatorConfigs.JWKSEndpoint.MinRefetchInterval";
+    private static final long DEFAULT_REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+    private static final long DEFAULT_MIN_REFETCH_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    // The sources are keyed by jwks_uri values taken from requests, this bounds the memory held by them.
+    private static final int MAX_JWK_SOURCES = 1000;
     private static final Log log = LogFactory.getLog(JWKSourceDataProvider.class);
 
     private static JWKSourceDataProvider jwkSourceDataProvider = new JWKSourceDataProvider();
 
+    private final Map<String, RefreshingJWKSource> jwkSources = new ConcurrentHashMap<>();
+    private final Map<String, RemoteJWKSet<SecurityContext>> remoteJWKSets = new ConcurrentHashMap<>();
+    private final Executor refreshExecutor = OAuthTaskExecutor.getInstance().getExecutor(
+            OAuthTaskExecutor.Workload.CACHE);
+
     private JWKSourceDataProvider() {
 
     }
@@ -66,59 +91,95 @@ public class JWKSourceDataProvider {
     }
 
     /**
-     * Get cached JWKSet for the jwks_uri.
+     * Get the JWK source of the jwks_uri.
+     *
+     * @param jwksUri Identity provider's JWKS endpoint.
+     * @return JWK source serving the cached JWK set of the jwks_uri.
+     * @throws MalformedURLException for invalid URL.
+     */
+    public JWKSource<SecurityContext> getCachedJWKSource(String jwksUri) throws MalformedURLException {
+
+        return getRefreshingJWKSource(jwksUri);
+    }
+
+    /**
+     * Get a RemoteJWKSet for the jwks_uri.
      *
      * @param jwksUri Identity provider's JWKS endpoint.
      * @return RemoteJWKSet.
      * @throws MalformedURLException for invalid URL.
+     * @deprecated The returned JWK set fetches the keys on the calling thread and is not refreshed in the background.
+     * Use {@link #getCachedJWKSource(String)} instead.
      */
+    @Deprecated
     public RemoteJWKSet<SecurityContext> getJWKSource(String jwksUri) throws MalformedURLException {
 
-        JWKSCacheKey jwksCacheKey = new JWKSCacheKey(jwksUri);
-        JWKSCacheEntry jwksCacheEntry = JWKSCache.getInstance().getValueFromCache(jwksCacheKey);
-        RemoteJWKSet<SecurityContext> jwkSet = null;
-        if (jwksCacheEntry != null) {
-            jwkSet = jwksCacheEntry.getValue();
-            if (log.isDebugEnabled()) {
-                log.debug("Retrieving JWKS for " + jwksUri + " from cache.");
-            }
+        RemoteJWKSet<SecurityContext> jwkSet = remoteJWKSets.get(jwksUri);
+        if (jwkSet != null) {
+            return jwkSet;
         }
-        if (jwkSet == null) {
-            jwkSet = retrieveJWKSFromJWKSEndpoint(jwksUri);
-            JWKSCache.getInstance().addToCache(jwksCacheKey, new JWKSCacheEntry(jwkSet));
-            if (log.isDebugEnabled()) {
-                log.debug("Fetching JWKS from remote endpoint.");
-            }
+        URL jwksURL = new URL(jwksUri);
+        if (remoteJWKSets.size() >= MAX_JWK_SOURCES) {
+            remoteJWKSets.clear();
         }
-        return jwkSet;
+        return remoteJWKSets.computeIfAbsent(jwksUri, uri -> new RemoteJWKSet<>(jwksURL, createResourceRetriever()));
     }
 
     /**
      * Retrieve the new-keyset from the JWKS endpoint in case of signature validation failure.
      *
      * @param jwksUri Identity providers jwks_uri.
-     * @throws IdentityOAuth2Exception for invalid/malformed URL.
+     * @throws IdentityOAuth2Exception for invalid/malformed URL, or if the JWK set could not be retrieved.
      */
     public void refreshJWKSResource(String jwksUri) throws IdentityOAuth2Exception {
 
         try {
-            JWKSCacheKey jwksCacheKey = new JWKSCacheKey(jwksUri);
-            JWKSCache.getInstance().clearCacheEntry(jwksCacheKey);
-            RemoteJWKSet<SecurityContext> jwkSet = retrieveJWKSFromJWKSEndpoint(jwksUri);
-            JWKSCache.getInstance().addToCache(jwksCacheKey, new JWKSCacheEntry(jwkSet));
+            getRefreshingJWKSource(jwksUri).fetch();
         } catch (MalformedURLException e) {
             throw new IdentityOAuth2Exception("Provided URI is malformed. jwks_uri: " + jwksUri, e);
+        } catch (RemoteKeySourceException e) {
+            throw new IdentityOAuth2Exception("Error while retrieving the JWKS from jwks_uri: " + jwksUri, e);
         }
     }
 
     /**
-     * Retrieve JWKS from jwks_uri.
+     * Get the JWK sources in use, e.g. to report the fetch latency and failures of each jwks_uri.
      *
-     * @param jwksUri Identity provider's jwks_uri.
-     * @return RemoteJWKSet
-     * @throws MalformedURLException for invalid URL.
+     * @return JWK sources of the jwks_uris.
+     */
+    public Collection<RefreshingJWKSource> getJWKSources() {
+
+        return Collections.unmodifiableCollection(jwkSources.values());
+    }
+
+    private RefreshingJWKSource getRefreshingJWKSource(String jwksUri) throws MalformedURLException {
+
+        RefreshingJWKSource jwkSource = jwkSources.get(jwksUri);
+        if (jwkSource != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Retrieving JWKS for " + jwksUri + " from cache.");
+            }
+            return jwkSource;
+        }
+        URL jwksURL = new URL(jwksUri);
+        if (jwkSources.size() >= MAX_JWK_SOURCES) {
+            log.warn("JWK sources of " + MAX_JWK_SOURCES + " jwks_uris are cached. Clearing the cached sources.");
+            jwkSources.clear();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Creating the JWK source of the remote endpoint: " + jwksUri);
+        }
+        return jwkSources.computeIfAbsent(jwksUri, uri -> new RefreshingJWKSource(jwksURL, createResourceRetriever(),
+                getLongProperty(REFRESH_INTERVAL_XPATH, DEFAULT_REFRESH_INTERVAL, 0),
+                getLongProperty(MIN_REFETCH_INTERVAL_XPATH, DEFAULT_MIN_REFETCH_INTERVAL, 0), refreshExecutor));
+    }
+
+    /**
+     * Create the retriever of JWKS from jwks_uris.
+     *
+     * @return ResourceRetriever.
      */
-    private RemoteJWKSet<SecurityContext> retrieveJWKSFromJWKSEndpoint(String jwksUri) throws MalformedURLException {
+    private ResourceRetriever createResourceRetriever() {
 
         // Retrieve HTTP endpoint configurations.
         int connectionTimeout = readHTTPConnectionConfigValue(HTTP_CONNECTION_TIMEOUT_XPATH);
@@ -137,17 +198,9 @@ public class JWKSourceDataProvider {
         }
 
         if (Boolean.parseBoolean(proxyEnabled)) {
-            ExtendedDefaultResourceRetriever resourceRetriever = new ExtendedDefaultResourceRetriever(
-                    connectionTimeout,
-                    readTimeout,
-                    sizeLimit);
-            return new RemoteJWKSet<>(new URL(jwksUri), resourceRetriever);
+            return new ExtendedDefaultResourceRetriever(connectionTimeout, readTimeout, sizeLimit);
         }
-        DefaultResourceRetriever resourceRetriever = new DefaultResourceRetriever(
-                connectionTimeout,
-                readTimeout,
-                sizeLimit);
-        return new RemoteJWKSet<>(new URL(jwksUri), resourceRetriever);
+        return new DefaultResourceRetriever(connectionTimeout, readTimeout, sizeLimit);
     }
 
     /**
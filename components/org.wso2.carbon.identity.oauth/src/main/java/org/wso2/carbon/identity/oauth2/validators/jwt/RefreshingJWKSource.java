@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.jwt;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.URL;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JWK source of a remote jwks_uri which keeps serving the last fetched JWK set while it is refreshed.
+ * <p>
+ * The JWK set is fetched on the first look-up only. Once it is older than the refresh interval it is refetched in the
+ * background, and a look-up for a key id missing from the set refetches it right away, at most once per minimum
+ * refetch interval. Concurrent look-ups share a single fetch in flight, and a failed fetch keeps the last good set.
+ */
+public class RefreshingJWKSource implements JWKSource<SecurityContext> {
+
+    private static final Log log = LogFactory.getLog(RefreshingJWKSource.class);
+
+    private final URL jwkSetURL;
+    private final ResourceRetriever resourceRetriever;
+    private final long refreshInterval;
+    private final long minRefetchInterval;
+    private final Executor refreshExecutor;
+
+    private final Object fetchLock = new Object();
+    // Guarded by fetchLock.
+    private CompletableFuture<JWKSet> inFlightFetch;
+    private volatile JWKSet jwkSet;
+    private volatile long fetchedTime;
+    private volatile long lastFetchAttemptTime;
+
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong failedFetchCount = new AtomicLong();
+    private final AtomicLong totalFetchTime = new AtomicLong();
+    private volatile long lastFetchTime;
+
+    /**
+     * @param jwkSetURL          URL of the JWK set.
+     * @param resourceRetriever  Retriever of the JWK set.
+     * @param refreshInterval    Age in milliseconds after which the JWK set is refreshed in the background.
+     * @param minRefetchInterval Minimum time in milliseconds between fetches triggered by unknown key ids.
+     * @param refreshExecutor    Executor of the background refreshes.
+     */
+    RefreshingJWKSource(URL jwkSetURL, ResourceRetriever resourceRetriever, long refreshInterval,
+                        long minRefetchInterval, Executor refreshExecutor) {
+
+        this.jwkSetURL = jwkSetURL;
+        this.resourceRetriever = resourceRetriever;
+        this.refreshInterval = refreshInterval;
+        this.minRefetchInterval = minRefetchInterval;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+
+        JWKSet currentJWKSet = jwkSet;
+        if (currentJWKSet == null) {
+            currentJWKSet = fetch();
+        } else if (System.currentTimeMillis() - fetchedTime > refreshInterval) {
+            refreshInBackground();
+        }
+
+        List<JWK> matches = jwkSelector.select(currentJWKSet);
+        if (matches.isEmpty() && hasKeyIDs(jwkSelector) && canRefetch()) {
+            // The keys may have been rolled over since the set was fetched.
+            if (log.isDebugEnabled()) {
+                log.debug("No matching keys found in the cached JWK set of " + jwkSetURL + ". Refetching the set.");
+            }
+            try {
+                currentJWKSet = fetch();
+            } catch (RemoteKeySourceException e) {
+                log.warn("Error while refetching the JWK set from " + jwkSetURL + ". " + e.getMessage());
+                return matches;
+            }
+            matches = jwkSelector.select(currentJWKSet);
+        }
+        return matches;
+    }
+
+    /**
+     * Fetch the JWK set, or wait for the fetch in flight.
+     *
+     * @return Fetched JWK set.
+     * @throws RemoteKeySourceException If the JWK set could not be fetched.
+     */
+    JWKSet fetch() throws RemoteKeySourceException {
+
+        CompletableFuture<JWKSet> fetch;
+        boolean fetchOwner = false;
+        synchronized (fetchLock) {
+            if (inFlightFetch == null) {
+                inFlightFetch = new CompletableFuture<>();
+                fetchOwner = true;
+            }
+            fetch = inFlightFetch;
+        }
+        if (fetchOwner) {
+            doFetch(fetch);
+        }
+        try {
+            return fetch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteKeySourceException("Interrupted while fetching the JWK set from " + jwkSetURL, e);
+        } catch (ExecutionException e) {
+            throw new RemoteKeySourceException("Couldn't retrieve the JWK set from " + jwkSetURL + ": " +
+                    e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void refreshInBackground() {
+
+        CompletableFuture<JWKSet> fetch;
+        synchronized (fetchLock) {
+            if (inFlightFetch != null || System.currentTimeMillis() - lastFetchAttemptTime < minRefetchInterval) {
+                return;
+            }
+            fetch = new CompletableFuture<>();
+            inFlightFetch = fetch;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Refreshing the JWK set of " + jwkSetURL + " in the background.");
+        }
+        try {
+            refreshExecutor.execute(() -> doFetch(fetch));
+        } catch (RejectedExecutionException e) {
+            synchronized (fetchLock) {
+                inFlightFetch = null;
+            }
+            fetch.completeExceptionally(e);
+            log.warn("Couldn't schedule the refresh of the JWK set of " + jwkSetURL);
+        }
+    }
+
+    private void doFetch(CompletableFuture<JWKSet> fetch) {
+
+        long startTime = System.currentTimeMillis();
+        lastFetchAttemptTime = startTime;
+        try {
+            Resource resource = resourceRetriever.retrieveResource(jwkSetURL);
+            JWKSet fetchedJWKSet = JWKSet.parse(resource.getContent());
+            jwkSet = fetchedJWKSet;
+            fetchedTime = System.currentTimeMillis();
+            fetch.complete(fetchedJWKSet);
+        } catch (IOException | ParseException | RuntimeException e) {
+            failedFetchCount.incrementAndGet();
+            if (jwkSet != null) {
+                log.warn("Error while fetching the JWK set from " + jwkSetURL + ". Serving the last fetched set. " +
+                        e.getMessage());
+            }
+            fetch.completeExceptionally(e);
+        } finally {
+            lastFetchTime = System.currentTimeMillis() - startTime;
+            fetchCount.incrementAndGet();
+            totalFetchTime.addAndGet(lastFetchTime);
+            synchronized (fetchLock) {
+                if (inFlightFetch == fetch) {
+                    inFlightFetch = null;
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Fetched the JWK set from " + jwkSetURL + " in " + lastFetchTime + "ms.");
+            }
+        }
+    }
+
+    private boolean canRefetch() {
+
+        return System.currentTimeMillis() - lastFetchAttemptTime >= minRefetchInterval;
+    }
+
+    private static boolean hasKeyIDs(JWKSelector jwkSelector) {
+
+        Set<String> keyIDs = jwkSelector.getMatcher().getKeyIDs();
+        return CollectionUtils.isNotEmpty(keyIDs);
+    }
+
+    public URL getJWKSetURL() {
+
+        return jwkSetURL;
+    }
+
+    /**
+     * @return Last fetched JWK set, or null if none was fetched yet.
+     */
+    public JWKSet getJWKSet() {
+
+        return jwkSet;
+    }
+
+    /**
+     * @return Number of fetches of the JWK set, including the failed ones.
+     */
+    public long getFetchCount() {
+
+        return fetchCount.get();
+    }
+
+    public long getFailedFetchCount() {
+
+        return failedFetchCount.get();
+    }
+
+    /**
+     * @return Total time in milliseconds spent on fetching the JWK set.
+     */
+    public long getTotalFetchTime() {
+
+        return totalFetchTime.get();
+    }
+
+    /**
+     * @return Time in milliseconds taken by the last fetch of the JWK set.
+     */
+    public long getLastFetchTime() {
+
+        return lastFetchTime;
+    }
+}
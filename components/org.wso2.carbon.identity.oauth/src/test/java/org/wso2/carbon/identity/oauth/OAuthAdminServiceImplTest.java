@@ -18,12 +18,17 @@ import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.core.internal.IdentityCoreServiceComponent;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
+import org.wso2.carbon.identity.oauth.cache.SpOAuth2ExpiryTimeConfigCache;
+import org.wso2.carbon.identity.oauth.cache.SpOAuth2ExpiryTimeConfigCacheKey;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.dao.OAuthAppDAO;
 import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
 import org.wso2.carbon.identity.oauth.dto.OAuthConsumerAppDTO;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.dao.TokenManagementDAO;
+import org.wso2.carbon.identity.oauth2.internal.cache.AuthorizedClientIdsCache;
 import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
 import org.wso2.carbon.user.api.RealmConfiguration;
 import org.wso2.carbon.user.api.UserRealm;
@@ -39,23 +44,29 @@ import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
 import static org.powermock.api.mockito.PowerMockito.doNothing;
 import static org.powermock.api.mockito.PowerMockito.doThrow;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.spy;
+import static org.powermock.api.mockito.PowerMockito.verify;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.powermock.api.mockito.PowerMockito.whenNew;
 import static org.powermock.reflect.Whitebox.invokeMethod;
 
 @PowerMockIgnore({"javax.net.*", "javax.security.*", "javax.crypto.*"})
 @PrepareForTest({OAuthAdminServiceImpl.class, IdentityCoreServiceComponent.class, ConfigurationContextService.class,
-        OAuthUtil.class, OAuthAppDAO.class})
+        OAuthUtil.class, OAuthAppDAO.class, OAuthTokenPersistenceFactory.class, SpOAuth2ExpiryTimeConfigCache.class})
 public class OAuthAdminServiceImplTest extends PowerMockIdentityBaseTest {
 
     private static final String CONSUMER_KEY = "consumer:key";
@@ -452,6 +463,10 @@ public class OAuthAdminServiceImplTest extends PowerMockIdentityBaseTest {
         when(oAuthAppDAO.getAppInformation(consumerKey)).thenReturn(app);
         whenNew(OAuthAppDAO.class).withAnyArguments().thenReturn(oAuthAppDAO);
 
+        SpOAuth2ExpiryTimeConfigCache expiryTimeConfigCache = PowerMockito.mock(SpOAuth2ExpiryTimeConfigCache.class);
+        mockStatic(SpOAuth2ExpiryTimeConfigCache.class);
+        when(SpOAuth2ExpiryTimeConfigCache.getInstance()).thenReturn(expiryTimeConfigCache);
+
         OAuthAdminServiceImpl oAuthAdminServiceImpl = new OAuthAdminServiceImpl();
         OAuthConsumerAppDTO consumerAppDTO = new OAuthConsumerAppDTO();
         consumerAppDTO.setApplicationName("new-application-name");
@@ -463,6 +478,9 @@ public class OAuthAdminServiceImplTest extends PowerMockIdentityBaseTest {
 
         consumerAppDTO.setUsername(appOwner.toFullQualifiedUsername());
         oAuthAdminServiceImpl.updateConsumerApplication(consumerAppDTO);
+        // The token expiry time configuration of the service provider is read again after an update.
+        verify(expiryTimeConfigCache).clearCacheEntry(eq(new SpOAuth2ExpiryTimeConfigCacheKey(consumerKey)),
+                anyInt());
         OAuthConsumerAppDTO updatedOAuthConsumerApp = oAuthAdminServiceImpl.getOAuthApplicationData(consumerKey);
         Assert.assertEquals(updatedOAuthConsumerApp.getApplicationName(), consumerAppDTO.getApplicationName(),
                 "Updated Application name should be same as the application name in consumerAppDTO data object.");
@@ -598,4 +616,41 @@ public class OAuthAdminServiceImplTest extends PowerMockIdentityBaseTest {
         OAuthAdminServiceImpl oAuthAdminService = new OAuthAdminServiceImpl();
         invokeMethod(oAuthAdminService, "validateAudiences", appDTO);
     }
+
+    @Test
+    public void testAuthorizedClientIdsAreCachedUntilRevocation() throws Exception {
+
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName("user1");
+        user.setTenantDomain("carbon.super");
+        user.setUserStoreDomain(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        user.setUserId(UUID.randomUUID().toString());
+
+        OAuthTokenPersistenceFactory persistenceFactory = PowerMockito.mock(OAuthTokenPersistenceFactory.class);
+        TokenManagementDAO tokenManagementDAO = PowerMockito.mock(TokenManagementDAO.class);
+        mockStatic(OAuthTokenPersistenceFactory.class);
+        when(OAuthTokenPersistenceFactory.getInstance()).thenReturn(persistenceFactory);
+        when(persistenceFactory.getTokenManagementDAO()).thenReturn(tokenManagementDAO);
+        when(tokenManagementDAO.getAuthorizedClientIds(eq(user), anyString()))
+                .thenReturn(Collections.singleton(CONSUMER_KEY));
+
+        OAuthAdminServiceImpl oAuthAdminService = new OAuthAdminServiceImpl();
+        try {
+            Set<String> clientIds = invokeMethod(oAuthAdminService, "getAuthorizedClientIds", user,
+                    UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME, user.getUserName());
+            Assert.assertEquals(clientIds, Collections.singleton(CONSUMER_KEY));
+            invokeMethod(oAuthAdminService, "getAuthorizedClientIds", user,
+                    UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME, user.getUserName());
+            verify(tokenManagementDAO, times(1)).getAuthorizedClientIds(eq(user), anyString());
+
+            // Revoking the tokens of the user clears the cache entry through OAuthUtil.
+            OAuthUtil.clearOAuthCache(CONSUMER_KEY, user);
+            Assert.assertNull(AuthorizedClientIdsCache.getInstance().getValueFromCache(user.getUserId()));
+            invokeMethod(oAuthAdminService, "getAuthorizedClientIds", user,
+                    UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME, user.getUserName());
+            verify(tokenManagementDAO, times(2)).getAuthorizedClientIds(eq(user), anyString());
+        } finally {
+            AuthorizedClientIdsCache.getInstance().clearCacheEntry(user.getUserId());
+        }
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.model.AuthzCodeDO;
+
+import java.sql.Timestamp;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Unit tests for AccessTokenNearCache.
+ */
+public class AccessTokenNearCacheTest {
+
+    private static final long ONE_HOUR_MILLIS = 3600000L;
+
+    @Test
+    public void testHitAndMiss() {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(true, 10, ONE_HOUR_MILLIS);
+        OAuthCacheKey key = new OAuthCacheKey("token");
+        assertNull(nearCache.get(key));
+
+        AccessTokenDO accessTokenDO = buildAccessToken(System.currentTimeMillis(), ONE_HOUR_MILLIS);
+        nearCache.put(key, accessTokenDO);
+        assertSame(nearCache.get(new OAuthCacheKey("token")), accessTokenDO);
+        assertEquals(nearCache.getHitCount(), 1);
+        assertEquals(nearCache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testEntryDoesNotOutliveToken() throws Exception {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(true, 10, ONE_HOUR_MILLIS);
+        OAuthCacheKey key = new OAuthCacheKey("token");
+        nearCache.put(key, buildAccessToken(System.currentTimeMillis(), 50));
+        Thread.sleep(100);
+        assertNull(nearCache.get(key));
+        assertEquals(nearCache.getExpirationCount(), 1);
+
+        // Already expired tokens are not cached at all.
+        nearCache.put(key, buildAccessToken(System.currentTimeMillis() - ONE_HOUR_MILLIS, 1000));
+        assertEquals(nearCache.size(), 0);
+    }
+
+    @Test
+    public void testInactiveTokensAndOtherEntriesAreNotCached() {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(true, 10, ONE_HOUR_MILLIS);
+        OAuthCacheKey key = new OAuthCacheKey("token");
+        nearCache.put(key, buildAccessToken(System.currentTimeMillis(), ONE_HOUR_MILLIS));
+
+        AccessTokenDO revokedToken = buildAccessToken(System.currentTimeMillis(), ONE_HOUR_MILLIS);
+        revokedToken.setTokenState(OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+        nearCache.put(key, revokedToken);
+        assertNull(nearCache.get(key));
+
+        nearCache.put(key, buildAccessToken(System.currentTimeMillis(), ONE_HOUR_MILLIS));
+        nearCache.put(key, new AuthzCodeDO());
+        assertNull(nearCache.get(key));
+    }
+
+    @Test
+    public void testInvalidate() {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(true, 10, ONE_HOUR_MILLIS);
+        OAuthCacheKey key = new OAuthCacheKey("token");
+        nearCache.put(key, buildAccessToken(System.currentTimeMillis(), ONE_HOUR_MILLIS));
+        nearCache.invalidate(new OAuthCacheKey("token"));
+        assertNull(nearCache.get(key));
+        assertEquals(nearCache.getInvalidationCount(), 1);
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(true, 5, ONE_HOUR_MILLIS);
+        for (int i = 0; i < 20; i++) {
+            nearCache.put(new OAuthCacheKey("token" + i), buildAccessToken(System.currentTimeMillis(),
+                    ONE_HOUR_MILLIS));
+        }
+        assertEquals(nearCache.size(), 5);
+        assertEquals(nearCache.getEvictionCount(), 15);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(true, 3, ONE_HOUR_MILLIS);
+        for (int i = 0; i < 3; i++) {
+            nearCache.put(new OAuthCacheKey("token" + i), buildAccessToken(System.currentTimeMillis(),
+                    ONE_HOUR_MILLIS));
+        }
+        assertNotNull(nearCache.get(new OAuthCacheKey("token0")));
+
+        nearCache.put(new OAuthCacheKey("token3"), buildAccessToken(System.currentTimeMillis(), ONE_HOUR_MILLIS));
+        assertNotNull(nearCache.get(new OAuthCacheKey("token0")));
+        assertNull(nearCache.get(new OAuthCacheKey("token1")));
+        assertEquals(nearCache.getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testDisabledCache() {
+
+        AccessTokenNearCache nearCache = new AccessTokenNearCache(false, 10, ONE_HOUR_MILLIS);
+        OAuthCacheKey key = new OAuthCacheKey("token");
+        nearCache.put(key, buildAccessToken(System.currentTimeMillis(), ONE_HOUR_MILLIS));
+        assertNull(nearCache.get(key));
+        assertEquals(nearCache.getMissCount(), 0);
+    }
+
+    private static AccessTokenDO buildAccessToken(long issuedTime, long validityPeriodInMillis) {
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setIssuedTime(new Timestamp(issuedTime));
+        accessTokenDO.setValidityPeriodInMillis(validityPeriodInMillis);
+        accessTokenDO.setTokenState(OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        return accessTokenDO;
+    }
+}
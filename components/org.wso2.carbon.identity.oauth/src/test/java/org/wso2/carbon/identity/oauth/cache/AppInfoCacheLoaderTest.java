@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
+import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for AppInfoCacheLoader.
+ */
+@PrepareForTest({AppInfoCache.class})
+public class AppInfoCacheLoaderTest extends PowerMockIdentityBaseTest {
+
+    private static final String CONSUMER_KEY = "consumerKey";
+    private static final int CONCURRENT_REQUESTS = 4;
+
+    @Mock
+    private AppInfoCache appInfoCache;
+
+    @BeforeMethod
+    public void setUp() {
+
+        initMocks(this);
+        mockStatic(AppInfoCache.class);
+        when(AppInfoCache.getInstance()).thenReturn(appInfoCache);
+    }
+
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+
+        AppInfoCacheLoader loader = new AppInfoCacheLoader();
+        OAuthAppDO oAuthAppDO = new OAuthAppDO();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        AtomicInteger loadCount = new AtomicInteger();
+        AppInfoCacheLoader.AppLoader appLoader = consumerKey -> {
+            loadCount.incrementAndGet();
+            loadStarted.countDown();
+            try {
+                releaseLoad.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return oAuthAppDO;
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        try {
+            List<Future<OAuthAppDO>> results = new ArrayList<>();
+            results.add(executor.submit(() -> loader.getAppInformation(CONSUMER_KEY, appLoader)));
+            assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+            for (int i = 1; i < CONCURRENT_REQUESTS; i++) {
+                results.add(executor.submit(() -> loader.getAppInformation(CONSUMER_KEY, appLoader)));
+            }
+            long deadline = System.currentTimeMillis() + 10000;
+            while (loader.getCoalescedLoadCount() < CONCURRENT_REQUESTS - 1) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("Requests were not coalesced with the in-flight load.");
+                }
+                Thread.sleep(10);
+            }
+            releaseLoad.countDown();
+            for (Future<OAuthAppDO> result : results) {
+                assertSame(result.get(10, TimeUnit.SECONDS), oAuthAppDO);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(loadCount.get(), 1);
+        assertEquals(loader.getLoadCount(), 1);
+        assertEquals(loader.getInFlightLoadCount(), 0);
+        verify(appInfoCache, times(1)).addToCache(CONSUMER_KEY, oAuthAppDO);
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() throws Exception {
+
+        AppInfoCacheLoader loader = new AppInfoCacheLoader();
+        try {
+            loader.getAppInformation(CONSUMER_KEY, consumerKey -> {
+                throw new InvalidOAuthClientException("Cannot find an application associated with the given " +
+                        "consumer key");
+            });
+            fail("Expected an InvalidOAuthClientException.");
+        } catch (InvalidOAuthClientException e) {
+            // Expected.
+        }
+        verify(appInfoCache, never()).addToCache(anyString(), any(OAuthAppDO.class));
+        assertEquals(loader.getInFlightLoadCount(), 0);
+
+        OAuthAppDO oAuthAppDO = new OAuthAppDO();
+        assertSame(loader.getAppInformation(CONSUMER_KEY, consumerKey -> oAuthAppDO), oAuthAppDO);
+        assertEquals(loader.getLoadCount(), 2);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for OAuthAppCacheGeneration.
+ */
+public class OAuthAppCacheGenerationTest {
+
+    private static final String CLIENT_ID = "clientId";
+    private static final String OTHER_CLIENT_ID = "otherClientId";
+
+    private Map<String, Long> sessionStore;
+    private InMemoryOAuthAppCacheGeneration node;
+    private InMemoryOAuthAppCacheGeneration otherNode;
+
+    @BeforeMethod
+    public void setUp() {
+
+        sessionStore = new HashMap<>();
+        node = new InMemoryOAuthAppCacheGeneration(sessionStore);
+        otherNode = new InMemoryOAuthAppCacheGeneration(sessionStore);
+        node.setOtherNode(otherNode);
+        otherNode.setOtherNode(node);
+    }
+
+    @Test
+    public void testEntriesAreNotStaleBeforeInvalidation() {
+
+        AccessTokenEntry entry = cache(node, CLIENT_ID);
+
+        assertFalse(node.isStale(CLIENT_ID, entry));
+        assertFalse(node.isStaleInSessionStore(CLIENT_ID, entry));
+        assertFalse(node.isStale(CLIENT_ID, new AccessTokenEntry()));
+        assertFalse(node.isStale(null, entry));
+    }
+
+    @Test
+    public void testInvalidate() {
+
+        AccessTokenEntry entry = cache(node, CLIENT_ID);
+        AccessTokenEntry otherAppEntry = cache(node, OTHER_CLIENT_ID);
+        node.invalidate(CLIENT_ID);
+
+        assertTrue(node.isStale(CLIENT_ID, entry));
+        assertFalse(node.isStale(CLIENT_ID, cache(node, CLIENT_ID)));
+        assertFalse(node.isStale(OTHER_CLIENT_ID, otherAppEntry));
+        assertEquals(node.getInvalidationCount(), 1);
+        assertEquals(node.getStaleEntryCount(), 1);
+    }
+
+    @Test
+    public void testEntriesCachedInTheSameMillisecondAreStale() {
+
+        // Generations are compared instead of times, hence the entries cached just before are always stale.
+        for (int i = 0; i < 100; i++) {
+            AccessTokenEntry entry = cache(node, CLIENT_ID);
+            node.invalidate(CLIENT_ID);
+            assertTrue(node.isStale(CLIENT_ID, entry));
+        }
+    }
+
+    @Test
+    public void testInvalidationReachesOtherNodesWithoutSessionDataPersistence() {
+
+        node.setSessionDataPersistenceEnabled(false);
+        otherNode.setSessionDataPersistenceEnabled(false);
+        AccessTokenEntry entry = cache(otherNode, CLIENT_ID);
+        // The other node numbers its generations independently.
+        cache(node, OTHER_CLIENT_ID);
+        cache(node, CLIENT_ID);
+
+        node.invalidate(CLIENT_ID);
+
+        assertTrue(otherNode.isStale(CLIENT_ID, entry));
+        assertFalse(otherNode.isStale(CLIENT_ID, cache(otherNode, CLIENT_ID)));
+    }
+
+    @Test
+    public void testEntryOfAnotherNodeReadFromSessionStore() {
+
+        AccessTokenEntry entry = cache(otherNode, CLIENT_ID);
+        assertFalse(node.isStaleInSessionStore(CLIENT_ID, entry));
+
+        node.invalidate(CLIENT_ID);
+
+        assertTrue(node.isStaleInSessionStore(CLIENT_ID, entry));
+        assertTrue(otherNode.isStaleInSessionStore(CLIENT_ID, entry));
+        assertFalse(node.isStaleInSessionStore(CLIENT_ID, cache(otherNode, CLIENT_ID)));
+    }
+
+    @Test
+    public void testExpiredGenerationOnlyDropsEntriesEarly() {
+
+        AccessTokenEntry entry = cache(node, CLIENT_ID);
+        // Removed from the generation cache on expiry.
+        node.clearLocalGeneration(CLIENT_ID);
+
+        assertTrue(node.isStale(CLIENT_ID, entry));
+        assertFalse(node.isStaleInSessionStore(CLIENT_ID, entry));
+    }
+
+    private static AccessTokenEntry cache(OAuthAppCacheGeneration cacheGeneration, String consumerKey) {
+
+        AccessTokenEntry entry = new AccessTokenEntry();
+        cacheGeneration.setGeneration(consumerKey, entry);
+        return entry;
+    }
+
+    private static class AccessTokenEntry extends CacheEntry {
+
+        private static final long serialVersionUID = 2086125853297165341L;
+    }
+
+    /**
+     * Generation of a node, with the generation cache of the node and the session data store held in memory.
+     */
+    private static class InMemoryOAuthAppCacheGeneration extends OAuthAppCacheGeneration {
+
+        private final Map<String, OAuthAppGenerationCacheEntry> generationCache = new HashMap<>();
+        private final Map<String, Long> sessionStore;
+        private InMemoryOAuthAppCacheGeneration otherNode;
+        private boolean sessionDataPersistenceEnabled = true;
+
+        InMemoryOAuthAppCacheGeneration(Map<String, Long> sessionStore) {
+
+            this.sessionStore = sessionStore;
+        }
+
+        void setOtherNode(InMemoryOAuthAppCacheGeneration otherNode) {
+
+            this.otherNode = otherNode;
+        }
+
+        void setSessionDataPersistenceEnabled(boolean sessionDataPersistenceEnabled) {
+
+            this.sessionDataPersistenceEnabled = sessionDataPersistenceEnabled;
+        }
+
+        void clearLocalGeneration(String consumerKey) {
+
+            generationCache.remove(consumerKey);
+        }
+
+        @Override
+        OAuthAppGenerationCacheEntry getCachedGeneration(String consumerKey) {
+
+            return generationCache.get(consumerKey);
+        }
+
+        @Override
+        void cacheGeneration(String consumerKey, OAuthAppGenerationCacheEntry generation) {
+
+            generationCache.put(consumerKey, generation);
+        }
+
+        @Override
+        void clearCachedGeneration(String consumerKey) {
+
+            // Removals of the clustered cache are propagated to the other nodes.
+            clearLocalGeneration(consumerKey);
+            otherNode.clearLocalGeneration(consumerKey);
+        }
+
+        @Override
+        long loadPersistedGeneration(String consumerKey) {
+
+            return sessionStore.getOrDefault(consumerKey, 0L);
+        }
+
+        @Override
+        void storePersistedGeneration(String consumerKey, long persistedGeneration) {
+
+            if (sessionDataPersistenceEnabled) {
+                sessionStore.put(consumerKey, persistedGeneration);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SpOAuth2ExpiryTimeConfigCacheKeyTest {
+
+    private static final String CONSUMER_KEY = "dummyConsumerKey";
+
+    @Test
+    public void testGetConsumerKey() {
+
+        SpOAuth2ExpiryTimeConfigCacheKey cacheKey = new SpOAuth2ExpiryTimeConfigCacheKey(CONSUMER_KEY);
+        assertEquals(cacheKey.getConsumerKey(), CONSUMER_KEY);
+    }
+
+    @Test
+    public void testEquals() {
+
+        SpOAuth2ExpiryTimeConfigCacheKey cacheKey = new SpOAuth2ExpiryTimeConfigCacheKey(CONSUMER_KEY);
+        assertTrue(cacheKey.equals(new SpOAuth2ExpiryTimeConfigCacheKey(CONSUMER_KEY)));
+        assertFalse(cacheKey.equals(new SpOAuth2ExpiryTimeConfigCacheKey("otherConsumerKey")));
+        assertFalse(cacheKey.equals(new OAuthScopeCacheKey(CONSUMER_KEY)));
+    }
+
+    @Test
+    public void testHashCode() {
+
+        SpOAuth2ExpiryTimeConfigCacheKey cacheKey = new SpOAuth2ExpiryTimeConfigCacheKey(CONSUMER_KEY);
+        assertEquals(cacheKey.hashCode(), new SpOAuth2ExpiryTimeConfigCacheKey(CONSUMER_KEY).hashCode());
+        assertNotEquals(cacheKey.hashCode(), new SpOAuth2ExpiryTimeConfigCacheKey("otherConsumerKey").hashCode());
+    }
+}
@@ -61,6 +61,7 @@ import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.spy;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertEqualsNoOrder;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
@@ -550,6 +551,37 @@ public class OAuthAppDAOTest extends TestOAuthDAOBase {
         }
     }
 
+    @Test
+    public void testGetOAuthConsumerAppsOfUserPageByPage() throws Exception {
+
+        setupMocksForTest(false);
+        try (Connection connection = getConnection(DB_NAME)) {
+            mockIdentityUtilDataBaseConnection(connection);
+
+            addOAuthApplication(getDefaultOAuthAppDO());
+            for (int i = 1; i <= 2; i++) {
+                OAuthAppDO anotherAppDO = getDefaultOAuthAppDO();
+                anotherAppDO.setApplicationName("ANOTHER_APP_" + i);
+                anotherAppDO.setOauthConsumerKey(UUID.randomUUID().toString());
+                anotherAppDO.setOauthConsumerSecret(UUID.randomUUID().toString());
+                addOAuthApplication(anotherAppDO);
+            }
+
+            OAuthAppDAO appDAO = new OAuthAppDAO();
+            String username = IdentityUtil.addDomainToName(USER_NAME, USER_STORE_DOMAIN);
+            OAuthAppDO[] firstPage = appDAO.getOAuthConsumerAppsOfUser(username, TENANT_ID, 0, 2);
+            assertEquals(firstPage.length, 2);
+            assertEquals(firstPage[0].getApplicationName(), APP_NAME);
+            assertEqualsNoOrder(firstPage[0].getScopeValidators(), SCOPE_VALIDATORS);
+            assertEquals(firstPage[0].getBackChannelLogoutUrl(), BACKCHANNEL_LOGOUT);
+
+            OAuthAppDO[] secondPage = appDAO.getOAuthConsumerAppsOfUser(username, TENANT_ID, firstPage[1].getId(), 2);
+            assertEquals(secondPage.length, 1);
+            assertEquals(secondPage[0].getApplicationName(), "ANOTHER_APP_2");
+            assertEqualsNoOrder(secondPage[0].getScopeValidators(), SCOPE_VALIDATORS);
+        }
+    }
+
     @Test(dataProvider = "booleanTests", expectedExceptions = IdentityOAuthAdminException.class)
     public void testGetOAuthConsumerAppsOfUserWithExceptions(Boolean isUsernameCaseSensitive) throws Exception {
 
@@ -19,16 +19,27 @@
 package org.wso2.carbon.identity.oauth.tokenprocessor;
 
 import org.apache.commons.lang.StringUtils;
+import org.json.JSONObject;
 import org.mockito.Mock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
@@ -36,12 +47,13 @@ import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
 
 /**
- * Test Class for the EncryptionDecryptionPersistenceProcessor.
+ * Test Class for the HashingPersistenceProcessor.
  */
 @PrepareForTest({OAuthServerConfiguration.class})
 public class HashingPersistenceProcessorTest extends PowerMockIdentityBaseTest {
 
     private static final String CLIENT_ID = "test";
+    private static final String NON_ASCII_VALUE = "t\u00f6k\u00e9n-\u7b7e\u540d-\ud83d\udd11";
 
     @Mock
     private OAuthServerConfiguration mockedServerConfig;
@@ -53,6 +65,12 @@ public class HashingPersistenceProcessorTest extends PowerMockIdentityBaseTest {
         initMocks(this);
     }
 
+    @DataProvider(name = "hashAlgorithms")
+    public Object[][] hashAlgorithms() {
+
+        return new Object[][]{{"SHA-256"}, {"SHA-384"}, {"SHA-512"}, {"SHA-1"}, {"MD5"}};
+    }
+
     @Test
     public void testGetPreprocessedClientId() throws IdentityOAuth2Exception {
         assertEquals(hashingPersistenceProcessor.getPreprocessedClientId(CLIENT_ID), CLIENT_ID);
@@ -68,14 +86,14 @@ public class HashingPersistenceProcessorTest extends PowerMockIdentityBaseTest {
         hashingPersistenceProcessor.getPreprocessedAuthzCode(CLIENT_ID);
     }
 
-    @Test(expectedExceptions = UnsupportedOperationException.class)
-    public void testPreprocessedAccessTokenIdentifierWithException() throws IdentityOAuth2Exception {
-        hashingPersistenceProcessor.getPreprocessedAccessTokenIdentifier(CLIENT_ID);
+    @Test
+    public void testGetPreprocessedAccessTokenIdentifier() throws IdentityOAuth2Exception {
+        assertEquals(hashingPersistenceProcessor.getPreprocessedAccessTokenIdentifier(CLIENT_ID), CLIENT_ID);
     }
 
-    @Test(expectedExceptions = UnsupportedOperationException.class)
-    public void testPreprocessedRefreshTokenWithException() throws IdentityOAuth2Exception {
-        hashingPersistenceProcessor.getPreprocessedRefreshToken(CLIENT_ID);
+    @Test
+    public void testGetPreprocessedRefreshToken() throws IdentityOAuth2Exception {
+        assertEquals(hashingPersistenceProcessor.getPreprocessedRefreshToken(CLIENT_ID), CLIENT_ID);
     }
 
     @Test(expectedExceptions = UnsupportedOperationException.class)
@@ -85,57 +103,112 @@ public class HashingPersistenceProcessorTest extends PowerMockIdentityBaseTest {
 
     @Test
     public void testGetProcessedClientSecret() throws IdentityOAuth2Exception {
-        setupMocksForTest();
+        setupMocksForTest("SHA-256");
         assertEquals(hashingPersistenceProcessor.getProcessedClientSecret(CLIENT_ID), hash(CLIENT_ID));
     }
 
     @Test
     public void testGetProcessedAuthzCode() throws IdentityOAuth2Exception {
-        setupMocksForTest();
+        setupMocksForTest("SHA-256");
         assertEquals(hashingPersistenceProcessor.getProcessedAuthzCode(CLIENT_ID), hash(CLIENT_ID));
     }
 
     @Test
     public void testGetProcessedAccessTokenIdentifier() throws IdentityOAuth2Exception {
-        setupMocksForTest();
+        setupMocksForTest("SHA-256");
         assertEquals(hashingPersistenceProcessor.getProcessedAccessTokenIdentifier(CLIENT_ID), hash(CLIENT_ID));
     }
 
     @Test
     public void testGetProcessedRefreshToken() throws IdentityOAuth2Exception {
-        setupMocksForTest();
+        setupMocksForTest("SHA-256");
         assertEquals(hashingPersistenceProcessor.getProcessedRefreshToken(CLIENT_ID), hash(CLIENT_ID));
     }
 
-    @Test(expectedExceptions = IllegalArgumentException.class)
+    @Test(dataProvider = "hashAlgorithms")
+    public void testHashMatchesLegacyHash(String hashAlgorithm) throws IdentityOAuth2Exception {
+
+        setupMocksForTest(hashAlgorithm);
+        String token = UUID.randomUUID().toString();
+        assertEquals(hashingPersistenceProcessor.getProcessedAccessTokenIdentifier(token), hash(token));
+        // The digest kept for the thread is reset between hashes.
+        assertEquals(hashingPersistenceProcessor.getProcessedAccessTokenIdentifier(token), hash(token));
+    }
+
+    @Test(dataProvider = "hashAlgorithms")
+    public void testHashOfNonAsciiValueMatchesLegacyHash(String hashAlgorithm) throws IdentityOAuth2Exception {
+
+        setupMocksForTest(hashAlgorithm);
+        assertEquals(hashingPersistenceProcessor.getProcessedRefreshToken(NON_ASCII_VALUE), hash(NON_ASCII_VALUE));
+    }
+
+    @Test
+    public void testHashAfterHashAlgorithmChange() throws IdentityOAuth2Exception {
+
+        setupMocksForTest("SHA-256");
+        assertEquals(hashingPersistenceProcessor.getProcessedAuthzCode(CLIENT_ID), hash(CLIENT_ID));
+        setupMocksForTest("SHA-512");
+        assertEquals(hashingPersistenceProcessor.getProcessedAuthzCode(CLIENT_ID), hash(CLIENT_ID));
+    }
+
+    @Test
+    public void testConcurrentHashing() throws Exception {
+
+        setupMocksForTest("SHA-256");
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String[]>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executorService.submit((Callable<List<String[]>>) () -> {
+                    List<String[]> results = new ArrayList<>();
+                    for (int j = 0; j < 500; j++) {
+                        String token = UUID.randomUUID().toString();
+                        results.add(new String[]{token,
+                                hashingPersistenceProcessor.getProcessedAccessTokenIdentifier(token)});
+                    }
+                    return results;
+                }));
+            }
+            for (Future<List<String[]>> future : futures) {
+                for (String[] result : future.get(1, TimeUnit.MINUTES)) {
+                    assertEquals(result[1], hash(result[0]));
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test(expectedExceptions = IdentityOAuth2Exception.class)
     public void testHashWithNullValue() throws IdentityOAuth2Exception {
-        setupMocksForTest();
+        setupMocksForTest("SHA-256");
         hashingPersistenceProcessor.getProcessedClientSecret(null);
     }
 
     @Test(expectedExceptions = IdentityOAuth2Exception.class)
-    public void testHahingWithNotExistingHashAlgorithm() throws IdentityOAuth2Exception {
-        setupMocksForTest();
-        when(OAuthServerConfiguration.getInstance().getHashAlgorithm()).thenReturn("TestAlgo");
-        hash("PlainText");
+    public void testHashWithEmptyValue() throws IdentityOAuth2Exception {
+        setupMocksForTest("SHA-256");
+        hashingPersistenceProcessor.getProcessedAccessTokenIdentifier("");
     }
 
     @Test(expectedExceptions = IdentityOAuth2Exception.class)
-    public void testHahingWithEmptyString() throws IdentityOAuth2Exception {
-        hash("");
+    public void testHahingWithNotExistingHashAlgorithm() throws IdentityOAuth2Exception {
+        setupMocksForTest("TestAlgo");
+        hashingPersistenceProcessor.getProcessedAuthzCode("PlainText");
     }
 
-    private void setupMocksForTest() {
+    private void setupMocksForTest(String hashAlgorithm) {
         mockStatic(OAuthServerConfiguration.class);
         when(OAuthServerConfiguration.getInstance()).thenReturn(mockedServerConfig);
-        when(OAuthServerConfiguration.getInstance().getHashAlgorithm()).thenReturn("SHA-256");
+        when(mockedServerConfig.getHashAlgorithm()).thenReturn(hashAlgorithm);
     }
 
     /**
-     * Method to generate hash value.
+     * Generate the hash value the way it was generated before the message digests were reused, to verify that the
+     * stored hashes do not change.
      *
      * @param plainText Plain text value.
-     * @return Hashed value.
+     * @return Hashed value wrapped in a JSON object along with the hash algorithm.
      */
     private String hash(String plainText) throws IdentityOAuth2Exception {
 
@@ -148,14 +221,17 @@ public class HashingPersistenceProcessorTest extends PowerMockIdentityBaseTest {
         String hashAlgorithm = OAuthServerConfiguration.getInstance().getHashAlgorithm();
         try {
             messageDigest = MessageDigest.getInstance(hashAlgorithm);
-            messageDigest.update(plainText.getBytes());
+            messageDigest.update(plainText.getBytes(StandardCharsets.UTF_8));
             hash = messageDigest.digest();
 
         } catch (NoSuchAlgorithmException e) {
             throw new IdentityOAuth2Exception(
                     "Error while retrieving MessageDigest for the provided hash algorithm: " + hashAlgorithm, e);
         }
-        return bytesToHex(hash);
+        JSONObject object = new JSONObject();
+        object.put(HashingPersistenceProcessor.ALGORITHM, hashAlgorithm);
+        object.put(HashingPersistenceProcessor.HASH, bytesToHex(hash));
+        return object.toString();
     }
 
     private static String bytesToHex(byte[] bytes) {
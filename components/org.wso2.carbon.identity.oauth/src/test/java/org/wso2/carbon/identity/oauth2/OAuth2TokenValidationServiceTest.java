@@ -19,6 +19,7 @@ package org.wso2.carbon.identity.oauth2;
 import org.mockito.Mock;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.testng.PowerMockTestCase;
+import org.powermock.reflect.Whitebox;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -28,18 +29,31 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2ClientApplicationDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2IntrospectionResponseDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oauth2.validators.TokenValidationHandler;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyObject;
+import static org.powermock.api.mockito.PowerMockito.doAnswer;
+import static org.powermock.api.mockito.PowerMockito.doCallRealMethod;
 import static org.powermock.api.mockito.PowerMockito.doNothing;
 import static org.powermock.api.mockito.PowerMockito.doThrow;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
 
 @PrepareForTest({OAuth2Util.class, TokenValidationHandler.class, OAuthComponentServiceHolder.class,
         OAuthServerConfiguration.class})
@@ -224,4 +238,76 @@ public class OAuth2TokenValidationServiceTest extends PowerMockTestCase {
         assertNotNull(tokenValidationService.buildIntrospectionResponse(mockedOAuth2TokenValidationRequestDTO),
                 "Expected to be not null");
     }
+
+    @Test
+    public void testBuildIntrospectionResponsesClearsPrefetchedAccessTokens() throws Exception {
+
+        List<String> prefetchedIdentifiers = new ArrayList<>();
+        ThreadLocal<Map<String, AccessTokenDO>> prefetchedAccessTokens =
+                mockPrefetchAccessTokens(prefetchedIdentifiers);
+        when(mockedValidationHandler.buildIntrospectionResponse(any(OAuth2TokenValidationRequestDTO.class)))
+                .thenAnswer(invocation -> {
+                    // The tokens of the batch are available while each token of the batch is validated.
+                    assertNotNull(prefetchedAccessTokens.get());
+                    return mockedIntrospectionResponseDTO;
+                });
+
+        OAuth2IntrospectionResponseDTO[] introspectionResponses = tokenValidationService.buildIntrospectionResponses(
+                new OAuth2TokenValidationRequestDTO[]{buildValidationRequest("token1"),
+                        buildValidationRequest("token2")});
+
+        assertEquals(introspectionResponses.length, 2);
+        assertEquals(prefetchedIdentifiers, Arrays.asList("token1", "token2"));
+        assertNull(prefetchedAccessTokens.get(), "Prefetched access tokens are not cleared after the batch.");
+    }
+
+    @Test
+    public void testBuildIntrospectionResponsesClearsPrefetchedAccessTokensOnError() throws Exception {
+
+        ThreadLocal<Map<String, AccessTokenDO>> prefetchedAccessTokens = mockPrefetchAccessTokens(new ArrayList<>());
+        when(mockedValidationHandler.buildIntrospectionResponse(any(OAuth2TokenValidationRequestDTO.class)))
+                .thenThrow(new IllegalStateException("dummyException"));
+
+        try {
+            tokenValidationService.buildIntrospectionResponses(
+                    new OAuth2TokenValidationRequestDTO[]{buildValidationRequest("token1")});
+            fail("Error while validating a token of the batch is not propagated.");
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "dummyException");
+        }
+        assertNull(prefetchedAccessTokens.get(), "Prefetched access tokens are not cleared after an error.");
+    }
+
+    /**
+     * Mock the batch look up of the access tokens to fill the prefetched access tokens of the current thread.
+     *
+     * @param prefetchedIdentifiers List to collect the token identifiers which are looked up.
+     * @return Prefetched access tokens of OAuth2Util.
+     */
+    @SuppressWarnings("unchecked")
+    private ThreadLocal<Map<String, AccessTokenDO>> mockPrefetchAccessTokens(List<String> prefetchedIdentifiers)
+            throws Exception {
+
+        when(mockedOAuthComponentServiceHolder.getOAuthEventInterceptorProxy()).thenReturn(null);
+        ThreadLocal<Map<String, AccessTokenDO>> prefetchedAccessTokens =
+                Whitebox.getInternalState(OAuth2Util.class, "prefetchedAccessTokens");
+        mockStatic(OAuth2Util.class);
+        doAnswer(invocation -> {
+            prefetchedIdentifiers.addAll((Collection<String>) invocation.getArguments()[0]);
+            prefetchedAccessTokens.set(new HashMap<>());
+            return null;
+        }).when(OAuth2Util.class, "prefetchAccessTokens", anyCollection());
+        doCallRealMethod().when(OAuth2Util.class, "clearPrefetchedAccessTokens");
+        return prefetchedAccessTokens;
+    }
+
+    private static OAuth2TokenValidationRequestDTO buildValidationRequest(String tokenIdentifier) {
+
+        OAuth2TokenValidationRequestDTO validationRequestDTO = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = validationRequestDTO.new OAuth2AccessToken();
+        accessToken.setIdentifier(tokenIdentifier);
+        accessToken.setTokenType("bearer");
+        validationRequestDTO.setAccessToken(accessToken);
+        return validationRequestDTO;
+    }
 }
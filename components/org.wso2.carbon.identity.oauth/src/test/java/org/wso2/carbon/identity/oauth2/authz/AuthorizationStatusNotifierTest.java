@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.authz;
+
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@WithCarbonHome
+public class AuthorizationStatusNotifierTest extends PowerMockTestCase {
+
+    private static final String KEY = "testKey";
+    private static final long MAX_WAIT_TIME = 10000;
+
+    private AuthorizationStatusNotifier notifier;
+
+    @BeforeMethod
+    public void setUp() {
+
+        notifier = new AuthorizationStatusNotifier(true, MAX_WAIT_TIME, 10);
+    }
+
+    @Test
+    public void testAwaitStatusChange() throws Exception {
+
+        CompletableFuture<Boolean> poll = CompletableFuture.supplyAsync(
+                () -> notifier.awaitStatusChange(KEY, MAX_WAIT_TIME));
+        long deadline = System.currentTimeMillis() + MAX_WAIT_TIME;
+        while (notifier.getWaitingPollCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        notifier.notifyStatusChange(KEY);
+
+        Assert.assertTrue(poll.get(MAX_WAIT_TIME, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(notifier.getNotifiedPollCount(), 1);
+        Assert.assertEquals(notifier.getWaitingPollCount(), 0);
+    }
+
+    @Test
+    public void testTimedOutPollDoesNotAffectOtherPolls() throws Exception {
+
+        CompletableFuture<Boolean> shortPoll = CompletableFuture.supplyAsync(
+                () -> notifier.awaitStatusChange(KEY, 100));
+        CompletableFuture<Boolean> longPoll = CompletableFuture.supplyAsync(
+                () -> notifier.awaitStatusChange(KEY, MAX_WAIT_TIME));
+        Assert.assertFalse(shortPoll.get(MAX_WAIT_TIME, TimeUnit.MILLISECONDS));
+        long deadline = System.currentTimeMillis() + MAX_WAIT_TIME;
+        while (notifier.getWaitingPollCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        notifier.notifyStatusChange(KEY);
+
+        Assert.assertTrue(longPoll.get(MAX_WAIT_TIME, TimeUnit.MILLISECONDS),
+                "A waiting poll was not notified after another poll of the same key timed out.");
+        Assert.assertEquals(notifier.getTimedOutPollCount(), 1);
+        Assert.assertEquals(notifier.getNotifiedPollCount(), 1);
+    }
+
+    @Test
+    public void testWaitingPollLimit() {
+
+        AuthorizationStatusNotifier limitedNotifier = new AuthorizationStatusNotifier(true, MAX_WAIT_TIME, 0);
+        long startTime = System.currentTimeMillis();
+        Assert.assertFalse(limitedNotifier.awaitStatusChange(KEY, MAX_WAIT_TIME));
+        Assert.assertTrue(System.currentTimeMillis() - startTime < MAX_WAIT_TIME,
+                "A poll beyond the limit should be answered right away.");
+        Assert.assertEquals(limitedNotifier.getTimedOutPollCount(), 0);
+    }
+
+    @Test
+    public void testStatusChangedBeforeAwait() {
+
+        notifier.notifyStatusChange(KEY);
+        Assert.assertTrue(notifier.awaitStatusChange(KEY, MAX_WAIT_TIME),
+                "A poll should not wait for a status change which already happened.");
+
+        notifier.remove(KEY);
+        Assert.assertFalse(notifier.awaitStatusChange(KEY, 1));
+        Assert.assertEquals(notifier.getTimedOutPollCount(), 1);
+    }
+
+    @Test
+    public void testDisabled() {
+
+        AuthorizationStatusNotifier disabledNotifier = new AuthorizationStatusNotifier(false, MAX_WAIT_TIME, 10);
+        disabledNotifier.notifyStatusChange(KEY);
+        Assert.assertFalse(disabledNotifier.awaitStatusChange(KEY, MAX_WAIT_TIME));
+        Assert.assertEquals(disabledNotifier.getTimedOutPollCount(), 0);
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.common.model.LocalAndOutboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.OAuthUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.dao.SQLQueries;
+import org.wso2.carbon.identity.oauth.tokenprocessor.HashingPersistenceProcessor;
+import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcessor;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.util.DAOUtils;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.OauthTokenIssuer;
+import org.wso2.carbon.identity.oauth2.util.OAuth2TokenUtil;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.user.core.UserCoreConstants;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.doAnswer;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import static org.wso2.carbon.identity.oauth.common.OAuthConstants.OAuthVersions.VERSION_2;
+
+/**
+ * Unit tests for AccessTokenDAOImpl against the H2 identity database.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class, IdentityUtil.class, OAuth2Util.class, OAuth2TokenUtil.class,
+        OAuthServerConfiguration.class, OAuthUtil.class})
+public class AccessTokenDAOImplTest extends PowerMockIdentityBaseTest {
+
+    private static final String DB_NAME = "testAccessTokenDB";
+    private static final int TENANT_ID = 1234;
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String LOCAL_IDP = "LOCAL";
+    private static final String CALLBACK = "http://localhost:8080/redirect";
+    // One more than the IN list size of a single look-up query.
+    private static final int TOKENS_OF_TWO_CHUNKS = 1001;
+
+    @Mock
+    private OAuthServerConfiguration mockedServerConfig;
+
+    @Mock
+    private ApplicationManagementService mockedApplicationMgtService;
+
+    @Mock
+    private OauthTokenIssuer mockedOAuthTokenIssuer;
+
+    private AccessTokenDAOImpl accessTokenDAO;
+    private String clientId;
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        DAOUtils.initializeDataSource(DB_NAME, DAOUtils.getFilePath("identity.sql"));
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDP (TENANT_ID, NAME, UUID) " +
+                     "VALUES (?, ?, ?)")) {
+            prepStmt.setInt(1, TENANT_ID);
+            prepStmt.setString(2, LOCAL_IDP);
+            prepStmt.setString(3, UUID.randomUUID().toString());
+            prepStmt.execute();
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(OAuthServerConfiguration.class);
+        when(OAuthServerConfiguration.getInstance()).thenReturn(mockedServerConfig);
+        when(mockedServerConfig.getPersistenceProcessor()).thenReturn(new PlainTextPersistenceProcessor());
+        when(mockedServerConfig.getHashAlgorithm()).thenReturn("SHA-256");
+
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection(false)).thenAnswer(invocation -> getConnection());
+        when(IdentityDatabaseUtil.getDBConnection()).thenAnswer(invocation -> getConnection());
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).commit();
+            return null;
+        }).when(IdentityDatabaseUtil.class);
+        IdentityDatabaseUtil.commitTransaction(any(Connection.class));
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).rollback();
+            return null;
+        }).when(IdentityDatabaseUtil.class);
+        IdentityDatabaseUtil.rollbackTransaction(any(Connection.class));
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).close();
+            return null;
+        }).when(IdentityDatabaseUtil.class);
+        IdentityDatabaseUtil.closeConnection(any(Connection.class));
+
+        mockStatic(IdentityUtil.class);
+        mockStatic(OAuthUtil.class);
+        mockStatic(OAuth2TokenUtil.class);
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getTenantDomain(anyInt())).thenReturn(TENANT_DOMAIN);
+        when(OAuth2Util.getTokenPartitionedSqlByToken(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(OAuth2Util.buildScopeArray(anyString())).thenCallRealMethod();
+        when(OAuth2Util.createAuthenticatedUser(anyString(), anyString(), anyString(), anyString()))
+                .thenCallRealMethod();
+        when(OAuth2Util.getTenantId(TENANT_DOMAIN)).thenReturn(TENANT_ID);
+        when(OAuth2Util.getTokenPartitionedSqlByUserStore(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(OAuth2Util.getSanitizedUserStoreDomain(anyString()))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(OAuth2Util.getUserStoreDomain(any(AuthenticatedUser.class)))
+                .thenReturn(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        when(OAuth2Util.getAuthenticatedIDP(any(AuthenticatedUser.class))).thenReturn(LOCAL_IDP);
+        when(OAuth2Util.hashScopes(any(String[].class))).thenCallRealMethod();
+        when(OAuth2Util.buildScopeString(any(String[].class))).thenCallRealMethod();
+        when(OAuth2Util.getOAuthTokenIssuerForOAuthApp(anyString())).thenReturn(mockedOAuthTokenIssuer);
+
+        ServiceProvider serviceProvider = new ServiceProvider();
+        serviceProvider.setLocalAndOutBoundAuthenticationConfig(new LocalAndOutboundAuthenticationConfig());
+        when(mockedApplicationMgtService.getServiceProviderByClientId(anyString(), anyString(), anyString()))
+                .thenReturn(serviceProvider);
+        OAuth2ServiceComponentHolder.setApplicationMgtService(mockedApplicationMgtService);
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(true);
+
+        clientId = createApplication();
+        accessTokenDAO = new AccessTokenDAOImpl();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(false);
+        OAuth2ServiceComponentHolder.setApplicationMgtService(null);
+        try (Connection connection = DAOUtils.getConnection(DB_NAME)) {
+            connection.createStatement().executeUpdate("DELETE FROM IDN_OAUTH2_ACCESS_TOKEN_SCOPE");
+            connection.createStatement().executeUpdate("DELETE FROM IDN_OAUTH2_ACCESS_TOKEN");
+            connection.createStatement().executeUpdate("DELETE FROM IDN_OAUTH_CONSUMER_APPS");
+        }
+    }
+
+    @Test
+    public void testGetAccessTokensOfHitsAndMisses() throws Exception {
+
+        String activeToken = UUID.randomUUID().toString();
+        String activeTokenId = insertAccessToken(activeToken, "ACTIVE", "openid", "email");
+        String expiredToken = UUID.randomUUID().toString();
+        insertAccessToken(expiredToken, "EXPIRED", "openid");
+        String unknownToken = UUID.randomUUID().toString();
+
+        Map<String, AccessTokenDO> accessTokenDOs = accessTokenDAO.getAccessTokens(
+                Arrays.asList(activeToken, expiredToken, unknownToken));
+
+        assertEquals(accessTokenDOs.keySet(), new HashSet<>(Arrays.asList(activeToken)));
+        AccessTokenDO accessTokenDO = accessTokenDOs.get(activeToken);
+        assertEquals(accessTokenDO.getAccessToken(), activeToken);
+        assertEquals(accessTokenDO.getTokenId(), activeTokenId);
+        assertEquals(accessTokenDO.getConsumerKey(), clientId);
+        assertEquals(accessTokenDO.getAuthzUser().getUserName(), "user1");
+        assertEquals(accessTokenDO.getTenantID(), TENANT_ID);
+        // Each scope of the token is a separate row of the result.
+        assertEquals(new HashSet<>(Arrays.asList(accessTokenDO.getScope())),
+                new HashSet<>(Arrays.asList("openid", "email")));
+    }
+
+    @Test
+    public void testGetAccessTokensOfMoreThanOneChunk() throws Exception {
+
+        List<String> accessTokens = new ArrayList<>();
+        for (int i = 0; i < TOKENS_OF_TWO_CHUNKS; i++) {
+            accessTokens.add(UUID.randomUUID().toString());
+        }
+        insertAccessTokens(accessTokens);
+        List<String> requestedTokens = new ArrayList<>(accessTokens);
+        requestedTokens.add(UUID.randomUUID().toString());
+
+        Map<String, AccessTokenDO> accessTokenDOs = accessTokenDAO.getAccessTokens(requestedTokens);
+
+        assertEquals(accessTokenDOs.size(), TOKENS_OF_TWO_CHUNKS);
+        assertTrue(accessTokenDOs.keySet().containsAll(accessTokens));
+        // The tokens of the second chunk are built as well.
+        assertNotNull(accessTokenDOs.get(accessTokens.get(TOKENS_OF_TWO_CHUNKS - 1)).getTokenId());
+    }
+
+    @Test
+    public void testGetAccessTokensOfNoTokens() throws Exception {
+
+        assertTrue(accessTokenDAO.getAccessTokens(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    public void testInsertAccessTokensInBatch() throws Exception {
+
+        List<AccessContextTokenDO> batch = Arrays.asList(newAccessContextToken("user1"),
+                newAccessContextToken("user2"), newAccessContextToken("user3"));
+
+        assertTrue(accessTokenDAO.insertAccessTokensInBatch(batch));
+
+        Map<String, AccessTokenDO> accessTokenDOs = accessTokenDAO.getAccessTokens(getAccessTokens(batch));
+        assertEquals(accessTokenDOs.size(), batch.size());
+        for (AccessContextTokenDO accessContextTokenDO : batch) {
+            AccessTokenDO accessTokenDO = accessTokenDOs.get(accessContextTokenDO.getAccessToken());
+            assertEquals(accessTokenDO.getTokenId(), accessContextTokenDO.getNewAccessTokenDO().getTokenId());
+            assertEquals(accessTokenDO.getAuthzUser().getUserName(),
+                    accessContextTokenDO.getNewAccessTokenDO().getAuthzUser().getUserName());
+            assertEquals(accessTokenDO.getScope(), new String[]{"openid"});
+        }
+    }
+
+    @Test
+    public void testBatchConAppKeyConflictFallsBackToIndividualPersistence() throws Exception {
+
+        AccessContextTokenDO existingToken = newAccessContextToken("user1");
+        assertTrue(accessTokenDAO.insertAccessTokensInBatch(Arrays.asList(existingToken)));
+
+        // The new token of user1 is not marked to replace the active token, hence it violates CON_APP_KEY.
+        AccessContextTokenDO otherUserToken = newAccessContextToken("user2");
+        AccessContextTokenDO conflictingToken = newAccessContextToken("user1");
+        List<AccessContextTokenDO> batch = Arrays.asList(otherUserToken, conflictingToken);
+        assertFalse(accessTokenDAO.insertAccessTokensInBatch(batch));
+        // The whole batch is rolled back.
+        assertEquals(getAccessTokenCount(), 1);
+
+        // The requesters persist their tokens individually, replacing the active token they found.
+        for (AccessContextTokenDO accessContextTokenDO : batch) {
+            AccessTokenDO existingAccessTokenDO = accessContextTokenDO == conflictingToken ?
+                    existingToken.getNewAccessTokenDO() : null;
+            assertTrue(accessTokenDAO.insertAccessToken(accessContextTokenDO.getAccessToken(),
+                    accessContextTokenDO.getConsumerKey(), accessContextTokenDO.getNewAccessTokenDO(),
+                    existingAccessTokenDO, accessContextTokenDO.getUserStoreDomain()));
+        }
+
+        Map<String, AccessTokenDO> accessTokenDOs = accessTokenDAO.getAccessTokens(Arrays.asList(
+                existingToken.getAccessToken(), otherUserToken.getAccessToken(), conflictingToken.getAccessToken()));
+        assertEquals(accessTokenDOs.keySet(), new HashSet<>(Arrays.asList(otherUserToken.getAccessToken(),
+                conflictingToken.getAccessToken())));
+        assertEquals(getTokenState(existingToken.getNewAccessTokenDO().getTokenId()),
+                OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+    }
+
+    @Test
+    public void testBatchOtherConstraintViolationIsNotConAppKeyConflict() throws Exception {
+
+        AccessContextTokenDO existingToken = newAccessContextToken("user1");
+        assertTrue(accessTokenDAO.insertAccessTokensInBatch(Arrays.asList(existingToken)));
+
+        // A duplicate token id violates the primary key, which is not recovered by individual persistence.
+        AccessContextTokenDO duplicateIdToken = newAccessContextToken("user2");
+        duplicateIdToken.getNewAccessTokenDO().setTokenId(existingToken.getNewAccessTokenDO().getTokenId());
+        try {
+            accessTokenDAO.insertAccessTokensInBatch(Arrays.asList(newAccessContextToken("user3"),
+                    duplicateIdToken));
+            fail("Primary key violation of the batch is reported as a CON_APP_KEY conflict.");
+        } catch (IdentityOAuth2Exception e) {
+            assertEquals(getAccessTokenCount(), 1);
+        }
+    }
+
+    private static Connection getConnection() throws Exception {
+
+        // Autocommit is off, as with the identity datasource, so that a rolled back batch is not persisted.
+        Connection connection = DAOUtils.getConnection(DB_NAME);
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    private AccessContextTokenDO newAccessContextToken(String username) {
+
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName(username);
+        user.setTenantDomain(TENANT_DOMAIN);
+        user.setUserStoreDomain(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        Timestamp issuedTime = new Timestamp(System.currentTimeMillis());
+        AccessTokenDO accessTokenDO = new AccessTokenDO(clientId, user, new String[]{"openid"}, issuedTime,
+                issuedTime, 3600000L, 86400000L, "APPLICATION_USER");
+        String accessToken = UUID.randomUUID().toString();
+        accessTokenDO.setAccessToken(accessToken);
+        accessTokenDO.setRefreshToken(UUID.randomUUID().toString());
+        accessTokenDO.setTokenId(UUID.randomUUID().toString());
+        accessTokenDO.setTokenState(OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+        accessTokenDO.setGrantType("client_credentials");
+        return new AccessContextTokenDO(accessToken, clientId, accessTokenDO, null,
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+    }
+
+    private static List<String> getAccessTokens(List<AccessContextTokenDO> accessContextTokenDOs) {
+
+        List<String> accessTokens = new ArrayList<>();
+        for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+            accessTokens.add(accessContextTokenDO.getAccessToken());
+        }
+        return accessTokens;
+    }
+
+    private static int getAccessTokenCount() throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             ResultSet resultSet = connection.createStatement().executeQuery(
+                     "SELECT COUNT(*) FROM IDN_OAUTH2_ACCESS_TOKEN")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static String getTokenState(String tokenId) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement(
+                     "SELECT TOKEN_STATE FROM IDN_OAUTH2_ACCESS_TOKEN WHERE TOKEN_ID = ?")) {
+            prepStmt.setString(1, tokenId);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+
+    private static String createApplication() throws Exception {
+
+        String consumerKey = UUID.randomUUID().toString();
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement(
+                     SQLQueries.OAuthAppDAOSQLQueries.ADD_OAUTH_APP)) {
+            prepStmt.setString(1, consumerKey);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, "admin");
+            prepStmt.setInt(4, TENANT_ID);
+            prepStmt.setString(5, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+            prepStmt.setString(6, "app-" + consumerKey);
+            prepStmt.setString(7, VERSION_2);
+            prepStmt.setString(8, CALLBACK);
+            prepStmt.setString(9, "authorization_code refresh_token");
+            prepStmt.setLong(10, 3600L);
+            prepStmt.setLong(11, 3600L);
+            prepStmt.setLong(12, 84600L);
+            prepStmt.setLong(13, 3600L);
+            prepStmt.execute();
+        }
+        return consumerKey;
+    }
+
+    private String insertAccessToken(String accessToken, String tokenState, String... scopes) throws Exception {
+
+        String tokenId = UUID.randomUUID().toString();
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = prepareInsertAccessToken(connection);
+             PreparedStatement scopePrepStmt = connection.prepareStatement(
+                     "INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE (TOKEN_ID, TOKEN_SCOPE, TENANT_ID) VALUES (?, ?, ?)")) {
+            setInsertAccessTokenParameters(prepStmt, tokenId, accessToken, tokenState);
+            prepStmt.execute();
+            for (String scope : scopes) {
+                scopePrepStmt.setString(1, tokenId);
+                scopePrepStmt.setString(2, scope);
+                scopePrepStmt.setInt(3, TENANT_ID);
+                scopePrepStmt.execute();
+            }
+        }
+        return tokenId;
+    }
+
+    private void insertAccessTokens(List<String> accessTokens) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = prepareInsertAccessToken(connection)) {
+            for (String accessToken : accessTokens) {
+                setInsertAccessTokenParameters(prepStmt, UUID.randomUUID().toString(), accessToken, "ACTIVE");
+                prepStmt.addBatch();
+            }
+            prepStmt.executeBatch();
+        }
+    }
+
+    private static PreparedStatement prepareInsertAccessToken(Connection connection) throws Exception {
+
+        return connection.prepareStatement("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN (TOKEN_ID, ACCESS_TOKEN, " +
+                "ACCESS_TOKEN_HASH, CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, USER_TYPE, " +
+                "VALIDITY_PERIOD, TOKEN_SCOPE_HASH, TOKEN_STATE, TOKEN_STATE_ID, IDP_ID) VALUES (?, ?, ?, (SELECT " +
+                "ID FROM IDN_OAUTH_CONSUMER_APPS WHERE CONSUMER_KEY = ?), 'user1', ?, ?, 'APPLICATION_USER', " +
+                "3600000, ?, ?, ?, (SELECT ID FROM IDP WHERE NAME = ? AND TENANT_ID = ?))");
+    }
+
+    private void setInsertAccessTokenParameters(PreparedStatement prepStmt, String tokenId, String accessToken,
+                                                String tokenState) throws Exception {
+
+        prepStmt.setString(1, tokenId);
+        prepStmt.setString(2, accessToken);
+        prepStmt.setString(3, new HashingPersistenceProcessor().getProcessedAccessTokenIdentifier(accessToken));
+        prepStmt.setString(4, clientId);
+        prepStmt.setInt(5, TENANT_ID);
+        prepStmt.setString(6, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        // Tokens of the same user, client and state differ by the scope to satisfy the CON_APP_KEY constraint.
+        prepStmt.setString(7, UUID.randomUUID().toString().substring(0, 32));
+        prepStmt.setString(8, tokenState);
+        prepStmt.setString(9, UUID.randomUUID().toString());
+        prepStmt.setString(10, LOCAL_IDP);
+        prepStmt.setInt(11, TENANT_ID);
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.dao.SQLQueries;
+import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcessor;
+import org.wso2.carbon.identity.oauth2.dao.util.DAOUtils;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2TokenUtil;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.user.core.UserCoreConstants;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.doAnswer;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.wso2.carbon.identity.oauth.common.OAuthConstants.OAuthVersions.VERSION_2;
+
+/**
+ * Unit tests for BulkTokenRevocationDAOImpl against the H2 identity database.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class, OAuth2Util.class, OAuth2TokenUtil.class,
+        OAuthServerConfiguration.class})
+public class BulkTokenRevocationDAOImplTest extends PowerMockIdentityBaseTest {
+
+    private static final String DB_NAME = "testBulkTokenRevocationDB";
+    private static final int TENANT_ID = 1234;
+    private static final int OTHER_TENANT_ID = 5678;
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String PRIMARY = UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME;
+    private static final String SECONDARY = "SECONDARY";
+    private static final String LOCAL_IDP = "LOCAL";
+    private static final String CALLBACK = "http://localhost:8080/redirect";
+    // One more than the IN list size of a single query.
+    private static final int TOKENS_OF_TWO_CHUNKS = 1001;
+
+    @Mock
+    private OAuthServerConfiguration mockedServerConfig;
+
+    private BulkTokenRevocationDAOImpl bulkTokenRevocationDAO;
+    private String clientId;
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        DAOUtils.initializeDataSource(DB_NAME, DAOUtils.getFilePath("identity.sql"));
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDP (TENANT_ID, NAME, UUID) " +
+                     "VALUES (?, ?, ?)")) {
+            for (int tenantId : new int[]{TENANT_ID, OTHER_TENANT_ID}) {
+                prepStmt.setInt(1, tenantId);
+                prepStmt.setString(2, LOCAL_IDP);
+                prepStmt.setString(3, UUID.randomUUID().toString());
+                prepStmt.execute();
+            }
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(OAuthServerConfiguration.class);
+        when(OAuthServerConfiguration.getInstance()).thenReturn(mockedServerConfig);
+        when(mockedServerConfig.getPersistenceProcessor()).thenReturn(new PlainTextPersistenceProcessor());
+
+        mockStatic(IdentityDatabaseUtil.class);
+        when(IdentityDatabaseUtil.getDBConnection(false)).thenAnswer(invocation -> getConnection());
+        when(IdentityDatabaseUtil.getDBConnection()).thenAnswer(invocation -> getConnection());
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).commit();
+            return null;
+        }).when(IdentityDatabaseUtil.class);
+        IdentityDatabaseUtil.commitTransaction(any(Connection.class));
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).rollback();
+            return null;
+        }).when(IdentityDatabaseUtil.class);
+        IdentityDatabaseUtil.rollbackTransaction(any(Connection.class));
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).close();
+            return null;
+        }).when(IdentityDatabaseUtil.class);
+        IdentityDatabaseUtil.closeConnection(any(Connection.class));
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).close();
+            return null;
+        }).when(IdentityDatabaseUtil.class);
+        IdentityDatabaseUtil.closeAllConnections(any(Connection.class), any(ResultSet.class),
+                any(PreparedStatement.class));
+
+        mockStatic(OAuth2TokenUtil.class);
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getTenantDomain(anyInt())).thenReturn(TENANT_DOMAIN);
+        when(OAuth2Util.createAuthenticatedUser(anyString(), anyString(), anyString(), anyString()))
+                .thenCallRealMethod();
+        when(OAuth2Util.getTokenPartitionedSqlByUserStore(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(true);
+
+        clientId = createApplication();
+        bulkTokenRevocationDAO = new BulkTokenRevocationDAOImpl();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(false);
+        try (Connection connection = DAOUtils.getConnection(DB_NAME)) {
+            connection.createStatement().executeUpdate("DELETE FROM IDN_OAUTH2_ACCESS_TOKEN_SCOPE");
+            connection.createStatement().executeUpdate("DELETE FROM IDN_OAUTH2_ACCESS_TOKEN");
+            connection.createStatement().executeUpdate("DELETE FROM IDN_OAUTH_CONSUMER_APPS");
+        }
+    }
+
+    @Test
+    public void testPagesAreOrderedByTokenId() throws Exception {
+
+        List<String> tokenIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tokenIds.add(insertAccessToken(TENANT_ID, PRIMARY, "ACTIVE", "openid"));
+        }
+        Collections.sort(tokenIds);
+
+        List<String> pagedTokenIds = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String lastTokenId = null;
+        List<AccessTokenDO> page;
+        do {
+            page = bulkTokenRevocationDAO.getRevocableAccessTokens(BulkTokenRevocationFilter.forTenant(TENANT_ID),
+                    PRIMARY, lastTokenId, 2);
+            pageSizes.add(page.size());
+            for (AccessTokenDO accessTokenDO : page) {
+                pagedTokenIds.add(accessTokenDO.getTokenId());
+                assertEquals(accessTokenDO.getScope(), new String[]{"openid"});
+                lastTokenId = accessTokenDO.getTokenId();
+            }
+        } while (page.size() == 2);
+
+        assertEquals(pagedTokenIds, tokenIds);
+        assertEquals(pageSizes, Arrays.asList(2, 2, 1));
+    }
+
+    @Test
+    public void testOnlyActiveAndExpiredTokensOfTheTenantAreRevoked() throws Exception {
+
+        String activeTokenId = insertAccessToken(TENANT_ID, PRIMARY, "ACTIVE");
+        String expiredTokenId = insertAccessToken(TENANT_ID, PRIMARY, "EXPIRED");
+        String inactiveTokenId = insertAccessToken(TENANT_ID, PRIMARY, "INACTIVE");
+        String otherTenantTokenId = insertAccessToken(OTHER_TENANT_ID, PRIMARY, "ACTIVE");
+
+        List<AccessTokenDO> accessTokenDOs = bulkTokenRevocationDAO.getRevocableAccessTokens(
+                BulkTokenRevocationFilter.forTenant(TENANT_ID), PRIMARY, null, 100);
+        assertEquals(getTokenIds(accessTokenDOs), new HashSet<>(Arrays.asList(activeTokenId, expiredTokenId)));
+
+        assertEquals(bulkTokenRevocationDAO.revokeAccessTokens(accessTokenDOs, PRIMARY), 2);
+        assertEquals(getTokenState(activeTokenId), "REVOKED");
+        assertEquals(getTokenState(expiredTokenId), "REVOKED");
+        assertEquals(getTokenState(inactiveTokenId), "INACTIVE");
+        assertEquals(getTokenState(otherTenantTokenId), "ACTIVE");
+    }
+
+    @Test
+    public void testOnlyTokensOfTheUserStoreAreRevoked() throws Exception {
+
+        String secondaryTokenId = insertAccessToken(TENANT_ID, SECONDARY, "ACTIVE");
+        String primaryTokenId = insertAccessToken(TENANT_ID, PRIMARY, "ACTIVE");
+        String otherTenantTokenId = insertAccessToken(OTHER_TENANT_ID, SECONDARY, "ACTIVE");
+
+        List<AccessTokenDO> accessTokenDOs = bulkTokenRevocationDAO.getRevocableAccessTokens(
+                BulkTokenRevocationFilter.forUserStore(TENANT_ID, SECONDARY), SECONDARY, null, 100);
+        assertEquals(getTokenIds(accessTokenDOs), Collections.singleton(secondaryTokenId));
+
+        assertEquals(bulkTokenRevocationDAO.revokeAccessTokens(accessTokenDOs, SECONDARY), 1);
+        assertEquals(getTokenState(secondaryTokenId), "REVOKED");
+        assertEquals(getTokenState(primaryTokenId), "ACTIVE");
+        assertEquals(getTokenState(otherTenantTokenId), "ACTIVE");
+    }
+
+    @Test
+    public void testTokensOfMoreThanOneChunkAreRevoked() throws Exception {
+
+        insertAccessTokens(TOKENS_OF_TWO_CHUNKS);
+
+        List<AccessTokenDO> accessTokenDOs = bulkTokenRevocationDAO.getRevocableAccessTokens(
+                BulkTokenRevocationFilter.forTenant(TENANT_ID), PRIMARY, null, TOKENS_OF_TWO_CHUNKS);
+        assertEquals(accessTokenDOs.size(), TOKENS_OF_TWO_CHUNKS);
+        for (AccessTokenDO accessTokenDO : accessTokenDOs) {
+            assertEquals(accessTokenDO.getScope(), new String[]{"openid"});
+        }
+
+        assertEquals(bulkTokenRevocationDAO.revokeAccessTokens(accessTokenDOs, PRIMARY), TOKENS_OF_TWO_CHUNKS);
+        assertEquals(getTokenCount("REVOKED"), TOKENS_OF_TWO_CHUNKS);
+        assertEquals(getTokenCount("ACTIVE"), 0);
+    }
+
+    private static Connection getConnection() throws Exception {
+
+        // Autocommit is off, as with the identity datasource.
+        Connection connection = DAOUtils.getConnection(DB_NAME);
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    private static HashSet<String> getTokenIds(List<AccessTokenDO> accessTokenDOs) {
+
+        HashSet<String> tokenIds = new HashSet<>();
+        for (AccessTokenDO accessTokenDO : accessTokenDOs) {
+            tokenIds.add(accessTokenDO.getTokenId());
+        }
+        return tokenIds;
+    }
+
+    private static String getTokenState(String tokenId) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement(
+                     "SELECT TOKEN_STATE FROM IDN_OAUTH2_ACCESS_TOKEN WHERE TOKEN_ID = ?")) {
+            prepStmt.setString(1, tokenId);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+
+    private static int getTokenCount(String tokenState) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM IDN_OAUTH2_ACCESS_TOKEN WHERE TOKEN_STATE = ?")) {
+            prepStmt.setString(1, tokenState);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    private static String createApplication() throws Exception {
+
+        String consumerKey = UUID.randomUUID().toString();
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement(
+                     SQLQueries.OAuthAppDAOSQLQueries.ADD_OAUTH_APP)) {
+            prepStmt.setString(1, consumerKey);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, "admin");
+            prepStmt.setInt(4, TENANT_ID);
+            prepStmt.setString(5, PRIMARY);
+            prepStmt.setString(6, "app-" + consumerKey);
+            prepStmt.setString(7, VERSION_2);
+            prepStmt.setString(8, CALLBACK);
+            prepStmt.setString(9, "authorization_code refresh_token");
+            prepStmt.setLong(10, 3600L);
+            prepStmt.setLong(11, 3600L);
+            prepStmt.setLong(12, 84600L);
+            prepStmt.setLong(13, 3600L);
+            prepStmt.execute();
+        }
+        return consumerKey;
+    }
+
+    private String insertAccessToken(int tenantId, String userStoreDomain, String tokenState, String... scopes)
+            throws Exception {
+
+        String tokenId = UUID.randomUUID().toString();
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = prepareInsertAccessToken(connection);
+             PreparedStatement scopePrepStmt = prepareInsertScope(connection)) {
+            setInsertAccessTokenParameters(prepStmt, tokenId, tenantId, userStoreDomain, tokenState);
+            prepStmt.execute();
+            for (String scope : scopes) {
+                setInsertScopeParameters(scopePrepStmt, tokenId, scope);
+                scopePrepStmt.execute();
+            }
+        }
+        return tokenId;
+    }
+
+    private void insertAccessTokens(int count) throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = prepareInsertAccessToken(connection);
+             PreparedStatement scopePrepStmt = prepareInsertScope(connection)) {
+            for (int i = 0; i < count; i++) {
+                String tokenId = UUID.randomUUID().toString();
+                setInsertAccessTokenParameters(prepStmt, tokenId, TENANT_ID, PRIMARY, "ACTIVE");
+                prepStmt.addBatch();
+                setInsertScopeParameters(scopePrepStmt, tokenId, "openid");
+                scopePrepStmt.addBatch();
+            }
+            prepStmt.executeBatch();
+            scopePrepStmt.executeBatch();
+        }
+    }
+
+    private static PreparedStatement prepareInsertAccessToken(Connection connection) throws Exception {
+
+        return connection.prepareStatement("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN (TOKEN_ID, ACCESS_TOKEN, " +
+                "CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, USER_TYPE, VALIDITY_PERIOD, TOKEN_SCOPE_HASH, " +
+                "TOKEN_STATE, TOKEN_STATE_ID, IDP_ID) VALUES (?, ?, (SELECT ID FROM IDN_OAUTH_CONSUMER_APPS WHERE " +
+                "CONSUMER_KEY = ?), 'user1', ?, ?, 'APPLICATION_USER', 3600000, ?, ?, 'NONE', (SELECT ID FROM IDP " +
+                "WHERE NAME = ? AND TENANT_ID = ?))");
+    }
+
+    private void setInsertAccessTokenParameters(PreparedStatement prepStmt, String tokenId, int tenantId,
+                                                String userStoreDomain, String tokenState) throws Exception {
+
+        prepStmt.setString(1, tokenId);
+        prepStmt.setString(2, UUID.randomUUID().toString());
+        prepStmt.setString(3, clientId);
+        prepStmt.setInt(4, tenantId);
+        prepStmt.setString(5, userStoreDomain);
+        // Tokens of the same user, client and state differ by the scope to satisfy the CON_APP_KEY constraint.
+        prepStmt.setString(6, UUID.randomUUID().toString().substring(0, 32));
+        prepStmt.setString(7, tokenState);
+        prepStmt.setString(8, LOCAL_IDP);
+        prepStmt.setInt(9, tenantId);
+    }
+
+    private static PreparedStatement prepareInsertScope(Connection connection) throws Exception {
+
+        return connection.prepareStatement("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE (TOKEN_ID, TOKEN_SCOPE, " +
+                "TENANT_ID) VALUES (?, ?, ?)");
+    }
+
+    private static void setInsertScopeParameters(PreparedStatement prepStmt, String tokenId, String scope)
+            throws Exception {
+
+        prepStmt.setString(1, tokenId);
+        prepStmt.setString(2, scope);
+        prepStmt.setInt(3, TENANT_ID);
+    }
+}
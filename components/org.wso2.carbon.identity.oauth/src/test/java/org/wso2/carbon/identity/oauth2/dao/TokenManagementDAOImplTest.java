@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth.dao.SQLQueries;
+import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcessor;
+import org.wso2.carbon.identity.oauth2.dao.util.DAOUtils;
+import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+import org.wso2.carbon.user.core.UserCoreConstants;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.UUID;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.wso2.carbon.identity.oauth.common.OAuthConstants.OAuthVersions.VERSION_2;
+
+/**
+ * Unit tests for TokenManagementDAOImpl.
+ */
+@PrepareForTest({IdentityDatabaseUtil.class, IdentityUtil.class, OAuth2Util.class, OAuthServerConfiguration.class})
+public class TokenManagementDAOImplTest extends PowerMockIdentityBaseTest {
+
+    private static final String DB_NAME = "testTokenManagementDB";
+    private static final int TENANT_ID = 1234;
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final String LOCAL_IDP = "LOCAL";
+    private static final String FEDERATED_IDP = "Google";
+    private static final String CALLBACK = "http://localhost:8080/redirect";
+
+    @Mock
+    private OAuthServerConfiguration mockedServerConfig;
+
+    private TokenManagementDAOImpl tokenManagementDAO;
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        DAOUtils.initializeDataSource(DB_NAME, DAOUtils.getFilePath("identity.sql"));
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDP (TENANT_ID, NAME, UUID) " +
+                     "VALUES (?, ?, ?)")) {
+            for (String idpName : Arrays.asList(LOCAL_IDP, FEDERATED_IDP)) {
+                prepStmt.setInt(1, TENANT_ID);
+                prepStmt.setString(2, idpName);
+                prepStmt.setString(3, UUID.randomUUID().toString());
+                prepStmt.execute();
+            }
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(OAuthServerConfiguration.class);
+        when(OAuthServerConfiguration.getInstance()).thenReturn(mockedServerConfig);
+        when(mockedServerConfig.getPersistenceProcessor()).thenReturn(new PlainTextPersistenceProcessor());
+
+        mockStatic(IdentityDatabaseUtil.class);
+        // The DAO closes each connection it gets.
+        when(IdentityDatabaseUtil.getDBConnection(false)).thenAnswer(invocation -> DAOUtils.getConnection(DB_NAME));
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.isUserStoreCaseSensitive(anyString(), anyInt())).thenReturn(false);
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getTenantId(TENANT_DOMAIN)).thenReturn(TENANT_ID);
+        when(OAuth2Util.getTokenPartitionedSqlByUserStore(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(OAuth2Util.getSanitizedUserStoreDomain(anyString()))
+                .thenAnswer(invocation -> invocation.getArguments()[0]);
+        when(OAuth2Util.getUserStoreDomain(any(AuthenticatedUser.class)))
+                .thenReturn(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        when(OAuth2Util.getAuthenticatedIDP(any(AuthenticatedUser.class))).thenAnswer(invocation -> {
+            AuthenticatedUser user = (AuthenticatedUser) invocation.getArguments()[0];
+            return user.isFederatedUser() ? user.getFederatedIdPName() : LOCAL_IDP;
+        });
+
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(true);
+        tokenManagementDAO = new TokenManagementDAOImpl();
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        OAuth2ServiceComponentHolder.setIDPIdColumnEnabled(false);
+        try (Connection connection = DAOUtils.getConnection(DB_NAME)) {
+            connection.createStatement().executeUpdate("DELETE FROM IDN_OAUTH2_ACCESS_TOKEN");
+            connection.createStatement().executeUpdate("DELETE FROM IDN_OAUTH_CONSUMER_APPS");
+        }
+    }
+
+    @Test
+    public void testGetAuthorizedClientIdsIgnoresUsernameCase() throws Exception {
+
+        String clientId = createApplication();
+        insertAccessToken(clientId, "User1", LOCAL_IDP, "ACTIVE");
+
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(localUser("user1"),
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME), Collections.singleton(clientId));
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(localUser("USER1"),
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME), Collections.singleton(clientId));
+    }
+
+    @Test
+    public void testGetAuthorizedClientIdsOfCaseSensitiveUserStore() throws Exception {
+
+        when(IdentityUtil.isUserStoreCaseSensitive(anyString(), anyInt())).thenReturn(true);
+        String clientId = createApplication();
+        insertAccessToken(clientId, "User1", LOCAL_IDP, "ACTIVE");
+
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(localUser("User1"),
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME), Collections.singleton(clientId));
+        assertTrue(tokenManagementDAO.getAuthorizedClientIds(localUser("user1"),
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME).isEmpty());
+    }
+
+    @Test
+    public void testGetAuthorizedClientIdsFiltersByIdP() throws Exception {
+
+        String localClientId = createApplication();
+        String federatedClientId = createApplication();
+        insertAccessToken(localClientId, "user1", LOCAL_IDP, "ACTIVE");
+        insertAccessToken(federatedClientId, "user1", FEDERATED_IDP, "ACTIVE");
+
+        AuthenticatedUser federatedUser = localUser("user1");
+        federatedUser.setFederatedUser(true);
+        federatedUser.setFederatedIdPName(FEDERATED_IDP);
+
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(localUser("user1"),
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME), Collections.singleton(localClientId));
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(federatedUser,
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME), Collections.singleton(federatedClientId));
+    }
+
+    @Test
+    public void testGetAuthorizedClientIdsFiltersByTokenState() throws Exception {
+
+        String activeClientId = createApplication();
+        String expiredClientId = createApplication();
+        String revokedClientId = createApplication();
+        String inactiveClientId = createApplication();
+        insertAccessToken(activeClientId, "user1", LOCAL_IDP, "ACTIVE");
+        // Two tokens of the same client are listed once.
+        insertAccessToken(activeClientId, "user1", LOCAL_IDP, "EXPIRED");
+        insertAccessToken(expiredClientId, "user1", LOCAL_IDP, "EXPIRED");
+        insertAccessToken(revokedClientId, "user1", LOCAL_IDP, "REVOKED");
+        insertAccessToken(inactiveClientId, "user1", LOCAL_IDP, "INACTIVE");
+
+        assertEquals(tokenManagementDAO.getAuthorizedClientIds(localUser("user1"),
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME),
+                new HashSet<>(Arrays.asList(activeClientId, expiredClientId)));
+    }
+
+    private static AuthenticatedUser localUser(String username) {
+
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName(username);
+        user.setTenantDomain(TENANT_DOMAIN);
+        user.setUserStoreDomain(UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+        return user;
+    }
+
+    private static String createApplication() throws Exception {
+
+        String consumerKey = UUID.randomUUID().toString();
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement(
+                     SQLQueries.OAuthAppDAOSQLQueries.ADD_OAUTH_APP)) {
+            prepStmt.setString(1, consumerKey);
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, "admin");
+            prepStmt.setInt(4, TENANT_ID);
+            prepStmt.setString(5, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+            prepStmt.setString(6, "app-" + consumerKey);
+            prepStmt.setString(7, VERSION_2);
+            prepStmt.setString(8, CALLBACK);
+            prepStmt.setString(9, "authorization_code refresh_token");
+            prepStmt.setLong(10, 3600L);
+            prepStmt.setLong(11, 3600L);
+            prepStmt.setLong(12, 84600L);
+            prepStmt.setLong(13, 3600L);
+            prepStmt.execute();
+        }
+        return consumerKey;
+    }
+
+    private static void insertAccessToken(String consumerKey, String authzUser, String idpName, String tokenState)
+            throws Exception {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDN_OAUTH2_ACCESS_TOKEN " +
+                     "(TOKEN_ID, ACCESS_TOKEN, CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, USER_TYPE, " +
+                     "TOKEN_SCOPE_HASH, TOKEN_STATE, TOKEN_STATE_ID, IDP_ID) VALUES (?, ?, (SELECT ID FROM " +
+                     "IDN_OAUTH_CONSUMER_APPS WHERE CONSUMER_KEY = ?), ?, ?, ?, 'APPLICATION_USER', ?, ?, ?, " +
+                     "(SELECT ID FROM IDP WHERE NAME = ? AND TENANT_ID = ?))")) {
+            prepStmt.setString(1, UUID.randomUUID().toString());
+            prepStmt.setString(2, UUID.randomUUID().toString());
+            prepStmt.setString(3, consumerKey);
+            prepStmt.setString(4, authzUser);
+            prepStmt.setInt(5, TENANT_ID);
+            prepStmt.setString(6, UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME);
+            prepStmt.setString(7, UUID.randomUUID().toString().substring(0, 32));
+            prepStmt.setString(8, tokenState);
+            prepStmt.setString(9, UUID.randomUUID().toString());
+            prepStmt.setString(10, idpName);
+            prepStmt.setInt(11, TENANT_ID);
+            prepStmt.execute();
+        }
+    }
+}
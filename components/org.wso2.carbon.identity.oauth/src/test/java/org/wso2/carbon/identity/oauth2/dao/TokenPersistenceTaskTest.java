@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.powermock.reflect.internal.WhiteboxImpl;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for the batched mode of TokenPersistenceTask.
+ */
+public class TokenPersistenceTaskTest extends IdentityBaseTest {
+
+    private static final int TOKEN_COUNT = 5;
+
+    private AccessTokenDAO originalAccessTokenDAO;
+    private AccessTokenDAO accessTokenDAO;
+    private Thread consumer;
+
+    @BeforeMethod
+    public void setUp() {
+
+        originalAccessTokenDAO = OAuthTokenPersistenceFactory.getInstance().getAccessTokenDAO();
+        accessTokenDAO = mock(AccessTokenDAO.class);
+        WhiteboxImpl.setInternalState(OAuthTokenPersistenceFactory.getInstance(), "tokenDAO", accessTokenDAO);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+
+        if (consumer != null) {
+            consumer.interrupt();
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        WhiteboxImpl.setInternalState(OAuthTokenPersistenceFactory.getInstance(), "tokenDAO",
+                originalAccessTokenDAO);
+    }
+
+    @Test
+    public void testBatchPersisted() throws Exception {
+
+        when(accessTokenDAO.insertAccessTokensInBatch(anyListOf(AccessContextTokenDO.class))).thenReturn(true);
+        TokenPersistenceMetrics metrics = new TokenPersistenceMetrics();
+        List<AccessContextTokenDO> tokens = enqueueAndConsume(metrics);
+
+        for (AccessContextTokenDO token : tokens) {
+            assertTrue(token.getPersistenceResult().get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(metrics.getPersistedTokenCount(), TOKEN_COUNT);
+        assertEquals(metrics.getFallbackBatchCount(), 0);
+    }
+
+    @Test
+    public void testBatchConflictFallsBackToIndividualPersistence() throws Exception {
+
+        when(accessTokenDAO.insertAccessTokensInBatch(anyListOf(AccessContextTokenDO.class))).thenReturn(false);
+        TokenPersistenceMetrics metrics = new TokenPersistenceMetrics();
+        List<AccessContextTokenDO> tokens = enqueueAndConsume(metrics);
+
+        for (AccessContextTokenDO token : tokens) {
+            assertFalse(token.getPersistenceResult().get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(metrics.getPersistedTokenCount(), 0);
+        assertTrue(metrics.getFallbackBatchCount() > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCancelledTokenIsNotPersisted() throws Exception {
+
+        List<AccessContextTokenDO> persistedTokens = new ArrayList<>();
+        when(accessTokenDAO.insertAccessTokensInBatch(anyListOf(AccessContextTokenDO.class))).thenAnswer(
+                invocation -> persistedTokens.addAll((List<AccessContextTokenDO>) invocation.getArguments()[0]));
+        TokenPersistenceMetrics metrics = new TokenPersistenceMetrics();
+        List<AccessContextTokenDO> tokens = enqueueAndConsume(metrics, 1);
+
+        for (AccessContextTokenDO token : tokens.subList(1, TOKEN_COUNT)) {
+            assertTrue(token.getPersistenceResult().get(5, TimeUnit.SECONDS));
+        }
+        assertFalse(persistedTokens.contains(tokens.get(0)));
+        assertEquals(persistedTokens.size(), TOKEN_COUNT - 1);
+        verify(accessTokenDAO, never()).updateAccessTokenState(anyString(), anyString());
+    }
+
+    @Test
+    public void testTokenCancelledWhileCommittedIsRevoked() throws Exception {
+
+        TokenPersistenceMetrics metrics = new TokenPersistenceMetrics();
+        List<AccessContextTokenDO> tokens = createTokens();
+        when(accessTokenDAO.insertAccessTokensInBatch(anyListOf(AccessContextTokenDO.class))).thenAnswer(
+                invocation -> tokens.get(0).getPersistenceResult().cancel(false));
+        consume(tokens, metrics);
+
+        for (AccessContextTokenDO token : tokens.subList(1, TOKEN_COUNT)) {
+            assertTrue(token.getPersistenceResult().get(5, TimeUnit.SECONDS));
+        }
+        verify(accessTokenDAO, timeout(TimeUnit.SECONDS.toMillis(5)))
+                .updateAccessTokenState("tokenId0", OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
+        verify(accessTokenDAO, never()).updateAccessTokenState("tokenId1", OAuthConstants.TokenStates
+                .TOKEN_STATE_REVOKED);
+    }
+
+    private List<AccessContextTokenDO> enqueueAndConsume(TokenPersistenceMetrics metrics) {
+
+        return enqueueAndConsume(metrics, 0);
+    }
+
+    private List<AccessContextTokenDO> enqueueAndConsume(TokenPersistenceMetrics metrics, int cancelledTokenCount) {
+
+        List<AccessContextTokenDO> tokens = createTokens();
+        for (AccessContextTokenDO token : tokens.subList(0, cancelledTokenCount)) {
+            token.getPersistenceResult().cancel(false);
+        }
+        consume(tokens, metrics);
+        return tokens;
+    }
+
+    private static List<AccessContextTokenDO> createTokens() {
+
+        List<AccessContextTokenDO> tokens = new ArrayList<>();
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            AccessTokenDO accessTokenDO = new AccessTokenDO();
+            accessTokenDO.setTokenId("tokenId" + i);
+            tokens.add(new AccessContextTokenDO("accessToken" + i, "consumerKey", accessTokenDO, null,
+                    "PRIMARY"));
+        }
+        return tokens;
+    }
+
+    private void consume(List<AccessContextTokenDO> tokens, TokenPersistenceMetrics metrics) {
+
+        BlockingDeque<AccessContextTokenDO> queue = new LinkedBlockingDeque<>(tokens);
+        consumer = new Thread(new TokenPersistenceTask(queue, TOKEN_COUNT, 100, metrics));
+        consumer.start();
+    }
+}
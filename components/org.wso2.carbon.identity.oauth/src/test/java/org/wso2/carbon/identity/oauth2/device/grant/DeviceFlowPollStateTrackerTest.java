@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.device.grant;
+
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.oauth2.device.errorcodes.DeviceErrorCodes;
+import org.wso2.carbon.identity.oauth2.device.model.DeviceFlowDO;
+
+import java.sql.Timestamp;
+
+@WithCarbonHome
+public class DeviceFlowPollStateTrackerTest extends PowerMockTestCase {
+
+    private static final String DEVICE_CODE = "testDeviceCode";
+    private static final String USER_CODE = "testUserCode";
+    private static final String CLIENT_ID = "testClientId";
+    private static final long POLL_INTERVAL = 5000;
+    private static final long REFRESH_INTERVAL = 30000;
+
+    private DeviceFlowPollStateTracker tracker;
+    private long now;
+
+    @BeforeMethod
+    public void setUp() {
+
+        tracker = new DeviceFlowPollStateTracker(true, REFRESH_INTERVAL);
+        now = System.currentTimeMillis();
+        DeviceFlowDO deviceFlowDO = new DeviceFlowDO();
+        deviceFlowDO.setDeviceCode(DEVICE_CODE);
+        deviceFlowDO.setUserCode(USER_CODE);
+        deviceFlowDO.setExpiryTime(new Timestamp(now + 600000));
+        deviceFlowDO.setPollTime(POLL_INTERVAL);
+        tracker.track(deviceFlowDO, CLIENT_ID, now);
+    }
+
+    @Test
+    public void testAnswerPoll() {
+
+        Assert.assertEquals(tracker.answerPoll(DEVICE_CODE, CLIENT_ID, now + POLL_INTERVAL + 1),
+                DeviceErrorCodes.SubDeviceErrorCodes.AUTHORIZATION_PENDING);
+        Assert.assertEquals(tracker.answerPoll(DEVICE_CODE, CLIENT_ID, now + POLL_INTERVAL + 2),
+                DeviceErrorCodes.SubDeviceErrorCodes.SLOW_DOWN);
+        Assert.assertEquals(tracker.getLastPollTime(DEVICE_CODE), now + POLL_INTERVAL + 2);
+        Assert.assertEquals(tracker.getAnsweredFromMemoryCount(), 2);
+        Assert.assertNull(tracker.answerPoll(DEVICE_CODE, "otherClientId", now + 2 * POLL_INTERVAL + 3),
+                "Polls of another client should be validated against the database.");
+    }
+
+    @Test
+    public void testStatusRefresh() {
+
+        Assert.assertNull(tracker.answerPoll(DEVICE_CODE, CLIENT_ID, now + REFRESH_INTERVAL),
+                "The status should be read again once the refresh interval elapses.");
+    }
+
+    @Test
+    public void testInvalidateByUserCode() {
+
+        tracker.invalidateByUserCode(USER_CODE);
+        Assert.assertNull(tracker.answerPoll(DEVICE_CODE, CLIENT_ID, now + POLL_INTERVAL + 1));
+        Assert.assertEquals(tracker.getLastPollTime(DEVICE_CODE), -1);
+    }
+
+    @Test
+    public void testDisabled() {
+
+        DeviceFlowPollStateTracker disabledTracker = new DeviceFlowPollStateTracker(false, REFRESH_INTERVAL);
+        DeviceFlowDO deviceFlowDO = new DeviceFlowDO();
+        deviceFlowDO.setDeviceCode(DEVICE_CODE);
+        deviceFlowDO.setExpiryTime(new Timestamp(now + 600000));
+        disabledTracker.track(deviceFlowDO, CLIENT_ID, now);
+        Assert.assertNull(disabledTracker.answerPoll(DEVICE_CODE, CLIENT_ID, now + POLL_INTERVAL + 1));
+    }
+}
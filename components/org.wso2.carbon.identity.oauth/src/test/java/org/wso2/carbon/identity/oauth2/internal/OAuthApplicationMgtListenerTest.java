@@ -38,6 +38,7 @@ import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCache;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheEntry;
 import org.wso2.carbon.identity.oauth.cache.AuthorizationGrantCacheKey;
 import org.wso2.carbon.identity.oauth.cache.CacheEntry;
+import org.wso2.carbon.identity.oauth.cache.OAuthAppCacheGeneration;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -58,7 +59,8 @@ import static org.testng.Assert.assertTrue;
  * Test class for OAuthApplicationMgtListener test cases.
  */
 @PrepareForTest({OAuth2ServiceComponentHolder.class, OAuthServerConfiguration.class, IdentityDatabaseUtil.class,
-        OAuthApplicationMgtListener.class, AuthorizationGrantCache.class, OAuthCache.class, IdentityTenantUtil.class})
+        OAuthApplicationMgtListener.class, AuthorizationGrantCache.class, OAuthCache.class, IdentityTenantUtil.class,
+        OAuthAppCacheGeneration.class})
 public class OAuthApplicationMgtListenerTest extends TestOAuthDAOBase {
 
     private static final String DB_NAME = "testDB";
@@ -91,6 +93,9 @@ public class OAuthApplicationMgtListenerTest extends TestOAuthDAOBase {
     @Mock
     private CacheEntry mockCacheEntry;
 
+    @Mock
+    private OAuthAppCacheGeneration mockAppCacheGeneration;
+
     @BeforeClass
     public void setUp() throws Exception {
 
@@ -122,6 +127,9 @@ public class OAuthApplicationMgtListenerTest extends TestOAuthDAOBase {
 
         mockStatic(OAuthCache.class);
         when(OAuthCache.getInstance()).thenReturn(mockOauthCache);
+
+        mockStatic(OAuthAppCacheGeneration.class);
+        when(OAuthAppCacheGeneration.getInstance()).thenReturn(mockAppCacheGeneration);
     }
 
     @Test
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.internal;
+
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.oauth2.validators.OAuth2JWTTokenValidator;
+
+import java.security.cert.X509Certificate;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertTrue;
+
+public class OAuthIdentityProviderMgtListenerTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String IDP_NAME = "idp1";
+
+    private OAuthIdentityProviderMgtListener listener;
+    private Map<String, X509Certificate> certificateCache;
+
+    @BeforeMethod
+    public void setUp() {
+
+        listener = new OAuthIdentityProviderMgtListener();
+        certificateCache = Whitebox.getInternalState(OAuth2JWTTokenValidator.class, "CERTIFICATE_CACHE");
+        certificateCache.put("certificate", mock(X509Certificate.class));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        OAuth2JWTTokenValidator.clearCertificateCache();
+    }
+
+    @Test
+    public void testDoPostUpdateIdPClearsCertificateCache() throws Exception {
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName(IDP_NAME);
+        assertTrue(listener.doPostUpdateIdP(IDP_NAME, identityProvider, TENANT_DOMAIN));
+        assertTrue(certificateCache.isEmpty(), "Certificate cache is not cleared on identity provider update.");
+    }
+
+    @Test
+    public void testDoPostDeleteIdPClearsCertificateCache() throws Exception {
+
+        assertTrue(listener.doPostDeleteIdP(IDP_NAME, TENANT_DOMAIN));
+        assertTrue(certificateCache.isEmpty(), "Certificate cache is not cleared on identity provider delete.");
+    }
+
+    @Test
+    public void testDoPostUpdateResidentIdPClearsCertificateCache() throws Exception {
+
+        assertTrue(listener.doPostUpdateResidentIdP(new IdentityProvider(), TENANT_DOMAIN));
+        assertTrue(certificateCache.isEmpty(),
+                "Certificate cache is not cleared on resident identity provider update.");
+    }
+}
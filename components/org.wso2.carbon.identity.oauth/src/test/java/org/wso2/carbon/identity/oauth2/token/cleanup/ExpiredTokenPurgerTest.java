@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.cleanup;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.ExpiredRecordPurgeResult;
+import org.wso2.carbon.identity.oauth2.dao.OldTokensCleanDAO;
+import org.wso2.carbon.identity.oauth2.internal.cache.AuthorizedClientIdsCache;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.time.LocalTime;
+import java.util.Collections;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for ExpiredTokenPurger.
+ */
+@PrepareForTest({IdentityUtil.class, OAuth2Util.class, AuthorizedClientIdsCache.class})
+public class ExpiredTokenPurgerTest extends PowerMockIdentityBaseTest {
+
+    private static final String PRIMARY_DOMAIN = "PRIMARY";
+
+    @Mock
+    private OldTokensCleanDAO oldTokensCleanDAO;
+
+    @Mock
+    private AuthorizedClientIdsCache authorizedClientIdsCache;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        initMocks(this);
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getProperty("OAuth.TokenCleanup.Purge.ChunkSize")).thenReturn("2");
+        when(IdentityUtil.getProperty("OAuth.TokenCleanup.Purge.MaxRowsPerSecond")).thenReturn("100000");
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getTokenPartitionedUserStoreDomains()).thenReturn(Collections.singletonList(PRIMARY_DOMAIN));
+
+        mockStatic(AuthorizedClientIdsCache.class);
+        when(AuthorizedClientIdsCache.getInstance()).thenReturn(authorizedClientIdsCache);
+
+        ExpiredRecordPurgeResult emptyResult = new ExpiredRecordPurgeResult(null, 0, 0);
+        when(oldTokensCleanDAO.purgeExpiredAuthorizationCodes((String) isNull(), anyLong(), eq(2)))
+                .thenReturn(emptyResult);
+        when(oldTokensCleanDAO.purgeExpiredDeviceCodes((String) isNull(), anyLong(), eq(2))).thenReturn(emptyResult);
+    }
+
+    @Test
+    public void testPurgeInChunks() throws Exception {
+
+        when(oldTokensCleanDAO.purgeExpiredAccessTokens(eq(PRIMARY_DOMAIN), (String) isNull(), anyLong(), eq(2)))
+                .thenReturn(new ExpiredRecordPurgeResult("token2", 2, 1));
+        when(oldTokensCleanDAO.purgeExpiredAccessTokens(eq(PRIMARY_DOMAIN), eq("token2"), anyLong(), eq(2)))
+                .thenReturn(new ExpiredRecordPurgeResult("token3", 1, 1));
+        when(oldTokensCleanDAO.purgeExpiredCibaAuthCodes((String) isNull(), anyLong(), eq(2)))
+                .thenThrow(new IdentityOAuth2Exception("Table not found."));
+
+        ExpiredTokenPurger purger = new ExpiredTokenPurger(oldTokensCleanDAO);
+        purger.run();
+
+        ExpiredTokenPurgeMetrics metrics = purger.getMetrics();
+        assertEquals(metrics.getRunCount(), 1);
+        assertEquals(metrics.getChunkCount(), 4);
+        assertEquals(metrics.getScannedRowCount(), 3);
+        assertEquals(metrics.getPurgedRowCount(), 2);
+        assertEquals(metrics.getLastRunPurgedRowCount(), 2);
+        // The purged tokens may have been listed among the apps authorized by their users.
+        verify(authorizedClientIdsCache).clear();
+    }
+
+    @Test
+    public void testAuthorizedClientIdsAreKeptWhenNoTokenIsPurged() throws Exception {
+
+        when(oldTokensCleanDAO.purgeExpiredAccessTokens(eq(PRIMARY_DOMAIN), (String) isNull(), anyLong(), eq(2)))
+                .thenReturn(new ExpiredRecordPurgeResult(null, 0, 0));
+        when(oldTokensCleanDAO.purgeExpiredCibaAuthCodes((String) isNull(), anyLong(), eq(2)))
+                .thenReturn(new ExpiredRecordPurgeResult(null, 0, 0));
+
+        new ExpiredTokenPurger(oldTokensCleanDAO).run();
+
+        verify(authorizedClientIdsCache, never()).clear();
+    }
+
+    @Test
+    public void testMaintenanceWindowSpanningMidnight() {
+
+        when(IdentityUtil.getProperty("OAuth.TokenCleanup.Purge.WindowStartTime")).thenReturn("22:00");
+        when(IdentityUtil.getProperty("OAuth.TokenCleanup.Purge.WindowEndTime")).thenReturn("04:30");
+
+        ExpiredTokenPurger purger = new ExpiredTokenPurger(oldTokensCleanDAO);
+        assertTrue(purger.isWithinMaintenanceWindow(LocalTime.of(23, 0)));
+        assertTrue(purger.isWithinMaintenanceWindow(LocalTime.of(2, 0)));
+        assertFalse(purger.isWithinMaintenanceWindow(LocalTime.of(4, 30)));
+        assertFalse(purger.isWithinMaintenanceWindow(LocalTime.of(12, 0)));
+    }
+
+    @Test
+    public void testSkipOutsideMaintenanceWindow() throws Exception {
+
+        LocalTime now = LocalTime.now();
+        when(IdentityUtil.getProperty("OAuth.TokenCleanup.Purge.WindowStartTime"))
+                .thenReturn(now.plusHours(2).withSecond(0).withNano(0).toString());
+        when(IdentityUtil.getProperty("OAuth.TokenCleanup.Purge.WindowEndTime"))
+                .thenReturn(now.plusHours(3).withSecond(0).withNano(0).toString());
+
+        ExpiredTokenPurger purger = new ExpiredTokenPurger(oldTokensCleanDAO);
+        purger.run();
+
+        verify(oldTokensCleanDAO, never()).purgeExpiredAccessTokens(anyString(), anyString(), anyLong(), eq(2));
+        assertEquals(purger.getMetrics().getRunCount(), 0);
+    }
+}
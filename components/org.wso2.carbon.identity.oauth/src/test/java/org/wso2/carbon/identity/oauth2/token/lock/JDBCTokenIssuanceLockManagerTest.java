@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.lock;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.util.DAOUtils;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Matchers.any;
+import static org.powermock.api.mockito.PowerMockito.doAnswer;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for JDBCTokenIssuanceLockManager against the H2 identity database.
+ */
+@PrepareForTest(IdentityDatabaseUtil.class)
+public class JDBCTokenIssuanceLockManagerTest extends IdentityBaseTest {
+
+    private static final String DB_NAME = "TOKEN_ISSUANCE_LOCK_DB";
+    private static final String OTHER_NODE = "5c2a4f1e-8d3b-4c6a-9e7f-0a1b2c3d4e5f";
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        DAOUtils.initializeDataSource(DB_NAME, DAOUtils.getFilePath("identity.sql"));
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(IdentityDatabaseUtil.class);
+        // The lock manager closes each connection it gets. Autocommit is off, as with the identity datasource, so
+        // that a lock row which is not committed is rolled back when its connection is closed.
+        when(IdentityDatabaseUtil.getDBConnection(true)).thenAnswer(invocation -> {
+            Connection connection = DAOUtils.getConnection(DB_NAME);
+            connection.setAutoCommit(false);
+            return connection;
+        });
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).commit();
+            return null;
+        }).when(IdentityDatabaseUtil.class);
+        IdentityDatabaseUtil.commitTransaction(any(Connection.class));
+        doAnswer(invocation -> {
+            ((Connection) invocation.getArguments()[0]).rollback();
+            return null;
+        }).when(IdentityDatabaseUtil.class);
+        IdentityDatabaseUtil.rollbackTransaction(any(Connection.class));
+        try (Connection connection = DAOUtils.getConnection(DB_NAME)) {
+            connection.createStatement().executeUpdate("DELETE FROM IDN_OAUTH2_TOKEN_ISSUANCE_LOCK");
+        }
+    }
+
+    @Test
+    public void testLockRowIsReleasedOnClose() throws Exception {
+
+        JDBCTokenIssuanceLockManager lockManager = newLockManager(16, 60000, 1000);
+        try (TokenIssuanceLock lock = lockManager.acquire("clientId", "userId")) {
+            assertNotNull(getLockOwner(lockKey("clientId", "userId")));
+            assertEquals(getLockCount(), 1);
+        }
+        assertEquals(getLockCount(), 0);
+        assertEquals(lockManager.getStats().getAcquisitionCount(), 1);
+    }
+
+    @Test
+    public void testLockIsReentrantForTheSameThread() throws Exception {
+
+        JDBCTokenIssuanceLockManager lockManager = newLockManager(16, 60000, 200);
+        try (TokenIssuanceLock lock = lockManager.acquire("clientId", "userId")) {
+            try (TokenIssuanceLock nestedLock = lockManager.acquire("clientId", "userId")) {
+                assertEquals(getLockCount(), 1);
+            }
+            // The row is kept until the outermost lock is closed.
+            assertEquals(getLockCount(), 1);
+        }
+        assertEquals(getLockCount(), 0);
+    }
+
+    @Test
+    public void testLockHeldByAnotherNodeTimesOut() throws Exception {
+
+        insertLock(lockKey("clientId", "userId"), OTHER_NODE, System.currentTimeMillis());
+        JDBCTokenIssuanceLockManager lockManager = newLockManager(16, 60000, 200);
+        try {
+            lockManager.acquire("clientId", "userId");
+            fail("Lock held by another node was acquired.");
+        } catch (IdentityOAuth2Exception e) {
+            assertEquals(getLockOwner(lockKey("clientId", "userId")), OTHER_NODE);
+        }
+    }
+
+    @Test
+    public void testExpiredLockOfAnotherNodeIsTakenOver() throws Exception {
+
+        insertLock(lockKey("clientId", "userId"), OTHER_NODE, System.currentTimeMillis() - 120000);
+        JDBCTokenIssuanceLockManager lockManager = newLockManager(16, 60000, 1000);
+        try (TokenIssuanceLock lock = lockManager.acquire("clientId", "userId")) {
+            assertNotEquals(getLockOwner(lockKey("clientId", "userId")), OTHER_NODE);
+        }
+        assertNull(getLockOwner(lockKey("clientId", "userId")));
+    }
+
+    @Test
+    public void testStripeIsNotHeldWhileWaitingForAnotherNode() throws Exception {
+
+        insertLock(lockKey("clientId", "userId"), OTHER_NODE, System.currentTimeMillis());
+        // All the keys share a single stripe.
+        JDBCTokenIssuanceLockManager lockManager = newLockManager(1, 60000, 2000);
+        CountDownLatch waiterStarted = new CountDownLatch(1);
+        AtomicReference<Exception> waiterError = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            waiterStarted.countDown();
+            try (TokenIssuanceLock lock = lockManager.acquire("clientId", "userId")) {
+                fail("Lock held by another node was acquired.");
+            } catch (IdentityOAuth2Exception e) {
+                waiterError.set(e);
+            }
+        });
+        waiter.start();
+        waiterStarted.await(5, TimeUnit.SECONDS);
+        Thread.sleep(100);
+
+        long startTime = System.nanoTime();
+        try (TokenIssuanceLock lock = lockManager.acquire("clientId", "otherUserId")) {
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 1000,
+                    "Lock of another key on the same stripe waited for the other node.");
+        }
+        waiter.join(TimeUnit.SECONDS.toMillis(5));
+        assertNotNull(waiterError.get(), "Waiter did not time out.");
+    }
+
+    private JDBCTokenIssuanceLockManager newLockManager(int stripes, long leaseMillis, long acquireTimeoutMillis) {
+
+        return new JDBCTokenIssuanceLockManager(new StripedTokenIssuanceLockManager(stripes, 100), leaseMillis,
+                acquireTimeoutMillis, 20, 100);
+    }
+
+    private static String lockKey(String... keyParts) {
+
+        return DigestUtils.sha256Hex(String.join(":", keyParts));
+    }
+
+    private static void insertLock(String lockKey, String owner, long lockedTime) throws SQLException {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("INSERT INTO IDN_OAUTH2_TOKEN_ISSUANCE_LOCK " +
+                     "(LOCK_KEY, LOCK_OWNER, LOCKED_TIME) VALUES (?, ?, ?)")) {
+            prepStmt.setString(1, lockKey);
+            prepStmt.setString(2, owner);
+            prepStmt.setTimestamp(3, new Timestamp(lockedTime), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+            prepStmt.executeUpdate();
+        }
+    }
+
+    private static String getLockOwner(String lockKey) throws SQLException {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             PreparedStatement prepStmt = connection.prepareStatement("SELECT LOCK_OWNER FROM " +
+                     "IDN_OAUTH2_TOKEN_ISSUANCE_LOCK WHERE LOCK_KEY = ?")) {
+            prepStmt.setString(1, lockKey);
+            try (ResultSet resultSet = prepStmt.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+
+    private static int getLockCount() throws SQLException {
+
+        try (Connection connection = DAOUtils.getConnection(DB_NAME);
+             ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM " +
+                     "IDN_OAUTH2_TOKEN_ISSUANCE_LOCK")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.lock;
+
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for StripedTokenIssuanceLockManager.
+ */
+public class StripedTokenIssuanceLockManagerTest extends IdentityBaseTest {
+
+    @Test
+    public void testLockIsReentrant() {
+
+        StripedTokenIssuanceLockManager lockManager = new StripedTokenIssuanceLockManager(16, 100);
+        try (TokenIssuanceLock outer = lockManager.acquire("clientId", "userId", "openid")) {
+            try (TokenIssuanceLock inner = lockManager.acquire("clientId", "userId", "openid")) {
+                assertEquals(lockManager.getStats().getAcquisitionCount(), 2);
+            }
+        }
+        assertEquals(lockManager.getStats().getContendedAcquisitionCount(), 0);
+    }
+
+    @Test
+    public void testSameKeyIsMutuallyExclusive() throws Exception {
+
+        StripedTokenIssuanceLockManager lockManager = new StripedTokenIssuanceLockManager(16, 0);
+        CountDownLatch waiterStarted = new CountDownLatch(1);
+        CountDownLatch waiterAcquired = new CountDownLatch(1);
+        AtomicBoolean acquiredWhileHeld = new AtomicBoolean();
+        AtomicBoolean held = new AtomicBoolean(true);
+
+        Thread waiter;
+        try (TokenIssuanceLock lock = lockManager.acquire("clientId", "userId", "openid", null)) {
+            waiter = new Thread(() -> {
+                waiterStarted.countDown();
+                try (TokenIssuanceLock waiterLock = lockManager.acquire("clientId", "userId", "openid", null)) {
+                    acquiredWhileHeld.set(held.get());
+                    waiterAcquired.countDown();
+                }
+            });
+            waiter.start();
+            waiterStarted.await(5, TimeUnit.SECONDS);
+            assertFalse(waiterAcquired.await(200, TimeUnit.MILLISECONDS), "Lock was acquired while held.");
+            held.set(false);
+        }
+        assertTrue(waiterAcquired.await(5, TimeUnit.SECONDS), "Lock was not acquired after release.");
+        waiter.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertFalse(acquiredWhileHeld.get());
+        assertEquals(lockManager.getStats().getContendedAcquisitionCount(), 1);
+        assertEquals(lockManager.getStats().getSlowAcquisitionCount(), 1);
+        assertTrue(lockManager.getStats().getMaxWaitMillis() > 0);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.token.revocation;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.OAuthUtil;
+import org.wso2.carbon.identity.oauth2.dao.BulkTokenRevocationDAO;
+import org.wso2.carbon.identity.oauth2.dao.BulkTokenRevocationFilter;
+import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for BulkTokenRevocationEngine.
+ */
+@PrepareForTest({OAuthTokenPersistenceFactory.class, IdentityUtil.class, OAuth2Util.class, OAuthUtil.class})
+public class BulkTokenRevocationEngineTest extends PowerMockIdentityBaseTest {
+
+    private static final String PRIMARY_DOMAIN = "PRIMARY";
+    private static final int TENANT_ID = 1;
+
+    @Mock
+    private OAuthTokenPersistenceFactory persistenceFactory;
+
+    @Mock
+    private BulkTokenRevocationDAO revocationDAO;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        initMocks(this);
+        mockStatic(OAuthTokenPersistenceFactory.class);
+        when(OAuthTokenPersistenceFactory.getInstance()).thenReturn(persistenceFactory);
+        when(persistenceFactory.getBulkTokenRevocationDAO()).thenReturn(revocationDAO);
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getProperty("OAuth.TokenRevocation.Bulk.PageSize")).thenReturn("2");
+
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getTokenPartitionedUserStoreDomains()).thenReturn(Collections.singletonList(PRIMARY_DOMAIN));
+        mockStatic(OAuthUtil.class);
+    }
+
+    @Test
+    public void testRevokeTokensPageByPage() throws Exception {
+
+        BulkTokenRevocationFilter filter = BulkTokenRevocationFilter.forTenant(TENANT_ID);
+        when(revocationDAO.getRevocableAccessTokens(eq(filter), eq(PRIMARY_DOMAIN), (String) isNull(), eq(2)))
+                .thenReturn(Arrays.asList(createToken("token1"), createToken("token2")));
+        when(revocationDAO.getRevocableAccessTokens(filter, PRIMARY_DOMAIN, "token2", 2))
+                .thenReturn(Collections.singletonList(createToken("token3")));
+        when(revocationDAO.revokeAccessTokens(anyListOf(AccessTokenDO.class), eq(PRIMARY_DOMAIN)))
+                .thenReturn(2, 1);
+
+        List<String> checkpoints = new ArrayList<>();
+        BulkTokenRevocationProgress progress = BulkTokenRevocationEngine.getInstance().revokeTokens(
+                new BulkTokenRevocationProgress(filter), p -> checkpoints.add(p.getLastTokenId()));
+
+        assertTrue(progress.isCompleted());
+        assertEquals(progress.getPageCount(), 2);
+        assertEquals(progress.getRevokedTokenCount(), 3);
+        assertEquals(progress.getLastTokenId(), "token3");
+        assertEquals(checkpoints, Arrays.asList("token2", "token3"));
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws Exception {
+
+        BulkTokenRevocationFilter filter = BulkTokenRevocationFilter.forApplication("clientId");
+        when(revocationDAO.getRevocableAccessTokens(filter, PRIMARY_DOMAIN, "token2", 2))
+                .thenReturn(Collections.singletonList(createToken("token3")));
+        when(revocationDAO.revokeAccessTokens(anyListOf(AccessTokenDO.class), eq(PRIMARY_DOMAIN))).thenReturn(1);
+
+        BulkTokenRevocationProgress progress = BulkTokenRevocationEngine.getInstance().revokeTokens(
+                new BulkTokenRevocationProgress(filter, PRIMARY_DOMAIN, "token2"), null);
+
+        assertTrue(progress.isCompleted());
+        assertEquals(progress.getRevokedTokenCount(), 1);
+        verify(revocationDAO, never()).getRevocableAccessTokens(eq(filter), anyString(), (String) isNull(), eq(2));
+    }
+
+    private static AccessTokenDO createToken(String tokenId) {
+
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName("user");
+        user.setUserStoreDomain(PRIMARY_DOMAIN);
+        user.setTenantDomain("carbon.super");
+
+        AccessTokenDO accessTokenDO = new AccessTokenDO();
+        accessTokenDO.setTokenId(tokenId);
+        accessTokenDO.setAccessToken(tokenId + "-value");
+        accessTokenDO.setConsumerKey("clientId");
+        accessTokenDO.setAuthzUser(user);
+        accessTokenDO.setScope(new String[]{"openid"});
+        accessTokenDO.setTenantID(TENANT_ID);
+        return accessTokenDO;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for AllowedScopeMatcher.
+ */
+public class AllowedScopeMatcherTest {
+
+    private static final List<String> ALLOWED_SCOPES = Arrays.asList("openid", "^device_.*", "internal_.*",
+            "SYSTEM$", "profile.read", "api_(read|write)");
+    private static final String[] SCOPES = {"openid", "device_01", "internal_login", "SYSTEM", "profilexread",
+            "api_write", "email", "api_delete", "internal", "openid2", "DEVICE_01"};
+
+    @DataProvider(name = "scopeProvider")
+    public Object[][] scopeProvider() {
+
+        Object[][] data = new Object[SCOPES.length][];
+        for (int i = 0; i < SCOPES.length; i++) {
+            data[i] = new Object[]{SCOPES[i]};
+        }
+        return data;
+    }
+
+    @Test(dataProvider = "scopeProvider")
+    public void testMatchesLikeRegex(String scope) {
+
+        boolean expected = ALLOWED_SCOPES.stream().anyMatch(scope::matches);
+        assertEquals(new AllowedScopeMatcher(ALLOWED_SCOPES).matches(scope), expected, "Scope: " + scope);
+    }
+
+    @Test
+    public void testPrefixDoesNotMatchLineTerminators() {
+
+        AllowedScopeMatcher matcher = new AllowedScopeMatcher(Collections.singletonList("internal_.*"));
+        assertTrue(matcher.matches("internal_"));
+        assertFalse(matcher.matches("internal_a\nb"));
+        assertFalse(matcher.matches("internal"));
+    }
+
+    @Test
+    public void testEmptyMatcher() {
+
+        AllowedScopeMatcher matcher = new AllowedScopeMatcher(null);
+        assertTrue(matcher.isEmpty());
+        assertFalse(matcher.matches("openid"));
+        assertFalse(new AllowedScopeMatcher(ALLOWED_SCOPES).matches(null));
+    }
+
+    @Test
+    public void testInvalidPatternIsIgnored() {
+
+        AllowedScopeMatcher matcher = new AllowedScopeMatcher(Arrays.asList("api_(read", "openid"));
+        assertTrue(matcher.matches("openid"));
+        assertFalse(matcher.matches("api_(read"));
+    }
+}
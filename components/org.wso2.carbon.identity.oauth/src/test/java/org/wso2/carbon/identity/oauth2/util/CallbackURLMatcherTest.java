@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for CallbackURLMatcher.
+ */
+public class CallbackURLMatcherTest {
+
+    private static final String REGEX_CALLBACK_URL = "regexp=(https://localhost/app1|https://localhost/app2)";
+
+    @DataProvider(name = "callbackUrlProvider")
+    public Object[][] callbackUrlProvider() {
+
+        return new Object[][]{
+                {REGEX_CALLBACK_URL, "https://localhost/app1", true},
+                {REGEX_CALLBACK_URL, "https://localhost/app2", true},
+                {REGEX_CALLBACK_URL, "https://localhost/app3", false},
+                {"https://localhost/app1", "https://localhost/app1", false},
+                {"regexp=https://localhost/(app", "https://localhost/app", false},
+                {REGEX_CALLBACK_URL, null, false},
+        };
+    }
+
+    @Test(dataProvider = "callbackUrlProvider")
+    public void testMatches(String registeredCallbackUrl, String url, boolean expected) {
+
+        assertEquals(new CallbackURLMatcher(10, 1000).matches(registeredCallbackUrl, url), expected);
+    }
+
+    @Test
+    public void testPatternsAreCachedUpToTheCacheSize() {
+
+        CallbackURLMatcher matcher = new CallbackURLMatcher(2, 1000);
+        assertTrue(matcher.matches("regexp=https://localhost/app1.*", "https://localhost/app1"));
+        assertTrue(matcher.matches("regexp=https://localhost/app2.*", "https://localhost/app2"));
+        assertTrue(matcher.matches("regexp=https://localhost/app1.*", "https://localhost/app1/callback"));
+        assertTrue(matcher.matches("regexp=https://localhost/app3.*", "https://localhost/app3"));
+        assertEquals(matcher.getCachedPatternCount(), 2);
+
+        matcher.clear("regexp=https://localhost/app3.*");
+        assertEquals(matcher.getCachedPatternCount(), 1);
+    }
+
+    @Test(timeOut = 5000)
+    public void testCatastrophicBacktrackingIsAbandoned() {
+
+        StringBuilder url = new StringBuilder("https://localhost/");
+        for (int i = 0; i < 40; i++) {
+            url.append('a');
+        }
+        url.append('!');
+        assertFalse(new CallbackURLMatcher(10, 50).matches("regexp=https://localhost/(.*a){12}", url.toString()));
+    }
+}
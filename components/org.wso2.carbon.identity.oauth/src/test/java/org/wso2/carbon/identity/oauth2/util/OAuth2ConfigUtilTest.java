@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Unit tests for OAuth2ConfigUtil.
+ */
+@PrepareForTest({IdentityUtil.class})
+public class OAuth2ConfigUtilTest extends PowerMockIdentityBaseTest {
+
+    private static final String PROPERTY = "OAuth.Test.Property";
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockStatic(IdentityUtil.class);
+    }
+
+    @DataProvider(name = "propertyValueProvider")
+    public Object[][] propertyValueProvider() {
+
+        return new Object[][]{
+                {null, 0, 10L},
+                {" ", 0, 10L},
+                {" 25 ", 0, 25L},
+                {"0", 0, 0L},
+                {"0", 1, 10L},
+                {"-5", 0, 10L},
+                {"abc", 0, 10L},
+        };
+    }
+
+    @Test(dataProvider = "propertyValueProvider")
+    public void testGetLongProperty(String value, int minValue, long expected) {
+
+        when(IdentityUtil.getProperty(PROPERTY)).thenReturn(value);
+        assertEquals(OAuth2ConfigUtil.getLongProperty(PROPERTY, 10, minValue), expected);
+        assertEquals(OAuth2ConfigUtil.getIntProperty(PROPERTY, 10, minValue), (int) expected);
+    }
+
+    @Test
+    public void testGetIntPropertyOutOfRange() {
+
+        when(IdentityUtil.getProperty(PROPERTY)).thenReturn(String.valueOf(Long.MAX_VALUE));
+        assertEquals(OAuth2ConfigUtil.getIntProperty(PROPERTY, 10), 10);
+        assertEquals(OAuth2ConfigUtil.getLongProperty(PROPERTY, 10), Long.MAX_VALUE);
+    }
+}
@@ -54,6 +54,8 @@ import org.wso2.carbon.identity.oauth.cache.AppInfoCache;
 import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
+import org.wso2.carbon.identity.oauth.cache.SpOAuth2ExpiryTimeConfigCache;
+import org.wso2.carbon.identity.oauth.cache.SpOAuth2ExpiryTimeConfigCacheKey;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
@@ -67,6 +69,7 @@ import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcess
 import org.wso2.carbon.identity.oauth.tokenprocessor.TokenPersistenceProcessor;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.authz.OAuthAuthzReqMessageContext;
+import org.wso2.carbon.identity.oauth2.config.SpOAuth2ExpiryTimeConfiguration;
 import org.wso2.carbon.identity.oauth2.dao.AccessTokenDAO;
 import org.wso2.carbon.identity.oauth2.dao.OAuthTokenPersistenceFactory;
 import org.wso2.carbon.identity.oauth2.internal.OAuth2ServiceComponentHolder;
@@ -78,6 +81,9 @@ import org.wso2.carbon.identity.oauth2.token.handlers.grant.AuthorizationGrantHa
 import org.wso2.carbon.identity.openidconnect.dao.ScopeClaimMappingDAO;
 import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
 import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+import org.wso2.carbon.registry.core.Registry;
+import org.wso2.carbon.registry.core.Resource;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.UserCoreConstants;
 import org.wso2.carbon.user.core.service.RealmService;
@@ -91,10 +97,12 @@ import java.net.SocketException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.function.Supplier;
@@ -103,6 +111,10 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.doAnswer;
 import static org.powermock.api.mockito.PowerMockito.mock;
 import static org.powermock.api.mockito.PowerMockito.mockStatic;
 import static org.powermock.api.mockito.PowerMockito.when;
@@ -120,7 +132,8 @@ import static org.wso2.carbon.identity.oauth2.util.OAuth2Util.getIdTokenIssuer;
         OAuth2Util.class, OAuthComponentServiceHolder.class, AppInfoCache.class, IdentityConfigParser.class,
         PrivilegedCarbonContext.class, IdentityTenantUtil.class, CarbonUtils.class,
         IdentityCoreServiceComponent.class, NetworkUtils.class, IdentityApplicationManagementUtil.class,
-        IdentityProviderManager.class, FederatedAuthenticatorConfig.class, FrameworkUtils.class})
+        IdentityProviderManager.class, FederatedAuthenticatorConfig.class, FrameworkUtils.class,
+        SpOAuth2ExpiryTimeConfigCache.class})
 public class OAuth2UtilTest extends PowerMockIdentityBaseTest {
 
     private String[] scopeArraySorted = new String[]{"scope1", "scope2", "scope3"};
@@ -711,6 +724,33 @@ public class OAuth2UtilTest extends PowerMockIdentityBaseTest {
         assertEquals(OAuth2Util.getTokenPartitionedSqlByUserStore(sql, "H2"), partitionedSql);
     }
 
+    @DataProvider(name = "TokenPartitionedUserStoreDomainsData")
+    public Object[][] tokenPartitionedUserStoreDomainsData() {
+        return new Object[][]{
+                // accessTokenPartitioningEnabled
+                // assertionsUserNameEnabled
+                // userStoreDomains
+                {false, false, Collections.singletonList("PRIMARY")},
+                {true, false, Collections.singletonList("PRIMARY")},
+                {false, true, Collections.singletonList("PRIMARY")},
+                {true, true, Arrays.asList("PRIMARY", "AD", "H2")}
+        };
+    }
+
+    @Test(dataProvider = "TokenPartitionedUserStoreDomainsData")
+    public void testGetTokenPartitionedUserStoreDomains(boolean accessTokenPartitioningEnabled,
+                                                        boolean assertionsUserNameEnabled,
+                                                        List<String> userStoreDomains) throws Exception {
+
+        when(oauthServerConfigurationMock.isAccessTokenPartitioningEnabled())
+                .thenReturn(accessTokenPartitioningEnabled);
+        when(oauthServerConfigurationMock.isUserNameAssertionEnabled()).thenReturn(assertionsUserNameEnabled);
+        when(oauthServerConfigurationMock.getAccessTokenPartitioningDomains()).thenReturn("A:H2, B:AD");
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getPrimaryDomainName()).thenReturn("PRIMARY");
+        assertEquals(OAuth2Util.getTokenPartitionedUserStoreDomains(), userStoreDomains);
+    }
+
     @DataProvider(name = "TokenPartitionedSqlByUserIdData")
     public Object[][] tokenPartitionedSqlByUserIdData() {
         String sql = "SELECT TOKEN_ID FROM IDN_OAUTH2_ACCESS_TOKEN WHERE ACCESS_TOKEN = ?";
@@ -2265,4 +2305,85 @@ public class OAuth2UtilTest extends PowerMockIdentityBaseTest {
         }
         fail("Expected IdentityOAuth2Exception was not thrown by getServiceProvider method");
     }
+
+    @Test
+    public void testGetSpTokenExpiryTimeConfigIsServedFromCache() throws Exception {
+
+        Registry registry = mockSpTokenExpiryTimeConfig(1000L);
+        mockSpOAuth2ExpiryTimeConfigCache();
+
+        assertEquals(OAuth2Util.getSpTokenExpiryTimeConfig(clientId, clientTenatId).getUserAccessTokenExpiryTime(),
+                Long.valueOf(1000L));
+        assertEquals(OAuth2Util.getSpTokenExpiryTimeConfig(clientId, clientTenatId).getUserAccessTokenExpiryTime(),
+                Long.valueOf(1000L));
+        verify(registry, times(1)).get(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH);
+    }
+
+    @Test
+    public void testGetSpTokenExpiryTimeConfigFailureIsNotCached() throws Exception {
+
+        Registry registry = mockSpTokenExpiryTimeConfig(1000L);
+        when(registry.resourceExists(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH))
+                .thenThrow(new RegistryException("Registry is not available."))
+                .thenReturn(true);
+        SpOAuth2ExpiryTimeConfigCache cache = mockSpOAuth2ExpiryTimeConfigCache();
+
+        assertNull(OAuth2Util.getSpTokenExpiryTimeConfig(clientId, clientTenatId).getUserAccessTokenExpiryTime());
+        verify(cache, times(0)).addToCache(any(SpOAuth2ExpiryTimeConfigCacheKey.class),
+                any(SpOAuth2ExpiryTimeConfiguration.class), anyInt());
+
+        assertEquals(OAuth2Util.getSpTokenExpiryTimeConfig(clientId, clientTenatId).getUserAccessTokenExpiryTime(),
+                Long.valueOf(1000L));
+    }
+
+    @Test
+    public void testClearSpTokenExpiryTimeConfigCache() throws Exception {
+
+        mockSpTokenExpiryTimeConfig(1000L);
+        SpOAuth2ExpiryTimeConfigCache cache = mockSpOAuth2ExpiryTimeConfigCache();
+        OAuth2Util.getSpTokenExpiryTimeConfig(clientId, clientTenatId);
+
+        // The configuration is changed when the service provider is updated.
+        mockSpTokenExpiryTimeConfig(2000L);
+        OAuth2Util.clearSpTokenExpiryTimeConfigCache(clientId, clientTenatId);
+
+        verify(cache).clearCacheEntry(eq(new SpOAuth2ExpiryTimeConfigCacheKey(clientId)), eq(clientTenatId));
+        assertEquals(OAuth2Util.getSpTokenExpiryTimeConfig(clientId, clientTenatId).getUserAccessTokenExpiryTime(),
+                Long.valueOf(2000L));
+    }
+
+    private Registry mockSpTokenExpiryTimeConfig(long userAccessTokenExpiryTime) throws Exception {
+
+        when(oAuthComponentServiceHolderMock.getRealmService()).thenReturn(realmServiceMock);
+        when(realmServiceMock.getTenantManager()).thenReturn(tenantManagerMock);
+        when(tenantManagerMock.getDomain(clientTenatId)).thenReturn("wso2.com");
+
+        Properties properties = new Properties();
+        properties.put(clientId, Collections.singletonList("{\"userAccessTokenExpireTime\":" +
+                userAccessTokenExpiryTime + "}"));
+        Resource resource = mock(Resource.class);
+        when(resource.getProperties()).thenReturn(properties);
+        Registry registry = mock(Registry.class);
+        when(registry.resourceExists(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH)).thenReturn(true);
+        when(registry.get(OAuthConstants.TOKEN_EXPIRE_TIME_RESOURCE_PATH)).thenReturn(resource);
+        when(IdentityTenantUtil.getConfigRegistry(clientTenatId)).thenReturn(registry);
+        return registry;
+    }
+
+    private SpOAuth2ExpiryTimeConfigCache mockSpOAuth2ExpiryTimeConfigCache() {
+
+        Map<SpOAuth2ExpiryTimeConfigCacheKey, SpOAuth2ExpiryTimeConfiguration> entries = new HashMap<>();
+        SpOAuth2ExpiryTimeConfigCache cache = mock(SpOAuth2ExpiryTimeConfigCache.class);
+        when(cache.getValueFromCache(any(SpOAuth2ExpiryTimeConfigCacheKey.class), anyInt()))
+                .thenAnswer(invocation -> entries.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> entries.put((SpOAuth2ExpiryTimeConfigCacheKey) invocation.getArguments()[0],
+                (SpOAuth2ExpiryTimeConfiguration) invocation.getArguments()[1]))
+                .when(cache).addToCache(any(SpOAuth2ExpiryTimeConfigCacheKey.class),
+                any(SpOAuth2ExpiryTimeConfiguration.class), anyInt());
+        doAnswer(invocation -> entries.remove(invocation.getArguments()[0]))
+                .when(cache).clearCacheEntry(any(SpOAuth2ExpiryTimeConfigCacheKey.class), anyInt());
+        mockStatic(SpOAuth2ExpiryTimeConfigCache.class);
+        when(SpOAuth2ExpiryTimeConfigCache.getInstance()).thenReturn(cache);
+        return cache;
+    }
 }
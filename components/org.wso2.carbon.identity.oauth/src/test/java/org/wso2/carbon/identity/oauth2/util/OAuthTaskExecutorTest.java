@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.util.OAuthTaskExecutor.Workload;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for OAuthTaskExecutor.
+ */
+@PrepareForTest({IdentityUtil.class})
+public class OAuthTaskExecutorTest extends PowerMockIdentityBaseTest {
+
+    private final OAuthTaskExecutor taskExecutor = OAuthTaskExecutor.getInstance();
+
+    @BeforeMethod
+    public void setUp() {
+
+        mockStatic(IdentityUtil.class);
+        when(IdentityUtil.getProperty("OAuth.TaskExecutor.Token.PoolSize")).thenReturn("1");
+        when(IdentityUtil.getProperty("OAuth.TaskExecutor.Token.QueueSize")).thenReturn("1");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        taskExecutor.shutdown();
+    }
+
+    @Test
+    public void testTasksBeyondTheQueueSizeAreRejected() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(2);
+        Runnable task = () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            completed.countDown();
+        };
+        long rejectedTaskCount = taskExecutor.getRejectedTaskCount(Workload.TOKEN);
+
+        assertTrue(taskExecutor.execute(Workload.TOKEN, task));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(taskExecutor.execute(Workload.TOKEN, task));
+        assertFalse(taskExecutor.execute(Workload.TOKEN, task));
+        assertEquals(taskExecutor.getActiveTaskCount(Workload.TOKEN), 1);
+        assertEquals(taskExecutor.getQueuedTaskCount(Workload.TOKEN), 1);
+        assertEquals(taskExecutor.getRejectedTaskCount(Workload.TOKEN), rejectedTaskCount + 1);
+
+        try {
+            taskExecutor.getExecutor(Workload.TOKEN).execute(task);
+            throw new AssertionError("The task is expected to be rejected.");
+        } catch (RejectedExecutionException e) {
+            assertEquals(taskExecutor.getRejectedTaskCount(Workload.TOKEN), rejectedTaskCount + 2);
+        }
+
+        release.countDown();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDedicatedExecutorTasksBeyondTheQueueSizeAreRejected() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable task = () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        long rejectedTaskCount = taskExecutor.getRejectedTaskCount("TestBoundedWorker");
+        ThreadPoolExecutor dedicatedExecutor = taskExecutor.newDedicatedExecutor("TestBoundedWorker", 1, 1);
+        try {
+            dedicatedExecutor.execute(task);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            dedicatedExecutor.execute(task);
+            try {
+                dedicatedExecutor.execute(task);
+                throw new AssertionError("The task is expected to be rejected.");
+            } catch (RejectedExecutionException e) {
+                assertEquals(taskExecutor.getRejectedTaskCount("TestBoundedWorker"), rejectedTaskCount + 1);
+            }
+            assertEquals(taskExecutor.getActiveTaskCount("TestBoundedWorker"), 1);
+            assertEquals(taskExecutor.getQueuedTaskCount("TestBoundedWorker"), 1);
+            assertTrue(taskExecutor.getDedicatedExecutorNames().contains("TestBoundedWorker"));
+        } finally {
+            release.countDown();
+            dedicatedExecutor.shutdownNow();
+        }
+        assertFalse(taskExecutor.getDedicatedExecutorNames().contains("TestBoundedWorker"));
+        assertEquals(taskExecutor.getQueuedTaskCount("TestBoundedWorker"), 0);
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+
+        CountDownLatch completed = new CountDownLatch(1);
+        assertTrue(taskExecutor.execute(Workload.TOKEN, completed::countDown));
+        int dedicatedExecutorCount = taskExecutor.getDedicatedExecutorCount();
+        ThreadPoolExecutor dedicatedExecutor = taskExecutor.newDedicatedExecutor("TestWorker", 1, 1);
+        assertEquals(taskExecutor.getDedicatedExecutorCount(), dedicatedExecutorCount + 1);
+
+        taskExecutor.shutdown();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        // Dedicated executors are stopped by their components.
+        assertFalse(dedicatedExecutor.isShutdown());
+        assertEquals(taskExecutor.getDedicatedExecutorCount(), dedicatedExecutorCount + 1);
+        dedicatedExecutor.shutdown();
+        assertEquals(taskExecutor.getDedicatedExecutorCount(), dedicatedExecutorCount);
+
+        // The pools are started again for tasks submitted after the shutdown.
+        CountDownLatch resubmitted = new CountDownLatch(1);
+        assertTrue(taskExecutor.execute(Workload.TOKEN, resubmitted::countDown));
+        assertTrue(resubmitted.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.util;
+
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.testutil.powermock.PowerMockIdentityBaseTest;
+
+import java.security.Key;
+import java.security.cert.Certificate;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+/**
+ * Unit tests for TenantSigningMaterialRegistry.
+ */
+@PrepareForTest({OAuth2Util.class})
+public class TenantSigningMaterialRegistryTest extends PowerMockIdentityBaseTest {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+    private static final int TENANT_ID = 1234;
+    private static final long REVALIDATION_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    @Mock
+    private Key privateKey;
+
+    private Certificate certificate;
+    private TenantSigningMaterialRegistry registry;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        certificate = mockCertificate(new byte[]{1, 2, 3});
+        mockStatic(OAuth2Util.class);
+        when(OAuth2Util.getPrivateKey(TENANT_DOMAIN, TENANT_ID)).thenReturn(privateKey);
+        when(OAuth2Util.getCertificate(TENANT_DOMAIN, TENANT_ID)).thenReturn(certificate);
+
+        registry = TenantSigningMaterialRegistry.getInstance();
+        Whitebox.setInternalState(registry, "revalidationIntervalMillis", REVALIDATION_INTERVAL_MILLIS);
+        registry.invalidate(TENANT_ID);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        registry.invalidate(TENANT_ID);
+        Whitebox.setInternalState(registry, "revalidationIntervalMillis", (Long) null);
+    }
+
+    @Test
+    public void testSigningMaterialIsLoadedOnFirstAccess() throws Exception {
+
+        TenantSigningMaterial signingMaterial = registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID);
+
+        assertSame(signingMaterial.getPrivateKey(), privateKey);
+        assertSame(signingMaterial.getCertificate(), certificate);
+        verifyStatic(times(1));
+        OAuth2Util.getPrivateKey(TENANT_DOMAIN, TENANT_ID);
+    }
+
+    @Test
+    public void testSigningMaterialIsReused() throws Exception {
+
+        TenantSigningMaterial signingMaterial = registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID);
+
+        assertSame(registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID), signingMaterial);
+        assertSame(registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID), signingMaterial);
+        verifyStatic(times(1));
+        OAuth2Util.getPrivateKey(TENANT_DOMAIN, TENANT_ID);
+        // The key store is not read again within the revalidation interval.
+        verifyStatic(never());
+        OAuth2Util.loadCertificate(TENANT_DOMAIN, TENANT_ID);
+    }
+
+    @Test
+    public void testSigningMaterialIsKeptWhenKeyStoreIsUnchanged() throws Exception {
+
+        TenantSigningMaterial signingMaterial = registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID);
+        when(OAuth2Util.loadCertificate(TENANT_DOMAIN, TENANT_ID)).thenReturn(mockCertificate(new byte[]{1, 2, 3}));
+        expireRevalidationInterval(signingMaterial);
+
+        assertSame(registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID), signingMaterial);
+        verifyStatic(times(1));
+        OAuth2Util.loadCertificate(TENANT_DOMAIN, TENANT_ID);
+        // The interval starts again after the revalidation.
+        assertSame(registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID), signingMaterial);
+        verifyStatic(times(1));
+        OAuth2Util.loadCertificate(TENANT_DOMAIN, TENANT_ID);
+    }
+
+    @Test
+    public void testSigningMaterialIsReloadedWhenKeyStoreChanges() throws Exception {
+
+        TenantSigningMaterial signingMaterial = registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID);
+        Key rotatedPrivateKey = mock(Key.class);
+        Certificate rotatedCertificate = mockCertificate(new byte[]{4, 5, 6});
+        when(OAuth2Util.loadCertificate(TENANT_DOMAIN, TENANT_ID)).thenReturn(rotatedCertificate);
+        when(OAuth2Util.getPrivateKey(TENANT_DOMAIN, TENANT_ID)).thenReturn(rotatedPrivateKey);
+        when(OAuth2Util.getCertificate(TENANT_DOMAIN, TENANT_ID)).thenReturn(rotatedCertificate);
+        expireRevalidationInterval(signingMaterial);
+
+        TenantSigningMaterial reloadedSigningMaterial = registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID);
+
+        assertNotSame(reloadedSigningMaterial, signingMaterial);
+        assertSame(reloadedSigningMaterial.getPrivateKey(), rotatedPrivateKey);
+        assertSame(reloadedSigningMaterial.getCertificate(), rotatedCertificate);
+        verifyStatic(times(1));
+        OAuth2Util.clearSigningKeys(TENANT_ID);
+    }
+
+    @Test
+    public void testSigningMaterialIsKeptWhenRevalidationFails() throws Exception {
+
+        TenantSigningMaterial signingMaterial = registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID);
+        when(OAuth2Util.loadCertificate(TENANT_DOMAIN, TENANT_ID))
+                .thenThrow(new IdentityOAuth2Exception("Key store is not available."));
+        expireRevalidationInterval(signingMaterial);
+
+        assertSame(registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID), signingMaterial);
+        verifyStatic(never());
+        OAuth2Util.clearSigningKeys(TENANT_ID);
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() throws Exception {
+
+        when(OAuth2Util.getPrivateKey(TENANT_DOMAIN, TENANT_ID))
+                .thenThrow(new IdentityOAuth2Exception("Key store is not available."))
+                .thenReturn(privateKey);
+        try {
+            registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID);
+            fail("Signing material should not be loaded when the private key cannot be read.");
+        } catch (IdentityOAuth2Exception e) {
+            // Expected.
+        }
+
+        assertSame(registry.getSigningMaterial(TENANT_DOMAIN, TENANT_ID).getPrivateKey(), privateKey);
+        verifyStatic(times(2));
+        OAuth2Util.getPrivateKey(TENANT_DOMAIN, TENANT_ID);
+    }
+
+    private static void expireRevalidationInterval(TenantSigningMaterial signingMaterial) {
+
+        Whitebox.setInternalState(signingMaterial, "lastValidatedTime",
+                System.currentTimeMillis() - REVALIDATION_INTERVAL_MILLIS - 1);
+    }
+
+    private static Certificate mockCertificate(byte[] encoded) throws Exception {
+
+        Certificate certificate = mock(Certificate.class);
+        when(certificate.getEncoded()).thenReturn(encoded);
+        return certificate;
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.codec.binary.Base64;
+import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.powermock.reflect.Whitebox;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.CarbonBaseConstants;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.common.testng.WithCarbonHome;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.idp.mgt.IdentityProviderManager;
+
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+import static org.powermock.api.mockito.PowerMockito.spy;
+import static org.powermock.api.mockito.PowerMockito.verifyStatic;
+import static org.powermock.api.mockito.PowerMockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.wso2.carbon.identity.openidconnect.util.TestUtils.getKeyStoreFromFile;
+
+/**
+ * Unit tests for OAuth2JWTTokenValidator.
+ */
+@WithCarbonHome
+@PowerMockIgnore({"javax.xml.*", "org.xml.sax.*", "org.w3c.dom.*", "javax.crypto.*"})
+@PrepareForTest({OAuthServerConfiguration.class, IdentityProviderManager.class,
+        IdentityApplicationManagementUtil.class})
+public class OAuth2JWTTokenValidatorTest extends PowerMockTestCase {
+
+    private static final String ISSUER = "https://localhost:9443/oauth2/token";
+    private static final String ALIAS = "wso2carbon";
+    private static final String PASSWORD = "wso2carbon";
+    private static final int MAX_CACHE_SIZE = 100;
+
+    @Mock
+    private OAuthServerConfiguration oAuthServerConfiguration;
+    @Mock
+    private IdentityProviderManager identityProviderManager;
+
+    private OAuth2JWTTokenValidator tokenValidator;
+    private IdentityProvider residentIdP;
+    private RSAPrivateKey privateKey;
+    private String certificate;
+    private RSAPrivateKey rotatedPrivateKey;
+    private String rotatedCertificate;
+
+    @BeforeClass
+    public void initTest() throws Exception {
+
+        String carbonHome = System.getProperty(CarbonBaseConstants.CARBON_HOME);
+        KeyStore keyStore = getKeyStoreFromFile("wso2carbon.jks", PASSWORD, carbonHome);
+        privateKey = (RSAPrivateKey) keyStore.getKey(ALIAS, PASSWORD.toCharArray());
+        certificate = encode((X509Certificate) keyStore.getCertificate(ALIAS));
+        KeyStore rotatedKeyStore = getKeyStoreFromFile("testkeystore.jks", PASSWORD, carbonHome);
+        rotatedPrivateKey = (RSAPrivateKey) rotatedKeyStore.getKey(ALIAS, PASSWORD.toCharArray());
+        rotatedCertificate = encode((X509Certificate) rotatedKeyStore.getCertificate(ALIAS));
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+
+        mockStatic(OAuthServerConfiguration.class);
+        when(OAuthServerConfiguration.getInstance()).thenReturn(oAuthServerConfiguration);
+        when(oAuthServerConfiguration.getTimeStampSkewInSeconds()).thenReturn(300L);
+
+        Property entityId = new Property();
+        entityId.setName("IdPEntityId");
+        entityId.setValue(ISSUER);
+        FederatedAuthenticatorConfig oidcConfig = new FederatedAuthenticatorConfig();
+        oidcConfig.setName(IdentityApplicationConstants.Authenticator.OIDC.NAME);
+        oidcConfig.setProperties(new Property[]{entityId});
+        residentIdP = new IdentityProvider();
+        residentIdP.setIdentityProviderName("LOCAL");
+        residentIdP.setFederatedAuthenticatorConfigs(new FederatedAuthenticatorConfig[]{oidcConfig});
+        residentIdP.setCertificate(certificate);
+
+        mockStatic(IdentityProviderManager.class);
+        when(IdentityProviderManager.getInstance()).thenReturn(identityProviderManager);
+        when(identityProviderManager.getResidentIdP(anyString())).thenReturn(residentIdP);
+        spy(IdentityApplicationManagementUtil.class);
+
+        OAuth2JWTTokenValidator.clearCertificateCache();
+        tokenValidator = new OAuth2JWTTokenValidator();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        OAuth2JWTTokenValidator.clearCertificateCache();
+    }
+
+    @Test
+    public void testSignedJWTIsReusedFromMessageContext() throws Exception {
+
+        SignedJWT signedJWT = buildSignedJWT(privateKey);
+        // The identifier is not parsable, hence the token validates only if the parsed token is taken from the
+        // message context.
+        OAuth2TokenValidationMessageContext messageContext = buildMessageContext("invalid.jwt.identifier");
+        messageContext.addProperty(OAuth2Util.SIGNED_JWT, signedJWT);
+
+        assertTrue(tokenValidator.validateAccessToken(messageContext));
+    }
+
+    @Test
+    public void testSignedJWTIsAddedToMessageContext() throws Exception {
+
+        String token = buildSignedJWT(privateKey).serialize();
+        OAuth2TokenValidationMessageContext messageContext = buildMessageContext(token);
+
+        assertTrue(OAuth2Util.isParsableJWT(token, messageContext));
+        assertEquals(((SignedJWT) messageContext.getProperty(OAuth2Util.SIGNED_JWT)).serialize(), token);
+        assertFalse(OAuth2Util.isParsableJWT("opaque-token", buildMessageContext("opaque-token")));
+    }
+
+    @Test
+    public void testCertificateAndVerifierAreCached() throws Exception {
+
+        assertTrue(tokenValidator.validateAccessToken(buildMessageContext(buildSignedJWT(privateKey).serialize())));
+        Object verifier = getVerifierCache().values().iterator().next();
+        assertTrue(tokenValidator.validateAccessToken(buildMessageContext(buildSignedJWT(privateKey).serialize())));
+
+        verifyStatic(times(1));
+        IdentityApplicationManagementUtil.decodeCertificate(anyString());
+        assertEquals(getCertificateCache().size(), 1);
+        assertEquals(getVerifierCache().size(), 1);
+        assertSame(getVerifierCache().values().iterator().next(), verifier);
+    }
+
+    @Test
+    public void testCachesAreClearedAtMaxSize() throws Exception {
+
+        assertTrue(tokenValidator.validateAccessToken(buildMessageContext(buildSignedJWT(privateKey).serialize())));
+        Map<String, Object> certificateCache = getCertificateCache();
+        Map<String, Object> verifierCache = getVerifierCache();
+        Object cachedCertificate = certificateCache.values().iterator().next();
+        Object verifier = verifierCache.values().iterator().next();
+        certificateCache.clear();
+        verifierCache.clear();
+        for (int i = 0; i < MAX_CACHE_SIZE; i++) {
+            certificateCache.put(UUID.randomUUID().toString(), cachedCertificate);
+            verifierCache.put(UUID.randomUUID().toString(), verifier);
+        }
+
+        assertTrue(tokenValidator.validateAccessToken(buildMessageContext(buildSignedJWT(privateKey).serialize())));
+        assertEquals(certificateCache.size(), 1);
+        assertEquals(verifierCache.size(), 1);
+    }
+
+    @Test
+    public void testRotatedCertificateIsNotServedFromCache() throws Exception {
+
+        assertTrue(tokenValidator.validateAccessToken(buildMessageContext(buildSignedJWT(privateKey).serialize())));
+        Object verifier = getVerifierCache().values().iterator().next();
+
+        residentIdP.setCertificate(rotatedCertificate);
+        assertTrue(tokenValidator.validateAccessToken(
+                buildMessageContext(buildSignedJWT(rotatedPrivateKey).serialize())));
+        assertFalse(tokenValidator.validateAccessToken(buildMessageContext(buildSignedJWT(privateKey).serialize())));
+        assertNotSame(getVerifierCache().get(ISSUER + ":" + getThumbprint(rotatedCertificate)), verifier);
+    }
+
+    @Test
+    public void testCertificateResolvedByExtensionIsVerified() throws Exception {
+
+        X509Certificate resolvedCertificate =
+                (X509Certificate) IdentityApplicationManagementUtil.decodeCertificate(rotatedCertificate);
+        OAuth2JWTTokenValidator extendedTokenValidator = new OAuth2JWTTokenValidator() {
+
+            @Override
+            protected X509Certificate resolveSignerCertificate(JWSHeader header, IdentityProvider idp) {
+
+                return resolvedCertificate;
+            }
+        };
+
+        assertTrue(extendedTokenValidator.validateAccessToken(
+                buildMessageContext(buildSignedJWT(rotatedPrivateKey).serialize())));
+        assertFalse(extendedTokenValidator.validateAccessToken(
+                buildMessageContext(buildSignedJWT(privateKey).serialize())));
+        assertEquals(getVerifierCache().keySet(),
+                Collections.singleton(ISSUER + ":" + getThumbprint(rotatedCertificate)));
+    }
+
+    private SignedJWT buildSignedJWT(PrivateKey signingKey) throws Exception {
+
+        JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("admin")
+                .audience(Collections.singletonList("client"))
+                .jwtID(UUID.randomUUID().toString())
+                .expirationTime(new Date(System.currentTimeMillis() + 3600000L))
+                .build();
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.RS256), claimsSet);
+        signedJWT.sign(new RSASSASigner(signingKey));
+        return signedJWT;
+    }
+
+    private OAuth2TokenValidationMessageContext buildMessageContext(String token) {
+
+        OAuth2TokenValidationRequestDTO requestDTO = new OAuth2TokenValidationRequestDTO();
+        OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = requestDTO.new OAuth2AccessToken();
+        accessToken.setIdentifier(token);
+        accessToken.setTokenType("JWT");
+        requestDTO.setAccessToken(accessToken);
+        return new OAuth2TokenValidationMessageContext(requestDTO, new OAuth2TokenValidationResponseDTO());
+    }
+
+    private static String encode(X509Certificate x509Certificate) throws Exception {
+
+        return Base64.encodeBase64String(x509Certificate.getEncoded());
+    }
+
+    private static String getThumbprint(String encodedCertificate) throws Exception {
+
+        X509Certificate x509Certificate =
+                (X509Certificate) IdentityApplicationManagementUtil.decodeCertificate(encodedCertificate);
+        return Whitebox.invokeMethod(OAuth2JWTTokenValidator.class, "getThumbprint", x509Certificate);
+    }
+
+    private static Map<String, Object> getCertificateCache() {
+
+        return Whitebox.getInternalState(OAuth2JWTTokenValidator.class, "CERTIFICATE_CACHE");
+    }
+
+    private static Map<String, Object> getVerifierCache() {
+
+        return Whitebox.getInternalState(OAuth2JWTTokenValidator.class, "VERIFIER_CACHE");
+    }
+}
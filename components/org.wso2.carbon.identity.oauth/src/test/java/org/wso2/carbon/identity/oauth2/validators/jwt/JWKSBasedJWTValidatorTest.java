@@ -91,9 +91,9 @@ public class JWKSBasedJWTValidatorTest extends PowerMockIdentityBaseTest {
         TestScenario testScenario = (TestScenario) test;
 
         if (testScenario == TestScenario.INVALID_JWKS) {
-            doThrow(testScenario.throwError()).when(dataProvider).getJWKSource(jwksUri);
+            doThrow(testScenario.throwError()).when(dataProvider).getCachedJWKSource(jwksUri);
         } else {
-            when(JWKSourceDataProvider.getInstance().getJWKSource(anyString())).thenReturn(jwkSet);
+            when(JWKSourceDataProvider.getInstance().getCachedJWKSource(anyString())).thenReturn(jwkSet);
         }
 
         if (testScenario == TestScenario.VALID_JWT) {
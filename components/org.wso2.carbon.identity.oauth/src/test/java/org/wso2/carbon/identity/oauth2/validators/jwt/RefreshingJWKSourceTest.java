@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth2.validators.jwt;
+
+import com.nimbusds.jose.RemoteKeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for RefreshingJWKSource.
+ */
+public class RefreshingJWKSourceTest {
+
+    private static final String JWKS_URI = "https://localhost:9443/oauth2/jwks";
+    private static final String JWKS_TEMPLATE = "{\"keys\":[{\"kty\":\"oct\",\"kid\":\"%s\"," +
+            "\"k\":\"AyM1SysPpbyDfgZld3umj1qzKObwVMkoqQ-EstJQLr_T-1qS0gZH75aKtMN3Yj0iPS4hcgUuTwjAzZr1Z9CAow\"}]}";
+
+    private StubResourceRetriever resourceRetriever;
+
+    @BeforeMethod
+    public void setUp() {
+
+        resourceRetriever = new StubResourceRetriever();
+        resourceRetriever.keyID = "key1";
+    }
+
+    @Test
+    public void testJWKSetIsFetchedOnce() throws Exception {
+
+        RefreshingJWKSource jwkSource = createJWKSource(60000, 60000);
+
+        assertEquals(jwkSource.get(selectKey("key1"), null).size(), 1);
+        assertEquals(jwkSource.get(selectKey("key1"), null).size(), 1);
+        assertEquals(resourceRetriever.retrievalCount.get(), 1);
+        assertEquals(jwkSource.getFetchCount(), 1);
+    }
+
+    @Test
+    public void testUnknownKeyIDRefetchesJWKSet() throws Exception {
+
+        RefreshingJWKSource jwkSource = createJWKSource(60000, 0);
+        jwkSource.get(selectKey("key1"), null);
+        resourceRetriever.keyID = "key2";
+
+        List<JWK> matches = jwkSource.get(selectKey("key2"), null);
+
+        assertEquals(matches.size(), 1);
+        assertEquals(resourceRetriever.retrievalCount.get(), 2);
+    }
+
+    @Test
+    public void testUnknownKeyIDRefetchIsRateLimited() throws Exception {
+
+        RefreshingJWKSource jwkSource = createJWKSource(60000, 60000);
+        jwkSource.get(selectKey("key1"), null);
+        resourceRetriever.keyID = "key2";
+
+        assertTrue(jwkSource.get(selectKey("key2"), null).isEmpty());
+        assertEquals(resourceRetriever.retrievalCount.get(), 1);
+    }
+
+    @Test
+    public void testLastJWKSetIsServedWhenRefreshFails() throws Exception {
+
+        RefreshingJWKSource jwkSource = createJWKSource(0, 0);
+        jwkSource.get(selectKey("key1"), null);
+        Thread.sleep(2);
+        resourceRetriever.failure = true;
+
+        // The background refresh runs on the calling thread and fails, while the last fetched set is served.
+        assertEquals(jwkSource.get(selectKey("key1"), null).size(), 1);
+        assertEquals(jwkSource.get(selectKey("key1"), null).size(), 1);
+        assertTrue(jwkSource.getFailedFetchCount() > 0);
+    }
+
+    @Test(expectedExceptions = RemoteKeySourceException.class)
+    public void testFirstFetchFailure() throws Exception {
+
+        resourceRetriever.failure = true;
+        createJWKSource(60000, 60000).get(selectKey("key1"), null);
+    }
+
+    private RefreshingJWKSource createJWKSource(long refreshInterval, long minRefetchInterval) throws Exception {
+
+        return new RefreshingJWKSource(new URL(JWKS_URI), resourceRetriever, refreshInterval, minRefetchInterval,
+                Runnable::run);
+    }
+
+    private static JWKSelector selectKey(String keyID) {
+
+        return new JWKSelector(new JWKMatcher.Builder().keyID(keyID).build());
+    }
+
+    private static class StubResourceRetriever implements ResourceRetriever {
+
+        private final AtomicInteger retrievalCount = new AtomicInteger();
+        private volatile String keyID;
+        private volatile boolean failure;
+
+        @Override
+        public Resource retrieveResource(URL url) throws IOException {
+
+            retrievalCount.incrementAndGet();
+            if (failure) {
+                throw new IOException("Connection refused");
+            }
+            return new Resource(String.format(JWKS_TEMPLATE, keyID), "application/json");
+        }
+    }
+}
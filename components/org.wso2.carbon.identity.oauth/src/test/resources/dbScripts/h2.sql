@@ -104,3 +104,10 @@ CREATE TABLE IF NOT EXISTS IDN_OAUTH2_USER_CONSENTED_SCOPES (
     FOREIGN KEY (CONSENT_ID) REFERENCES IDN_OAUTH2_USER_CONSENT(CONSENT_ID) ON DELETE CASCADE,
     UNIQUE (CONSENT_ID, SCOPE)
 );
+
+CREATE TABLE IF NOT EXISTS IDN_OAUTH2_TOKEN_ISSUANCE_LOCK (
+    LOCK_KEY VARCHAR(64) NOT NULL,
+    LOCK_OWNER VARCHAR(36) NOT NULL,
+    LOCKED_TIME TIMESTAMP NOT NULL,
+    PRIMARY KEY (LOCK_KEY)
+);
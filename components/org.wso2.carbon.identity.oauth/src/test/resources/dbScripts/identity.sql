@@ -777,6 +777,13 @@ CREATE TABLE IF NOT EXISTS  IDN_OIDC_PROPERTY (
             FOREIGN KEY (CONSUMER_KEY) REFERENCES IDN_OAUTH_CONSUMER_APPS(CONSUMER_KEY) ON DELETE CASCADE
 );
 
+CREATE TABLE IF NOT EXISTS IDN_OAUTH2_TOKEN_ISSUANCE_LOCK (
+    LOCK_KEY VARCHAR(64) NOT NULL,
+    LOCK_OWNER VARCHAR(36) NOT NULL,
+    LOCKED_TIME TIMESTAMP NOT NULL,
+    PRIMARY KEY (LOCK_KEY)
+);
+
 
 INSERT INTO IDN_OAUTH_CONSUMER_APPS (CONSUMER_KEY, CONSUMER_SECRET, USERNAME, TENANT_ID, USER_DOMAIN, APP_NAME,
 OAUTH_VERSION, CALLBACK_URL, GRANT_TYPES, USER_ACCESS_TOKEN_EXPIRE_TIME, APP_ACCESS_TOKEN_EXPIRE_TIME,
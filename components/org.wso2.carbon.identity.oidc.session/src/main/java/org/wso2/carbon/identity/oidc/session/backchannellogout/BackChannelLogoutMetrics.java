@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oidc.session.backchannellogout;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the back-channel logout request dispatcher.
+ */
+public class BackChannelLogoutMetrics {
+
+    private final AtomicLong submittedRequestCount = new AtomicLong();
+    private final AtomicLong deliveredRequestCount = new AtomicLong();
+    private final AtomicLong failedRequestCount = new AtomicLong();
+    private final AtomicLong droppedRequestCount = new AtomicLong();
+    private final AtomicLong retriedRequestCount = new AtomicLong();
+    private final Map<String, EndpointStats> endpointStats = new ConcurrentHashMap<>();
+
+    void recordSubmitted() {
+
+        submittedRequestCount.incrementAndGet();
+    }
+
+    void recordDelivered() {
+
+        deliveredRequestCount.incrementAndGet();
+    }
+
+    void recordFailed() {
+
+        failedRequestCount.incrementAndGet();
+    }
+
+    void recordDropped() {
+
+        droppedRequestCount.incrementAndGet();
+    }
+
+    void recordRetried() {
+
+        retriedRequestCount.incrementAndGet();
+    }
+
+    void recordAttempt(String endpoint, long latencyNanos, boolean successful) {
+
+        endpointStats.computeIfAbsent(endpoint, key -> new EndpointStats()).record(latencyNanos, successful);
+    }
+
+    /**
+     * @return Number of logout requests accepted by the dispatcher.
+     */
+    public long getSubmittedRequestCount() {
+
+        return submittedRequestCount.get();
+    }
+
+    /**
+     * @return Number of logout requests accepted by the relying parties.
+     */
+    public long getDeliveredRequestCount() {
+
+        return deliveredRequestCount.get();
+    }
+
+    /**
+     * @return Number of logout requests which failed after all retries.
+     */
+    public long getFailedRequestCount() {
+
+        return failedRequestCount.get();
+    }
+
+    /**
+     * @return Number of logout requests dropped since the dispatcher queue was full or stopped.
+     */
+    public long getDroppedRequestCount() {
+
+        return droppedRequestCount.get();
+    }
+
+    /**
+     * @return Number of retry attempts scheduled.
+     */
+    public long getRetriedRequestCount() {
+
+        return retriedRequestCount.get();
+    }
+
+    /**
+     * @return Per endpoint statistics keyed by the scheme, host and port of the back-channel logout URL.
+     */
+    public Map<String, EndpointStats> getEndpointStats() {
+
+        return Collections.unmodifiableMap(endpointStats);
+    }
+
+    @Override
+    public String toString() {
+
+        return "submitted: " + getSubmittedRequestCount() + ", delivered: " + getDeliveredRequestCount() +
+                ", failed: " + getFailedRequestCount() + ", dropped: " + getDroppedRequestCount() + ", retried: " +
+                getRetriedRequestCount();
+    }
+
+    /**
+     * Latency and failure counters of a single back-channel logout endpoint.
+     */
+    public static class EndpointStats {
+
+        private final AtomicLong attemptCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        private void record(long latencyNanos, boolean successful) {
+
+            attemptCount.incrementAndGet();
+            if (!successful) {
+                failureCount.incrementAndGet();
+            }
+            totalLatencyNanos.addAndGet(latencyNanos);
+            long currentMax;
+            do {
+                currentMax = maxLatencyNanos.get();
+            } while (latencyNanos > currentMax && !maxLatencyNanos.compareAndSet(currentMax, latencyNanos));
+        }
+
+        public long getAttemptCount() {
+
+            return attemptCount.get();
+        }
+
+        public long getFailureCount() {
+
+            return failureCount.get();
+        }
+
+        public long getAverageLatencyMillis() {
+
+            long attempts = attemptCount.get();
+            if (attempts == 0) {
+                return 0;
+            }
+            return TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get() / attempts);
+        }
+
+        public long getMaxLatencyMillis() {
+
+            return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+        }
+
+        @Override
+        public String toString() {
+
+            return "attempts: " + getAttemptCount() + ", failures: " + getFailureCount() + ", avgLatency: " +
+                    getAverageLatencyMillis() + "ms, maxLatency: " + getMaxLatencyMillis() + "ms";
+        }
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oidc.session.backchannellogout;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.wso2.carbon.identity.base.IdentityConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.util.OAuthTaskExecutor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.wso2.carbon.identity.oauth2.util.OAuth2ConfigUtil.getIntProperty;
+
+/**
+ * Dispatches back-channel logout requests to the relying parties.
+ * <p>
+ * The number of logout requests held by the dispatcher, including the ones waiting for a retry, is bounded and
+ * requests submitted beyond that limit are dropped and counted. Requests to the same relying party host are limited
+ * to a configurable number of concurrent calls, so that a slow relying party cannot occupy all the workers, while
+ * requests to other hosts keep flowing. Requests failing with an I/O error or a 5xx response are retried with an
+ * exponential, jittered backoff. A single pooled HTTP client is shared by all the requests so that keep-alive
+ * connections to the relying parties are reused.
+ * <p>
+ * The dispatcher is configured in identity.xml under OAuth.OpenIDConnect.BackChannelLogout.Dispatcher.
+ */
+public class LogoutRequestDispatcher {
+
+    private static final Log log = LogFactory.getLog(LogoutRequestDispatcher.class);
+
+    private static final String CONFIG_PREFIX = "OAuth.OpenIDConnect.BackChannelLogout.Dispatcher.";
+    private static final String POOL_SIZE = CONFIG_PREFIX + "PoolSize";
+    private static final String QUEUE_SIZE = CONFIG_PREFIX + "QueueSize";
+    private static final String MAX_CONCURRENT_REQUESTS_PER_HOST = CONFIG_PREFIX + "MaxConcurrentRequestsPerHost";
+    private static final String MAX_RETRIES = CONFIG_PREFIX + "MaxRetries";
+    private static final String RETRY_BASE_DELAY_MILLIS = CONFIG_PREFIX + "RetryBaseDelayMillis";
+    private static final String RETRY_MAX_DELAY_MILLIS = CONFIG_PREFIX + "RetryMaxDelayMillis";
+    private static final String CONNECT_TIMEOUT_MILLIS = CONFIG_PREFIX + "ConnectTimeoutMillis";
+    private static final String SOCKET_TIMEOUT_MILLIS = CONFIG_PREFIX + "SocketTimeoutMillis";
+    private static final String MAX_CONNECTIONS = CONFIG_PREFIX + "MaxConnections";
+
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final int DEFAULT_QUEUE_SIZE = 10000;
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST = 2;
+    private static final int DEFAULT_MAX_RETRIES = 2;
+    private static final int DEFAULT_RETRY_BASE_DELAY_MILLIS = 500;
+    private static final int DEFAULT_RETRY_MAX_DELAY_MILLIS = 10000;
+    private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final int DEFAULT_SOCKET_TIMEOUT_MILLIS = 10000;
+    private static final int DEFAULT_MAX_CONNECTIONS = 50;
+
+    private static final String LOGOUT_TOKEN = "logout_token";
+    private static final int SHUTDOWN_WAIT_SECONDS = 5;
+
+    private final int queueSize;
+    private final int maxConcurrentRequestsPerHost;
+    private final int maxRetries;
+    private final long retryBaseDelayMillis;
+    private final long retryMaxDelayMillis;
+    private final AtomicInteger pendingRequestCount = new AtomicInteger();
+    private final ConcurrentMap<String, HostLane> hostLanes = new ConcurrentHashMap<>();
+    private final BackChannelLogoutMetrics metrics = new BackChannelLogoutMetrics();
+    private final ThreadPoolExecutor workers;
+    private final ScheduledThreadPoolExecutor retryScheduler;
+    private final CloseableHttpClient httpClient;
+
+    LogoutRequestDispatcher(int poolSize, int queueSize, int maxConcurrentRequestsPerHost, int maxRetries,
+                            long retryBaseDelayMillis, long retryMaxDelayMillis, CloseableHttpClient httpClient) {
+
+        this.queueSize = queueSize;
+        this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+        this.maxRetries = maxRetries;
+        this.retryBaseDelayMillis = retryBaseDelayMillis;
+        this.retryMaxDelayMillis = retryMaxDelayMillis;
+        this.httpClient = httpClient;
+
+        // The pending request count is bounded on submission, hence the work queue is not expected to be full.
+        OAuthTaskExecutor taskExecutor = OAuthTaskExecutor.getInstance();
+        this.workers = taskExecutor.newDedicatedExecutor("BackChannelLogoutWorker", poolSize, queueSize);
+        this.retryScheduler = taskExecutor.newDedicatedScheduler("BackChannelLogoutRetryScheduler");
+    }
+
+    /**
+     * Create a dispatcher using the configuration in identity.xml.
+     *
+     * @return Logout request dispatcher.
+     */
+    static LogoutRequestDispatcher createFromConfig() {
+
+        int poolSize = getIntProperty(POOL_SIZE, DEFAULT_POOL_SIZE);
+        int queueSize = getIntProperty(QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        int maxConcurrentRequestsPerHost = getIntProperty(MAX_CONCURRENT_REQUESTS_PER_HOST,
+                DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST);
+        int maxRetries = getIntProperty(MAX_RETRIES, DEFAULT_MAX_RETRIES, 0);
+        long retryBaseDelayMillis = getIntProperty(RETRY_BASE_DELAY_MILLIS, DEFAULT_RETRY_BASE_DELAY_MILLIS);
+        long retryMaxDelayMillis = getIntProperty(RETRY_MAX_DELAY_MILLIS, DEFAULT_RETRY_MAX_DELAY_MILLIS);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(getIntProperty(CONNECT_TIMEOUT_MILLIS, DEFAULT_CONNECT_TIMEOUT_MILLIS))
+                .setConnectionRequestTimeout(getIntProperty(CONNECT_TIMEOUT_MILLIS, DEFAULT_CONNECT_TIMEOUT_MILLIS))
+                .setSocketTimeout(getIntProperty(SOCKET_TIMEOUT_MILLIS, DEFAULT_SOCKET_TIMEOUT_MILLIS))
+                .build();
+        HttpClientBuilder httpClientBuilder = HttpClients.custom()
+                .setMaxConnTotal(getIntProperty(MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS))
+                .setMaxConnPerRoute(maxConcurrentRequestsPerHost)
+                .setDefaultRequestConfig(requestConfig);
+        if ("false".equalsIgnoreCase(
+                IdentityUtil.getProperty(IdentityConstants.ServerConfig.SLO_HOST_NAME_VERIFICATION_ENABLED))) {
+            httpClientBuilder.setHostnameVerifier(SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Back-channel logout dispatcher is initialized with " + poolSize + " workers, queue size: " +
+                    queueSize + ", max concurrent requests per host: " + maxConcurrentRequestsPerHost +
+                    " and max retries: " + maxRetries);
+        }
+        return new LogoutRequestDispatcher(poolSize, queueSize, maxConcurrentRequestsPerHost, maxRetries,
+                retryBaseDelayMillis, retryMaxDelayMillis, httpClientBuilder.build());
+    }
+
+    /**
+     * Submit a logout request to be sent asynchronously.
+     *
+     * @param logoutToken           Logout token.
+     * @param backChannelLogoutUrl  Back-channel logout URL of the relying party.
+     * @return true if the request was accepted, false if it was dropped.
+     */
+    public boolean submit(String logoutToken, String backChannelLogoutUrl) {
+
+        String endpoint = getEndpoint(backChannelLogoutUrl);
+        if (endpoint == null) {
+            log.error("Invalid back-channel logout URL: " + backChannelLogoutUrl + ". Logout request is not sent.");
+            metrics.recordFailed();
+            return false;
+        }
+        LogoutRequest logoutRequest = new LogoutRequest(logoutToken, backChannelLogoutUrl, endpoint, 0);
+        if (pendingRequestCount.incrementAndGet() > queueSize) {
+            drop(logoutRequest, "the limit of " + queueSize + " pending requests is reached");
+            return false;
+        }
+        metrics.recordSubmitted();
+        enqueue(logoutRequest);
+        return true;
+    }
+
+    /**
+     * Send the logout request to the relying party.
+     *
+     * @param logoutRequest Logout request.
+     * @return HTTP status code returned by the relying party.
+     * @throws IOException If the request could not be sent.
+     */
+    int send(LogoutRequest logoutRequest) throws IOException {
+
+        List<NameValuePair> logoutReqParams = Collections.singletonList(
+                new BasicNameValuePair(LOGOUT_TOKEN, logoutRequest.logoutToken));
+        HttpPost httpPost = new HttpPost(logoutRequest.backChannelLogoutUrl);
+        httpPost.setEntity(new UrlEncodedFormEntity(logoutReqParams));
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            // Consume the entity so that the connection is returned to the pool for reuse.
+            EntityUtils.consumeQuietly(response.getEntity());
+            if (log.isDebugEnabled()) {
+                log.debug("Backchannel logout response from: " + logoutRequest.backChannelLogoutUrl + " is: " +
+                        response.getStatusLine());
+            }
+            return response.getStatusLine().getStatusCode();
+        }
+    }
+
+    private void enqueue(LogoutRequest logoutRequest) {
+
+        while (true) {
+            HostLane hostLane = hostLanes.computeIfAbsent(logoutRequest.endpoint, key -> new HostLane());
+            synchronized (hostLane) {
+                if (hostLane.retired) {
+                    continue;
+                }
+                if (hostLane.activeRequestCount >= maxConcurrentRequestsPerHost) {
+                    hostLane.waitingRequests.add(logoutRequest);
+                    return;
+                }
+                hostLane.activeRequestCount++;
+            }
+            execute(hostLane, logoutRequest);
+            return;
+        }
+    }
+
+    private void execute(HostLane hostLane, LogoutRequest logoutRequest) {
+
+        try {
+            workers.execute(() -> process(hostLane, logoutRequest));
+        } catch (RejectedExecutionException e) {
+            drop(logoutRequest, workers.isShutdown() ? "the dispatcher is stopped" :
+                    "the worker pool rejected it");
+            release(hostLane, logoutRequest.endpoint);
+        }
+    }
+
+    private void process(HostLane hostLane, LogoutRequest logoutRequest) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Starting backchannel logout request to: " + logoutRequest.backChannelLogoutUrl +
+                    ". Attempt: " + (logoutRequest.attempt + 1));
+        }
+        boolean retryable;
+        long startTime = System.nanoTime();
+        try {
+            int statusCode = send(logoutRequest);
+            boolean successful = statusCode < 400;
+            metrics.recordAttempt(logoutRequest.endpoint, System.nanoTime() - startTime, successful);
+            if (successful) {
+                metrics.recordDelivered();
+                pendingRequestCount.decrementAndGet();
+                return;
+            }
+            // Client errors will not succeed on a retry.
+            retryable = statusCode >= 500;
+            if (!retryable || logoutRequest.attempt >= maxRetries) {
+                log.error("Backchannel logout request to: " + logoutRequest.backChannelLogoutUrl +
+                        " failed with status: " + statusCode);
+            }
+        } catch (IOException | RuntimeException e) {
+            metrics.recordAttempt(logoutRequest.endpoint, System.nanoTime() - startTime, false);
+            retryable = e instanceof IOException;
+            if (!retryable || logoutRequest.attempt >= maxRetries) {
+                log.error("Error sending logout requests to: " + logoutRequest.backChannelLogoutUrl, e);
+            } else if (log.isDebugEnabled()) {
+                log.debug("Error sending logout requests to: " + logoutRequest.backChannelLogoutUrl +
+                        ". The request will be retried.", e);
+            }
+        } finally {
+            release(hostLane, logoutRequest.endpoint);
+        }
+
+        if (retryable && logoutRequest.attempt < maxRetries) {
+            scheduleRetry(logoutRequest);
+        } else {
+            metrics.recordFailed();
+            pendingRequestCount.decrementAndGet();
+        }
+    }
+
+    private void scheduleRetry(LogoutRequest logoutRequest) {
+
+        LogoutRequest retryRequest = new LogoutRequest(logoutRequest.logoutToken, logoutRequest.backChannelLogoutUrl,
+                logoutRequest.endpoint, logoutRequest.attempt + 1);
+        metrics.recordRetried();
+        try {
+            retryScheduler.schedule(() -> enqueue(retryRequest), getRetryDelayMillis(logoutRequest.attempt),
+                    TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            drop(retryRequest, retryScheduler.isShutdown() ? "the dispatcher is stopped" :
+                    "the retry scheduler rejected it");
+        }
+    }
+
+    /**
+     * Exponential backoff with equal jitter, so that retries of a mass logout do not hit a recovering relying party
+     * at the same instant.
+     *
+     * @param attempt Zero based number of the failed attempt.
+     * @return Delay before the next attempt.
+     */
+    long getRetryDelayMillis(int attempt) {
+
+        long delay = retryMaxDelayMillis;
+        if (attempt < 30) {
+            delay = Math.min(retryMaxDelayMillis, retryBaseDelayMillis << attempt);
+        }
+        long halfDelay = delay / 2;
+        return halfDelay + ThreadLocalRandom.current().nextLong(delay - halfDelay + 1);
+    }
+
+    private void release(HostLane hostLane, String endpoint) {
+
+        LogoutRequest nextRequest;
+        synchronized (hostLane) {
+            nextRequest = hostLane.waitingRequests.poll();
+            if (nextRequest == null) {
+                hostLane.activeRequestCount--;
+                if (hostLane.activeRequestCount == 0) {
+                    hostLane.retired = true;
+                    hostLanes.remove(endpoint, hostLane);
+                }
+                return;
+            }
+        }
+        // The slot of the completed request is handed over to the next waiting request of the same host.
+        execute(hostLane, nextRequest);
+    }
+
+    /**
+     * Drop a pending logout request.
+     *
+     * @param logoutRequest Logout request counted in the pending requests.
+     * @param reason        Reason to drop the request, to be logged.
+     */
+    private void drop(LogoutRequest logoutRequest, String reason) {
+
+        metrics.recordDropped();
+        pendingRequestCount.decrementAndGet();
+        log.warn("Dropping the back-channel logout request to: " + logoutRequest.backChannelLogoutUrl + " as " +
+                reason + ".");
+    }
+
+    /**
+     * Stop the dispatcher. Requests which are already being sent are allowed to complete within a grace period,
+     * while queued requests and pending retries are dropped.
+     */
+    void shutdown() {
+
+        retryScheduler.shutdownNow();
+        List<Runnable> queuedRequests = workers.shutdownNow();
+        try {
+            if (!workers.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Back-channel logout requests did not complete within " + SHUTDOWN_WAIT_SECONDS +
+                        " seconds of the shutdown.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.error("Error while closing the back-channel logout HTTP client.", e);
+        }
+        if (!queuedRequests.isEmpty() || log.isDebugEnabled()) {
+            log.info("Back-channel logout dispatcher is stopped. Dropped " + queuedRequests.size() +
+                    " queued requests. " + metrics);
+        }
+    }
+
+    /**
+     * @return Number of logout requests which are queued, being sent or waiting for a retry.
+     */
+    public int getPendingRequestCount() {
+
+        return pendingRequestCount.get();
+    }
+
+    public BackChannelLogoutMetrics getMetrics() {
+
+        return metrics;
+    }
+
+    private static String getEndpoint(String backChannelLogoutUrl) {
+
+        if (StringUtils.isBlank(backChannelLogoutUrl)) {
+            return null;
+        }
+        try {
+            URI uri = new URI(backChannelLogoutUrl);
+            if (uri.getHost() == null) {
+                return null;
+            }
+            return uri.getScheme() + "://" + uri.getHost() + (uri.getPort() == -1 ? "" : ":" + uri.getPort());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Requests of a single relying party host and the number of them being sent.
+     */
+    private static class HostLane {
+
+        private final Queue<LogoutRequest> waitingRequests = new ArrayDeque<>();
+        private int activeRequestCount;
+        private boolean retired;
+    }
+
+    /**
+     * A single logout request to a session participant.
+     */
+    static class LogoutRequest {
+
+        private final String logoutToken;
+        private final String backChannelLogoutUrl;
+        private final String endpoint;
+        private final int attempt;
+
+        LogoutRequest(String logoutToken, String backChannelLogoutUrl, String endpoint, int attempt) {
+
+            this.logoutToken = logoutToken;
+            this.backChannelLogoutUrl = backChannelLogoutUrl;
+            this.endpoint = endpoint;
+            this.attempt = attempt;
+        }
+
+        String getBackChannelLogoutUrl() {
+
+            return backChannelLogoutUrl;
+        }
+
+        int getAttempt() {
+
+            return attempt;
+        }
+    }
+}
@@ -20,28 +20,12 @@ package org.wso2.carbon.identity.oidc.session.backchannellogout;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.http.HttpResponse;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.message.BasicNameValuePair;
 import org.wso2.carbon.base.MultitenantConstants;
-import org.wso2.carbon.identity.base.IdentityConstants;
-import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oidc.session.util.OIDCSessionManagementUtil;
 
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
@@ -52,9 +36,8 @@ import javax.servlet.http.HttpServletRequest;
 public class LogoutRequestSender {
 
     private static final Log log = LogFactory.getLog(LogoutRequestSender.class);
-    private static ExecutorService threadPool = Executors.newFixedThreadPool(2);
     private static LogoutRequestSender instance = new LogoutRequestSender();
-    private static final String LOGOUT_TOKEN = "logout_token";
+    private volatile LogoutRequestDispatcher dispatcher;
 
     private LogoutRequestSender() {
 
@@ -114,14 +97,13 @@ public class LogoutRequestSender {
 
         Map<String, String> logoutTokenList = getLogoutTokenList(opbsCookieId, tenantDomain);
         if (MapUtils.isNotEmpty(logoutTokenList)) {
-            // For each logoutReq, create a new task and submit it to the thread pool.
+            // For each logoutReq, submit a request to the dispatcher.
+            LogoutRequestDispatcher logoutRequestDispatcher = getDispatcher();
             for (Map.Entry<String, String> logoutTokenMap : logoutTokenList.entrySet()) {
                 String logoutToken = logoutTokenMap.getKey();
                 String bcLogoutUrl = logoutTokenMap.getValue();
-                threadPool.submit(new LogoutReqSenderTask(logoutToken, bcLogoutUrl));
-                if (log.isDebugEnabled()) {
-                    log.debug("A logoutReqSenderTask is assigned to the thread pool");
-
+                if (logoutRequestDispatcher.submit(logoutToken, bcLogoutUrl) && log.isDebugEnabled()) {
+                    log.debug("A logout request to: " + bcLogoutUrl + " is assigned to the dispatcher");
                 }
             }
         }
@@ -146,59 +128,37 @@ public class LogoutRequestSender {
     }
 
     /**
-     * This class is used to model a single logout request that is being sent to a session participant.
-     * It will send the logout req. to the session participant in its 'run' method when this job is
-     * submitted to the thread pool.
+     * Get the dispatcher used to send the logout requests, creating it on first use.
+     *
+     * @return Logout request dispatcher.
      */
-    private class LogoutReqSenderTask implements Runnable {
-
-        private String logoutToken;
-        private String backChannelLogouturl;
-
-        public LogoutReqSenderTask(String logoutToken, String backChannelLogouturl) {
-
-            this.logoutToken = logoutToken;
-            this.backChannelLogouturl = backChannelLogouturl;
-        }
-
-        @Override
-        public void run() {
-
-            if (log.isDebugEnabled()) {
-                log.debug("Starting backchannel logout request to: " + backChannelLogouturl);
+    public LogoutRequestDispatcher getDispatcher() {
+
+        LogoutRequestDispatcher logoutRequestDispatcher = dispatcher;
+        if (logoutRequestDispatcher == null) {
+            synchronized (this) {
+                logoutRequestDispatcher = dispatcher;
+                if (logoutRequestDispatcher == null) {
+                    logoutRequestDispatcher = LogoutRequestDispatcher.createFromConfig();
+                    dispatcher = logoutRequestDispatcher;
+                }
             }
+        }
+        return logoutRequestDispatcher;
+    }
 
-            List<NameValuePair> logoutReqParams = new ArrayList<NameValuePair>();
-            String hostNameVerificationEnabledProperty =
-                    IdentityUtil.getProperty(IdentityConstants.ServerConfig.SLO_HOST_NAME_VERIFICATION_ENABLED);
-            boolean isHostNameVerificationEnabled = true;
-            if ("false".equalsIgnoreCase(hostNameVerificationEnabledProperty)) {
-                isHostNameVerificationEnabled = false;
-            }
-            try {
-                HttpClient httpClient;
-                if (!isHostNameVerificationEnabled) {
-                    httpClient = HttpClients.custom()
-                            .setHostnameVerifier(SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER)
-                            .build();
-                } else {
-                    httpClient = HttpClients.createDefault();
-                }
-                logoutReqParams.add(new BasicNameValuePair(LOGOUT_TOKEN, logoutToken));
-                HttpPost httpPost = new HttpPost(backChannelLogouturl);
-                try {
-                    httpPost.setEntity(new UrlEncodedFormEntity(logoutReqParams));
-                } catch (UnsupportedEncodingException e) {
-                    log.error("Error while sending logout token", e);
-                }
-                HttpResponse response = httpClient.execute(httpPost);
-                if (log.isDebugEnabled()) {
-                    log.debug("Backchannel logout response: " + response.getStatusLine());
-                }
+    /**
+     * Stop sending logout requests and release the pooled HTTP connections.
+     */
+    public void shutdown() {
 
-            } catch (IOException e) {
-                log.error("Error sending logout requests to: " + backChannelLogouturl, e);
-            }
+        LogoutRequestDispatcher logoutRequestDispatcher;
+        synchronized (this) {
+            logoutRequestDispatcher = dispatcher;
+            dispatcher = null;
+        }
+        if (logoutRequestDispatcher != null) {
+            logoutRequestDispatcher.shutdown();
         }
     }
 }
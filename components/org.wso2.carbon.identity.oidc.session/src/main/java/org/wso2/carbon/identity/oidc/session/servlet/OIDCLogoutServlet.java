@@ -51,6 +51,7 @@ import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.token.bindings.TokenBinder;
+import org.wso2.carbon.identity.oauth2.util.CallbackURLMatcher;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oidc.session.OIDCSessionConstants;
 import org.wso2.carbon.identity.oidc.session.OIDCSessionManagementException;
@@ -527,12 +528,7 @@ public class OIDCLogoutServlet extends HttpServlet {
             return true;
         }
 
-        String regexp = null;
-        if (registeredCallbackUri.startsWith(OAuthConstants.CALLBACK_URL_REGEXP_PREFIX)) {
-            regexp = registeredCallbackUri.substring(OAuthConstants.CALLBACK_URL_REGEXP_PREFIX.length());
-        }
-
-        if (regexp != null && postLogoutUri.matches(regexp)) {
+        if (CallbackURLMatcher.getInstance().matches(registeredCallbackUri, postLogoutUri)) {
             return true;
         } else if (registeredCallbackUri.equals(postLogoutUri)) {
             return true;
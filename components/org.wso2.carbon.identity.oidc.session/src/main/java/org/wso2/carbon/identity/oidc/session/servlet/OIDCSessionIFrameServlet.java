@@ -26,6 +26,7 @@ import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.common.exception.InvalidOAuthClientException;
 import org.wso2.carbon.identity.oauth.dao.OAuthAppDO;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.CallbackURLMatcher;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.identity.oidc.session.OIDCSessionConstants;
 import org.wso2.carbon.identity.oidc.session.OIDCSessionManagerException;
@@ -127,9 +128,7 @@ public class OIDCSessionIFrameServlet extends HttpServlet {
                 if (log.isDebugEnabled()) {
                     log.debug("Requested redirect_uri from rp IFrame : " + rpIFrameReqCallbackURL);
                 }
-                String regexp = configuredCallbackURL
-                        .substring(OAuthConstants.CALLBACK_URL_REGEXP_PREFIX.length());
-                if (rpIFrameReqCallbackURL.matches(regexp)) {
+                if (CallbackURLMatcher.getInstance().matches(configuredCallbackURL, rpIFrameReqCallbackURL)) {
                     if (log.isDebugEnabled()) {
                         log.debug("Requested redirect_uri is matched with the regex in service provider.");
                     }
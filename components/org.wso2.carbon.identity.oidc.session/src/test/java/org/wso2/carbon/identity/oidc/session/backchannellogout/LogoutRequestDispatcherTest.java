@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2021, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oidc.session.backchannellogout;
+
+import org.apache.http.impl.client.HttpClients;
+import org.testng.annotations.Test;
+import org.wso2.carbon.identity.testutil.IdentityBaseTest;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests for LogoutRequestDispatcher.
+ */
+public class LogoutRequestDispatcherTest extends IdentityBaseTest {
+
+    private static final String LOGOUT_URL = "https://rp.example.com:8443/logout";
+    private static final String OTHER_LOGOUT_URL = "https://other.example.com/logout";
+
+    @Test
+    public void testConcurrentRequestsPerHostAreLimited() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(6);
+        AtomicInteger activeRequests = new AtomicInteger();
+        AtomicInteger maxActiveRequests = new AtomicInteger();
+        AtomicInteger otherHostRequests = new AtomicInteger();
+
+        LogoutRequestDispatcher dispatcher = new LogoutRequestDispatcher(4, 100, 1, 0, 1, 1,
+                HttpClients.createDefault()) {
+            @Override
+            int send(LogoutRequest logoutRequest) throws IOException {
+
+                try {
+                    if (OTHER_LOGOUT_URL.equals(logoutRequest.getBackChannelLogoutUrl())) {
+                        otherHostRequests.incrementAndGet();
+                        return 200;
+                    }
+                    int active = activeRequests.incrementAndGet();
+                    maxActiveRequests.accumulateAndGet(active, Math::max);
+                    release.await(5, TimeUnit.SECONDS);
+                    activeRequests.decrementAndGet();
+                    return 200;
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                } finally {
+                    completed.countDown();
+                }
+            }
+        };
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(dispatcher.submit("token" + i, LOGOUT_URL));
+            }
+            assertTrue(dispatcher.submit("token", OTHER_LOGOUT_URL));
+            // Requests to other hosts are not blocked behind the saturated host.
+            long deadline = System.currentTimeMillis() + 5000;
+            while (otherHostRequests.get() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(otherHostRequests.get(), 1);
+            release.countDown();
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+            assertEquals(maxActiveRequests.get(), 1);
+            awaitNoPendingRequests(dispatcher);
+            assertEquals(dispatcher.getMetrics().getDeliveredRequestCount(), 6);
+            assertEquals(dispatcher.getMetrics().getEndpointStats().get("https://rp.example.com:8443")
+                    .getAttemptCount(), 5);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testRequestsAreDroppedWhenQueueIsFull() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        LogoutRequestDispatcher dispatcher = new LogoutRequestDispatcher(1, 2, 1, 0, 1, 1,
+                HttpClients.createDefault()) {
+            @Override
+            int send(LogoutRequest logoutRequest) throws IOException {
+
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return 200;
+            }
+        };
+        try {
+            assertTrue(dispatcher.submit("token1", LOGOUT_URL));
+            assertTrue(dispatcher.submit("token2", LOGOUT_URL));
+            assertFalse(dispatcher.submit("token3", LOGOUT_URL));
+            assertEquals(dispatcher.getMetrics().getDroppedRequestCount(), 1);
+            release.countDown();
+            awaitNoPendingRequests(dispatcher);
+            assertEquals(dispatcher.getMetrics().getDeliveredRequestCount(), 2);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testServerErrorsAreRetried() throws Exception {
+
+        AtomicInteger attempts = new AtomicInteger();
+        LogoutRequestDispatcher dispatcher = new LogoutRequestDispatcher(1, 10, 1, 2, 1, 5,
+                HttpClients.createDefault()) {
+            @Override
+            int send(LogoutRequest logoutRequest) {
+
+                attempts.incrementAndGet();
+                return LOGOUT_URL.equals(logoutRequest.getBackChannelLogoutUrl()) ? 503 : 400;
+            }
+        };
+        try {
+            assertTrue(dispatcher.submit("token", LOGOUT_URL));
+            awaitNoPendingRequests(dispatcher);
+            assertEquals(attempts.get(), 3);
+            assertEquals(dispatcher.getMetrics().getRetriedRequestCount(), 2);
+            assertEquals(dispatcher.getMetrics().getFailedRequestCount(), 1);
+
+            // Client errors are not retried.
+            assertTrue(dispatcher.submit("token", OTHER_LOGOUT_URL));
+            awaitNoPendingRequests(dispatcher);
+            assertEquals(attempts.get(), 4);
+            assertEquals(dispatcher.getMetrics().getFailedRequestCount(), 2);
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testRetryDelayIsBoundedAndJittered() {
+
+        LogoutRequestDispatcher dispatcher = new LogoutRequestDispatcher(1, 10, 1, 2, 100, 1000,
+                HttpClients.createDefault());
+        try {
+            for (int attempt = 0; attempt < 40; attempt++) {
+                long expected = Math.min(1000, attempt < 30 ? 100L << attempt : 1000);
+                long delay = dispatcher.getRetryDelayMillis(attempt);
+                assertTrue(delay >= expected / 2 && delay <= expected, "Unexpected delay: " + delay);
+            }
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    private static void awaitNoPendingRequests(LogoutRequestDispatcher dispatcher) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getPendingRequestCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(dispatcher.getPendingRequestCount(), 0);
+    }
+}
@@ -0,0 +1,8 @@
+-- Lock table of the cluster wide token issuance lock manager (OAuth.TokenIssuanceLock.ClusterWide.Enable).
+IF NOT EXISTS (SELECT * FROM SYS.OBJECTS WHERE OBJECT_ID = OBJECT_ID(N'[DBO].[IDN_OAUTH2_TOKEN_ISSUANCE_LOCK]') AND TYPE IN (N'U'))
+CREATE TABLE IDN_OAUTH2_TOKEN_ISSUANCE_LOCK (
+    LOCK_KEY VARCHAR(64) NOT NULL,
+    LOCK_OWNER VARCHAR(36) NOT NULL,
+    LOCKED_TIME DATETIME NOT NULL,
+    PRIMARY KEY (LOCK_KEY)
+);
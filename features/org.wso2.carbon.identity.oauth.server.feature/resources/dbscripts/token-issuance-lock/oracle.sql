@@ -0,0 +1,7 @@
+-- Lock table of the cluster wide token issuance lock manager (OAuth.TokenIssuanceLock.ClusterWide.Enable).
+CREATE TABLE IDN_OAUTH2_TOKEN_ISSUANCE_LOCK (
+    LOCK_KEY VARCHAR2(64) NOT NULL,
+    LOCK_OWNER VARCHAR2(36) NOT NULL,
+    LOCKED_TIME TIMESTAMP NOT NULL,
+    PRIMARY KEY (LOCK_KEY))
+/
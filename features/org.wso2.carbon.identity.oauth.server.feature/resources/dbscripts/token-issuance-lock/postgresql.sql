@@ -0,0 +1,7 @@
+-- Lock table of the cluster wide token issuance lock manager (OAuth.TokenIssuanceLock.ClusterWide.Enable).
+CREATE TABLE IF NOT EXISTS IDN_OAUTH2_TOKEN_ISSUANCE_LOCK (
+    LOCK_KEY VARCHAR(64) NOT NULL,
+    LOCK_OWNER VARCHAR(36) NOT NULL,
+    LOCKED_TIME TIMESTAMP NOT NULL,
+    PRIMARY KEY (LOCK_KEY)
+);